@@ -0,0 +1,74 @@
+package com.domain.backend.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.mapping.context.MappingContext;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tạo các chỉ mục khai báo bằng annotation (@Indexed, @CompoundIndex, @TextIndexed) trên các entity khi ứng dụng
+ * khởi động xong.
+ * <p>
+ * spring.data.mongodb.auto-index-creation không được bật, nên nếu không có lớp này các chỉ mục đó không bao giờ được
+ * tạo: các upsert theo khóa (entSeq của từ vựng, entityType/entityId của searchIndex) và các truy vấn theo
+ * searchKeys/readings/meaningTerms trở thành quét toàn bộ collection, và ràng buộc unique không được đảm bảo.
+ * Chạy trước các listener khởi động khác để các lần nạp/đánh chỉ mục ban đầu đã có chỉ mục để dùng.
+ */
+@Component
+public class MongoIndexInitializer {
+
+    private static final Logger logger = LoggerFactory.getLogger(MongoIndexInitializer.class);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void ensureIndexes() {
+        MappingContext<? extends MongoPersistentEntity<?>, MongoPersistentProperty> mappingContext =
+                mongoTemplate.getConverter().getMappingContext();
+        MongoPersistentEntityIndexResolver resolver = new MongoPersistentEntityIndexResolver(mappingContext);
+        int created = 0;
+        for (MongoPersistentEntity<?> entity : documentEntities(mappingContext)) {
+            for (MongoPersistentEntityIndexResolver.IndexDefinitionHolder index : resolver.resolveIndexForEntity(entity)) {
+                try {
+                    mongoTemplate.indexOps(index.getCollection()).createIndex(index);
+                    created++;
+                } catch (RuntimeException ex) {
+                    // Ví dụ: dữ liệu đã có bản trùng vi phạm chỉ mục unique; các chỉ mục khác vẫn được tạo
+                    logger.warn("Không thể tạo chỉ mục {} trên collection {}: {}", index.getIndexKeys().toJson(),
+                            index.getCollection(), ex.getMessage());
+                }
+            }
+        }
+        logger.info("Đã đảm bảo {} chỉ mục MongoDB", created);
+    }
+
+    /**
+     * Các entity được ánh xạ tới một collection (@Document); lớp nhúng được bỏ qua vì chỉ mục của chúng được giải
+     * quyết qua entity chứa.
+     */
+    static List<MongoPersistentEntity<?>> documentEntities(
+            MappingContext<? extends MongoPersistentEntity<?>, MongoPersistentProperty> mappingContext) {
+        List<MongoPersistentEntity<?>> entities = new ArrayList<>();
+        for (MongoPersistentEntity<?> entity : mappingContext.getPersistentEntities()) {
+            if (entity.isAnnotationPresent(Document.class)) {
+                entities.add(entity);
+            }
+        }
+        return entities;
+    }
+}
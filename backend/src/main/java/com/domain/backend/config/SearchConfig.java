@@ -0,0 +1,90 @@
+package com.domain.backend.config;
+
+import com.domain.backend.entity.KanjiEntry;
+import com.domain.backend.entity.VocabularyEntry;
+import com.domain.backend.util.KanjiUtils;
+import com.domain.backend.util.SearchUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.data.mongodb.core.mapping.event.BeforeConvertCallback;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Cấu hình các tài nguyên dùng chung cho chức năng tìm kiếm.
+ */
+@Configuration
+public class SearchConfig {
+
+    /**
+     * Thread pool dùng để truy vấn song song các nguồn tìm kiếm (Kanji, từ vựng, bài học, khóa học).
+     * Hàng đợi có giới hạn; khi đầy, tác vụ bị từ chối và nguồn tương ứng được báo là bị bỏ qua, để luồng xử lý HTTP
+     * không phải tự chạy truy vấn và hạn chót của từng nguồn vẫn được giữ.
+     *
+     * @param poolSize  Số luồng tối đa.
+     * @param queueSize Kích thước hàng đợi.
+     * @return Executor cho tìm kiếm.
+     */
+    @Bean(name = "searchExecutor")
+    public AsyncTaskExecutor searchExecutor(@Value("${search.executor.pool-size:16}") int poolSize,
+                                   @Value("${search.executor.queue-size:256}") int queueSize) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueSize);
+        executor.setThreadNamePrefix("search-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Thread pool dùng để nhận dạng chữ viết tay. Giống searchExecutor, khi hàng đợi đầy tác vụ bị từ chối
+     * để yêu cầu nhận dạng (tốn CPU) không chiếm luồng xử lý HTTP.
+     *
+     * @param poolSize  Số luồng tối đa.
+     * @param queueSize Kích thước hàng đợi.
+     * @return Executor cho nhận dạng chữ viết tay.
+     */
+    @Bean(name = "handwritingExecutor")
+    public AsyncTaskExecutor handwritingExecutor(@Value("${search.handwriting.pool-size:4}") int poolSize,
+                                        @Value("${search.handwriting.queue-size:64}") int queueSize) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueSize);
+        executor.setThreadNamePrefix("handwriting-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Tự động tính khóa tìm kiếm chuẩn của từ vựng trước mỗi lần lưu, để mọi đường ghi đều giữ searchKeys đồng bộ.
+     */
+    @Bean
+    public BeforeConvertCallback<VocabularyEntry> vocabularySearchKeysCallback(SearchUtils searchUtils) {
+        return (entry, collection) -> {
+            entry.setSearchKeys(searchUtils.searchKeysOf(entry));
+            return entry;
+        };
+    }
+
+    /**
+     * Tự động tính khóa tìm kiếm chuẩn, mảng âm đọc, các từ của nghĩa và địa chỉ nội dung của SVG thứ tự nét
+     * của Kanji trước mỗi lần lưu.
+     */
+    @Bean
+    public BeforeConvertCallback<KanjiEntry> kanjiSearchKeysCallback(SearchUtils searchUtils, KanjiUtils kanjiUtils) {
+        return (entry, collection) -> {
+            entry.setSearchKeys(searchUtils.searchKeysOf(entry));
+            entry.setReadings(searchUtils.readingsOf(entry));
+            entry.setMeaningTerms(searchUtils.meaningTermsOf(entry));
+            entry.setStrokeOrderSvgHash(kanjiUtils.strokeOrderSvgHash(entry.getStrokeOrderSvg()));
+            return entry;
+        };
+    }
+}
@@ -5,6 +5,7 @@ import com.domain.backend.security.JwtAuthenticationFilter;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.Customizer;
@@ -99,6 +100,8 @@ public class SecurityConfig {
                         .requestMatchers("/api/auth/**").permitAll()
                         .requestMatchers("/api/test/**").permitAll()
                         .requestMatchers("/swagger-ui/**", "/v3/api-docs/**").permitAll()
+                        // SVG thứ tự nét được tải bằng thẻ <img> (không gửi được token) và là dữ liệu từ điển công khai
+                        .requestMatchers(HttpMethod.GET, "/api/kanji/stroke-order/**").permitAll()
                         .anyRequest().authenticated()
                 );
 
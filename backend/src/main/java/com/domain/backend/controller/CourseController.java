@@ -2,15 +2,20 @@ package com.domain.backend.controller;
 
 import com.domain.backend.dto.request.CourseRequest;
 import com.domain.backend.dto.response.CourseResponse;
+import com.domain.backend.dto.response.KeysetPageResponse;
 import com.domain.backend.dto.response.MessageResponse;
 import com.domain.backend.service.CourseService;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 @CrossOrigin(origins = "*", maxAge = 3600)
@@ -63,6 +68,35 @@ public class CourseController {
         return ResponseEntity.ok(courses);
     }
 
+    /**
+     * Lấy một trang khóa học theo thứ tự ID (phân trang theo khóa).
+     * Có thể truy cập bởi bất kỳ người dùng đã xác thực nào.
+     *
+     * @param after ID của phần tử cuối trang trước (nextCursor của trang trước), bỏ trống cho trang đầu.
+     * @param size  Số phần tử tối đa của trang (mặc định 50, tối đa 500).
+     * @return ResponseEntity với trang CourseResponse và con trỏ cho trang tiếp theo.
+     */
+    @GetMapping("/page")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<KeysetPageResponse<CourseResponse>> getCoursesPage(@RequestParam(required = false) String after,
+                                                                             @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(courseService.getCoursesPage(after, size));
+    }
+
+    /**
+     * Xuất toàn bộ khóa học dưới dạng NDJSON (mỗi dòng một đối tượng JSON), ghi ra ngay khi đọc từ cơ sở dữ liệu.
+     * Có thể truy cập bởi bất kỳ người dùng đã xác thực nào.
+     *
+     * @param response Phản hồi HTTP để ghi dữ liệu.
+     */
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @PreAuthorize("isAuthenticated()")
+    public void exportCourses(HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        courseService.exportCourses(response.getOutputStream());
+    }
+
     /**
      * Cập nhật một khóa học hiện có.
      * Chỉ ADMIN hoặc TEACHER (người tạo khóa học) mới có thể truy cập.
@@ -0,0 +1,74 @@
+package com.domain.backend.controller;
+
+import com.domain.backend.dto.request.DictionaryImportRequest;
+import com.domain.backend.dto.response.DictionaryImportJobResponse;
+import com.domain.backend.service.DictionaryImportService;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@CrossOrigin(origins = "*", maxAge = 3600)
+@RestController
+@RequestMapping("/api/dictionary/imports") // Đường dẫn cơ sở cho việc nhập tệp từ điển JMdict/KANJIDIC2
+public class DictionaryImportController {
+
+    @Autowired
+    private DictionaryImportService dictionaryImportService;
+
+    /**
+     * Bắt đầu nhập một tệp từ điển trên máy chủ trong nền.
+     * Chỉ ADMIN mới có thể truy cập.
+     *
+     * @param request Nguồn từ điển, đường dẫn tệp trong thư mục nhập và có tiếp tục lần trước hay không.
+     * @return ResponseEntity với tiến độ ban đầu của lần nhập.
+     */
+    @PostMapping
+    @PreAuthorize("hasAuthority('ADMIN')")
+    public ResponseEntity<DictionaryImportJobResponse> startImport(@Valid @RequestBody DictionaryImportRequest request) {
+        DictionaryImportJobResponse response = dictionaryImportService.startImport(request);
+        return new ResponseEntity<>(response, HttpStatus.ACCEPTED);
+    }
+
+    /**
+     * Lấy các lần nhập từ điển gần nhất.
+     * Chỉ ADMIN mới có thể truy cập.
+     *
+     * @return ResponseEntity với danh sách tiến độ, mới nhất trước.
+     */
+    @GetMapping
+    @PreAuthorize("hasAuthority('ADMIN')")
+    public ResponseEntity<List<DictionaryImportJobResponse>> getRecentImports() {
+        return ResponseEntity.ok(dictionaryImportService.getRecentImports());
+    }
+
+    /**
+     * Lấy tiến độ của một lần nhập từ điển.
+     * Chỉ ADMIN mới có thể truy cập.
+     *
+     * @param id ID của lần nhập.
+     * @return ResponseEntity với tiến độ của lần nhập.
+     */
+    @GetMapping("/{id}")
+    @PreAuthorize("hasAuthority('ADMIN')")
+    public ResponseEntity<DictionaryImportJobResponse> getImport(@PathVariable String id) {
+        return ResponseEntity.ok(dictionaryImportService.getImport(id));
+    }
+
+    /**
+     * Dừng lần nhập đang chạy. Các entry đã ghi được giữ lại và có thể tiếp tục sau.
+     * Chỉ ADMIN mới có thể truy cập.
+     *
+     * @param id ID của lần nhập.
+     * @return ResponseEntity với tiến độ hiện tại của lần nhập.
+     */
+    @PostMapping("/{id}/cancel")
+    @PreAuthorize("hasAuthority('ADMIN')")
+    public ResponseEntity<DictionaryImportJobResponse> cancelImport(@PathVariable String id) {
+        return ResponseEntity.ok(dictionaryImportService.cancelImport(id));
+    }
+}
@@ -1,15 +1,29 @@
 package com.domain.backend.controller;
 
+import com.domain.backend.dto.request.FuriganaBatchRequest;
+import com.domain.backend.dto.request.TextScanRequest;
+import com.domain.backend.dto.response.DeinflectionResponse;
+import com.domain.backend.dto.response.FuriganaCacheStatsResponse;
+import com.domain.backend.dto.response.KeysetPageResponse;
 import com.domain.backend.dto.response.MessageResponse;
+import com.domain.backend.dto.response.TextScanResponse;
 import com.domain.backend.entity.VocabularyEntry;
+import com.domain.backend.service.FuriganaService;
 import com.domain.backend.service.JapaneseTextService;
+import com.domain.backend.service.VocabularyScanService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 @CrossOrigin(origins = "*", maxAge = 3600)
@@ -20,6 +34,12 @@ public class JapaneseTextController {
     @Autowired
     private JapaneseTextService japaneseTextService;
 
+    @Autowired
+    private VocabularyScanService vocabularyScanService;
+
+    @Autowired
+    private FuriganaService furiganaService;
+
     /**
      * Tạo furigana cho một chuỗi văn bản tiếng Nhật đã cho.
      * Có thể truy cập bởi bất kỳ người dùng đã xác thực nào.
@@ -34,6 +54,90 @@ public class JapaneseTextController {
         return ResponseEntity.ok(furiganaText);
     }
 
+    /**
+     * Tạo furigana cho một văn bản lớn (ví dụ cả một cuốn sách đọc), gửi dưới dạng text/plain trong thân yêu cầu.
+     * Thân yêu cầu được đọc và phân tích theo từng câu, kết quả được gửi về dần (chunked) ngay khi có,
+     * nên bộ nhớ dùng không phụ thuộc độ dài văn bản.
+     * Có thể truy cập bởi bất kỳ người dùng đã xác thực nào.
+     *
+     * @param request  Yêu cầu HTTP chứa văn bản (UTF-8 nếu không chỉ định charset).
+     * @param response Phản hồi HTTP để ghi văn bản với furigana.
+     */
+    @PostMapping(value = "/furigana/stream", consumes = MediaType.TEXT_PLAIN_VALUE, produces = MediaType.TEXT_PLAIN_VALUE)
+    @PreAuthorize("isAuthenticated()")
+    public void streamFurigana(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (request.getCharacterEncoding() == null) {
+            request.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        }
+        response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        furiganaService.streamFurigana(request.getReader(), response.getWriter());
+    }
+
+    /**
+     * Tạo furigana cho nhiều văn bản trong một yêu cầu (ví dụ toàn bộ nội dung một khóa học),
+     * thay cho một lần gọi /furigana cho mỗi câu. Các câu được phân tích song song.
+     * Chỉ ADMIN hoặc TEACHER mới có thể truy cập.
+     *
+     * @param request Danh sách văn bản tiếng Nhật.
+     * @return ResponseEntity với văn bản có furigana, cùng thứ tự với đầu vào.
+     */
+    @PostMapping("/furigana/batch")
+    @PreAuthorize("hasAnyAuthority('ADMIN', 'TEACHER')")
+    public ResponseEntity<List<String>> generateFuriganaBatch(@Valid @RequestBody FuriganaBatchRequest request) {
+        return ResponseEntity.ok(furiganaService.generateFuriganaBatch(request.getTexts()));
+    }
+
+    /**
+     * Tạo furigana dạng cấu trúc cho một chuỗi văn bản tiếng Nhật: mảng token với surface, reading (Hiragana),
+     * baseForm, partOfSpeech, start và end, để frontend hiển thị ruby mà không phải phân tích lại chuỗi.
+     * Trả về CBOR nếu header Accept yêu cầu application/cbor, ngược lại trả về JSON.
+     * Có thể truy cập bởi bất kỳ người dùng đã xác thực nào.
+     *
+     * @param text     Văn bản tiếng Nhật (có thể chứa Kanji).
+     * @param accept   Header Accept của yêu cầu.
+     * @param response Phản hồi HTTP để ghi dữ liệu.
+     */
+    @GetMapping(value = "/furigana/tokens", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE})
+    @PreAuthorize("isAuthenticated()")
+    public void generateRubyTokens(@RequestParam String text,
+                                   @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+                                   HttpServletResponse response) throws IOException {
+        boolean cbor = accept != null && MediaType.parseMediaTypes(accept).stream()
+                .anyMatch(MediaType.APPLICATION_CBOR::equalsTypeAndSubtype);
+        response.setContentType(cbor ? MediaType.APPLICATION_CBOR_VALUE : MediaType.APPLICATION_JSON_VALUE);
+        if (!cbor) {
+            response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        }
+        furiganaService.writeRubyTokens(text, cbor, response.getOutputStream());
+    }
+
+    /**
+     * Xem số liệu của cache furigana.
+     * Chỉ ADMIN mới có thể truy cập.
+     *
+     * @return ResponseEntity với số liệu trúng/trượt/gộp/bị loại của cache.
+     */
+    @GetMapping("/furigana/cache/stats")
+    @PreAuthorize("hasAuthority('ADMIN')")
+    public ResponseEntity<FuriganaCacheStatsResponse> getFuriganaCacheStats() {
+        return ResponseEntity.ok(furiganaService.getCacheStats());
+    }
+
+    /**
+     * Quét một văn bản (ví dụ nội dung bài học) và tìm mọi từ có trong từ điển, cùng vị trí của chúng,
+     * cho chế độ hỗ trợ đọc.
+     * Có thể truy cập bởi bất kỳ người dùng đã xác thực nào.
+     *
+     * @param request Văn bản cần quét và chế độ quét.
+     * @return ResponseEntity với các khớp dài nhất và các từ vựng tương ứng.
+     */
+    @PostMapping("/scan")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<TextScanResponse> scanText(@Valid @RequestBody TextScanRequest request) {
+        return ResponseEntity.ok(vocabularyScanService.scan(request.getText(), request.isOverlapping()));
+    }
+
     /**
      * Lấy một entry từ vựng theo từ tiếng Nhật chính xác.
      * Có thể truy cập bởi bất kỳ người dùng đã xác thực nào.
@@ -49,6 +153,48 @@ public class JapaneseTextController {
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    /**
+     * Tìm các entry từ vựng cho dạng gốc của một từ đã chia (ví dụ 食べた → 食べる, 高くない → 高い).
+     * Có thể truy cập bởi bất kỳ người dùng đã xác thực nào.
+     *
+     * @param word Từ cần tra cứu.
+     * @return ResponseEntity với danh sách entry tìm được cùng các biến đổi đã khử.
+     */
+    @GetMapping("/vocabulary/deinflect")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<List<DeinflectionResponse>> lookupInflectedWord(@RequestParam String word) {
+        return ResponseEntity.ok(japaneseTextService.lookupInflectedWord(word));
+    }
+
+    /**
+     * Tìm các entry từ vựng có từ tiếng Nhật hoặc furigana chứa chuỗi truy vấn.
+     * Có thể truy cập bởi bất kỳ người dùng đã xác thực nào.
+     *
+     * @param query Chuỗi con cần tìm (ví dụ: "日本", "たべ").
+     * @param limit Số kết quả tối đa (mặc định 50, tối đa 200).
+     * @return ResponseEntity với danh sách VocabularyEntry phù hợp.
+     */
+    @GetMapping("/vocabulary/search")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<List<VocabularyEntry>> searchVocabulary(@RequestParam String query,
+                                                                  @RequestParam(defaultValue = "50") int limit) {
+        List<VocabularyEntry> results = japaneseTextService.searchVocabulary(query, limit);
+        return ResponseEntity.ok(results);
+    }
+
+    /**
+     * Dựng lại chỉ mục n-gram của từ vựng.
+     * Chỉ ADMIN mới có thể truy cập.
+     *
+     * @return ResponseEntity với MessageResponse chứa số entry đã được đánh chỉ mục.
+     */
+    @PostMapping("/vocabulary/ngram-index/rebuild")
+    @PreAuthorize("hasAuthority('ADMIN')")
+    public ResponseEntity<MessageResponse> rebuildNgramIndex() {
+        MessageResponse response = japaneseTextService.rebuildNgramIndex();
+        return ResponseEntity.ok(response);
+    }
+
     /**
      * Lấy tất cả các entry từ vựng.
      * Có thể truy cập bởi bất kỳ người dùng đã xác thực nào.
@@ -62,6 +208,35 @@ public class JapaneseTextController {
         return ResponseEntity.ok(vocabularyEntries);
     }
 
+    /**
+     * Lấy một trang entry từ vựng theo thứ tự ID (phân trang theo khóa).
+     * Có thể truy cập bởi bất kỳ người dùng đã xác thực nào.
+     *
+     * @param after ID của phần tử cuối trang trước (nextCursor của trang trước), bỏ trống cho trang đầu.
+     * @param size  Số phần tử tối đa của trang (mặc định 50, tối đa 500).
+     * @return ResponseEntity với trang VocabularyEntry và con trỏ cho trang tiếp theo.
+     */
+    @GetMapping("/vocabulary/page")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<KeysetPageResponse<VocabularyEntry>> getVocabularyEntriesPage(@RequestParam(required = false) String after,
+                                                                                        @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(japaneseTextService.getVocabularyEntriesPage(after, size));
+    }
+
+    /**
+     * Xuất toàn bộ entry từ vựng dưới dạng NDJSON (mỗi dòng một đối tượng JSON), ghi ra ngay khi đọc từ cơ sở dữ liệu.
+     * Có thể truy cập bởi bất kỳ người dùng đã xác thực nào.
+     *
+     * @param response Phản hồi HTTP để ghi dữ liệu.
+     */
+    @GetMapping(value = "/vocabulary/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @PreAuthorize("isAuthenticated()")
+    public void exportVocabularyEntries(HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        japaneseTextService.exportVocabularyEntries(response.getOutputStream());
+    }
+
     /**
      * Tạo một entry từ vựng mới.
      * Chỉ ADMIN hoặc TEACHER mới có thể truy cập.
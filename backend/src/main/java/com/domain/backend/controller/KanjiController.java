@@ -1,27 +1,55 @@
 package com.domain.backend.controller;
 
+import com.domain.backend.dto.request.DictionaryLookupRequest;
 import com.domain.backend.dto.request.KanjiSearchRequest;
+import com.domain.backend.dto.response.DictionaryLookupResponse;
 import com.domain.backend.dto.response.KanjiResponse;
+import com.domain.backend.dto.response.KeysetPageResponse;
 import com.domain.backend.dto.response.MessageResponse;
+import com.domain.backend.dto.response.RadicalSearchResponse;
 import com.domain.backend.entity.KanjiEntry;
 import com.domain.backend.service.KanjiService;
+import com.domain.backend.service.RadicalIndexService;
+import com.domain.backend.service.StrokeOrderSvgService;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
 
 @CrossOrigin(origins = "*", maxAge = 3600)
 @RestController
 @RequestMapping("/api/kanji") // Đường dẫn cơ sở cho các endpoint liên quan đến Kanji
 public class KanjiController {
 
+    // Không tải tài nguyên nào, không chạy script; chỉ cho phép thuộc tính style nội tuyến của SVG thứ tự nét
+    private static final String STROKE_ORDER_SVG_CSP = "default-src 'none'; style-src 'unsafe-inline'; sandbox";
+
     @Autowired
     private KanjiService kanjiService;
 
+    @Autowired
+    private RadicalIndexService radicalIndexService;
+
+    @Autowired
+    private StrokeOrderSvgService strokeOrderSvgService;
+
     /**
      * Tạo một entry Kanji mới.
      * Chỉ ADMIN hoặc TEACHER mới có thể truy cập.
@@ -66,6 +94,20 @@ public class KanjiController {
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    /**
+     * Tra cứu hàng loạt Kanji và từ vựng cho cả một văn bản trong một yêu cầu (ví dụ toàn bộ một bài học),
+     * thay cho một lần gọi /character/{kanjiCharacter} cho mỗi ký tự.
+     * Có thể truy cập bởi bất kỳ người dùng đã xác thực nào.
+     *
+     * @param request Văn bản và/hoặc danh sách ký tự, từ cần tra cứu.
+     * @return ResponseEntity với các map Kanji theo ký tự và danh sách từ vựng (mọi từ đồng tự) theo từ.
+     */
+    @PostMapping("/lookup")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<DictionaryLookupResponse> lookupEntries(@Valid @RequestBody DictionaryLookupRequest request) {
+        return ResponseEntity.ok(kanjiService.lookupEntries(request));
+    }
+
     /**
      * Lấy tất cả các entry Kanji.
      * Có thể truy cập bởi bất kỳ người dùng đã xác thực nào.
@@ -79,6 +121,35 @@ public class KanjiController {
         return ResponseEntity.ok(kanjiEntries);
     }
 
+    /**
+     * Lấy một trang entry Kanji theo thứ tự ID (phân trang theo khóa).
+     * Có thể truy cập bởi bất kỳ người dùng đã xác thực nào.
+     *
+     * @param after ID của phần tử cuối trang trước (nextCursor của trang trước), bỏ trống cho trang đầu.
+     * @param size  Số phần tử tối đa của trang (mặc định 50, tối đa 500).
+     * @return ResponseEntity với trang KanjiResponse và con trỏ cho trang tiếp theo.
+     */
+    @GetMapping("/page")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<KeysetPageResponse<KanjiResponse>> getKanjiEntriesPage(@RequestParam(required = false) String after,
+                                                                                 @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(kanjiService.getKanjiEntriesPage(after, size));
+    }
+
+    /**
+     * Xuất toàn bộ entry Kanji dưới dạng NDJSON (mỗi dòng một đối tượng JSON), ghi ra ngay khi đọc từ cơ sở dữ liệu.
+     * Có thể truy cập bởi bất kỳ người dùng đã xác thực nào.
+     *
+     * @param response Phản hồi HTTP để ghi dữ liệu.
+     */
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @PreAuthorize("isAuthenticated()")
+    public void exportKanjiEntries(HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        kanjiService.exportKanjiEntries(response.getOutputStream());
+    }
+
     /**
      * Cập nhật một entry Kanji hiện có.
      * Chỉ ADMIN hoặc TEACHER mới có thể truy cập.
@@ -121,4 +192,97 @@ public class KanjiController {
         List<KanjiResponse> results = kanjiService.searchKanji(searchRequest);
         return ResponseEntity.ok(results);
     }
+
+    /**
+     * Tra cứu Kanji theo các bộ thủ cấu thành, phục vụ từ chỉ mục trong bộ nhớ.
+     * Có thể truy cập bởi bất kỳ người dùng đã xác thực nào.
+     *
+     * @param radicals   Các bộ thủ cần có (ví dụ: radicals=口&radicals=木).
+     * @param minStrokes Số nét tối thiểu (tùy chọn).
+     * @param maxStrokes Số nét tối đa (tùy chọn).
+     * @param limit      Số kết quả tối đa (mặc định 100, tối đa 500).
+     * @return ResponseEntity với các Kanji phù hợp và các bộ thủ còn có thể chọn thêm.
+     */
+    @GetMapping("/by-radicals")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<RadicalSearchResponse> findByRadicals(@RequestParam List<String> radicals,
+                                                                @RequestParam(required = false) Integer minStrokes,
+                                                                @RequestParam(required = false) Integer maxStrokes,
+                                                                @RequestParam(defaultValue = "100") int limit) {
+        RadicalSearchResponse response = radicalIndexService.findByRadicals(radicals, minStrokes, maxStrokes, limit);
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Trả về SVG thứ tự nét theo địa chỉ nội dung (URL trong strokeOrderSvgUrl của KanjiResponse).
+     * Nội dung của một địa chỉ không bao giờ thay đổi, nên phản hồi có ETag mạnh và được cache vĩnh viễn.
+     * SVG được gửi ở dạng đã nén gzip sẵn khi client chấp nhận.
+     * Không yêu cầu xác thực (tải bằng thẻ img). SVG do người dùng biên soạn có thể chứa script, nên khi được mở
+     * trực tiếp (không qua thẻ img) phản hồi bị cô lập bằng Content-Security-Policy và không cho trình duyệt đoán
+     * lại kiểu nội dung.
+     *
+     * @param hash           Địa chỉ nội dung của SVG.
+     * @param ifNoneMatch    Header If-None-Match của yêu cầu.
+     * @param acceptEncoding Header Accept-Encoding của yêu cầu.
+     * @param response       Phản hồi HTTP để ghi dữ liệu.
+     */
+    @GetMapping("/stroke-order/{hash}.svg")
+    public void getStrokeOrderSvg(@PathVariable String hash,
+                                  @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                  @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+                                  HttpServletResponse response) throws IOException {
+        Optional<StrokeOrderSvgService.SvgContent> found = strokeOrderSvgService.find(hash);
+        if (found.isEmpty()) {
+            response.setStatus(HttpStatus.NOT_FOUND.value());
+            return;
+        }
+        StrokeOrderSvgService.SvgContent content = found.get();
+        boolean gzip = content.isGzipped() && acceptsGzip(acceptEncoding);
+        // Mỗi cách mã hóa là một biểu diễn khác nhau nên có ETag riêng
+        String etag = gzip ? "\"" + hash + "-gz\"" : "\"" + hash + "\"";
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().immutable().getHeaderValue());
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        response.setHeader("Content-Security-Policy", STROKE_ORDER_SVG_CSP);
+        response.setHeader("X-Content-Type-Options", "nosniff");
+        if (ifNoneMatch != null && (ifNoneMatch.contains("\"" + hash + "\"") || ifNoneMatch.contains("\"" + hash + "-gz\"")
+                || ifNoneMatch.trim().equals("*"))) {
+            response.setStatus(HttpStatus.NOT_MODIFIED.value());
+            return;
+        }
+
+        ByteBuffer bytes = content.getBytes();
+        response.setContentType("image/svg+xml");
+        if (gzip) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+        } else if (content.isGzipped()) {
+            bytes = ByteBuffer.wrap(gunzip(bytes)); // Hiếm gặp: client không hỗ trợ gzip
+        }
+        response.setContentLength(bytes.remaining());
+        WritableByteChannel channel = Channels.newChannel(response.getOutputStream());
+        while (bytes.hasRemaining()) {
+            channel.write(bytes);
+        }
+    }
+
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if (parts[0].trim().equalsIgnoreCase("gzip")) {
+                return parts.length < 2 || !parts[1].trim().matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+
+    private static byte[] gunzip(ByteBuffer compressed) throws IOException {
+        byte[] bytes = new byte[compressed.remaining()];
+        compressed.get(bytes);
+        try (GZIPInputStream input = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+            return input.readAllBytes();
+        }
+    }
 }
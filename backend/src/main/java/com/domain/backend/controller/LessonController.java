@@ -1,16 +1,23 @@
 package com.domain.backend.controller;
 
 import com.domain.backend.dto.request.LessonRequest;
+import com.domain.backend.dto.response.KeysetPageResponse;
+import com.domain.backend.dto.response.LessonFuriganaResponse;
 import com.domain.backend.dto.response.LessonResponse;
 import com.domain.backend.dto.response.MessageResponse;
+import com.domain.backend.service.LessonAnnotationService;
 import com.domain.backend.service.LessonService;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 @CrossOrigin(origins = "*", maxAge = 3600)
@@ -21,6 +28,9 @@ public class LessonController {
     @Autowired
     private LessonService lessonService;
 
+    @Autowired
+    private LessonAnnotationService lessonAnnotationService;
+
     /**
      * Tạo một bài học mới trong một module cụ thể của một khóa học.
      * Chỉ ADMIN hoặc TEACHER mới có thể truy cập.
@@ -54,6 +64,31 @@ public class LessonController {
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    /**
+     * Lấy furigana và token đã tính sẵn của nội dung một bài học, không phân tích lại văn bản.
+     * Có thể truy cập bởi bất kỳ người dùng đã xác thực nào.
+     *
+     * @param lessonId ID của bài học.
+     * @return ResponseEntity với LessonFuriganaResponse (stale = true nếu bản mới đang được tính lại).
+     */
+    @GetMapping("/lessons/{lessonId}/furigana")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<LessonFuriganaResponse> getLessonFurigana(@PathVariable String lessonId) {
+        return ResponseEntity.ok(lessonAnnotationService.getLessonFurigana(lessonId));
+    }
+
+    /**
+     * Tính sẵn furigana cho mọi bài học chưa có hoặc có bản đã cũ (chạy trong nền).
+     * Chỉ ADMIN mới có thể truy cập.
+     *
+     * @return ResponseEntity với thông báo tác vụ đã được bắt đầu.
+     */
+    @PostMapping("/lessons/furigana/backfill")
+    @PreAuthorize("hasAuthority('ADMIN')")
+    public ResponseEntity<MessageResponse> backfillLessonFurigana() {
+        return ResponseEntity.accepted().body(lessonAnnotationService.backfillAll());
+    }
+
     /**
      * Lấy tất cả các bài học cho một module cụ thể, sắp xếp theo orderIndex.
      * Có thể truy cập bởi bất kỳ người dùng đã xác thực nào.
@@ -81,6 +116,35 @@ public class LessonController {
         return ResponseEntity.ok(lessons);
     }
 
+    /**
+     * Lấy một trang bài học theo thứ tự ID (phân trang theo khóa).
+     * Có thể truy cập bởi bất kỳ người dùng đã xác thực nào.
+     *
+     * @param after ID của phần tử cuối trang trước (nextCursor của trang trước), bỏ trống cho trang đầu.
+     * @param size  Số phần tử tối đa của trang (mặc định 50, tối đa 500).
+     * @return ResponseEntity với trang LessonResponse và con trỏ cho trang tiếp theo.
+     */
+    @GetMapping("/lessons/page")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<KeysetPageResponse<LessonResponse>> getLessonsPage(@RequestParam(required = false) String after,
+                                                                             @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(lessonService.getLessonsPage(after, size));
+    }
+
+    /**
+     * Xuất toàn bộ bài học dưới dạng NDJSON (mỗi dòng một đối tượng JSON), ghi ra ngay khi đọc từ cơ sở dữ liệu.
+     * Có thể truy cập bởi bất kỳ người dùng đã xác thực nào.
+     *
+     * @param response Phản hồi HTTP để ghi dữ liệu.
+     */
+    @GetMapping(value = "/lessons/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @PreAuthorize("isAuthenticated()")
+    public void exportLessons(HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        lessonService.exportLessons(response.getOutputStream());
+    }
+
     /**
      * Cập nhật một bài học hiện có.
      * Chỉ ADMIN hoặc TEACHER (người tạo khóa học) mới có thể truy cập.
@@ -2,17 +2,22 @@ package com.domain.backend.controller;
 
 import com.domain.backend.dto.request.QuizRequest;
 import com.domain.backend.dto.request.SubmitQuizRequest;
+import com.domain.backend.dto.response.KeysetPageResponse;
 import com.domain.backend.dto.response.MessageResponse;
 import com.domain.backend.dto.response.QuizAttemptResponse;
 import com.domain.backend.dto.response.QuizResponse;
 import com.domain.backend.service.QuizService;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 @CrossOrigin(origins = "*", maxAge = 3600)
@@ -29,6 +34,33 @@ public class QuizController {
         return new ResponseEntity<>(quizzes, HttpStatus.OK);
     }
 
+    /**
+     * Lấy một trang quiz theo thứ tự ID (phân trang theo khóa).
+     * Có thể truy cập bởi bất kỳ người dùng đã xác thực nào.
+     *
+     * @param after ID của phần tử cuối trang trước (nextCursor của trang trước), bỏ trống cho trang đầu.
+     * @param size  Số phần tử tối đa của trang (mặc định 50, tối đa 500).
+     * @return ResponseEntity với trang QuizResponse và con trỏ cho trang tiếp theo.
+     */
+    @GetMapping("/quizzes/page")
+    public ResponseEntity<KeysetPageResponse<QuizResponse>> getQuizzesPage(@RequestParam(required = false) String after,
+                                                                           @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(quizService.getQuizzesPage(after, size));
+    }
+
+    /**
+     * Xuất toàn bộ quiz dưới dạng NDJSON (mỗi dòng một đối tượng JSON), ghi ra ngay khi đọc từ cơ sở dữ liệu.
+     * Có thể truy cập bởi bất kỳ người dùng đã xác thực nào.
+     *
+     * @param response Phản hồi HTTP để ghi dữ liệu.
+     */
+    @GetMapping(value = "/quizzes/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public void exportQuizzes(HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        quizService.exportQuizzes(response.getOutputStream());
+    }
+
     /**
      * Tạo một quiz mới cho một bài học cụ thể.
      * Chỉ ADMIN hoặc TEACHER mới có thể truy cập.
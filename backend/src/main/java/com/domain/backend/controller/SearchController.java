@@ -1,14 +1,24 @@
 package com.domain.backend.controller;
 
+import com.domain.backend.dto.request.HandwritingSearchRequest;
 import com.domain.backend.dto.request.SearchRequest;
+import com.domain.backend.dto.response.DictionaryStatsResponse;
+import com.domain.backend.dto.response.MessageResponse;
+import com.domain.backend.dto.response.SearchCacheStatsResponse;
 import com.domain.backend.dto.response.SearchResponse;
+import com.domain.backend.dto.response.SuggestionResponse;
+import com.domain.backend.service.DictionarySnapshotService;
+import com.domain.backend.service.SearchIndexingService;
 import com.domain.backend.service.SearchService;
+import com.domain.backend.service.SuggestionService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+
 @CrossOrigin(origins = "*", maxAge = 3600)
 @RestController
 @RequestMapping("/api/search") // Đường dẫn cơ sở cho các endpoint liên quan đến tìm kiếm
@@ -17,6 +27,15 @@ public class SearchController {
     @Autowired
     private SearchService searchService;
 
+    @Autowired
+    private SuggestionService suggestionService;
+
+    @Autowired
+    private SearchIndexingService searchIndexingService;
+
+    @Autowired
+    private DictionarySnapshotService dictionarySnapshotService;
+
     /**
      * Thực hiện tìm kiếm văn bản đa script cho các từ/cụm từ tiếng Nhật.
      * Có thể truy cập bởi bất kỳ người dùng đã xác thực nào.
@@ -31,4 +50,86 @@ public class SearchController {
         SearchResponse response = searchService.searchText(searchRequest);
         return ResponseEntity.ok(response);
     }
+
+    /**
+     * Tìm Kanji từ ký tự viết tay (ảnh vẽ trên canvas), nhận dạng ngay trên máy chủ.
+     * Có thể truy cập bởi bất kỳ người dùng đã xác thực nào.
+     *
+     * @param request Yêu cầu chứa ảnh Base64, số nét (tùy chọn) và số ứng viên tối đa.
+     * @return ResponseEntity với các Kanji ứng viên đã xếp hạng.
+     */
+    @PostMapping("/handwriting")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<SearchResponse> searchHandwriting(@Valid @RequestBody HandwritingSearchRequest request) {
+        SearchResponse response = searchService.searchHandwriting(request);
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Gợi ý tự động hoàn thành cho thanh tìm kiếm, phục vụ hoàn toàn từ bộ nhớ.
+     * Có thể truy cập bởi bất kỳ người dùng đã xác thực nào.
+     *
+     * @param prefix Tiền tố người dùng đang gõ.
+     * @param limit  Số gợi ý tối đa (mặc định 10, tối đa 20).
+     * @return ResponseEntity với danh sách gợi ý đã xếp hạng.
+     */
+    @GetMapping("/suggest")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<List<SuggestionResponse>> suggest(@RequestParam String prefix,
+                                                            @RequestParam(defaultValue = "10") int limit) {
+        List<SuggestionResponse> suggestions = suggestionService.suggest(prefix, limit);
+        return ResponseEntity.ok(suggestions);
+    }
+
+    /**
+     * Tính lại khóa tìm kiếm chuẩn cho toàn bộ Kanji và từ vựng.
+     * Chỉ ADMIN mới có thể truy cập.
+     *
+     * @return ResponseEntity với thông báo kết quả.
+     */
+    @PostMapping("/search-keys/rebuild")
+    @PreAuthorize("hasAuthority('ADMIN')")
+    public ResponseEntity<MessageResponse> rebuildSearchKeys() {
+        MessageResponse response = searchService.rebuildSearchKeys();
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Đánh chỉ mục lại toàn bộ nội dung vào collection searchIndex (chạy trong nền).
+     * Chỉ ADMIN mới có thể truy cập.
+     *
+     * @return ResponseEntity với thông báo tác vụ đã được bắt đầu.
+     */
+    @PostMapping("/index/rebuild")
+    @PreAuthorize("hasAuthority('ADMIN')")
+    public ResponseEntity<MessageResponse> reindexAll() {
+        MessageResponse response = searchIndexingService.reindexAll();
+        return ResponseEntity.accepted().body(response);
+    }
+
+    /**
+     * Xem số liệu của cache kết quả tìm kiếm.
+     * Chỉ ADMIN mới có thể truy cập.
+     *
+     * @return ResponseEntity với số liệu trúng/trượt/bị loại của cache.
+     */
+    @GetMapping("/cache/stats")
+    @PreAuthorize("hasAuthority('ADMIN')")
+    public ResponseEntity<SearchCacheStatsResponse> getCacheStats() {
+        SearchCacheStatsResponse response = searchService.getCacheStats();
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Xem số liệu của snapshot từ điển trong bộ nhớ (kích thước ước tính, thời gian nạp lại).
+     * Chỉ ADMIN mới có thể truy cập.
+     *
+     * @return ResponseEntity với số liệu của snapshot.
+     */
+    @GetMapping("/dictionary/stats")
+    @PreAuthorize("hasAuthority('ADMIN')")
+    public ResponseEntity<DictionaryStatsResponse> getDictionaryStats() {
+        DictionaryStatsResponse response = dictionarySnapshotService.getStats();
+        return ResponseEntity.ok(response);
+    }
 }
@@ -1,15 +1,20 @@
 package com.domain.backend.controller;
 
 import com.domain.backend.dto.request.UserProfileUpdateRequest;
+import com.domain.backend.dto.response.KeysetPageResponse;
 import com.domain.backend.dto.response.MessageResponse;
 import com.domain.backend.dto.response.UserResponse;
 import com.domain.backend.service.UserService;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 @CrossOrigin(origins = "*", maxAge = 3600)
@@ -88,4 +93,33 @@ public class UserController {
         List<UserResponse> users = userService.getAllUsers();
         return ResponseEntity.ok(users);
     }
+
+    /**
+     * Lấy một trang người dùng theo thứ tự ID (phân trang theo khóa).
+     * Chỉ ADMIN mới có thể truy cập.
+     *
+     * @param after ID của phần tử cuối trang trước (nextCursor của trang trước), bỏ trống cho trang đầu.
+     * @param size  Số phần tử tối đa của trang (mặc định 50, tối đa 500).
+     * @return ResponseEntity với trang UserResponse và con trỏ cho trang tiếp theo.
+     */
+    @GetMapping("/page")
+    @PreAuthorize("hasAuthority('ADMIN')")
+    public ResponseEntity<KeysetPageResponse<UserResponse>> getUsersPage(@RequestParam(required = false) String after,
+                                                                         @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(userService.getUsersPage(after, size));
+    }
+
+    /**
+     * Xuất toàn bộ người dùng dưới dạng NDJSON (mỗi dòng một đối tượng JSON), ghi ra ngay khi đọc từ cơ sở dữ liệu.
+     * Chỉ ADMIN mới có thể truy cập.
+     *
+     * @param response Phản hồi HTTP để ghi dữ liệu.
+     */
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @PreAuthorize("hasAuthority('ADMIN')")
+    public void exportUsers(HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        userService.exportUsers(response.getOutputStream());
+    }
 }
@@ -0,0 +1,17 @@
+package com.domain.backend.dto.request;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Pattern;
+import lombok.Data;
+
+@Data
+public class DictionaryImportRequest {
+    @NotBlank(message = "Nguồn từ điển không được để trống")
+    @Pattern(regexp = "JMDICT|KANJIDIC2", message = "Nguồn từ điển không hợp lệ. Phải là JMDICT hoặc KANJIDIC2.")
+    private String source;
+
+    @NotBlank(message = "Đường dẫn tệp không được để trống")
+    private String filePath; // Đường dẫn tương đối trong thư mục dictionary.import.base-dir (.xml hoặc .xml.gz)
+
+    private boolean resume = true; // Tiếp tục từ điểm kiểm tra của lần chạy trước với cùng tệp (nếu tệp không đổi)
+}
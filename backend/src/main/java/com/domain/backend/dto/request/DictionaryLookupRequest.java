@@ -0,0 +1,18 @@
+package com.domain.backend.dto.request;
+
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class DictionaryLookupRequest {
+    @Size(max = 20000, message = "Văn bản không được vượt quá 20000 ký tự")
+    private String text; // Văn bản (tùy chọn): mọi Kanji xuất hiện trong văn bản đều được tra cứu
+
+    @Size(max = 1000, message = "Không được tra cứu quá 1000 ký tự Kanji trong một yêu cầu")
+    private List<String> characters; // Các ký tự Kanji cần tra cứu (tùy chọn)
+
+    @Size(max = 1000, message = "Không được tra cứu quá 1000 từ trong một yêu cầu")
+    private List<String> words; // Các từ cần tra cứu trong từ vựng (tùy chọn)
+}
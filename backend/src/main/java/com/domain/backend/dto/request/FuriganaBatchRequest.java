@@ -0,0 +1,16 @@
+package com.domain.backend.dto.request;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class FuriganaBatchRequest {
+    @NotEmpty(message = "Danh sách văn bản không được để trống")
+    @Size(max = 1000, message = "Không được gửi quá 1000 văn bản trong một yêu cầu")
+    private List<@NotNull(message = "Văn bản không được để trống")
+            @Size(max = 20000, message = "Mỗi văn bản không được vượt quá 20000 ký tự") String> texts;
+}
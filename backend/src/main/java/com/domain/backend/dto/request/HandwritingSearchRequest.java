@@ -1,5 +1,7 @@
 package com.domain.backend.dto.request;
 
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import lombok.Data;
 
@@ -7,4 +9,12 @@ import lombok.Data;
 public class HandwritingSearchRequest {
     @NotBlank(message = "Dữ liệu hình ảnh không được để trống")
     private String imageDataBase64; // Dữ liệu hình ảnh được mã hóa Base64 của ký tự đã vẽ
+
+    @Min(value = 1, message = "Số nét phải từ 1 đến 40")
+    @Max(value = 40, message = "Số nét phải từ 1 đến 40")
+    private Integer strokeCount; // Số nét đã vẽ (tùy chọn), dùng để thu hẹp các mẫu cần so sánh
+
+    @Min(value = 1, message = "Số kết quả phải từ 1 đến 50")
+    @Max(value = 50, message = "Số kết quả phải từ 1 đến 50")
+    private int limit = 10;
 }
@@ -1,5 +1,7 @@
 package com.domain.backend.dto.request;
 
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Pattern;
 import lombok.Data;
@@ -11,4 +13,8 @@ public class KanjiSearchRequest {
 
     @Pattern(regexp = "KANJI|ONYOMI|KUNYOMI|MEANING|ALL", message = "Loại tìm kiếm Kanji không hợp lệ. Phải là KANJI, ONYOMI, KUNYOMI, MEANING, hoặc ALL.")
     private String searchType = "ALL"; // Mặc định tìm kiếm trên tất cả các trường
+
+    @Min(value = 1, message = "Số kết quả phải từ 1 đến 200")
+    @Max(value = 200, message = "Số kết quả phải từ 1 đến 200")
+    private int limit = 50; // Số kết quả tối đa, đã xếp hạng theo kiểu khớp
 }
\ No newline at end of file
@@ -1,5 +1,7 @@
 package com.domain.backend.dto.request;
 
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Pattern;
 import lombok.Data;
@@ -11,5 +13,11 @@ public class SearchRequest {
 
     // Tùy chọn: Chỉ định loại script của truy vấn để gợi ý cho backend
     @Pattern(regexp = "KANJI|HIRAGANA|KATAKANA|ROMAJI|ALL", message = "Loại script không hợp lệ. Phải là KANJI, HIRAGANA, KATAKANA, ROMAJI, hoặc ALL.")
-    private String scriptType = "ALL"; // Mặc định tìm kiếm trên tất cả các loại script
+    private String scriptType = "ALL"; // Giữ để tương thích; mọi script đều được chuẩn hóa về cùng một khóa tìm kiếm
+
+    @Min(value = 1, message = "Số kết quả mỗi trang phải từ 1 đến 100")
+    @Max(value = 100, message = "Số kết quả mỗi trang phải từ 1 đến 100")
+    private int limit = 20; // Số kết quả (top-k) trả về mỗi trang
+
+    private String cursor; // Con trỏ mờ lấy từ nextCursor của trang trước; để trống cho trang đầu
 }
\ No newline at end of file
@@ -0,0 +1,14 @@
+package com.domain.backend.dto.request;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+@Data
+public class TextScanRequest {
+    @NotBlank(message = "Văn bản không được để trống")
+    @Size(max = 100000, message = "Văn bản không được vượt quá 100000 ký tự")
+    private String text;
+
+    private boolean overlapping = false; // true để báo khớp dài nhất tại mọi vị trí, kể cả bên trong một khớp trước đó
+}
@@ -0,0 +1,20 @@
+package com.domain.backend.dto.response;
+
+import com.domain.backend.entity.VocabularyEntry;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Một entry từ vựng tìm được cho dạng gốc của một từ đã chia (ví dụ 食べる cho 食べた).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DeinflectionResponse {
+    private String term;          // Dạng gốc đã khớp với từ điển
+    private List<String> reasons; // Các biến đổi đã khử, từ dạng gốc ra ngoài (ví dụ ["negative", "past"])
+    private VocabularyEntry entry;
+}
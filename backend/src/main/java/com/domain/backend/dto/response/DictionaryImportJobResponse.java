@@ -0,0 +1,27 @@
+package com.domain.backend.dto.response;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Tiến độ của một lần nhập từ điển.
+ */
+@Data
+public class DictionaryImportJobResponse {
+    private String id;
+    private String source;
+    private String filePath;
+    private long fileSize;
+    private String status;
+    private long resumedFrom;
+    private long recordsParsed;
+    private long recordsCommitted;
+    private long bytesRead;
+    private double progressPercent;   // Theo số byte đã đọc của tệp
+    private double recordsPerSecond;  // Tốc độ ghi của lần chạy này
+    private String errorMessage;
+    private LocalDateTime startedAt;
+    private LocalDateTime updatedAt;
+    private LocalDateTime finishedAt;
+}
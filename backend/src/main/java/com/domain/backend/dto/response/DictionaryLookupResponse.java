@@ -0,0 +1,22 @@
+package com.domain.backend.dto.response;
+
+import com.domain.backend.entity.VocabularyEntry;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Kết quả tra cứu hàng loạt: Kanji theo ký tự và từ vựng theo từ, theo thứ tự xuất hiện trong yêu cầu.
+ * Một từ có thể ứng với nhiều entry từ vựng (từ đồng tự), nên mỗi từ ánh xạ tới danh sách entry.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DictionaryLookupResponse {
+    private Map<String, KanjiResponse> kanji;
+    private Map<String, List<VocabularyEntry>> vocabulary;
+    private List<String> notFound; // Các ký tự và từ không có trong từ điển
+}
@@ -0,0 +1,25 @@
+package com.domain.backend.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Số liệu của snapshot từ điển trong bộ nhớ.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DictionaryStatsResponse {
+    private boolean loaded;          // false nếu lần nạp đầu tiên chưa hoàn tất
+    private boolean current;         // false nếu đã có thay đổi chưa được nạp lại (tra cứu đang đi thẳng tới MongoDB)
+    private int kanjiCount;
+    private int vocabularyCount;
+    private int uniqueStrings;       // Số chuỗi khác nhau sau khi gộp
+    private long estimatedBytes;     // Kích thước ước tính trong heap
+    private long reloadMillis;       // Thời gian của lần nạp gần nhất
+    private LocalDateTime loadedAt;
+    private long reloadCount;
+}
@@ -0,0 +1,23 @@
+package com.domain.backend.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Số liệu của cache furigana.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FuriganaCacheStatsResponse {
+    private long hitCount;
+    private long missCount;
+    private double hitRate;           // Tỷ lệ trúng cache (0..1)
+    private long coalescedCount;      // Số yêu cầu trượt cache đã chờ kết quả của một lần phân tích đang chạy
+    private long evictionCount;       // Số mục bị loại do vượt giới hạn kích thước
+    private long entryCount;
+    private long weightedSizeBytes;   // Kích thước ước tính của các mục hiện có
+    private long maxSizeBytes;
+    private int tokenizerShards;
+}
@@ -12,7 +12,7 @@ public class KanjiResponse {
     private String kunyomi;
     private String meaning;
     private int strokeCount;
-    private String strokeOrderSvg;
+    private String strokeOrderSvgUrl; // URL của SVG thứ tự nét (được cache vĩnh viễn), null nếu không có
     private List<String> examples;
     private List<String> radicals;
     private String jlptLevel;
@@ -0,0 +1,19 @@
+package com.domain.backend.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Thông tin rút gọn của một Kanji, dùng cho các danh sách tra cứu nhanh (ví dụ: tra theo bộ thủ).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class KanjiSummaryResponse {
+    private String id;
+    private String kanjiCharacter;
+    private int strokeCount;
+    private String meaning;
+    private String jlptLevel;
+}
@@ -0,0 +1,16 @@
+package com.domain.backend.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class KeysetPageResponse<T> {
+    private List<T> items;
+    private int size;          // Số phần tử tối đa của một trang đã được áp dụng
+    private String nextCursor; // ID của phần tử cuối trang, truyền vào tham số after để lấy trang tiếp theo; null nếu là trang cuối
+}
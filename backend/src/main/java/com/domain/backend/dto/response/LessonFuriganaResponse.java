@@ -0,0 +1,21 @@
+package com.domain.backend.dto.response;
+
+import com.domain.backend.entity.RubyToken;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LessonFuriganaResponse {
+    private String lessonId;
+    private String contentHash;
+    private String furigana;
+    private List<RubyToken> tokens;
+    private boolean stale; // true nếu nội dung đã được sửa và bản mới đang được tính lại trong nền
+    private LocalDateTime annotatedAt;
+}
@@ -0,0 +1,19 @@
+package com.domain.backend.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Kết quả tra cứu Kanji theo bộ thủ.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RadicalSearchResponse {
+    private List<KanjiSummaryResponse> results; // Sắp xếp theo số nét tăng dần
+    private int totalHits;                      // Tổng số Kanji chứa mọi bộ thủ đã chọn (trước khi giới hạn)
+    private List<String> availableRadicals;     // Các bộ thủ khác còn có thể chọn thêm mà vẫn có kết quả
+}
@@ -0,0 +1,22 @@
+package com.domain.backend.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Số liệu của cache kết quả tìm kiếm.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SearchCacheStatsResponse {
+    private long hitCount;
+    private long missCount;
+    private double hitRate;           // Tỷ lệ trúng cache (0..1)
+    private long evictionCount;       // Số mục bị loại do vượt giới hạn kích thước
+    private long invalidationCount;   // Số mục bị loại do nội dung thay đổi
+    private long entryCount;
+    private long weightedSizeBytes;   // Kích thước ước tính của các mục hiện có
+    private long maxSizeBytes;
+}
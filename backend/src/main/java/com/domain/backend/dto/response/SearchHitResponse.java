@@ -0,0 +1,18 @@
+package com.domain.backend.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Một kết quả trong danh sách đã xếp hạng của SearchResponse.
+ * Dữ liệu đầy đủ của thực thể nằm trong danh sách kết quả tương ứng với entityType.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SearchHitResponse {
+    private String entityType; // KANJI, VOCABULARY, LESSON hoặc COURSE
+    private String entityId;
+    private float score;       // Điểm liên quan, càng cao càng phù hợp
+}
@@ -17,5 +17,11 @@ public class SearchResponse { // Đã đổi tên từ SearchResultResponse
     private List<VocabularyEntry> vocabularyResults; // Kết quả tìm kiếm Từ vựng
     private List<LessonResponse> lessonResults; // Kết quả tìm kiếm Bài học
     private List<CourseResponse> courseResults; // Kết quả tìm kiếm Khóa học
+    private List<SearchHitResponse> results; // Thứ tự xếp hạng trên tất cả các loại kết quả của trang hiện tại
+    private Integer totalHits; // Tổng số kết quả phù hợp (null nếu không xác định)
+    private String nextCursor; // Con trỏ cho trang tiếp theo, null nếu đây là trang cuối
     private String message;
+    private String suggestedQuery; // Truy vấn đã sửa lỗi chính tả khi truy vấn gốc không có kết quả ("có phải bạn muốn tìm")
+    private boolean partial; // true nếu có nguồn bị bỏ qua do lỗi hoặc vượt quá hạn chót
+    private List<String> skippedSources; // Các nguồn bị bỏ qua (KANJI, VOCABULARY, LESSON, COURSE)
 }
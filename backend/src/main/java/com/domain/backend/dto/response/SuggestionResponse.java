@@ -0,0 +1,18 @@
+package com.domain.backend.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Một gợi ý tự động hoàn thành cho thanh tìm kiếm.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SuggestionResponse {
+    private String text;       // Văn bản hiển thị (từ, Kanji hoặc tiêu đề)
+    private String detail;     // Thông tin phụ: furigana của từ vựng, nghĩa của Kanji; null với bài học/khóa học
+    private String entityType; // KANJI, VOCABULARY, LESSON hoặc COURSE
+    private String entityId;
+}
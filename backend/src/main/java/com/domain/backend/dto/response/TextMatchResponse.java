@@ -0,0 +1,20 @@
+package com.domain.backend.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Một từ trong từ điển được tìm thấy khi quét văn bản.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TextMatchResponse {
+    private int start;             // Vị trí bắt đầu trong văn bản (tính theo ký tự UTF-16)
+    private int end;               // Vị trí kết thúc (không bao gồm)
+    private String surface;        // Đoạn văn bản đã khớp
+    private List<String> entryIds; // ID các từ vựng có japaneseWord hoặc furigana bằng surface (xem TextScanResponse.entries)
+}
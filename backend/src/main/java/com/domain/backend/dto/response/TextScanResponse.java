@@ -0,0 +1,20 @@
+package com.domain.backend.dto.response;
+
+import com.domain.backend.entity.VocabularyEntry;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Kết quả quét văn bản: các khớp theo thứ tự vị trí và các từ vựng được tham chiếu, mỗi từ vựng chỉ một lần.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TextScanResponse {
+    private List<TextMatchResponse> matches;
+    private Map<String, VocabularyEntry> entries; // Theo ID
+}
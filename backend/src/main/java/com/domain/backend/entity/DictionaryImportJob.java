@@ -0,0 +1,39 @@
+package com.domain.backend.entity;
+
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+@Data
+@Document(collection = "dictionaryImportJobs")
+@CompoundIndex(name = "source_file_idx", def = "{'source': 1, 'filePath': 1, 'startedAt': -1}")
+public class DictionaryImportJob {
+
+    public static final String SOURCE_JMDICT = "JMDICT";
+    public static final String SOURCE_KANJIDIC2 = "KANJIDIC2";
+
+    public static final String STATUS_RUNNING = "RUNNING";
+    public static final String STATUS_COMPLETED = "COMPLETED";
+    public static final String STATUS_FAILED = "FAILED";
+    public static final String STATUS_CANCELLED = "CANCELLED";
+
+    @Id
+    private String id;
+
+    private String source;           // JMDICT hoặc KANJIDIC2
+    private String filePath;         // Đường dẫn tuyệt đối của tệp trên máy chủ
+    private long fileSize;
+    private long fileLastModified;   // Dùng để chỉ tiếp tục khi tệp không thay đổi
+    private String status;           // RUNNING, COMPLETED, FAILED hoặc CANCELLED
+    private long resumedFrom;        // Số entry đã bỏ qua khi tiếp tục lần chạy trước
+    private long recordsParsed;      // Số entry đã đọc từ tệp (kể cả các entry bỏ qua khi tiếp tục)
+    private long recordsCommitted;   // Điểm kiểm tra: mọi entry trước vị trí này đã được ghi xong
+    private long bytesRead;
+    private String errorMessage;
+    private LocalDateTime startedAt;
+    private LocalDateTime updatedAt;
+    private LocalDateTime finishedAt;
+}
@@ -22,7 +22,18 @@ public class KanjiEntry {
     private String furigana; // Furigana
     private int strokeCount; // Số nét
     private String strokeOrderSvg; // Dữ liệu SVG cho thứ tự nét
+    @Indexed
+    private String strokeOrderSvgHash; // SHA-256 của strokeOrderSvg (địa chỉ nội dung), tự cập nhật khi lưu
     private List<String> examples; // Các từ ví dụ sử dụng Kanji này
     private List<String> radicals; // Các bộ thủ cấu thành Kanji
     private String jlptLevel; // Cấp độ JLPT (ví dụ: "N5", "N4")
+
+    @Indexed
+    private List<String> searchKeys; // Khóa chuẩn của các trường tìm kiếm (JapaneseNormalizer), tự cập nhật khi lưu
+
+    @Indexed
+    private List<String> readings; // Các âm đọc On'yomi/Kun'yomi đã tách và chuẩn hóa, tự cập nhật khi lưu
+
+    @Indexed
+    private List<String> meaningTerms; // Các từ của nghĩa (chữ thường), tự cập nhật khi lưu
 }
\ No newline at end of file
@@ -18,6 +18,7 @@ public class Lesson {
 
     private String title;
     private String content; // Có thể lưu trữ nội dung Markdown hoặc HTML
+    private String contentHash; // SHA-256 của content, để biết furigana tính sẵn (LessonAnnotation) còn đúng hay không
     private String lessonType; // ví dụ: "TEXT", "QUIZ", "FLASHCARD", "VIDEO"
     private int orderIndex; // Thứ tự các bài học trong một module
 
@@ -0,0 +1,25 @@
+package com.domain.backend.entity;
+
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Furigana và token của nội dung một bài học, được tính sẵn khi bài học được ghi.
+ * Mỗi bài học có tối đa một bản, với _id là ID của bài học; contentHash cho biết bản này ứng với nội dung nào.
+ */
+@Data
+@Document(collection = "lessonAnnotations")
+public class LessonAnnotation {
+
+    @Id
+    private String id; // ID của bài học
+
+    private String contentHash; // SHA-256 của nội dung bài học đã được phân tích
+    private String furigana;    // Nội dung với furigana dạng "surface (reading)"
+    private List<RubyToken> tokens;
+    private LocalDateTime annotatedAt;
+}
@@ -0,0 +1,18 @@
+package com.domain.backend.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// RubyToken được nhúng trong LessonAnnotation
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RubyToken {
+    private String surface;      // Từ như trong văn bản
+    private String reading;      // Cách đọc (Hiragana); null nếu không biết
+    private String baseForm;     // Dạng từ điển; null nếu không biết
+    private String partOfSpeech; // Từ loại (cấp 1 của IPADIC, ví dụ 名詞, 動詞)
+    private int start;           // Vị trí ký tự bắt đầu trong văn bản
+    private int end;             // Vị trí ký tự kết thúc (không bao gồm)
+}
@@ -2,15 +2,23 @@ package com.domain.backend.entity;
 
 import lombok.Data;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.index.TextIndexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Data
 @Document(collection = "searchIndex")
+@CompoundIndex(name = "entity_idx", def = "{'entityType': 1, 'entityId': 1}", unique = true) // Mỗi thực thể có đúng một tài liệu chỉ mục
 public class SearchIndex {
 
+    public static final String TYPE_COURSE = "COURSE";
+    public static final String TYPE_LESSON = "LESSON";
+    public static final String TYPE_KANJI = "KANJI";
+    public static final String TYPE_VOCABULARY = "VOCABULARY";
+
     @Id
     private String id;
 
@@ -32,4 +40,6 @@ public class SearchIndex {
     private String courseId; // Nếu entityType là LESSON, QUIZ, FLASHCARD
     private String difficultyLevel; // Nếu entityType là COURSE
     private String jlptLevel; // Nếu entityType là KANJI, VOCABULARY
+
+    private LocalDateTime indexedAt; // Thời điểm tài liệu được ghi vào chỉ mục lần gần nhất
 }
\ No newline at end of file
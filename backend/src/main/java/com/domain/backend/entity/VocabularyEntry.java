@@ -1,5 +1,6 @@
 package com.domain.backend.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Data;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.index.Indexed;
@@ -14,6 +15,9 @@ public class VocabularyEntry {
     @Id
     private String id;
 
+    @Indexed(unique = true, sparse = true)
+    private Long entSeq; // Số thứ tự entry trong JMdict (ent_seq); null với từ vựng tạo thủ công
+
     @Indexed
     private String japaneseWord; // Từ tiếng Nhật (Kanji hoặc Kana)
     private String furigana;     // Hiragana reading của Kanji
@@ -23,4 +27,8 @@ public class VocabularyEntry {
     private String partOfSpeech; // Loại từ (ví dụ: "Noun", "Verb", "Adjective")
     private String jlptLevel; // Cấp độ JLPT (ví dụ: "N5", "N4")
     private String audioUrl; // URL tới phát âm
+
+    @JsonIgnore
+    @Indexed
+    private List<String> searchKeys; // Khóa chuẩn của các trường tìm kiếm (JapaneseNormalizer), tự cập nhật khi lưu
 }
\ No newline at end of file
@@ -0,0 +1,31 @@
+package com.domain.backend.entity;
+
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * Một phần tử posting của chỉ mục n-gram ký tự cho từ vựng.
+ * Mỗi tài liệu ứng với một cặp (bigram hoặc trigram Kana/Kanji đã gộp Katakana về Hiragana, ID của VocabularyEntry
+ * có japaneseWord hoặc furigana chứa n-gram đó), nên kích thước tài liệu không tăng theo số từ chứa một n-gram phổ biến.
+ */
+@Data
+@Document(collection = "vocabularyNgramPostings")
+@CompoundIndex(name = "gram_vocabulary_idx", def = "{'gram': 1, 'vocabularyId': 1}", unique = true) // Tra theo n-gram, mỗi cặp một tài liệu
+public class VocabularyNgram {
+
+    @Id
+    private String id;
+
+    private String gram;         // Bigram hoặc trigram
+    private String vocabularyId; // ID của VocabularyEntry chứa n-gram
+
+    public VocabularyNgram() {
+    }
+
+    public VocabularyNgram(String gram, String vocabularyId) {
+        this.gram = gram;
+        this.vocabularyId = vocabularyId;
+    }
+}
@@ -0,0 +1,24 @@
+package com.domain.backend.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Sự kiện được phát ra mỗi khi nội dung có thể tìm kiếm (Kanji, từ vựng, bài học, khóa học)
+ * được tạo, cập nhật hoặc xóa.
+ * Các thành phần tìm kiếm (chỉ mục, cache, ...) lắng nghe sự kiện này để tự cập nhật
+ * thay vì các service nội dung phải gọi trực tiếp từng thành phần.
+ */
+@Getter
+@AllArgsConstructor
+public class ContentChangedEvent {
+
+    public enum Action {
+        CREATED, UPDATED, DELETED
+    }
+
+    private final String entityType; // Loại thực thể (xem các hằng số TYPE_* trong SearchIndex)
+    private final String entityId;   // ID của thực thể gốc
+    private final Action action;
+    private final Object entity;     // Trạng thái của thực thể sau khi ghi (trước khi xóa nếu DELETED)
+}
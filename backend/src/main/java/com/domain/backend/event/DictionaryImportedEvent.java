@@ -0,0 +1,16 @@
+package com.domain.backend.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Sự kiện được phát sau khi một lần nhập từ điển hàng loạt ghi dữ liệu trực tiếp vào collection Kanji hoặc từ vựng.
+ * Việc nhập không phát {@link ContentChangedEvent} cho từng entry, nên các chỉ mục và bộ nhớ đệm dựa trên các
+ * collection này phải được dựng lại toàn bộ.
+ */
+@Getter
+@AllArgsConstructor
+public class DictionaryImportedEvent {
+    private final String entityType; // KANJI hoặc VOCABULARY (SearchIndex.TYPE_*)
+    private final long recordsWritten;
+}
@@ -0,0 +1,15 @@
+package com.domain.backend.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Sự kiện được phát ra sau khi chỉ mục tìm kiếm trong bộ nhớ hoán đổi sang một snapshot mới.
+ * Snapshot phản ánh mọi thay đổi nội dung xảy ra trước thời điểm bắt đầu dựng.
+ */
+@Getter
+@AllArgsConstructor
+public class SearchIndexRebuiltEvent {
+
+    private final long startedAtNanos; // Giá trị System.nanoTime() khi bắt đầu đọc dữ liệu để dựng snapshot
+}
@@ -0,0 +1,15 @@
+package com.domain.backend.repository;
+
+import com.domain.backend.entity.DictionaryImportJob;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface DictionaryImportJobRepository extends MongoRepository<DictionaryImportJob, String> {
+    Optional<DictionaryImportJob> findFirstBySourceAndFilePathOrderByStartedAtDesc(String source, String filePath);
+
+    List<DictionaryImportJob> findTop20ByOrderByStartedAtDesc();
+}
@@ -12,10 +12,4 @@ public interface KanjiEntryRepository extends MongoRepository<KanjiEntry, String
     Optional<KanjiEntry> findByKanjiCharacter(String kanjiCharacter);
 
     List<KanjiEntry> findByJlptLevel(String jlptLevel);
-
-    List<KanjiEntry> findByMeaningRegex(String regex, String options); // Tìm kiếm theo nghĩa (regex)
-
-    List<KanjiEntry> findByOnyomiRegex(String regex, String options); // Tìm kiếm theo Onyomi (regex)
-
-    List<KanjiEntry> findByKunyomiRegex(String regex, String options); // Tìm kiếm theo Kunyomi (regex)
 }
\ No newline at end of file
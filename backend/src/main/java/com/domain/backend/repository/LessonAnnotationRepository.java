@@ -0,0 +1,9 @@
+package com.domain.backend.repository;
+
+import com.domain.backend.entity.LessonAnnotation;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface LessonAnnotationRepository extends MongoRepository<LessonAnnotation, String> {
+}
@@ -9,7 +9,7 @@ import java.util.Optional;
 
 @Repository
 public interface VocabularyEntryRepository extends MongoRepository<VocabularyEntry, String> {
-    Optional<VocabularyEntry> findByJapaneseWord(String japaneseWord);
+    Optional<VocabularyEntry> findFirstByJapaneseWord(String japaneseWord);
 
     List<VocabularyEntry> findByJlptLevel(String jlptLevel);
 
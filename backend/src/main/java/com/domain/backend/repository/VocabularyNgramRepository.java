@@ -0,0 +1,10 @@
+package com.domain.backend.repository;
+
+import com.domain.backend.entity.VocabularyNgram;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface VocabularyNgramRepository extends MongoRepository<VocabularyNgram, String> {
+    long countByGram(String gram);
+}
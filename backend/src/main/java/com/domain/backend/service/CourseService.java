@@ -3,18 +3,26 @@ package com.domain.backend.service;
 import com.domain.backend.dto.request.CourseRequest;
 import com.domain.backend.dto.request.ModuleRequest;
 import com.domain.backend.dto.response.CourseResponse;
+import com.domain.backend.dto.response.KeysetPageResponse;
 import com.domain.backend.dto.response.MessageResponse;
 import com.domain.backend.dto.response.ModuleResponse;
 import com.domain.backend.entity.Course;
 import com.domain.backend.entity.CourseModule;
+import com.domain.backend.entity.SearchIndex;
+import com.domain.backend.event.ContentChangedEvent;
 import com.domain.backend.exception.ResourceNotFoundException;
 import com.domain.backend.exception.UnauthorizedException;
 import com.domain.backend.repository.CourseRepository;
 import com.domain.backend.security.SecurityUtils;
+import com.domain.backend.util.KeysetPagination;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
@@ -30,6 +38,12 @@ public class CourseService {
     @Autowired
     private CourseRepository courseRepository;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher; // Thông báo thay đổi nội dung cho chỉ mục tìm kiếm
+
+    @Autowired
+    private KeysetPagination keysetPagination; // Phân trang theo khóa và xuất NDJSON
+
     /**
      * Chuyển đổi Course entity sang CourseResponse DTO.
      *
@@ -109,6 +123,7 @@ public class CourseService {
         }
 
         Course savedCourse = courseRepository.save(course);
+        eventPublisher.publishEvent(new ContentChangedEvent(SearchIndex.TYPE_COURSE, savedCourse.getId(), ContentChangedEvent.Action.CREATED, savedCourse));
         return convertToCourseResponse(savedCourse);
     }
 
@@ -134,6 +149,27 @@ public class CourseService {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Lấy một trang khóa học theo thứ tự ID (phân trang theo khóa).
+     *
+     * @param after ID của phần tử cuối trang trước, null cho trang đầu.
+     * @param size  Số phần tử tối đa của trang.
+     * @return Trang CourseResponse cùng con trỏ cho trang tiếp theo.
+     */
+    public KeysetPageResponse<CourseResponse> getCoursesPage(String after, Integer size) {
+        return keysetPagination.page(new Query(), Course.class, after, size, this::convertToCourseResponse);
+    }
+
+    /**
+     * Xuất toàn bộ khóa học dưới dạng NDJSON, đọc qua cursor và ghi ra từng dòng.
+     *
+     * @param output Luồng đầu ra của phản hồi.
+     * @throws IOException nếu không thể ghi ra luồng đầu ra.
+     */
+    public void exportCourses(OutputStream output) throws IOException {
+        keysetPagination.streamNdjson(new Query(), Course.class, this::convertToCourseResponse, output);
+    }
+
     /**
      * Cập nhật một khóa học hiện có.
      *
@@ -168,6 +204,7 @@ public class CourseService {
 
         existingCourse.setUpdatedAt(); // Cập nhật dấu thời gian
         Course updatedCourse = courseRepository.save(existingCourse);
+        eventPublisher.publishEvent(new ContentChangedEvent(SearchIndex.TYPE_COURSE, updatedCourse.getId(), ContentChangedEvent.Action.UPDATED, updatedCourse));
         return convertToCourseResponse(updatedCourse);
     }
 
@@ -189,6 +226,7 @@ public class CourseService {
         }
 
         courseRepository.delete(existingCourse);
+        eventPublisher.publishEvent(new ContentChangedEvent(SearchIndex.TYPE_COURSE, id, ContentChangedEvent.Action.DELETED, existingCourse));
         return new MessageResponse("Khóa học đã xóa thành công!");
     }
 }
\ No newline at end of file
@@ -0,0 +1,665 @@
+package com.domain.backend.service;
+
+import com.domain.backend.dto.request.DictionaryImportRequest;
+import com.domain.backend.dto.response.DictionaryImportJobResponse;
+import com.domain.backend.entity.DictionaryImportJob;
+import com.domain.backend.entity.KanjiEntry;
+import com.domain.backend.entity.SearchIndex;
+import com.domain.backend.entity.VocabularyEntry;
+import com.domain.backend.event.DictionaryImportedEvent;
+import com.domain.backend.exception.ResourceNotFoundException;
+import com.domain.backend.exception.UnauthorizedException;
+import com.domain.backend.exception.ValidationException;
+import com.domain.backend.repository.DictionaryImportJobRepository;
+import com.domain.backend.security.SecurityUtils;
+import com.domain.backend.util.DictionaryXmlParser;
+import com.domain.backend.util.SearchUtils;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import javax.xml.stream.XMLStreamException;
+import java.io.BufferedInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Nhập hàng loạt các tệp từ điển JMdict (từ vựng) và KANJIDIC2 (Kanji) từ ổ đĩa của máy chủ.
+ * <p>
+ * Tệp được đọc dạng luồng bằng StAX ({@link DictionaryXmlParser}) và các entry được gom thành từng đoạn liên tiếp.
+ * Mỗi đoạn được chia theo băm của cách viết (japaneseWord hoặc kanjiCharacter) cho một số luồng ghi cố định; mỗi
+ * luồng ghi phần của mình bằng một bulk upsert không thứ tự. Từ vựng được upsert theo ent_seq của JMdict nên các từ
+ * đồng tự (cùng cách viết, khác entry) được giữ thành các bản ghi riêng; Kanji được upsert theo kanjiCharacter. Vì
+ * cùng một cách viết luôn đi vào cùng một luồng ghi theo thứ tự của tệp, các upsert song song không tạo bản ghi trùng
+ * và entry xuất hiện sau luôn thắng. Số đoạn đang ghi được giới hạn, nên bộ nhớ sử dụng không phụ thuộc kích thước tệp.
+ * <p>
+ * Upsert chỉ ghi các trường có trong tệp nguồn (cùng các khóa tìm kiếm tính từ chúng), nên dữ liệu biên soạn thêm như
+ * câu ví dụ hay âm thanh không bị ghi đè. Sau mỗi đoạn ghi xong, điểm kiểm tra (số entry đầu tệp đã ghi chắc chắn)
+ * được lưu vào {@link DictionaryImportJob}; lần nhập sau với cùng tệp không đổi sẽ bỏ qua các entry đó.
+ * Khi kết thúc, {@link DictionaryImportedEvent} được phát để các chỉ mục và bộ nhớ đệm dựng lại.
+ */
+@Service
+public class DictionaryImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DictionaryImportService.class);
+
+    private static final int MAX_IN_FLIGHT_SEGMENTS = 2; // Một đoạn đang ghi trong khi đoạn tiếp theo được đọc
+    private static final long WRITER_TIMEOUT_HOURS = 1;  // Thời gian chờ tối đa để các đoạn đang ghi hoàn tất
+    private static final int MAX_WRITE_ATTEMPTS = 3;
+    private static final long RETRY_DELAY_MS = 1000;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private DictionaryImportJobRepository dictionaryImportJobRepository;
+
+    @Autowired
+    private DictionaryXmlParser dictionaryXmlParser;
+
+    @Autowired
+    private SearchUtils searchUtils;
+
+    @Autowired
+    private NgramIndexService ngramIndexService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${dictionary.import.base-dir:./data/dictionaries}")
+    private String baseDir;
+
+    @Value("${dictionary.import.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${dictionary.import.writers:4}")
+    private int writerCount;
+
+    private final ExecutorService importExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "dictionary-import");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean importRunning = new AtomicBoolean(false);
+
+    private volatile ImportRun currentRun; // Lần nhập đang chạy, null nếu không có
+
+    @PreDestroy
+    public void shutdown() {
+        ImportRun run = currentRun;
+        if (run != null) {
+            run.cancelled = true; // Điểm kiểm tra đã lưu cho phép tiếp tục sau khi khởi động lại
+        }
+        importExecutor.shutdownNow();
+    }
+
+    /**
+     * Bắt đầu nhập một tệp từ điển trong nền.
+     * Chỉ ADMIN mới có thể thực hiện.
+     *
+     * @param request Nguồn (JMDICT hoặc KANJIDIC2), đường dẫn tệp trong thư mục nhập và có tiếp tục lần trước hay không.
+     * @return Tiến độ ban đầu của lần nhập.
+     * @throws UnauthorizedException nếu người dùng không phải ADMIN.
+     * @throws ValidationException   nếu tệp không hợp lệ hoặc đang có một lần nhập khác chạy.
+     */
+    public DictionaryImportJobResponse startImport(DictionaryImportRequest request) {
+        if (!SecurityUtils.isAdmin()) {
+            throw new UnauthorizedException("Bạn không được phép nhập dữ liệu từ điển.");
+        }
+        String source = request.getSource();
+        if (!DictionaryImportJob.SOURCE_JMDICT.equals(source) && !DictionaryImportJob.SOURCE_KANJIDIC2.equals(source)) {
+            throw new ValidationException("Nguồn từ điển không hợp lệ. Phải là JMDICT hoặc KANJIDIC2.");
+        }
+        Path file = resolveFile(request.getFilePath());
+        if (!importRunning.compareAndSet(false, true)) {
+            throw new ValidationException("Đang có một lần nhập từ điển chưa hoàn tất.");
+        }
+        try {
+            long fileSize = Files.size(file);
+            long lastModified = Files.getLastModifiedTime(file).toMillis();
+            DictionaryImportJob job = null;
+            if (request.isResume()) {
+                job = dictionaryImportJobRepository.findFirstBySourceAndFilePathOrderByStartedAtDesc(source, file.toString())
+                        .filter(previous -> !DictionaryImportJob.STATUS_COMPLETED.equals(previous.getStatus())
+                                && previous.getFileSize() == fileSize && previous.getFileLastModified() == lastModified)
+                        .orElse(null);
+            }
+            if (job == null) {
+                job = new DictionaryImportJob();
+                job.setSource(source);
+                job.setFilePath(file.toString());
+                job.setFileSize(fileSize);
+                job.setFileLastModified(lastModified);
+            }
+            LocalDateTime now = LocalDateTime.now();
+            job.setStatus(DictionaryImportJob.STATUS_RUNNING);
+            job.setResumedFrom(job.getRecordsCommitted());
+            job.setRecordsParsed(0);
+            job.setBytesRead(0);
+            job.setErrorMessage(null);
+            job.setStartedAt(now);
+            job.setUpdatedAt(now);
+            job.setFinishedAt(null);
+            job = dictionaryImportJobRepository.save(job);
+
+            ImportRun run = new ImportRun(job, file);
+            currentRun = run;
+            importExecutor.execute(run::execute);
+            return toResponse(run);
+        } catch (IOException ex) {
+            importRunning.set(false);
+            throw new ValidationException("Không thể đọc tệp từ điển: " + ex.getMessage());
+        } catch (RuntimeException ex) {
+            importRunning.set(false);
+            throw ex;
+        }
+    }
+
+    /**
+     * Yêu cầu dừng lần nhập đang chạy. Các entry đã ghi được giữ lại và có thể tiếp tục sau.
+     * Chỉ ADMIN mới có thể thực hiện.
+     *
+     * @param jobId ID của lần nhập.
+     * @return Tiến độ hiện tại của lần nhập.
+     * @throws UnauthorizedException nếu người dùng không phải ADMIN.
+     * @throws ValidationException   nếu lần nhập này không còn chạy.
+     */
+    public DictionaryImportJobResponse cancelImport(String jobId) {
+        if (!SecurityUtils.isAdmin()) {
+            throw new UnauthorizedException("Bạn không được phép dừng việc nhập từ điển.");
+        }
+        ImportRun run = currentRun;
+        if (run == null || !run.job.getId().equals(jobId)) {
+            throw new ValidationException("Lần nhập từ điển này không còn chạy.");
+        }
+        run.cancelled = true;
+        return toResponse(run);
+    }
+
+    /**
+     * Lấy tiến độ của một lần nhập. Lần nhập đang chạy được báo cáo từ bộ nhớ nên luôn là số liệu mới nhất.
+     * Chỉ ADMIN mới có thể xem.
+     *
+     * @param jobId ID của lần nhập.
+     * @return Tiến độ của lần nhập.
+     * @throws UnauthorizedException     nếu người dùng không phải ADMIN.
+     * @throws ResourceNotFoundException nếu không tìm thấy lần nhập.
+     */
+    public DictionaryImportJobResponse getImport(String jobId) {
+        if (!SecurityUtils.isAdmin()) {
+            throw new UnauthorizedException("Bạn không được phép xem tiến độ nhập từ điển.");
+        }
+        ImportRun run = currentRun;
+        if (run != null && run.job.getId().equals(jobId)) {
+            return toResponse(run);
+        }
+        return dictionaryImportJobRepository.findById(jobId)
+                .map(job -> toResponse(job, null))
+                .orElseThrow(() -> new ResourceNotFoundException("Lần nhập từ điển", "id", jobId));
+    }
+
+    /**
+     * Lấy 20 lần nhập gần nhất.
+     * Chỉ ADMIN mới có thể xem.
+     *
+     * @return Danh sách tiến độ, mới nhất trước.
+     * @throws UnauthorizedException nếu người dùng không phải ADMIN.
+     */
+    public List<DictionaryImportJobResponse> getRecentImports() {
+        if (!SecurityUtils.isAdmin()) {
+            throw new UnauthorizedException("Bạn không được phép xem tiến độ nhập từ điển.");
+        }
+        ImportRun run = currentRun;
+        return dictionaryImportJobRepository.findTop20ByOrderByStartedAtDesc().stream()
+                .map(job -> run != null && run.job.getId().equals(job.getId()) ? toResponse(run) : toResponse(job, null))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Giải đường dẫn tệp trong thư mục nhập; không cho phép đi ra ngoài thư mục này.
+     */
+    private Path resolveFile(String filePath) {
+        Path base = Paths.get(baseDir).toAbsolutePath().normalize();
+        Path file = base.resolve(filePath).normalize();
+        if (!file.startsWith(base)) {
+            throw new ValidationException("Tệp từ điển phải nằm trong thư mục nhập dữ liệu.");
+        }
+        String name = file.getFileName() == null ? "" : file.getFileName().toString().toLowerCase();
+        if (!name.endsWith(".xml") && !name.endsWith(".xml.gz")) {
+            throw new ValidationException("Tệp từ điển phải có định dạng XML hoặc XML nén gzip.");
+        }
+        if (!Files.isRegularFile(file) || !Files.isReadable(file)) {
+            throw new ValidationException("Không tìm thấy tệp từ điển: " + filePath);
+        }
+        return file;
+    }
+
+    private DictionaryImportJobResponse toResponse(ImportRun run) {
+        synchronized (run) {
+            return toResponse(run.job, run);
+        }
+    }
+
+    private static DictionaryImportJobResponse toResponse(DictionaryImportJob job, ImportRun run) {
+        DictionaryImportJobResponse response = new DictionaryImportJobResponse();
+        BeanUtils.copyProperties(job, response);
+        if (run != null) {
+            response.setRecordsParsed(run.recordsParsed);
+            response.setBytesRead(run.input.count);
+        }
+        response.setProgressPercent(job.getFileSize() == 0 ? 0
+                : Math.min(100.0, 100.0 * response.getBytesRead() / job.getFileSize()));
+        LocalDateTime end = job.getFinishedAt() != null ? job.getFinishedAt() : LocalDateTime.now();
+        long elapsedMillis = job.getStartedAt() == null ? 0 : Duration.between(job.getStartedAt(), end).toMillis();
+        response.setRecordsPerSecond(elapsedMillis <= 0 ? 0
+                : (job.getRecordsCommitted() - job.getResumedFrom()) * 1000.0 / elapsedMillis);
+        return response;
+    }
+
+    /**
+     * Ghi một phần của đoạn bằng bulk upsert không thứ tự, thử lại khi lỗi.
+     */
+    private void writeBatch(String source, List<Object> entries) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                BulkOperations bulkOps = DictionaryImportJob.SOURCE_JMDICT.equals(source)
+                        ? mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, VocabularyEntry.class)
+                        : mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, KanjiEntry.class);
+                for (Object entry : entries) {
+                    if (entry instanceof VocabularyEntry vocabulary) {
+                        bulkOps.upsert(Query.query(vocabularyCriteria(vocabulary)), vocabularyUpdate(vocabulary));
+                    } else if (entry instanceof KanjiEntry kanji) {
+                        bulkOps.upsert(Query.query(Criteria.where("kanjiCharacter").is(kanji.getKanjiCharacter())),
+                                kanjiUpdate(kanji));
+                    }
+                }
+                bulkOps.execute();
+                return;
+            } catch (RuntimeException ex) {
+                if (attempt == MAX_WRITE_ATTEMPTS) {
+                    throw ex;
+                }
+                logger.warn("Ghi {} entry từ điển thất bại (lần {}), sẽ thử lại: {}", entries.size(), attempt, ex.getMessage());
+                try {
+                    Thread.sleep(RETRY_DELAY_MS * attempt);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    throw ex;
+                }
+            }
+        }
+    }
+
+    /**
+     * Bản ghi của một entry JMdict: bản ghi có cùng ent_seq, hoặc bản ghi nhập trước khi ent_seq được lưu có cùng cách
+     * viết và cách đọc (bản ghi đó được gắn ent_seq trong lần upsert này). Entry không có ent_seq được ghép theo cách viết.
+     */
+    private static Criteria vocabularyCriteria(VocabularyEntry entry) {
+        if (entry.getEntSeq() == null) {
+            return Criteria.where("japaneseWord").is(entry.getJapaneseWord());
+        }
+        return new Criteria().orOperator(
+                Criteria.where("entSeq").is(entry.getEntSeq()),
+                Criteria.where("entSeq").exists(false)
+                        .and("japaneseWord").is(entry.getJapaneseWord())
+                        .and("furigana").is(entry.getFurigana()));
+    }
+
+    /**
+     * Upsert không đi qua BeforeConvertCallback, nên khóa tìm kiếm được tính ở đây.
+     */
+    private Update vocabularyUpdate(VocabularyEntry entry) {
+        Update update = new Update()
+                .set("japaneseWord", entry.getJapaneseWord())
+                .set("furigana", entry.getFurigana())
+                .set("romaji", entry.getRomaji())
+                .set("meaning", entry.getMeaning())
+                .set("partOfSpeech", entry.getPartOfSpeech())
+                .set(SearchUtils.SEARCH_KEYS_FIELD, searchUtils.searchKeysOf(entry));
+        if (entry.getEntSeq() != null) {
+            update.set("entSeq", entry.getEntSeq());
+        }
+        return update;
+    }
+
+    private Update kanjiUpdate(KanjiEntry entry) {
+        Update update = new Update()
+                .set("onyomi", entry.getOnyomi())
+                .set("kunyomi", entry.getKunyomi())
+                .set("meaning", entry.getMeaning())
+                .set("strokeCount", entry.getStrokeCount())
+                .set(SearchUtils.SEARCH_KEYS_FIELD, searchUtils.searchKeysOf(entry))
+                .set(SearchUtils.READINGS_FIELD, searchUtils.readingsOf(entry))
+                .set(SearchUtils.MEANING_TERMS_FIELD, searchUtils.meaningTermsOf(entry))
+                .setOnInsert("radicals", entry.getRadicals()); // Không ghi đè bộ thủ đã biên soạn
+        if (entry.getJlptLevel() != null) {
+            update.set("jlptLevel", entry.getJlptLevel());
+        }
+        return update;
+    }
+
+    /**
+     * Khóa định danh của entry trong một đoạn: ent_seq với từ vựng (cách viết nếu thiếu), ký tự với Kanji.
+     */
+    private static String keyOf(Object entry) {
+        if (entry instanceof VocabularyEntry vocabulary) {
+            return vocabulary.getEntSeq() != null ? "#" + vocabulary.getEntSeq() : vocabulary.getJapaneseWord();
+        }
+        return ((KanjiEntry) entry).getKanjiCharacter();
+    }
+
+    /**
+     * Khóa chia luồng ghi: cách viết, để các từ đồng tự cùng ghép với một bản ghi cũ chưa có ent_seq không bị ghi song song.
+     */
+    private static String writerKeyOf(Object entry) {
+        return entry instanceof VocabularyEntry vocabulary ? vocabulary.getJapaneseWord() : ((KanjiEntry) entry).getKanjiCharacter();
+    }
+
+    /**
+     * Luồng đầu vào đếm số byte đã đọc của tệp (trước khi giải nén) để báo cáo tiến độ.
+     */
+    private static final class CountingInputStream extends FilterInputStream {
+        private volatile long count;
+
+        private CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int value = super.read();
+            if (value >= 0) {
+                count++;
+            }
+            return value;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = super.read(buffer, offset, length);
+            if (read > 0) {
+                count += read;
+            }
+            return read;
+        }
+    }
+
+    /**
+     * Bị ném từ bên trong consumer của parser để dừng việc đọc tệp.
+     */
+    private static final class ImportStoppedException extends RuntimeException {
+        private ImportStoppedException() {
+            super(null, null, false, false);
+        }
+    }
+
+    /**
+     * Trạng thái của một lần nhập. Các trường tiến độ được bảo vệ bởi synchronized(this).
+     */
+    private final class ImportRun {
+        private final DictionaryImportJob job;
+        private final Path file;
+        private final String entityType;
+        private final int segmentSize;
+        private final ExecutorService[] writers;
+        private final Semaphore inFlightSegments = new Semaphore(MAX_IN_FLIGHT_SEGMENTS);
+        private final TreeMap<Long, Long> completedSegments = new TreeMap<>(); // Vị trí đầu -> vị trí cuối (không gồm)
+        private final AtomicReference<RuntimeException> writeFailure = new AtomicReference<>();
+        private volatile CountingInputStream input;
+
+        private volatile boolean cancelled;
+        private boolean writersAbandoned; // Chỉ luồng đọc: đã thôi chờ các luồng ghi (quá thời gian hoặc bị ngắt)
+        private long recordsParsed;     // Chỉ luồng đọc ghi; đọc dưới synchronized(this) khi báo cáo
+        private long segmentStart;
+        private final List<Object> segment;
+
+        private ImportRun(DictionaryImportJob job, Path file) {
+            this.job = job;
+            this.file = file;
+            this.entityType = DictionaryImportJob.SOURCE_JMDICT.equals(job.getSource())
+                    ? SearchIndex.TYPE_VOCABULARY : SearchIndex.TYPE_KANJI;
+            int writerThreads = Math.max(1, writerCount);
+            this.segmentSize = Math.max(1, batchSize) * writerThreads;
+            this.segment = new ArrayList<>(segmentSize);
+            this.writers = new ExecutorService[writerThreads];
+            for (int i = 0; i < writerThreads; i++) {
+                String name = "dictionary-import-writer-" + i;
+                writers[i] = Executors.newSingleThreadExecutor(runnable -> {
+                    Thread thread = new Thread(runnable, name);
+                    thread.setDaemon(true);
+                    return thread;
+                });
+            }
+            this.segmentStart = job.getResumedFrom();
+            this.input = new CountingInputStream(InputStream.nullInputStream());
+        }
+
+        private void execute() {
+            long start = System.currentTimeMillis();
+            String status = DictionaryImportJob.STATUS_COMPLETED;
+            String errorMessage = null;
+            try (InputStream raw = Files.newInputStream(file)) {
+                input = new CountingInputStream(raw);
+                InputStream content = new BufferedInputStream(input, 64 * 1024);
+                if (isGzip(file)) {
+                    content = new GZIPInputStream(content, 64 * 1024);
+                }
+                if (DictionaryImportJob.SOURCE_JMDICT.equals(job.getSource())) {
+                    dictionaryXmlParser.parseJmdict(content, this::accept);
+                } else {
+                    dictionaryXmlParser.parseKanjidic(content, this::accept);
+                }
+                submitSegment();
+                awaitWriters();
+                throwIfFailed();
+            } catch (ImportStoppedException ex) {
+                awaitWriters();
+                if (writeFailure.get() != null) {
+                    status = DictionaryImportJob.STATUS_FAILED;
+                    errorMessage = writeFailure.get().getMessage();
+                } else {
+                    status = DictionaryImportJob.STATUS_CANCELLED;
+                }
+            } catch (IOException | XMLStreamException | RuntimeException ex) {
+                awaitWriters();
+                status = DictionaryImportJob.STATUS_FAILED;
+                errorMessage = ex.getMessage();
+            } finally {
+                for (ExecutorService writer : writers) {
+                    writer.shutdownNow();
+                }
+            }
+
+            long written;
+            synchronized (this) {
+                job.setStatus(status);
+                job.setErrorMessage(errorMessage);
+                job.setRecordsParsed(recordsParsed);
+                job.setBytesRead(input.count);
+                job.setFinishedAt(LocalDateTime.now());
+                job.setUpdatedAt(job.getFinishedAt());
+                written = job.getRecordsCommitted() - job.getResumedFrom();
+                saveJob();
+            }
+            currentRun = null;
+            importRunning.set(false);
+            logger.info("Nhập từ điển {} kết thúc với trạng thái {}: {} entry được ghi trong {} ms",
+                    job.getSource(), status, written, System.currentTimeMillis() - start);
+
+            if (written > 0) {
+                if (SearchIndex.TYPE_VOCABULARY.equals(entityType)) {
+                    try {
+                        ngramIndexService.rebuild();
+                    } catch (RuntimeException ex) {
+                        logger.warn("Không thể dựng lại chỉ mục n-gram sau khi nhập từ điển: {}", ex.getMessage());
+                    }
+                }
+                eventPublisher.publishEvent(new DictionaryImportedEvent(entityType, written));
+            }
+        }
+
+        /**
+         * Nhận một entry từ parser (luồng đọc). Các entry trước điểm kiểm tra của lần chạy trước được bỏ qua.
+         */
+        private void accept(Object entry) {
+            if (cancelled || writeFailure.get() != null) {
+                throw new ImportStoppedException();
+            }
+            long position;
+            synchronized (this) {
+                position = recordsParsed++;
+            }
+            if (position < job.getResumedFrom()) {
+                return;
+            }
+            segment.add(entry);
+            if (segment.size() == segmentSize) {
+                submitSegment();
+            }
+        }
+
+        /**
+         * Chia đoạn hiện tại theo băm của khóa cho các luồng ghi. Chặn khi đã có đủ số đoạn đang ghi.
+         */
+        private void submitSegment() {
+            if (segment.isEmpty()) {
+                return;
+            }
+            long start = segmentStart;
+            long end = start + segment.size();
+            List<List<Object>> partitions = new ArrayList<>(writers.length);
+            for (int i = 0; i < writers.length; i++) {
+                partitions.add(new ArrayList<>());
+            }
+            // Trong một đoạn, entry sau cùng của một khóa thắng (giống như khi ghi tuần tự)
+            Map<String, Object> latest = new LinkedHashMap<>();
+            for (Object entry : segment) {
+                latest.put(keyOf(entry), entry);
+            }
+            latest.values().forEach(entry -> partitions.get(Math.floorMod(writerKeyOf(entry).hashCode(), writers.length)).add(entry));
+            segment.clear();
+            segmentStart = end;
+
+            try {
+                inFlightSegments.acquire();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                cancelled = true;
+                throw new ImportStoppedException();
+            }
+            AtomicInteger remaining = new AtomicInteger(writers.length);
+            for (int i = 0; i < writers.length; i++) {
+                List<Object> partition = partitions.get(i);
+                writers[i].execute(() -> {
+                    try {
+                        if (!partition.isEmpty() && writeFailure.get() == null) {
+                            writeBatch(job.getSource(), partition);
+                        }
+                    } catch (RuntimeException ex) {
+                        writeFailure.compareAndSet(null, ex);
+                    } finally {
+                        if (remaining.decrementAndGet() == 0) {
+                            onSegmentWritten(start, end);
+                            inFlightSegments.release();
+                        }
+                    }
+                });
+            }
+        }
+
+        /**
+         * Đánh dấu một đoạn đã ghi xong và dời điểm kiểm tra qua mọi đoạn liên tiếp đã hoàn tất.
+         */
+        private synchronized void onSegmentWritten(long start, long end) {
+            if (writeFailure.get() != null) {
+                return; // Một phần của đoạn có thể chưa được ghi
+            }
+            completedSegments.put(start, end);
+            long committed = job.getRecordsCommitted();
+            while (!completedSegments.isEmpty() && completedSegments.firstKey() == committed) {
+                committed = completedSegments.pollFirstEntry().getValue();
+            }
+            if (committed != job.getRecordsCommitted()) {
+                job.setRecordsCommitted(committed);
+                job.setRecordsParsed(recordsParsed);
+                job.setBytesRead(input.count);
+                job.setUpdatedAt(LocalDateTime.now());
+                saveJob();
+            }
+        }
+
+        private void saveJob() {
+            try {
+                dictionaryImportJobRepository.save(job);
+            } catch (RuntimeException ex) {
+                logger.warn("Không thể lưu điểm kiểm tra nhập từ điển: {}", ex.getMessage());
+            }
+        }
+
+        /**
+         * Chờ mọi đoạn đang ghi hoàn tất. Nếu quá thời gian chờ hoặc bị ngắt, lần nhập được đánh dấu thất bại (nên không
+         * điểm kiểm tra nào được ghi thêm) và các lần gọi sau trả về ngay; chỉ các permit đã lấy được mới được trả lại.
+         *
+         * @return true nếu mọi luồng ghi đã xong.
+         */
+        private boolean awaitWriters() {
+            if (writersAbandoned) {
+                return false;
+            }
+            try {
+                if (inFlightSegments.tryAcquire(MAX_IN_FLIGHT_SEGMENTS, WRITER_TIMEOUT_HOURS, TimeUnit.HOURS)) {
+                    inFlightSegments.release(MAX_IN_FLIGHT_SEGMENTS);
+                    return true;
+                }
+                writeFailure.compareAndSet(null, new IllegalStateException(
+                        "Các luồng ghi không hoàn tất sau " + WRITER_TIMEOUT_HOURS + " giờ."));
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                writeFailure.compareAndSet(null, new IllegalStateException("Bị ngắt khi chờ các luồng ghi hoàn tất."));
+            }
+            writersAbandoned = true;
+            return false;
+        }
+
+        private void throwIfFailed() {
+            RuntimeException failure = writeFailure.get();
+            if (failure != null) {
+                throw failure;
+            }
+        }
+
+        private boolean isGzip(Path path) {
+            return path.getFileName().toString().toLowerCase().endsWith(".gz");
+        }
+    }
+}
@@ -0,0 +1,444 @@
+package com.domain.backend.service;
+
+import com.domain.backend.dto.response.DictionaryStatsResponse;
+import com.domain.backend.entity.KanjiEntry;
+import com.domain.backend.entity.SearchIndex;
+import com.domain.backend.entity.VocabularyEntry;
+import com.domain.backend.event.ContentChangedEvent;
+import com.domain.backend.event.DictionaryImportedEvent;
+import com.domain.backend.exception.UnauthorizedException;
+import com.domain.backend.repository.KanjiEntryRepository;
+import com.domain.backend.repository.VocabularyEntryRepository;
+import com.domain.backend.security.SecurityUtils;
+import com.domain.backend.util.DictionarySnapshot;
+import com.domain.backend.util.IncrementalSnapshot;
+import com.domain.backend.util.KanjiUtils;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Phục vụ tra cứu Kanji và từ vựng từ một snapshot chỉ đọc của toàn bộ từ điển trong heap
+ * (xem {@link DictionarySnapshot}) thay vì truy vấn MongoDB cho mỗi yêu cầu.
+ * <p>
+ * Khi một Kanji hoặc từ vựng được sửa, bản ghi mới được đưa ngay vào một snapshot phủ nhỏ (cùng định dạng) và bản
+ * ghi cũ của phần gốc bị che theo ID, nên tra cứu vẫn phục vụ từ bộ nhớ mà không cần nạp lại. Snapshot chỉ được nạp
+ * lại toàn bộ khi khởi động, sau khi nhập từ điển, hoặc khi lớp phủ vượt quá {@value #MAX_OVERLAY_ENTRIES} bản ghi.
+ * Mỗi lần nhập tăng một số phiên bản; snapshot chỉ được dùng khi nó được nạp sau lần nhập gần nhất, còn trong
+ * khoảng thời gian nạp lại các tra cứu đi thẳng tới MongoDB, nên không bao giờ trả về dữ liệu cũ.
+ */
+@Service
+public class DictionarySnapshotService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DictionarySnapshotService.class);
+
+    // Số bản ghi tối đa của lớp phủ trước khi snapshot được nạp lại toàn bộ
+    private static final int MAX_OVERLAY_ENTRIES = 1000;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private KanjiEntryRepository kanjiEntryRepository;
+
+    @Autowired
+    private VocabularyEntryRepository vocabularyEntryRepository;
+
+    private final AtomicLong changeVersion = new AtomicLong(); // Tăng sau mỗi lần nhập từ điển
+    private final AtomicLong reloadCount = new AtomicLong();
+
+    private final IncrementalSnapshot<LoadedSnapshot> loaded = new IncrementalSnapshot<>("dictionary-snapshot-reload", logger,
+            "Không thể nạp snapshot từ điển", this::build, this::applyChange);
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        loaded.scheduleRebuild();
+    }
+
+    /**
+     * Đưa bản ghi vừa thay đổi vào lớp phủ ngay lập tức.
+     */
+    @EventListener
+    public void onContentChanged(ContentChangedEvent event) {
+        if (SearchIndex.TYPE_KANJI.equals(event.getEntityType()) || SearchIndex.TYPE_VOCABULARY.equals(event.getEntityType())) {
+            loaded.apply(event);
+        }
+    }
+
+    @EventListener
+    public void onDictionaryImported(DictionaryImportedEvent event) {
+        changeVersion.incrementAndGet();
+        loaded.scheduleRebuild();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        loaded.shutdown();
+    }
+
+    /**
+     * Lên lịch nạp lại snapshot trong nền. Nhiều yêu cầu liên tiếp được gộp thành một lần nạp.
+     */
+    public void scheduleRebuild() {
+        loaded.scheduleRebuild();
+    }
+
+    /**
+     * Nạp lại toàn bộ snapshot ngay trên luồng gọi.
+     */
+    public void rebuild() {
+        loaded.rebuild();
+    }
+
+    /**
+     * Nạp toàn bộ Kanji và từ vựng vào một snapshot mới. Các trường khóa tìm kiếm và SVG thứ tự nét
+     * (được phục vụ riêng theo địa chỉ nội dung) không được nạp.
+     */
+    private LoadedSnapshot build() {
+        long version = changeVersion.get(); // Đọc trước khi nạp: lần nhập xảy ra trong lúc nạp làm snapshot này cũ
+        long start = System.currentTimeMillis();
+        DictionarySnapshot.Builder builder = DictionarySnapshot.builder();
+
+        Query kanjiQuery = new Query();
+        kanjiQuery.fields().exclude("searchKeys", "readings", "meaningTerms", KanjiUtils.STROKE_ORDER_SVG_FIELD);
+        try (Stream<KanjiEntry> entries = mongoTemplate.stream(kanjiQuery, KanjiEntry.class)) {
+            entries.forEach(builder::addKanji);
+        }
+        Query vocabularyQuery = new Query();
+        vocabularyQuery.fields().exclude("searchKeys");
+        try (Stream<VocabularyEntry> entries = mongoTemplate.stream(vocabularyQuery, VocabularyEntry.class)) {
+            entries.forEach(builder::addVocabulary);
+        }
+        DictionarySnapshot snapshot = builder.build();
+        long reloadMillis = System.currentTimeMillis() - start;
+
+        reloadCount.incrementAndGet();
+        logger.info("Đã nạp snapshot từ điển: {} Kanji, {} từ vựng, {} chuỗi khác nhau, ~{} KB trong {} ms",
+                snapshot.kanjiCount(), snapshot.vocabularyCount(), snapshot.uniqueStrings(),
+                snapshot.estimatedBytes() / 1024, reloadMillis);
+        return new LoadedSnapshot(snapshot, version, reloadMillis, LocalDateTime.now());
+    }
+
+    /**
+     * Thay bản ghi của thực thể trong lớp phủ (hoặc chỉ che bản ghi cũ nếu thực thể bị xóa).
+     */
+    private LoadedSnapshot applyChange(LoadedSnapshot current, ContentChangedEvent event) {
+        Object entity = event.getAction() == ContentChangedEvent.Action.DELETED ? null : event.getEntity();
+        LoadedSnapshot updated = SearchIndex.TYPE_KANJI.equals(event.getEntityType())
+                ? current.withKanji(event.getEntityId(), (KanjiEntry) entity)
+                : current.withVocabulary(event.getEntityId(), (VocabularyEntry) entity);
+        if (updated.changedKanjiIds.size() + updated.changedVocabularyIds.size() > MAX_OVERLAY_ENTRIES) {
+            loaded.scheduleRebuild();
+        }
+        return updated;
+    }
+
+    /**
+     * Tìm Kanji theo ID.
+     */
+    public Optional<KanjiEntry> findKanjiById(String id) {
+        LoadedSnapshot snapshot = current();
+        if (snapshot == null) {
+            return kanjiEntryRepository.findById(id);
+        }
+        return Optional.ofNullable(snapshot.kanjiById(id));
+    }
+
+    /**
+     * Tìm Kanji theo ký tự.
+     */
+    public Optional<KanjiEntry> findKanjiByCharacter(String kanjiCharacter) {
+        LoadedSnapshot snapshot = current();
+        if (snapshot == null) {
+            return kanjiEntryRepository.findByKanjiCharacter(kanjiCharacter);
+        }
+        return Optional.ofNullable(snapshot.kanjiByCharacter(kanjiCharacter));
+    }
+
+    /**
+     * Tìm các Kanji theo danh sách ID. Thứ tự kết quả không được đảm bảo; ID không tồn tại bị bỏ qua.
+     */
+    public List<KanjiEntry> findKanjiByIds(List<String> ids) {
+        LoadedSnapshot snapshot = current();
+        if (snapshot == null) {
+            return kanjiEntryRepository.findAllById(ids);
+        }
+        List<KanjiEntry> results = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            KanjiEntry entry = snapshot.kanjiById(id);
+            if (entry != null) {
+                results.add(entry);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Tìm các Kanji theo danh sách ký tự bằng một lần tra cứu snapshot hoặc một truy vấn {@code $in}.
+     * Thứ tự kết quả không được đảm bảo; ký tự không tồn tại bị bỏ qua.
+     */
+    public List<KanjiEntry> findKanjiByCharacters(Collection<String> kanjiCharacters) {
+        if (kanjiCharacters.isEmpty()) {
+            return List.of();
+        }
+        LoadedSnapshot snapshot = current();
+        if (snapshot == null) {
+            Query query = new Query(Criteria.where("kanjiCharacter").in(kanjiCharacters));
+            query.fields().exclude("searchKeys", "readings", "meaningTerms", KanjiUtils.STROKE_ORDER_SVG_FIELD);
+            return mongoTemplate.find(query, KanjiEntry.class);
+        }
+        List<KanjiEntry> results = new ArrayList<>(kanjiCharacters.size());
+        for (String kanjiCharacter : kanjiCharacters) {
+            KanjiEntry entry = snapshot.kanjiByCharacter(kanjiCharacter);
+            if (entry != null) {
+                results.add(entry);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Tìm từ vựng theo từ tiếng Nhật chính xác.
+     */
+    public Optional<VocabularyEntry> findVocabularyByWord(String japaneseWord) {
+        LoadedSnapshot snapshot = current();
+        if (snapshot == null) {
+            return vocabularyEntryRepository.findFirstByJapaneseWord(japaneseWord);
+        }
+        return Optional.ofNullable(snapshot.vocabularyByWord(japaneseWord));
+    }
+
+    /**
+     * Tìm các từ vựng theo danh sách từ tiếng Nhật chính xác bằng một lần tra cứu snapshot hoặc một truy vấn
+     * {@code $in}. Mọi từ đồng tự của mỗi từ đều được trả về. Thứ tự kết quả không được đảm bảo; từ không tồn tại bị
+     * bỏ qua.
+     */
+    public List<VocabularyEntry> findVocabularyByWords(Collection<String> japaneseWords) {
+        if (japaneseWords.isEmpty()) {
+            return List.of();
+        }
+        LoadedSnapshot snapshot = current();
+        if (snapshot == null) {
+            Query query = new Query(Criteria.where("japaneseWord").in(japaneseWords));
+            query.fields().exclude("searchKeys");
+            return mongoTemplate.find(query, VocabularyEntry.class);
+        }
+        List<VocabularyEntry> results = new ArrayList<>(japaneseWords.size());
+        for (String japaneseWord : japaneseWords) {
+            snapshot.vocabularyByWordAll(japaneseWord, results);
+        }
+        return results;
+    }
+
+    /**
+     * Tìm các từ vựng theo danh sách ID. Thứ tự kết quả không được đảm bảo; ID không tồn tại bị bỏ qua.
+     */
+    public List<VocabularyEntry> findVocabularyByIds(Iterable<String> ids) {
+        LoadedSnapshot snapshot = current();
+        if (snapshot == null) {
+            return vocabularyEntryRepository.findAllById(ids);
+        }
+        List<VocabularyEntry> results = new ArrayList<>();
+        for (String id : ids) {
+            VocabularyEntry entry = snapshot.vocabularyById(id);
+            if (entry != null) {
+                results.add(entry);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Lấy số liệu của snapshot (kích thước ước tính, thời gian nạp).
+     * Chỉ ADMIN mới có thể xem.
+     *
+     * @return DictionaryStatsResponse chứa số liệu hiện tại.
+     * @throws UnauthorizedException nếu người dùng không phải ADMIN.
+     */
+    public DictionaryStatsResponse getStats() {
+        if (!SecurityUtils.isAdmin()) {
+            throw new UnauthorizedException("Bạn không được phép xem số liệu snapshot từ điển.");
+        }
+        LoadedSnapshot current = loaded.get();
+        if (current == null) {
+            return new DictionaryStatsResponse(false, false, 0, 0, 0, 0, 0, null, reloadCount.get());
+        }
+        DictionarySnapshot snapshot = current.snapshot;
+        return new DictionaryStatsResponse(true, current.version == changeVersion.get(), snapshot.kanjiCount(),
+                snapshot.vocabularyCount(), snapshot.uniqueStrings(), snapshot.estimatedBytes(), current.reloadMillis,
+                current.loadedAt, reloadCount.get());
+    }
+
+    /**
+     * Snapshot hiện tại nếu nó được nạp sau lần nhập từ điển gần nhất, ngược lại null (bên gọi truy vấn MongoDB).
+     */
+    private LoadedSnapshot current() {
+        LoadedSnapshot current = loaded.get();
+        if (current == null || current.version != changeVersion.get()) {
+            return null;
+        }
+        return current;
+    }
+
+    /**
+     * Snapshot đã nạp cùng lớp phủ các bản ghi thay đổi từ sau lần nạp đó. Bất biến: mỗi thay đổi tạo đối tượng mới.
+     */
+    private static final class LoadedSnapshot {
+        private final DictionarySnapshot snapshot;
+        private final DictionarySnapshot overlay;         // Bản mới của các bản ghi đã tạo hoặc sửa
+        private final Set<String> changedKanjiIds;       // Kanji đã tạo, sửa hoặc xóa: bản trong snapshot bị che
+        private final Set<String> changedVocabularyIds;
+        private final long version;          // changeVersion tại thời điểm bắt đầu nạp
+        private final long reloadMillis;
+        private final LocalDateTime loadedAt;
+
+        private LoadedSnapshot(DictionarySnapshot snapshot, long version, long reloadMillis, LocalDateTime loadedAt) {
+            this(snapshot, DictionarySnapshot.builder().build(), Set.of(), Set.of(), version, reloadMillis, loadedAt);
+        }
+
+        private LoadedSnapshot(DictionarySnapshot snapshot, DictionarySnapshot overlay, Set<String> changedKanjiIds,
+                               Set<String> changedVocabularyIds, long version, long reloadMillis, LocalDateTime loadedAt) {
+            this.snapshot = snapshot;
+            this.overlay = overlay;
+            this.changedKanjiIds = changedKanjiIds;
+            this.changedVocabularyIds = changedVocabularyIds;
+            this.version = version;
+            this.reloadMillis = reloadMillis;
+            this.loadedAt = loadedAt;
+        }
+
+        private KanjiEntry kanjiById(String id) {
+            DictionarySnapshot source = changedKanjiIds.contains(id) ? overlay : snapshot;
+            int ordinal = source.kanjiOrdinalById(id);
+            return ordinal == DictionarySnapshot.NOT_FOUND ? null : source.kanjiAt(ordinal);
+        }
+
+        private KanjiEntry kanjiByCharacter(String kanjiCharacter) {
+            int ordinal = overlay.kanjiOrdinalByCharacter(kanjiCharacter);
+            if (ordinal != DictionarySnapshot.NOT_FOUND) {
+                return overlay.kanjiAt(ordinal);
+            }
+            ordinal = snapshot.kanjiOrdinalByCharacter(kanjiCharacter);
+            return ordinal == DictionarySnapshot.NOT_FOUND || changedKanjiIds.contains(snapshot.kanjiIdAt(ordinal))
+                    ? null : snapshot.kanjiAt(ordinal);
+        }
+
+        private VocabularyEntry vocabularyById(String id) {
+            DictionarySnapshot source = changedVocabularyIds.contains(id) ? overlay : snapshot;
+            int ordinal = source.vocabularyOrdinalById(id);
+            return ordinal == DictionarySnapshot.NOT_FOUND ? null : source.vocabularyAt(ordinal);
+        }
+
+        /**
+         * Bản ghi đầu tiên còn tồn tại của từ: duyệt các từ đồng tự của snapshot theo thứ tự, thay bản đã sửa bằng
+         * bản trong lớp phủ và bỏ qua bản đã xóa (hoặc đã đổi sang từ khác), rồi tới các từ mới trong lớp phủ.
+         */
+        private VocabularyEntry vocabularyByWord(String japaneseWord) {
+            for (int ordinal = snapshot.vocabularyOrdinalByWord(japaneseWord); ordinal != DictionarySnapshot.NOT_FOUND;
+                 ordinal = snapshot.nextVocabularyOrdinalByWord(ordinal)) {
+                String id = snapshot.vocabularyIdAt(ordinal);
+                if (!changedVocabularyIds.contains(id)) {
+                    return snapshot.vocabularyAt(ordinal);
+                }
+                int changed = overlay.vocabularyOrdinalById(id);
+                if (changed != DictionarySnapshot.NOT_FOUND && japaneseWord.equals(overlay.vocabularyAt(changed).getJapaneseWord())) {
+                    return overlay.vocabularyAt(changed);
+                }
+            }
+            int ordinal = overlay.vocabularyOrdinalByWord(japaneseWord);
+            return ordinal == DictionarySnapshot.NOT_FOUND ? null : overlay.vocabularyAt(ordinal);
+        }
+
+        /**
+         * Thêm mọi bản ghi còn tồn tại của từ vào results: các từ đồng tự của snapshot theo thứ tự (bản đã sửa được
+         * thay bằng bản trong lớp phủ, bản đã xóa hoặc đã đổi sang từ khác bị bỏ qua), rồi các bản ghi của từ chỉ có
+         * trong lớp phủ (tạo mới hoặc đổi sang từ này).
+         */
+        private void vocabularyByWordAll(String japaneseWord, List<VocabularyEntry> results) {
+            Set<String> substituted = null;
+            for (int ordinal = snapshot.vocabularyOrdinalByWord(japaneseWord); ordinal != DictionarySnapshot.NOT_FOUND;
+                 ordinal = snapshot.nextVocabularyOrdinalByWord(ordinal)) {
+                String id = snapshot.vocabularyIdAt(ordinal);
+                if (!changedVocabularyIds.contains(id)) {
+                    results.add(snapshot.vocabularyAt(ordinal));
+                    continue;
+                }
+                int changed = overlay.vocabularyOrdinalById(id);
+                if (changed != DictionarySnapshot.NOT_FOUND && japaneseWord.equals(overlay.vocabularyAt(changed).getJapaneseWord())) {
+                    results.add(overlay.vocabularyAt(changed));
+                    if (substituted == null) {
+                        substituted = new HashSet<>();
+                    }
+                    substituted.add(id);
+                }
+            }
+            for (int ordinal = overlay.vocabularyOrdinalByWord(japaneseWord); ordinal != DictionarySnapshot.NOT_FOUND;
+                 ordinal = overlay.nextVocabularyOrdinalByWord(ordinal)) {
+                if (substituted == null || !substituted.contains(overlay.vocabularyIdAt(ordinal))) {
+                    results.add(overlay.vocabularyAt(ordinal));
+                }
+            }
+        }
+
+        /**
+         * Snapshot mới trong đó Kanji có ID đã cho được thay bằng entry (null nếu Kanji bị xóa).
+         */
+        private LoadedSnapshot withKanji(String id, KanjiEntry entry) {
+            Set<String> changed = new HashSet<>(changedKanjiIds);
+            changed.add(id);
+            return new LoadedSnapshot(snapshot, rebuildOverlay(id, entry, null, null), changed, changedVocabularyIds,
+                    version, reloadMillis, loadedAt);
+        }
+
+        /**
+         * Snapshot mới trong đó từ vựng có ID đã cho được thay bằng entry (null nếu từ vựng bị xóa).
+         */
+        private LoadedSnapshot withVocabulary(String id, VocabularyEntry entry) {
+            Set<String> changed = new HashSet<>(changedVocabularyIds);
+            changed.add(id);
+            return new LoadedSnapshot(snapshot, rebuildOverlay(null, null, id, entry), changedKanjiIds, changed,
+                    version, reloadMillis, loadedAt);
+        }
+
+        /**
+         * Dựng lại lớp phủ (nhỏ) từ các bản ghi hiện có, bỏ bản cũ của bản ghi thay đổi và thêm bản mới nếu có.
+         */
+        private DictionarySnapshot rebuildOverlay(String kanjiId, KanjiEntry kanji, String vocabularyId, VocabularyEntry vocabulary) {
+            DictionarySnapshot.Builder builder = DictionarySnapshot.builder();
+            for (int ordinal = 0; ordinal < overlay.kanjiCount(); ordinal++) {
+                if (!overlay.kanjiIdAt(ordinal).equals(kanjiId)) {
+                    builder.addKanji(overlay.kanjiAt(ordinal));
+                }
+            }
+            for (int ordinal = 0; ordinal < overlay.vocabularyCount(); ordinal++) {
+                if (!overlay.vocabularyIdAt(ordinal).equals(vocabularyId)) {
+                    builder.addVocabulary(overlay.vocabularyAt(ordinal));
+                }
+            }
+            if (kanji != null) {
+                builder.addKanji(kanji);
+            }
+            if (vocabulary != null) {
+                builder.addVocabulary(vocabulary);
+            }
+            return builder.build();
+        }
+    }
+}
@@ -0,0 +1,391 @@
+package com.domain.backend.service;
+
+import com.atilika.kuromoji.ipadic.Token;
+import com.domain.backend.dto.response.FuriganaCacheStatsResponse;
+import com.domain.backend.entity.RubyToken;
+import com.domain.backend.exception.UnauthorizedException;
+import com.domain.backend.exception.ValidationException;
+import com.domain.backend.security.SecurityUtils;
+import com.domain.backend.util.JapaneseTextUtils;
+import com.domain.backend.util.SentenceReader;
+import com.domain.backend.util.TokenizerPool;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+/**
+ * Tạo furigana cho văn bản tiếng Nhật, có cache.
+ * <p>
+ * Nội dung bài học ít thay đổi nhưng được yêu cầu furigana hàng nghìn lần, nên kết quả được cache theo mã băm
+ * SHA-256 của văn bản. Dung lượng được giới hạn theo số byte ước tính và Caffeine chọn mục cần loại theo
+ * W-TinyLFU, nên các đoạn văn phổ biến được giữ lại dù có nhiều văn bản chỉ xuất hiện một lần.
+ * <p>
+ * Nhiều yêu cầu trượt cache đồng thời cho cùng một văn bản được gộp: chỉ yêu cầu đầu tiên phân tích, các yêu cầu
+ * còn lại chờ kết quả của nó. Việc phân tích chạy ngoài khóa của cache nên không chặn các khóa khác.
+ * <p>
+ * Yêu cầu hàng loạt (ví dụ cả một khóa học) được tách theo câu và chạy song song trên một ForkJoinPool riêng,
+ * không dùng common pool của JVM. Mỗi câu đi qua cache, nên câu lặp lại giữa các bài học chỉ được phân tích một lần.
+ */
+@Service
+public class FuriganaService {
+
+    private static final int ENTRY_OVERHEAD_BYTES = 96; // Header đối tượng, nút của cache và chuỗi khóa
+    private static final String UNKNOWN_FEATURE = "*"; // Kuromoji trả về "*" khi không biết đặc trưng của token
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    private static final CBORFactory CBOR_FACTORY = new CBORFactory();
+    private static final int MAX_BATCH_CHARS = 1_000_000;
+    private static final int MAX_STREAM_SENTENCE_CHARS = 4096; // Câu dài hơn (văn bản không có dấu câu) bị cắt
+    private static final int STREAM_FLUSH_CHARS = 8192;
+
+    @Autowired
+    private TokenizerPool tokenizerPool;
+
+    @Autowired
+    private JapaneseTextUtils japaneseTextUtils;
+
+    @Value("${japanese.furigana.cache.max-bytes:33554432}")
+    private long maxBytes;
+
+    @Value("${japanese.furigana.batch.parallelism:0}")
+    private int batchParallelism; // 0: bằng số lõi CPU
+
+    private Cache<String, String> cache;
+    private ForkJoinPool batchPool;
+    private final ConcurrentHashMap<String, CompletableFuture<String>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong coalescedCount = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        cache = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((String key, String value) -> ENTRY_OVERHEAD_BYTES + (key.length() + value.length()) * 2)
+                .recordStats()
+                .build();
+        int parallelism = batchParallelism > 0 ? batchParallelism : Runtime.getRuntime().availableProcessors();
+        batchPool = new ForkJoinPool(parallelism, pool -> {
+            ForkJoinWorkerThread worker = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            worker.setName("furigana-batch-" + worker.getPoolIndex());
+            return worker;
+        }, null, false);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        batchPool.shutdownNow();
+    }
+
+    /**
+     * Tạo furigana cho một chuỗi văn bản: mỗi từ chứa Kanji được theo sau bởi cách đọc Hiragana trong ngoặc.
+     *
+     * @param japaneseText Văn bản tiếng Nhật (có thể chứa Kanji).
+     * @return Văn bản với furigana, hoặc chuỗi rỗng nếu văn bản trống.
+     */
+    public String generateFurigana(String japaneseText) {
+        if (japaneseText == null || japaneseText.trim().isEmpty()) {
+            return "";
+        }
+        String key = contentHash(japaneseText);
+        String cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        CompletableFuture<String> pending = new CompletableFuture<>();
+        CompletableFuture<String> running = inFlight.putIfAbsent(key, pending);
+        if (running != null) {
+            coalescedCount.incrementAndGet();
+            try {
+                return running.join();
+            } catch (CompletionException ex) {
+                throw ex.getCause() instanceof RuntimeException ? (RuntimeException) ex.getCause() : ex;
+            }
+        }
+        try {
+            // Một luồng khác có thể vừa hoàn tất và rời khỏi inFlight giữa hai bước trên
+            String result = cache.asMap().get(key);
+            if (result == null) {
+                result = annotate(japaneseText);
+                cache.put(key, result);
+            }
+            pending.complete(result);
+            return result;
+        } catch (RuntimeException ex) {
+            pending.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            inFlight.remove(key, pending);
+        }
+    }
+
+    /**
+     * Tạo furigana cho nhiều văn bản trong một lần gọi. Các văn bản được tách thành câu và các câu được phân tích
+     * song song; kết quả được ghép lại theo đúng thứ tự.
+     *
+     * @param texts Các văn bản tiếng Nhật.
+     * @return Văn bản với furigana, cùng thứ tự với đầu vào.
+     * @throws ValidationException nếu tổng độ dài các văn bản vượt quá giới hạn.
+     */
+    public List<String> generateFuriganaBatch(List<String> texts) {
+        List<String> sentences = new ArrayList<>();
+        int[] offsets = new int[texts.size() + 1];
+        long totalChars = 0;
+        for (int i = 0; i < texts.size(); i++) {
+            String text = texts.get(i);
+            totalChars += text == null ? 0 : text.length();
+            if (totalChars > MAX_BATCH_CHARS) {
+                throw new ValidationException("Tổng độ dài các văn bản không được vượt quá " + MAX_BATCH_CHARS + " ký tự.");
+            }
+            offsets[i] = sentences.size();
+            sentences.addAll(japaneseTextUtils.splitSentences(text));
+        }
+        offsets[texts.size()] = sentences.size();
+
+        // Mỗi câu ghi vào ô riêng của mảng; get() bảo đảm mọi ô đã được ghi xong khi đọc
+        String[] annotated = new String[sentences.size()];
+        try {
+            batchPool.submit(() -> IntStream.range(0, annotated.length).parallel()
+                    .forEach(i -> annotated[i] = annotateSentence(sentences.get(i))))
+                    .get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Tạo furigana hàng loạt bị gián đoạn", ex);
+        } catch (ExecutionException ex) {
+            throw ex.getCause() instanceof RuntimeException ? (RuntimeException) ex.getCause()
+                    : new IllegalStateException(ex.getCause());
+        }
+
+        List<String> results = new ArrayList<>(texts.size());
+        for (int i = 0; i < texts.size(); i++) {
+            StringBuilder result = new StringBuilder();
+            for (int j = offsets[i]; j < offsets[i + 1]; j++) {
+                result.append(annotated[j]);
+            }
+            results.add(result.toString());
+        }
+        return results;
+    }
+
+    /**
+     * Tạo furigana cho một văn bản lớn theo từng câu: đọc một câu từ đầu vào, phân tích và ghi kết quả ra đầu ra
+     * trước khi đọc câu tiếp theo. Bộ nhớ dùng không phụ thuộc độ dài văn bản; câu đầu tiên được đẩy ra ngay,
+     * sau đó đầu ra được đẩy mỗi khi gom đủ STREAM_FLUSH_CHARS ký tự.
+     * Câu dài hơn MAX_STREAM_SENTENCE_CHARS ký tự bị cắt, nên từ nằm ở chỗ cắt có thể được phân tích khác đi.
+     *
+     * @param input  Văn bản tiếng Nhật; không bị đóng.
+     * @param output Đầu ra cho văn bản với furigana; không bị đóng.
+     * @return Số câu đã xử lý.
+     * @throws IOException nếu không thể đọc hoặc ghi (ví dụ client ngắt kết nối).
+     */
+    public long streamFurigana(Reader input, Writer output) throws IOException {
+        SentenceReader sentences = new SentenceReader(input, MAX_STREAM_SENTENCE_CHARS);
+        long count = 0;
+        int unflushed = 0;
+        for (String sentence = sentences.next(); sentence != null; sentence = sentences.next()) {
+            String annotated = annotateSentence(sentence);
+            output.write(annotated);
+            unflushed += annotated.length();
+            if (count++ == 0 || unflushed >= STREAM_FLUSH_CHARS) {
+                output.flush();
+                unflushed = 0;
+            }
+        }
+        output.flush();
+        return count;
+    }
+
+    /**
+     * Furigana của một câu; câu chỉ gồm khoảng trắng (ví dụ dòng trống) được giữ nguyên.
+     */
+    private String annotateSentence(String sentence) {
+        return sentence.isBlank() ? sentence : generateFurigana(sentence);
+    }
+
+    /**
+     * Phân tích văn bản và ghép furigana, không qua cache.
+     */
+    private String annotate(String japaneseText) {
+        StringBuilder furiganaBuilder = new StringBuilder(japaneseText.length() * 2);
+        for (Token token : tokenizerPool.tokenize(japaneseText)) {
+            String surface = token.getSurface(); // Từ gốc (Kanji/Kana)
+            String reading = token.getReading(); // Âm đọc (Katakana)
+
+            // Nếu từ gốc là Kanji và có âm đọc, thêm furigana
+            if (japaneseTextUtils.containsKanji(surface) && reading != null && !reading.isEmpty()) {
+                // Chuyển Katakana reading sang Hiragana cho furigana
+                furiganaBuilder.append(surface).append(" (").append(japaneseTextUtils.katakanaToHiragana(reading)).append(")");
+            } else {
+                furiganaBuilder.append(surface); // Giữ nguyên nếu không phải Kanji hoặc không có reading
+            }
+        }
+        return furiganaBuilder.toString();
+    }
+
+    /**
+     * Ghi furigana dạng cấu trúc: một mảng token theo thứ tự trong văn bản, mỗi token gồm surface, reading
+     * (Hiragana), baseForm, partOfSpeech, start và end (vị trí ký tự trong văn bản, end không bao gồm).
+     * reading và baseForm bị bỏ khi Kuromoji không biết (từ ngoài từ điển).
+     * <p>
+     * Token được ghi thẳng ra luồng đầu ra khi duyệt; cách đọc được chuyển sang Hiragana trong một mảng ký tự
+     * dùng lại, nên không có chuỗi trung gian nào được tạo cho mỗi token. Với CBOR, độ dài mảng và số trường
+     * của mỗi token được ghi trước để bộ mã hóa dùng dạng độ dài xác định.
+     *
+     * @param japaneseText Văn bản tiếng Nhật.
+     * @param cbor         true để mã hóa CBOR (RFC 8949), false để ghi JSON.
+     * @param output       Luồng đầu ra; không bị đóng.
+     * @throws IOException nếu không thể ghi (ví dụ client ngắt kết nối).
+     */
+    public void writeRubyTokens(String japaneseText, boolean cbor, OutputStream output) throws IOException {
+        List<Token> tokens = japaneseText == null || japaneseText.isEmpty()
+                ? List.of()
+                : tokenizerPool.tokenize(japaneseText);
+        JsonFactory factory = cbor ? CBOR_FACTORY : JSON_FACTORY;
+        try (JsonGenerator generator = factory.createGenerator(output)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            char[] readingBuffer = new char[32];
+            generator.writeStartArray(tokens, tokens.size());
+            for (Token token : tokens) {
+                String surface = token.getSurface();
+                String reading = token.getReading();
+                String baseForm = token.getBaseForm();
+                boolean hasReading = isKnown(reading);
+                boolean hasBaseForm = isKnown(baseForm);
+                int start = token.getPosition();
+
+                generator.writeStartObject(token, 4 + (hasReading ? 1 : 0) + (hasBaseForm ? 1 : 0));
+                generator.writeStringField("surface", surface);
+                if (hasReading) {
+                    if (readingBuffer.length < reading.length()) {
+                        readingBuffer = new char[reading.length() * 2];
+                    }
+                    generator.writeFieldName("reading");
+                    generator.writeString(readingBuffer, 0, katakanaToHiragana(reading, readingBuffer));
+                }
+                if (hasBaseForm) {
+                    generator.writeStringField("baseForm", baseForm);
+                }
+                generator.writeStringField("partOfSpeech", token.getPartOfSpeechLevel1());
+                generator.writeNumberField("start", start);
+                generator.writeNumberField("end", start + surface.length());
+                generator.writeEndObject();
+            }
+            generator.writeEndArray();
+        }
+    }
+
+    /**
+     * Phân tích văn bản thành các token ruby (cùng nội dung với {@link #writeRubyTokens}), để lưu trữ.
+     *
+     * @param japaneseText Văn bản tiếng Nhật.
+     * @return Danh sách token theo thứ tự trong văn bản; rỗng nếu văn bản trống.
+     */
+    public List<RubyToken> generateRubyTokens(String japaneseText) {
+        if (japaneseText == null || japaneseText.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<Token> tokens = tokenizerPool.tokenize(japaneseText);
+        List<RubyToken> rubyTokens = new ArrayList<>(tokens.size());
+        for (Token token : tokens) {
+            String surface = token.getSurface();
+            String reading = token.getReading();
+            String baseForm = token.getBaseForm();
+            rubyTokens.add(new RubyToken(surface,
+                    isKnown(reading) ? japaneseTextUtils.katakanaToHiragana(reading) : null,
+                    isKnown(baseForm) ? baseForm : null,
+                    token.getPartOfSpeechLevel1(),
+                    token.getPosition(),
+                    token.getPosition() + surface.length()));
+        }
+        return rubyTokens;
+    }
+
+    /**
+     * Ghép furigana dạng "surface (reading)" từ các token đã phân tích, không phân tích lại văn bản.
+     *
+     * @param tokens Token từ {@link #generateRubyTokens}.
+     * @return Văn bản với furigana.
+     */
+    public String toFurigana(List<RubyToken> tokens) {
+        StringBuilder furiganaBuilder = new StringBuilder();
+        for (RubyToken token : tokens) {
+            furiganaBuilder.append(token.getSurface());
+            if (token.getReading() != null && japaneseTextUtils.containsKanji(token.getSurface())) {
+                furiganaBuilder.append(" (").append(token.getReading()).append(")");
+            }
+        }
+        return furiganaBuilder.toString();
+    }
+
+    private static boolean isKnown(String feature) {
+        return feature != null && !feature.isEmpty() && !UNKNOWN_FEATURE.equals(feature);
+    }
+
+    /**
+     * Như {@link JapaneseTextUtils#katakanaToHiragana(String)} nhưng ghi vào mảng cho trước.
+     *
+     * @return Số ký tự đã ghi.
+     */
+    private static int katakanaToHiragana(String katakana, char[] target) {
+        int length = katakana.length();
+        for (int i = 0; i < length; i++) {
+            char c = katakana.charAt(i);
+            target[i] = c >= '\u30A1' && c <= '\u30F6' ? (char) (c - ('\u30AB' - '\u304B')) : c;
+        }
+        return length;
+    }
+
+    /**
+     * Mã băm SHA-256 (hex) của một văn bản, dùng làm khóa cache theo nội dung. null được coi như chuỗi rỗng.
+     */
+    public String contentHash(String text) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest((text == null ? "" : text).getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 không khả dụng", ex); // Mọi JVM đều phải hỗ trợ SHA-256
+        }
+    }
+
+    /**
+     * Lấy số liệu của cache furigana.
+     * Chỉ ADMIN mới có thể xem.
+     *
+     * @return FuriganaCacheStatsResponse chứa số liệu hiện tại.
+     * @throws UnauthorizedException nếu người dùng không phải ADMIN.
+     */
+    public FuriganaCacheStatsResponse getCacheStats() {
+        if (!SecurityUtils.isAdmin()) {
+            throw new UnauthorizedException("Bạn không được phép xem số liệu cache furigana.");
+        }
+        CacheStats stats = cache.stats();
+        long weightedSize = cache.policy().eviction().map(eviction -> eviction.weightedSize().orElse(0L)).orElse(0L);
+        return new FuriganaCacheStatsResponse(stats.hitCount(), stats.missCount(), stats.hitRate(), coalescedCount.get(),
+                stats.evictionCount(), cache.estimatedSize(), weightedSize, maxBytes, tokenizerPool.shardCount());
+    }
+}
@@ -0,0 +1,437 @@
+package com.domain.backend.service;
+
+import com.domain.backend.entity.KanjiEntry;
+import com.domain.backend.entity.SearchIndex;
+import com.domain.backend.event.ContentChangedEvent;
+import com.domain.backend.event.DictionaryImportedEvent;
+import com.domain.backend.exception.ValidationException;
+import com.domain.backend.util.HandwritingFeatureExtractor;
+import com.domain.backend.util.IncrementalSnapshot;
+import jakarta.annotation.PreDestroy;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Stream;
+
+/**
+ * Nhận dạng Kanji viết tay ngay trong máy chủ, không cần dịch vụ bên ngoài.
+ * <p>
+ * Mỗi Kanji có một vector đặc trưng hướng nét mẫu (xem {@link HandwritingFeatureExtractor}), dựng từ dữ liệu nét
+ * SVG trong strokeOrderSvg hoặc từ font CJK nếu không có. Các mẫu được sắp theo số nét và lưu liền nhau trong một
+ * mảng float, nên khi client gửi kèm số nét đã vẽ, chỉ cần so sánh với đoạn mẫu có số nét gần đúng (tìm bằng
+ * tìm kiếm nhị phân) thay vì toàn bộ chỉ mục. Điểm là độ tương tự cosine; top-k được giữ bằng một heap nhỏ.
+ * <p>
+ * Việc nhận dạng chạy trên một thread pool riêng có hàng đợi giới hạn: khi quá tải, yêu cầu bị từ chối ngay
+ * (503) thay vì chiếm luồng xử lý HTTP. Chỉ mục mẫu là snapshot bất biến, được dựng lại toàn bộ trong nền khi khởi
+ * động và sau khi nhập Kanji; khi một Kanji được sửa, chỉ mẫu của Kanji đó được vẽ lại và chèn vào snapshot mới.
+ */
+@Service
+public class HandwritingRecognitionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(HandwritingRecognitionService.class);
+
+    public static final int MAX_LIMIT = 50;
+    public static final int MAX_IMAGE_BYTES = 1024 * 1024;
+    public static final int MAX_IMAGE_DIMENSION = 2048;
+
+    private static final int MIN_STROKE_TOLERANCE = 2; // Người học thường đếm sai một vài nét
+    private static final int INTERRUPT_CHECK_INTERVAL = 512; // Số mẫu so sánh giữa hai lần kiểm tra bị hủy
+
+    // Trong cùng số nét, mẫu được sắp theo ký tự
+    private static final Comparator<String> CHARACTER_ORDER = Comparator.nullsLast(Comparator.naturalOrder());
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private HandwritingFeatureExtractor featureExtractor;
+
+    @Autowired
+    @Qualifier("handwritingExecutor")
+    private AsyncTaskExecutor handwritingExecutor;
+
+    @Value("${search.handwriting.timeout-ms:2000}")
+    private long timeoutMs;
+
+    private final IncrementalSnapshot<TemplateIndex> index = new IncrementalSnapshot<>("handwriting-index-rebuild", logger,
+            "Không thể dựng chỉ mục nhận dạng chữ viết tay", this::build, this::applyChange);
+
+    /**
+     * Một ứng viên nhận dạng: Kanji kèm độ tương tự cosine với nét đã vẽ (0 - 1).
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class Candidate {
+        private final String kanjiId;
+        private final String kanjiCharacter;
+        private final float score;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        index.scheduleRebuild();
+    }
+
+    /**
+     * Vẽ lại mẫu của Kanji vừa thay đổi và áp dụng lên chỉ mục ngay lập tức.
+     */
+    @EventListener
+    public void onContentChanged(ContentChangedEvent event) {
+        if (SearchIndex.TYPE_KANJI.equals(event.getEntityType())) {
+            index.apply(event);
+        }
+    }
+
+    @EventListener
+    public void onDictionaryImported(DictionaryImportedEvent event) {
+        if (SearchIndex.TYPE_KANJI.equals(event.getEntityType())) {
+            index.scheduleRebuild();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        index.shutdown();
+    }
+
+    /**
+     * Lên lịch dựng lại chỉ mục mẫu trong nền. Nhiều yêu cầu liên tiếp được gộp thành một lần dựng.
+     */
+    public void scheduleRebuild() {
+        index.scheduleRebuild();
+    }
+
+    /**
+     * Dựng lại chỉ mục mẫu từ collection Kanji ngay trên luồng gọi.
+     */
+    public void rebuild() {
+        index.rebuild();
+    }
+
+    /**
+     * Dựng chỉ mục mẫu từ collection Kanji. Chỉ các trường cần thiết được nạp.
+     * Kanji không có dữ liệu nét và không vẽ được bằng font của hệ thống bị bỏ qua.
+     */
+    private TemplateIndex build() {
+        long start = System.currentTimeMillis();
+        Query query = new Query();
+        query.fields().include("kanjiCharacter", "strokeCount", "strokeOrderSvg");
+        List<Template> templates = new ArrayList<>();
+        int skipped = 0;
+        try (Stream<KanjiEntry> entries = mongoTemplate.stream(query, KanjiEntry.class)) {
+            Iterator<KanjiEntry> iterator = entries.iterator();
+            while (iterator.hasNext()) {
+                Template template = templateOf(iterator.next());
+                if (template == null) {
+                    skipped++;
+                    continue;
+                }
+                templates.add(template);
+            }
+        }
+        templates.sort(Template.ORDER);
+        TemplateIndex built = new TemplateIndex(templates);
+        logger.info("Đã dựng chỉ mục nhận dạng chữ viết tay: {} mẫu ({} Kanji bỏ qua) trong {} ms",
+                templates.size(), skipped, System.currentTimeMillis() - start);
+        if (skipped > 0) {
+            logger.warn("{} Kanji không có dữ liệu nét SVG và không vẽ được bằng font của hệ thống nên không nhận dạng được{}",
+                    skipped, featureExtractor.canRenderCharacters() ? "" : " (không tìm thấy font CJK vẽ được Kanji)");
+        }
+        return built;
+    }
+
+    /**
+     * Thay mẫu của Kanji trong chỉ mục (hoặc chỉ bỏ mẫu cũ nếu Kanji bị xóa hoặc không vẽ được).
+     */
+    private TemplateIndex applyChange(TemplateIndex current, ContentChangedEvent event) {
+        Template template = event.getAction() != ContentChangedEvent.Action.DELETED
+                && event.getEntity() instanceof KanjiEntry entry ? templateOf(entry) : null;
+        return current.withChange(event.getEntityId(), template);
+    }
+
+    /**
+     * Mẫu của một Kanji, vẽ từ dữ liệu nét SVG hoặc từ font của hệ thống; null nếu không vẽ được.
+     */
+    private Template templateOf(KanjiEntry entry) {
+        BufferedImage image = featureExtractor.renderSvgStrokes(entry.getStrokeOrderSvg());
+        if (image == null) {
+            image = featureExtractor.renderCharacter(entry.getKanjiCharacter());
+        }
+        float[] feature = image == null ? null : featureExtractor.extract(image);
+        return feature == null ? null : new Template(entry.getId(), entry.getKanjiCharacter(), entry.getStrokeCount(), feature);
+    }
+
+    /**
+     * Nhận dạng ký tự trong ảnh viết tay.
+     *
+     * @param imageDataBase64 Ảnh PNG/JPEG mã hóa Base64 (có thể có tiền tố data URL).
+     * @param strokeCount     Số nét người dùng đã vẽ, hoặc null để so sánh với mọi mẫu.
+     * @param limit           Số ứng viên tối đa (1 - {@value #MAX_LIMIT}).
+     * @return Các ứng viên theo độ tương tự giảm dần.
+     * @throws ValidationException     nếu ảnh không hợp lệ, không có nét nào, hoặc limit không hợp lệ.
+     * @throws ResponseStatusException 503 nếu chỉ mục chưa sẵn sàng hoặc không có mẫu nào, thread pool nhận dạng
+     *                                 đang quá tải, hoặc quá thời gian chờ.
+     */
+    public List<Candidate> recognize(String imageDataBase64, Integer strokeCount, int limit) {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new ValidationException("Số kết quả phải nằm trong khoảng 1 - " + MAX_LIMIT + ".");
+        }
+        TemplateIndex current = index.get();
+        if (current == null) {
+            index.scheduleRebuild();
+        }
+        if (current == null || current.size() == 0) {
+            // Danh sách rỗng sẽ bị hiểu là "không có Kanji nào giống", trong khi thực ra chưa có gì để so sánh
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Chỉ mục nhận dạng chữ viết tay chưa sẵn sàng, vui lòng thử lại sau.");
+        }
+        Future<List<Candidate>> future;
+        try {
+            future = handwritingExecutor.submit(() -> {
+                float[] feature = featureExtractor.extract(decodeImage(imageDataBase64));
+                if (feature == null) {
+                    throw new ValidationException("Hình ảnh không chứa nét vẽ nào.");
+                }
+                checkInterrupted();
+                return current.nearest(feature, strokeCount, limit);
+            });
+        } catch (RejectedExecutionException ex) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Hệ thống nhận dạng chữ viết tay đang quá tải, vui lòng thử lại sau.");
+        }
+        try {
+            return future.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException ex) {
+            future.cancel(true); // Future của executor nên ngắt được luồng đang nhận dạng
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Nhận dạng chữ viết tay quá thời gian cho phép.");
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Nhận dạng chữ viết tay bị gián đoạn.");
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(ex.getCause());
+        }
+    }
+
+    /**
+     * Dừng một lần nhận dạng đã bị hủy (quá thời gian chờ), để nó không tiếp tục chiếm luồng của handwritingExecutor.
+     */
+    private static void checkInterrupted() {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new CancellationException("Nhận dạng chữ viết tay đã bị hủy.");
+        }
+    }
+
+    /**
+     * Giải mã ảnh Base64. Kích thước ảnh được kiểm tra từ phần đầu tệp trước khi giải nén toàn bộ điểm ảnh.
+     */
+    private static BufferedImage decodeImage(String imageDataBase64) {
+        String data = imageDataBase64 == null ? "" : imageDataBase64.trim();
+        if (data.startsWith("data:")) {
+            int comma = data.indexOf(',');
+            data = comma < 0 ? "" : data.substring(comma + 1);
+        }
+        if (data.isEmpty() || data.length() > MAX_IMAGE_BYTES / 3 * 4 + 4) {
+            throw new ValidationException("Dữ liệu hình ảnh trống hoặc vượt quá " + MAX_IMAGE_BYTES / 1024 + " KB.");
+        }
+        byte[] bytes;
+        try {
+            bytes = Base64.getMimeDecoder().decode(data);
+        } catch (IllegalArgumentException ex) {
+            throw new ValidationException("Dữ liệu hình ảnh không phải Base64 hợp lệ.");
+        }
+        try (ImageInputStream input = ImageIO.createImageInputStream(new ByteArrayInputStream(bytes))) {
+            Iterator<ImageReader> readers = input == null ? null : ImageIO.getImageReaders(input);
+            if (readers == null || !readers.hasNext()) {
+                throw new ValidationException("Định dạng hình ảnh không được hỗ trợ.");
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                if (reader.getWidth(0) > MAX_IMAGE_DIMENSION || reader.getHeight(0) > MAX_IMAGE_DIMENSION) {
+                    throw new ValidationException("Kích thước hình ảnh không được vượt quá "
+                            + MAX_IMAGE_DIMENSION + "x" + MAX_IMAGE_DIMENSION + ".");
+                }
+                return reader.read(0);
+            } finally {
+                reader.dispose();
+            }
+        } catch (IOException ex) {
+            throw new ValidationException("Không thể đọc dữ liệu hình ảnh.");
+        }
+    }
+
+    private static final class Template {
+        private static final Comparator<Template> ORDER = Comparator.comparingInt((Template template) -> template.strokeCount)
+                .thenComparing(template -> template.character, CHARACTER_ORDER);
+
+        private final String id;
+        private final String character;
+        private final int strokeCount;
+        private final float[] feature;
+
+        private Template(String id, String character, int strokeCount, float[] feature) {
+            this.id = id;
+            this.character = character;
+            this.strokeCount = strokeCount;
+            this.feature = feature;
+        }
+    }
+
+    /**
+     * Snapshot bất biến của chỉ mục mẫu, sắp theo số nét tăng dần.
+     */
+    private static final class TemplateIndex {
+        private final String[] ids;
+        private final String[] characters;
+        private final int[] strokeCounts;   // Không giảm theo vị trí
+        private final float[] features;     // Vector của mẫu i nằm ở [i * FEATURE_SIZE, (i + 1) * FEATURE_SIZE)
+
+        private TemplateIndex(List<Template> templates) {
+            this(templates.size());
+            for (int i = 0; i < templates.size(); i++) {
+                set(i, templates.get(i));
+            }
+        }
+
+        private TemplateIndex(int size) {
+            ids = new String[size];
+            characters = new String[size];
+            strokeCounts = new int[size];
+            features = new float[size * HandwritingFeatureExtractor.FEATURE_SIZE];
+        }
+
+        private int size() {
+            return ids.length;
+        }
+
+        private void set(int position, Template template) {
+            ids[position] = template.id;
+            characters[position] = template.character;
+            strokeCounts[position] = template.strokeCount;
+            System.arraycopy(template.feature, 0, features, position * HandwritingFeatureExtractor.FEATURE_SIZE,
+                    HandwritingFeatureExtractor.FEATURE_SIZE);
+        }
+
+        private void copy(int position, TemplateIndex source, int sourcePosition) {
+            int dimension = HandwritingFeatureExtractor.FEATURE_SIZE;
+            ids[position] = source.ids[sourcePosition];
+            characters[position] = source.characters[sourcePosition];
+            strokeCounts[position] = source.strokeCounts[sourcePosition];
+            System.arraycopy(source.features, sourcePosition * dimension, features, position * dimension, dimension);
+        }
+
+        /**
+         * Chỉ mục mới trong đó mẫu của Kanji được thay bằng template (null nếu Kanji không còn mẫu),
+         * giữ nguyên thứ tự theo số nét.
+         */
+        private TemplateIndex withChange(String kanjiId, Template template) {
+            int removed = -1;
+            for (int i = 0; i < ids.length && removed < 0; i++) {
+                if (ids[i].equals(kanjiId)) {
+                    removed = i;
+                }
+            }
+            if (removed < 0 && template == null) {
+                return this;
+            }
+            TemplateIndex updated = new TemplateIndex(ids.length - (removed < 0 ? 0 : 1) + (template == null ? 0 : 1));
+            int position = 0;
+            for (int i = 0; i < ids.length; i++) {
+                if (i == removed) {
+                    continue;
+                }
+                if (template != null && (template.strokeCount < strokeCounts[i] || template.strokeCount == strokeCounts[i]
+                        && CHARACTER_ORDER.compare(template.character, characters[i]) < 0)) {
+                    updated.set(position++, template);
+                    template = null;
+                }
+                updated.copy(position++, this, i);
+            }
+            if (template != null) {
+                updated.set(position, template);
+            }
+            return updated;
+        }
+
+        private List<Candidate> nearest(float[] query, Integer strokeCount, int limit) {
+            int from = 0;
+            int to = ids.length;
+            if (strokeCount != null) {
+                int tolerance = Math.max(MIN_STROKE_TOLERANCE, strokeCount / 5);
+                from = lowerBound(strokeCount - tolerance);
+                to = lowerBound(strokeCount + tolerance + 1);
+            }
+            // Min-heap theo điểm: phần tử đầu là ứng viên yếu nhất trong top-k hiện tại
+            PriorityQueue<Candidate> top = new PriorityQueue<>(limit + 1, Comparator.comparingDouble(Candidate::getScore));
+            int dimension = HandwritingFeatureExtractor.FEATURE_SIZE;
+            for (int i = from; i < to; i++) {
+                if ((i - from) % INTERRUPT_CHECK_INTERVAL == 0) {
+                    checkInterrupted();
+                }
+                float score = 0;
+                int offset = i * dimension;
+                for (int d = 0; d < dimension; d++) {
+                    score += query[d] * features[offset + d];
+                }
+                if (top.size() < limit) {
+                    top.add(new Candidate(ids[i], characters[i], score));
+                } else if (score > top.peek().getScore()) {
+                    top.poll();
+                    top.add(new Candidate(ids[i], characters[i], score));
+                }
+            }
+            List<Candidate> results = new ArrayList<>(top);
+            results.sort(Comparator.comparingDouble(Candidate::getScore).reversed());
+            return results;
+        }
+
+        /**
+         * Vị trí đầu tiên có số nét >= strokes.
+         */
+        private int lowerBound(int strokes) {
+            int low = 0;
+            int high = strokeCounts.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (strokeCounts[mid] < strokes) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+}
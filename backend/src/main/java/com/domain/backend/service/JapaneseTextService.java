@@ -1,21 +1,41 @@
 package com.domain.backend.service;
 
 import com.atilika.kuromoji.ipadic.Token;
-import com.atilika.kuromoji.ipadic.Tokenizer;
+import com.domain.backend.dto.response.DeinflectionResponse;
+import com.domain.backend.dto.response.KeysetPageResponse;
 import com.domain.backend.dto.response.MessageResponse;
+import com.domain.backend.entity.SearchIndex;
 import com.domain.backend.entity.VocabularyEntry;
+import com.domain.backend.event.ContentChangedEvent;
 import com.domain.backend.exception.ResourceNotFoundException;
 import com.domain.backend.exception.UnauthorizedException;
 import com.domain.backend.exception.ValidationException;
 import com.domain.backend.repository.VocabularyEntryRepository;
 import com.domain.backend.security.SecurityUtils;
+import com.domain.backend.util.Deinflector;
 import com.domain.backend.util.JapaneseTextUtils;
+import com.domain.backend.util.KeysetPagination;
+import com.domain.backend.util.SearchUtils;
+import com.domain.backend.util.TokenizerPool;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * Dịch vụ cung cấp các chức năng xử lý văn bản tiếng Nhật nâng cao,
@@ -25,43 +45,50 @@ import java.util.Optional;
 @Service
 public class JapaneseTextService {
 
-    // Khởi tạo Kuromoji Tokenizer
-    private final Tokenizer tokenizer = new Tokenizer();
+    private static final int MAX_SEARCH_LIMIT = 200; // Số kết quả tối đa của tìm kiếm từ vựng theo chuỗi con
+
+    @Autowired
+    private TokenizerPool tokenizerPool; // Kuromoji Tokenizer dùng chung
+
+    @Autowired
+    private FuriganaService furiganaService; // Tạo furigana có cache
+
     @Autowired
     private JapaneseTextUtils japaneseTextUtils; // Tiện ích xử lý văn bản cơ bản
     @Autowired
     private VocabularyEntryRepository vocabularyEntryRepository; // Để quản lý từ vựng
 
+    @Autowired
+    private SearchUtils searchUtils; // Tiêu chí tìm kiếm đa script khi không dùng được chỉ mục n-gram
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private NgramIndexService ngramIndexService; // Chỉ mục n-gram cho tìm kiếm chuỗi con Kana/Kanji
+
+    @Autowired
+    private DictionarySnapshotService dictionarySnapshotService; // Tra cứu từ snapshot từ điển trong bộ nhớ
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher; // Thông báo thay đổi nội dung cho chỉ mục tìm kiếm
+
+    @Autowired
+    private KeysetPagination keysetPagination; // Phân trang theo khóa và xuất NDJSON
+
+    @Autowired
+    private Deinflector deinflector; // Khử biến đổi động từ/tính từ về dạng từ điển
+
     /**
      * Tạo furigana cho một chuỗi văn bản tiếng Nhật đã cho.
-     * Sử dụng Kuromoji để phân tích cú pháp và trích xuất furigana.
+     * Sử dụng Kuromoji để phân tích cú pháp và trích xuất furigana; kết quả được cache theo nội dung văn bản
+     * (xem {@link FuriganaService}).
      *
      * @param japaneseText Văn bản tiếng Nhật (có thể chứa Kanji).
      * @return Văn bản tiếng Nhật với furigana được thêm vào.
      */
     public String generateFuriganaForText(String japaneseText) {
-        if (japaneseText == null || japaneseText.trim().isEmpty()) {
-            return "";
-        }
-
-        List<Token> tokens = tokenizer.tokenize(japaneseText);
-        StringBuilder furiganaBuilder = new StringBuilder();
-
-        for (Token token : tokens) {
-            String surface = token.getSurface(); // Từ gốc (Kanji/Kana)
-            String reading = token.getReading(); // Âm đọc (Katakana)
-            String baseForm = token.getBaseForm(); // Dạng cơ bản (nếu có)
-
-            // Nếu từ gốc là Kanji và có âm đọc, thêm furigana
-            if (japaneseTextUtils.containsKanji(surface) && reading != null && !reading.isEmpty()) {
-                // Chuyển Katakana reading sang Hiragana cho furigana
-                String hiraganaReading = japaneseTextUtils.katakanaToHiragana(reading);
-                furiganaBuilder.append(surface).append(" (").append(hiraganaReading).append(")");
-            } else {
-                furiganaBuilder.append(surface); // Giữ nguyên nếu không phải Kanji hoặc không có reading
-            }
-        }
-        return furiganaBuilder.toString();
+        return furiganaService.generateFurigana(japaneseText);
     }
 
     /**
@@ -71,7 +98,7 @@ public class JapaneseTextService {
      * @return Optional chứa VocabularyEntry nếu tìm thấy.
      */
     public Optional<VocabularyEntry> getVocabularyEntryByWord(String japaneseWord) {
-        return vocabularyEntryRepository.findByJapaneseWord(japaneseWord);
+        return dictionarySnapshotService.findVocabularyByWord(japaneseWord);
     }
 
     /**
@@ -87,10 +114,13 @@ public class JapaneseTextService {
         if (!SecurityUtils.isAdmin() && !SecurityUtils.isTeacher()) {
             throw new UnauthorizedException("Bạn không được phép tạo entry từ vựng.");
         }
-        if (vocabularyEntryRepository.findByJapaneseWord(vocabularyEntry.getJapaneseWord()).isPresent()) {
+        if (vocabularyEntryRepository.findFirstByJapaneseWord(vocabularyEntry.getJapaneseWord()).isPresent()) {
             throw new ValidationException("Từ tiếng Nhật '" + vocabularyEntry.getJapaneseWord() + "' đã tồn tại.");
         }
-        return vocabularyEntryRepository.save(vocabularyEntry);
+        VocabularyEntry savedEntry = vocabularyEntryRepository.save(vocabularyEntry);
+        ngramIndexService.index(savedEntry);
+        eventPublisher.publishEvent(new ContentChangedEvent(SearchIndex.TYPE_VOCABULARY, savedEntry.getId(), ContentChangedEvent.Action.CREATED, savedEntry));
+        return savedEntry;
     }
 
     /**
@@ -110,6 +140,8 @@ public class JapaneseTextService {
         VocabularyEntry existingEntry = vocabularyEntryRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Vocabulary Entry", "id", id));
 
+        Set<String> previousGrams = ngramIndexService.ngramsOf(existingEntry); // Trước khi ghi đè các trường
+
         // Cập nhật các trường được phép
         existingEntry.setJapaneseWord(updatedVocabularyEntry.getJapaneseWord());
         existingEntry.setFurigana(updatedVocabularyEntry.getFurigana());
@@ -120,7 +152,10 @@ public class JapaneseTextService {
         existingEntry.setJlptLevel(updatedVocabularyEntry.getJlptLevel());
         existingEntry.setAudioUrl(updatedVocabularyEntry.getAudioUrl());
 
-        return vocabularyEntryRepository.save(existingEntry);
+        VocabularyEntry savedEntry = vocabularyEntryRepository.save(existingEntry);
+        ngramIndexService.reindex(savedEntry, previousGrams);
+        eventPublisher.publishEvent(new ContentChangedEvent(SearchIndex.TYPE_VOCABULARY, savedEntry.getId(), ContentChangedEvent.Action.UPDATED, savedEntry));
+        return savedEntry;
     }
 
     /**
@@ -139,9 +174,125 @@ public class JapaneseTextService {
         VocabularyEntry existingEntry = vocabularyEntryRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Vocabulary Entry", "id", id));
         vocabularyEntryRepository.delete(existingEntry);
+        ngramIndexService.remove(existingEntry);
+        eventPublisher.publishEvent(new ContentChangedEvent(SearchIndex.TYPE_VOCABULARY, id, ContentChangedEvent.Action.DELETED, existingEntry));
         return new MessageResponse("Entry từ vựng đã xóa thành công!");
     }
 
+    /**
+     * Tìm các entry từ vựng có từ tiếng Nhật hoặc furigana chứa chuỗi truy vấn, sử dụng chỉ mục n-gram.
+     * Truy vấn quá ngắn hoặc không phải Kana/Kanji được tìm bằng tiêu chí đa script như trước.
+     *
+     * @param query Chuỗi con cần tìm.
+     * @param limit Số kết quả tối đa (1 - {@value #MAX_SEARCH_LIMIT}).
+     * @return Danh sách VocabularyEntry phù hợp, nhiều nhất limit entry.
+     * @throws ValidationException nếu truy vấn trống hoặc limit không hợp lệ.
+     */
+    public List<VocabularyEntry> searchVocabulary(String query, int limit) {
+        if (query == null || query.trim().isEmpty()) {
+            throw new ValidationException("Truy vấn tìm kiếm không được để trống.");
+        }
+        if (limit < 1 || limit > MAX_SEARCH_LIMIT) {
+            throw new ValidationException("Số kết quả phải từ 1 đến " + MAX_SEARCH_LIMIT);
+        }
+        String queryText = query.trim();
+        List<VocabularyEntry> results = ngramIndexService.searchVocabulary(queryText, limit)
+                .orElseGet(() -> mongoTemplate.find(new Query(searchUtils.buildSearchKeyCriteria(queryText)).limit(limit),
+                        VocabularyEntry.class));
+        if (results.isEmpty()) {
+            // Dạng đã chia (食べた, 高くない) không có trong từ điển: tìm theo dạng gốc
+            return lookupInflectedWord(queryText).stream()
+                    .map(DeinflectionResponse::getEntry)
+                    .limit(limit)
+                    .collect(Collectors.toList());
+        }
+        return results;
+    }
+
+    /**
+     * Tìm các entry từ vựng cho một từ có thể đã chia (động từ, tính từ -i).
+     * Các dạng gốc ứng viên gồm kết quả của bộ khử biến đổi theo luật và dạng cơ bản mà Kuromoji suy ra cho từ
+     * đầu tiên; tất cả được đối chiếu với từ điển bằng một lần tra cứu hàng loạt. Ứng viên có loại từ mâu thuẫn
+     * với entry (ví dụ dạng động từ khớp với một tính từ) bị loại.
+     *
+     * @param word Từ cần tra cứu (ví dụ 食べた, 飲みます, 高くない).
+     * @return Các entry tìm được, theo thứ tự số bước khử tăng dần (chính từ đó đứng đầu nếu có trong từ điển).
+     */
+    public List<DeinflectionResponse> lookupInflectedWord(String word) {
+        if (word == null || word.trim().isEmpty()) {
+            throw new ValidationException("Từ cần tra cứu không được để trống.");
+        }
+        List<Deinflector.Deinflection> candidates = new ArrayList<>();
+        for (Deinflector.Deinflection candidate : deinflector.deinflect(word.trim())) {
+            candidates.add(candidate);
+            String term = candidate.getTerm();
+            if ((candidate.getTypes() & Deinflector.VS) != 0 && term.length() > 2 && term.endsWith("する")) {
+                // Danh từ する (勉強する): từ điển thường chỉ lưu danh từ
+                candidates.add(new Deinflector.Deinflection(term.substring(0, term.length() - 2), Deinflector.ANY,
+                        candidate.getReasons()));
+            }
+        }
+        List<Token> tokens = tokenizerPool.tokenize(word.trim());
+        if (!tokens.isEmpty()) {
+            String baseForm = tokens.get(0).getBaseForm();
+            if (baseForm != null && !baseForm.equals("*")) {
+                candidates.add(new Deinflector.Deinflection(baseForm, Deinflector.ANY, List.of()));
+            }
+        }
+
+        Set<String> terms = new LinkedHashSet<>();
+        for (Deinflector.Deinflection candidate : candidates) {
+            terms.add(candidate.getTerm());
+        }
+        Map<String, List<VocabularyEntry>> entriesByWord = new HashMap<>();
+        for (VocabularyEntry entry : dictionarySnapshotService.findVocabularyByWords(terms)) {
+            entriesByWord.computeIfAbsent(entry.getJapaneseWord(), key -> new ArrayList<>()).add(entry);
+        }
+
+        List<DeinflectionResponse> results = new ArrayList<>();
+        Set<String> seenIds = new HashSet<>();
+        for (Deinflector.Deinflection candidate : candidates) {
+            for (VocabularyEntry entry : entriesByWord.getOrDefault(candidate.getTerm(), List.of())) {
+                if (matchesPartOfSpeech(candidate.getTypes(), entry.getPartOfSpeech()) && seenIds.add(entry.getId())) {
+                    results.add(new DeinflectionResponse(candidate.getTerm(), candidate.getReasons(), entry));
+                }
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Kiểm tra loại từ của một dạng gốc ứng viên có phù hợp với loại từ của entry hay không.
+     * Entry không có loại từ, hoặc có loại từ khác động từ/tính từ (ví dụ danh từ する), được chấp nhận.
+     */
+    private static boolean matchesPartOfSpeech(int types, String partOfSpeech) {
+        if (types == Deinflector.ANY || partOfSpeech == null) {
+            return true;
+        }
+        if ("Verb".equals(partOfSpeech)) {
+            return (types & Deinflector.VERB) != 0;
+        }
+        if ("Adjective".equals(partOfSpeech)) {
+            return (types & Deinflector.ADJ_I) != 0;
+        }
+        return true;
+    }
+
+    /**
+     * Dựng lại chỉ mục n-gram của từ vựng từ đầu.
+     * Chỉ ADMIN mới có thể thực hiện.
+     *
+     * @return MessageResponse với số entry đã được đánh chỉ mục.
+     * @throws UnauthorizedException nếu người dùng không được phép.
+     */
+    public MessageResponse rebuildNgramIndex() {
+        if (!SecurityUtils.isAdmin()) {
+            throw new UnauthorizedException("Bạn không được phép dựng lại chỉ mục từ vựng.");
+        }
+        long indexed = ngramIndexService.rebuild();
+        return new MessageResponse("Đã dựng lại chỉ mục n-gram cho " + indexed + " entry từ vựng.");
+    }
+
     /**
      * Lấy tất cả các entry từ vựng.
      *
@@ -151,6 +302,36 @@ public class JapaneseTextService {
         return vocabularyEntryRepository.findAll();
     }
 
+    /**
+     * Lấy một trang entry từ vựng theo thứ tự ID (phân trang theo khóa).
+     *
+     * @param after ID của phần tử cuối trang trước, null cho trang đầu.
+     * @param size  Số phần tử tối đa của trang.
+     * @return Trang VocabularyEntry cùng con trỏ cho trang tiếp theo.
+     */
+    public KeysetPageResponse<VocabularyEntry> getVocabularyEntriesPage(String after, Integer size) {
+        return keysetPagination.page(vocabularyListQuery(), VocabularyEntry.class, after, size, Function.identity());
+    }
+
+    /**
+     * Xuất toàn bộ entry từ vựng dưới dạng NDJSON, đọc qua cursor và ghi ra từng dòng.
+     *
+     * @param output Luồng đầu ra của phản hồi.
+     * @throws IOException nếu không thể ghi ra luồng đầu ra.
+     */
+    public void exportVocabularyEntries(OutputStream output) throws IOException {
+        keysetPagination.streamNdjson(vocabularyListQuery(), VocabularyEntry.class, Function.identity(), output);
+    }
+
+    /**
+     * Truy vấn danh sách từ vựng, bỏ trường khóa tìm kiếm chỉ dùng nội bộ.
+     */
+    private static Query vocabularyListQuery() {
+        Query query = new Query();
+        query.fields().exclude(SearchUtils.SEARCH_KEYS_FIELD);
+        return query;
+    }
+
     /**
      * Populates some initial mock vocabulary data for testing purposes.
      * In a real application, this would be part of a data seeding process
@@ -175,7 +356,10 @@ public class JapaneseTextService {
                 createVocabEntry("いいえ", "いいえ", "Iie", "No", List.of("いいえ、違います。", "いいえ、結構です。"), "Adverb", "N5")
         );
 
-        vocabularyEntryRepository.saveAll(mockEntries);
+        vocabularyEntryRepository.saveAll(mockEntries).forEach(savedEntry -> {
+            ngramIndexService.index(savedEntry);
+            eventPublisher.publishEvent(new ContentChangedEvent(SearchIndex.TYPE_VOCABULARY, savedEntry.getId(), ContentChangedEvent.Action.CREATED, savedEntry));
+        });
         return new MessageResponse("Dữ liệu từ vựng giả lập đã được điền thành công!");
     }
 
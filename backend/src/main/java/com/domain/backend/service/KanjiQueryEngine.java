@@ -0,0 +1,271 @@
+package com.domain.backend.service;
+
+import com.domain.backend.entity.KanjiEntry;
+import com.domain.backend.util.KanjiUtils;
+import com.domain.backend.util.SearchIndexMapper;
+import com.domain.backend.util.SearchUtils;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+
+/**
+ * Bộ truy vấn Kanji: trả lời tìm kiếm theo ký tự, âm đọc và nghĩa.
+ * <p>
+ * Mỗi kiểu khớp ({@link MatchType}) là một truy vấn dùng chỉ mục: khớp chính xác trên kanjiCharacter, và khớp
+ * chính xác hoặc theo tiền tố (regex neo ở đầu chuỗi) trên các mảng multikey readings và meaningTerms đã được
+ * tách và chuẩn hóa khi lưu (xem {@link SearchUtils}). Các truy vấn chạy theo thứ tự ưu tiên, mỗi truy vấn được
+ * sắp xếp và giới hạn ở phía MongoDB, và dừng ngay khi đã đủ số kết quả: một tiền tố ngắn như "k" không còn nạp
+ * mọi Kanji có âm đọc bắt đầu bằng nó. Kết quả được xếp hạng theo kiểu khớp, sau đó theo cấp độ JLPT (dễ trước)
+ * và số nét.
+ * <p>
+ * Các trường searchKeys, readings và meaningTerms chỉ được tính khi lưu, nên khi khởi động một lần bổ sung chạy
+ * trong nền tính lại chúng cho các Kanji được lưu trước khi có các trường này (hoặc được ghi thẳng vào MongoDB).
+ */
+@Service
+public class KanjiQueryEngine {
+
+    private static final Logger logger = LoggerFactory.getLogger(KanjiQueryEngine.class);
+
+    private static final int BACKFILL_BATCH_SIZE = 500; // Số Kanji ghi trong mỗi lượt bulk khi bổ sung trường tìm kiếm
+
+    private static final String TYPE_KANJI = "KANJI";
+    private static final String TYPE_ONYOMI = "ONYOMI";
+    private static final String TYPE_KUNYOMI = "KUNYOMI";
+    private static final String TYPE_MEANING = "MEANING";
+    private static final String TYPE_ALL = "ALL";
+    // Cùng thứ tự với bộ so sánh trong search: "N5" > ... > "N1" > null khi sắp giảm dần
+    private static final Sort RANK_SORT = Sort.by(Sort.Order.desc("jlptLevel"), Sort.Order.asc("strokeCount"),
+            Sort.Order.asc("kanjiCharacter"));
+
+    /**
+     * Kiểu khớp của một kết quả, theo thứ tự ưu tiên giảm dần.
+     */
+    public enum MatchType {
+        CHARACTER, READING_EXACT, MEANING_EXACT, READING_PREFIX, MEANING_PREFIX
+    }
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private SearchUtils searchUtils;
+
+    private final ExecutorService backfillExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "kanji-search-fields-backfill");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        backfillExecutor.execute(() -> {
+            try {
+                backfillSearchFields();
+            } catch (RuntimeException ex) {
+                logger.warn("Không thể bổ sung trường tìm kiếm cho Kanji: {}", ex.getMessage());
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        backfillExecutor.shutdownNow();
+    }
+
+    /**
+     * Tính lại searchKeys, readings và meaningTerms của mọi Kanji và ghi theo lô những bản ghi có giá trị lưu khác
+     * (thiếu hoặc đã cũ).
+     *
+     * @return Số Kanji đã được cập nhật.
+     */
+    public long backfillSearchFields() {
+        long start = System.currentTimeMillis();
+        Query query = new Query();
+        query.fields().include("kanjiCharacter", "onyomi", "kunyomi", "furigana", "meaning",
+                SearchUtils.SEARCH_KEYS_FIELD, SearchUtils.READINGS_FIELD, SearchUtils.MEANING_TERMS_FIELD);
+        BulkOperations bulkOps = null;
+        int pending = 0;
+        long updated = 0;
+        try (Stream<KanjiEntry> entries = mongoTemplate.stream(query, KanjiEntry.class)) {
+            for (KanjiEntry entry : (Iterable<KanjiEntry>) entries::iterator) {
+                List<String> searchKeys = searchUtils.searchKeysOf(entry);
+                List<String> readings = searchUtils.readingsOf(entry);
+                List<String> meaningTerms = searchUtils.meaningTermsOf(entry);
+                if (searchKeys.equals(entry.getSearchKeys()) && readings.equals(entry.getReadings())
+                        && meaningTerms.equals(entry.getMeaningTerms())) {
+                    continue;
+                }
+                if (bulkOps == null) {
+                    bulkOps = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, KanjiEntry.class);
+                }
+                bulkOps.updateOne(Query.query(Criteria.where("id").is(entry.getId())), new Update()
+                        .set(SearchUtils.SEARCH_KEYS_FIELD, searchKeys)
+                        .set(SearchUtils.READINGS_FIELD, readings)
+                        .set(SearchUtils.MEANING_TERMS_FIELD, meaningTerms));
+                updated++;
+                if (++pending == BACKFILL_BATCH_SIZE) {
+                    bulkOps.execute();
+                    bulkOps = null;
+                    pending = 0;
+                }
+            }
+        }
+        if (pending > 0) {
+            bulkOps.execute();
+        }
+        logger.info("Đã bổ sung trường tìm kiếm cho {} Kanji trong {} ms", updated, System.currentTimeMillis() - start);
+        return updated;
+    }
+
+    /**
+     * Tìm kiếm Kanji theo loại tìm kiếm.
+     *
+     * @param query      Ký tự Kanji, âm đọc (Kana hoặc Romaji) hoặc nghĩa.
+     * @param searchType KANJI, ONYOMI, KUNYOMI, MEANING hoặc ALL.
+     * @param limit      Số kết quả tối đa.
+     * @return Danh sách Kanji đã xếp hạng.
+     */
+    public List<KanjiEntry> search(String query, String searchType, int limit) {
+        String type = searchType == null ? TYPE_ALL : searchType.toUpperCase();
+        String trimmed = query.trim();
+        String readingKey = searchUtils.readingKey(trimmed);
+        List<String> meaningTerms = searchUtils.meaningTerms(trimmed);
+
+        boolean byCharacter = type.equals(TYPE_KANJI) || type.equals(TYPE_ALL);
+        boolean byReading = (type.equals(TYPE_ONYOMI) || type.equals(TYPE_KUNYOMI) || type.equals(TYPE_ALL)) && !readingKey.isEmpty();
+        boolean byMeaning = (type.equals(TYPE_MEANING) || type.equals(TYPE_ALL)) && !meaningTerms.isEmpty();
+
+        // Theo thứ tự của MatchType: kiểu khớp sau chỉ được truy vấn khi các kiểu trước chưa đủ kết quả
+        Map<MatchType, Criteria> tiers = new EnumMap<>(MatchType.class);
+        if (byCharacter) {
+            tiers.put(MatchType.CHARACTER, Criteria.where("kanjiCharacter").is(trimmed));
+        }
+        if (byReading) {
+            tiers.put(MatchType.READING_EXACT, Criteria.where(SearchUtils.READINGS_FIELD).is(readingKey));
+            tiers.put(MatchType.READING_PREFIX, Criteria.where(SearchUtils.READINGS_FIELD).regex(SearchUtils.prefixRegex(readingKey)));
+        }
+        if (byMeaning) {
+            tiers.put(MatchType.MEANING_EXACT, meaningCriteria(meaningTerms, false));
+            tiers.put(MatchType.MEANING_PREFIX, meaningCriteria(meaningTerms, true));
+        }
+
+        Map<String, RankedKanji> found = new LinkedHashMap<>();
+        for (Map.Entry<MatchType, Criteria> tier : tiers.entrySet()) {
+            if (found.size() >= limit) {
+                break;
+            }
+            collect(tier.getKey(), tier.getValue(), type, trimmed, readingKey, meaningTerms, found, limit);
+        }
+        List<RankedKanji> ranked = new ArrayList<>(found.values());
+        ranked.sort(Comparator.comparing((RankedKanji result) -> result.matchType)
+                .thenComparing(result -> -SearchIndexMapper.jlptBoost(result.entry.getJlptLevel()))
+                .thenComparingInt(result -> result.entry.getStrokeCount())
+                .thenComparing(result -> result.entry.getKanjiCharacter(), Comparator.nullsLast(Comparator.naturalOrder())));
+        return ranked.stream().limit(limit).map(result -> result.entry).toList();
+    }
+
+    /**
+     * Thêm vào found các Kanji có kiểu khớp tốt nhất đúng bằng tier, theo từng trang đã sắp xếp, cho đến khi đủ limit
+     * hoặc hết ứng viên. Ứng viên thuộc kiểu khớp tốt hơn đã có trong found; ứng viên chỉ khớp âm đọc của loại còn lại
+     * (ONYOMI/KUNYOMI) bị bỏ qua, nên có thể cần thêm trang.
+     */
+    private void collect(MatchType tier, Criteria criteria, String type, String query, String readingKey,
+                         List<String> meaningTerms, Map<String, RankedKanji> found, int limit) {
+        int pageSize = limit;
+        for (int skip = 0; found.size() < limit; skip += pageSize) {
+            Query page = new Query(criteria).with(RANK_SORT).skip(skip).limit(pageSize);
+            page.fields().exclude(KanjiUtils.STROKE_ORDER_SVG_FIELD); // SVG được phục vụ riêng theo URL
+            List<KanjiEntry> candidates = mongoTemplate.find(page, KanjiEntry.class);
+            for (KanjiEntry entry : candidates) {
+                if (found.size() < limit && !found.containsKey(entry.getId())
+                        && matchType(entry, type, query, readingKey, meaningTerms) == tier) {
+                    found.put(entry.getId(), new RankedKanji(entry, tier));
+                }
+            }
+            if (candidates.size() < pageSize) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Mọi từ của truy vấn phải có trong nghĩa; với prefixLast, từ cuối cùng được khớp theo tiền tố vì người dùng
+     * có thể đang gõ dở.
+     */
+    private static Criteria meaningCriteria(List<String> meaningTerms, boolean prefixLast) {
+        List<Criteria> terms = new ArrayList<>(meaningTerms.size());
+        for (int i = 0; i < meaningTerms.size(); i++) {
+            String term = meaningTerms.get(i);
+            terms.add(i < meaningTerms.size() - 1 || !prefixLast
+                    ? Criteria.where(SearchUtils.MEANING_TERMS_FIELD).is(term)
+                    : Criteria.where(SearchUtils.MEANING_TERMS_FIELD).regex(SearchUtils.prefixRegex(term)));
+        }
+        return terms.size() == 1 ? terms.get(0) : new Criteria().andOperator(terms);
+    }
+
+    /**
+     * Xác định kiểu khớp tốt nhất của một ứng viên. Với ONYOMI/KUNYOMI chỉ xét âm đọc tương ứng,
+     * vì mảng readings gộp cả hai loại (sau khi chuẩn hóa, Katakana và Hiragana có cùng khóa).
+     *
+     * @return Kiểu khớp, hoặc null nếu ứng viên không thỏa loại tìm kiếm.
+     */
+    private MatchType matchType(KanjiEntry entry, String type, String query, String readingKey, List<String> meaningTerms) {
+        if ((type.equals(TYPE_KANJI) || type.equals(TYPE_ALL)) && query.equals(entry.getKanjiCharacter())) {
+            return MatchType.CHARACTER;
+        }
+        MatchType best = null;
+        if (!readingKey.isEmpty() && !type.equals(TYPE_KANJI) && !type.equals(TYPE_MEANING)) {
+            List<String> readings = type.equals(TYPE_ONYOMI) ? searchUtils.readingsOf(entry.getOnyomi())
+                    : type.equals(TYPE_KUNYOMI) ? searchUtils.readingsOf(entry.getKunyomi())
+                    : searchUtils.readingsOf(entry);
+            if (readings.contains(readingKey)) {
+                return MatchType.READING_EXACT;
+            }
+            if (readings.stream().anyMatch(reading -> reading.startsWith(readingKey))) {
+                best = MatchType.READING_PREFIX;
+            }
+        }
+        if (!meaningTerms.isEmpty() && (type.equals(TYPE_MEANING) || type.equals(TYPE_ALL))) {
+            List<String> entryTerms = searchUtils.meaningTermsOf(entry);
+            if (entryTerms.containsAll(meaningTerms)) {
+                return MatchType.MEANING_EXACT;
+            }
+            String last = meaningTerms.get(meaningTerms.size() - 1);
+            if (best == null && entryTerms.containsAll(meaningTerms.subList(0, meaningTerms.size() - 1))
+                    && entryTerms.stream().anyMatch(term -> term.startsWith(last))) {
+                best = MatchType.MEANING_PREFIX;
+            }
+        }
+        return best;
+    }
+
+    private static final class RankedKanji {
+        private final KanjiEntry entry;
+        private final MatchType matchType;
+
+        private RankedKanji(KanjiEntry entry, MatchType matchType) {
+            this.entry = entry;
+            this.matchType = matchType;
+        }
+    }
+}
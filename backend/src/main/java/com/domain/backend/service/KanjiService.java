@@ -1,9 +1,15 @@
 package com.domain.backend.service;
 
+import com.domain.backend.dto.request.DictionaryLookupRequest;
 import com.domain.backend.dto.request.KanjiSearchRequest;
+import com.domain.backend.dto.response.DictionaryLookupResponse;
 import com.domain.backend.dto.response.KanjiResponse;
+import com.domain.backend.dto.response.KeysetPageResponse;
 import com.domain.backend.dto.response.MessageResponse;
 import com.domain.backend.entity.KanjiEntry;
+import com.domain.backend.entity.SearchIndex;
+import com.domain.backend.entity.VocabularyEntry;
+import com.domain.backend.event.ContentChangedEvent;
 import com.domain.backend.exception.ResourceNotFoundException;
 import com.domain.backend.exception.UnauthorizedException;
 import com.domain.backend.exception.ValidationException;
@@ -11,14 +17,26 @@ import com.domain.backend.repository.KanjiEntryRepository;
 import com.domain.backend.security.SecurityUtils;
 import com.domain.backend.util.JapaneseTextUtils;
 import com.domain.backend.util.KanjiUtils;
+import com.domain.backend.util.KeysetPagination;
+import com.domain.backend.util.SearchUtils;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.regex.Pattern;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 /**
@@ -36,6 +54,21 @@ public class KanjiService {
     @Autowired
     private JapaneseTextUtils japaneseTextUtils; // Để phát hiện script
 
+    @Autowired
+    private KanjiQueryEngine kanjiQueryEngine; // Tìm kiếm Kanji theo từng kiểu khớp trên ký tự, âm đọc và nghĩa
+
+    @Autowired
+    private DictionarySnapshotService dictionarySnapshotService; // Tra cứu từ snapshot từ điển trong bộ nhớ
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher; // Thông báo thay đổi nội dung cho chỉ mục tìm kiếm
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private KeysetPagination keysetPagination; // Phân trang theo khóa và xuất NDJSON
+
     /**
      * Chuyển đổi KanjiEntry entity sang KanjiResponse DTO.
      *
@@ -45,6 +78,7 @@ public class KanjiService {
     private KanjiResponse convertToKanjiResponse(KanjiEntry kanjiEntry) {
         KanjiResponse response = new KanjiResponse();
         BeanUtils.copyProperties(kanjiEntry, response);
+        response.setStrokeOrderSvgUrl(kanjiUtils.strokeOrderSvgUrl(kanjiEntry.getStrokeOrderSvgHash()));
         return response;
     }
 
@@ -69,6 +103,7 @@ public class KanjiService {
             kanjiEntry.setStrokeOrderSvg(kanjiUtils.generateMockStrokeOrderSvg(kanjiEntry.getKanjiCharacter()));
         }
         KanjiEntry savedEntry = kanjiEntryRepository.save(kanjiEntry);
+        eventPublisher.publishEvent(new ContentChangedEvent(SearchIndex.TYPE_KANJI, savedEntry.getId(), ContentChangedEvent.Action.CREATED, savedEntry));
         return convertToKanjiResponse(savedEntry);
     }
 
@@ -79,10 +114,79 @@ public class KanjiService {
      * @return Optional chứa KanjiResponse nếu tìm thấy.
      */
     public Optional<KanjiResponse> getKanjiEntryById(String id) {
-        return kanjiEntryRepository.findById(id)
+        return dictionarySnapshotService.findKanjiById(id)
                 .map(this::convertToKanjiResponse);
     }
 
+    /**
+     * Tra cứu hàng loạt Kanji và từ vựng trong một yêu cầu, thay cho một lần gọi cho mỗi ký tự.
+     * Các ký tự (từ văn bản và danh sách characters) và các từ được loại trùng, rồi mỗi loại được giải quyết bằng
+     * một lần tra cứu snapshot từ điển hoặc một truy vấn {@code $in}.
+     *
+     * @param request Văn bản và/hoặc danh sách ký tự, từ cần tra cứu.
+     * @return DictionaryLookupResponse với các map theo thứ tự xuất hiện trong yêu cầu.
+     * @throws ValidationException nếu yêu cầu không có ký tự hoặc từ nào để tra cứu.
+     */
+    public DictionaryLookupResponse lookupEntries(DictionaryLookupRequest request) {
+        Set<String> kanjiCharacters = new LinkedHashSet<>();
+        if (request.getText() != null) {
+            // Theo code point: Kanji ngoài BMP chiếm hai char và được lưu nguyên cặp trong kanjiCharacter
+            request.getText().codePoints()
+                    .filter(kanjiUtils::isKanji)
+                    .forEach(codePoint -> kanjiCharacters.add(Character.toString(codePoint)));
+        }
+        addTrimmed(kanjiCharacters, request.getCharacters());
+        Set<String> words = new LinkedHashSet<>();
+        addTrimmed(words, request.getWords());
+        if (kanjiCharacters.isEmpty() && words.isEmpty()) {
+            throw new ValidationException("Yêu cầu tra cứu phải chứa ít nhất một ký tự Kanji hoặc một từ.");
+        }
+
+        Map<String, KanjiResponse> kanjiFound = new LinkedHashMap<>();
+        for (KanjiEntry entry : dictionarySnapshotService.findKanjiByCharacters(kanjiCharacters)) {
+            kanjiFound.putIfAbsent(entry.getKanjiCharacter(), convertToKanjiResponse(entry));
+        }
+        // Mọi từ đồng tự (các entry JMdict khác nhau cùng một từ) đều được trả về, theo ID để thứ tự ổn định
+        Map<String, List<VocabularyEntry>> vocabularyFound = new HashMap<>();
+        for (VocabularyEntry entry : dictionarySnapshotService.findVocabularyByWords(words)) {
+            vocabularyFound.computeIfAbsent(entry.getJapaneseWord(), key -> new ArrayList<>()).add(entry);
+        }
+
+        // Sắp xếp lại theo thứ tự yêu cầu (kết quả truy vấn $in không giữ thứ tự)
+        Map<String, KanjiResponse> kanji = new LinkedHashMap<>();
+        Map<String, List<VocabularyEntry>> vocabulary = new LinkedHashMap<>();
+        List<String> notFound = new ArrayList<>();
+        for (String kanjiCharacter : kanjiCharacters) {
+            KanjiResponse response = kanjiFound.get(kanjiCharacter);
+            if (response != null) {
+                kanji.put(kanjiCharacter, response);
+            } else {
+                notFound.add(kanjiCharacter);
+            }
+        }
+        for (String word : words) {
+            List<VocabularyEntry> entries = vocabularyFound.get(word);
+            if (entries != null) {
+                entries.sort(Comparator.comparing(VocabularyEntry::getId));
+                vocabulary.put(word, entries);
+            } else if (!kanjiCharacters.contains(word)) {
+                notFound.add(word);
+            }
+        }
+        return new DictionaryLookupResponse(kanji, vocabulary, notFound);
+    }
+
+    private static void addTrimmed(Set<String> target, List<String> values) {
+        if (values == null) {
+            return;
+        }
+        for (String value : values) {
+            if (value != null && !value.isBlank()) {
+                target.add(value.trim());
+            }
+        }
+    }
+
     /**
      * Lấy một entry Kanji theo ký tự Kanji.
      *
@@ -90,7 +194,7 @@ public class KanjiService {
      * @return Optional chứa KanjiResponse nếu tìm thấy.
      */
     public Optional<KanjiResponse> getKanjiEntryByCharacter(String kanjiCharacter) {
-        return kanjiEntryRepository.findByKanjiCharacter(kanjiCharacter)
+        return dictionarySnapshotService.findKanjiByCharacter(kanjiCharacter)
                 .map(this::convertToKanjiResponse);
     }
 
@@ -100,11 +204,42 @@ public class KanjiService {
      * @return Danh sách KanjiResponse.
      */
     public List<KanjiResponse> getAllKanjiEntries() {
-        return kanjiEntryRepository.findAll().stream()
+        return mongoTemplate.find(listQuery(), KanjiEntry.class).stream()
                 .map(this::convertToKanjiResponse)
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Lấy một trang entry Kanji theo thứ tự ID (phân trang theo khóa).
+     *
+     * @param after ID của phần tử cuối trang trước, null cho trang đầu.
+     * @param size  Số phần tử tối đa của trang.
+     * @return Trang KanjiResponse cùng con trỏ cho trang tiếp theo.
+     */
+    public KeysetPageResponse<KanjiResponse> getKanjiEntriesPage(String after, Integer size) {
+        return keysetPagination.page(listQuery(), KanjiEntry.class, after, size, this::convertToKanjiResponse);
+    }
+
+    /**
+     * Xuất toàn bộ entry Kanji dưới dạng NDJSON, đọc qua cursor và ghi ra từng dòng.
+     *
+     * @param output Luồng đầu ra của phản hồi.
+     * @throws IOException nếu không thể ghi ra luồng đầu ra.
+     */
+    public void exportKanjiEntries(OutputStream output) throws IOException {
+        keysetPagination.streamNdjson(listQuery(), KanjiEntry.class, this::convertToKanjiResponse, output);
+    }
+
+    /**
+     * Truy vấn danh sách Kanji, bỏ các trường khóa tìm kiếm và SVG thứ tự nét không có trong phản hồi.
+     */
+    private static Query listQuery() {
+        Query query = new Query();
+        query.fields().exclude(SearchUtils.SEARCH_KEYS_FIELD, SearchUtils.READINGS_FIELD, SearchUtils.MEANING_TERMS_FIELD,
+                KanjiUtils.STROKE_ORDER_SVG_FIELD);
+        return query;
+    }
+
     /**
      * Cập nhật một entry Kanji hiện có.
      * Chỉ ADMIN hoặc TEACHER mới có thể cập nhật.
@@ -137,6 +272,7 @@ public class KanjiService {
         }
 
         KanjiEntry savedEntry = kanjiEntryRepository.save(existingEntry);
+        eventPublisher.publishEvent(new ContentChangedEvent(SearchIndex.TYPE_KANJI, savedEntry.getId(), ContentChangedEvent.Action.UPDATED, savedEntry));
         return convertToKanjiResponse(savedEntry);
     }
 
@@ -156,6 +292,7 @@ public class KanjiService {
         KanjiEntry existingEntry = kanjiEntryRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Kanji Entry", "id", id));
         kanjiEntryRepository.delete(existingEntry);
+        eventPublisher.publishEvent(new ContentChangedEvent(SearchIndex.TYPE_KANJI, id, ContentChangedEvent.Action.DELETED, existingEntry));
         return new MessageResponse("Entry Kanji đã xóa thành công!");
     }
 
@@ -174,34 +311,8 @@ public class KanjiService {
             throw new ValidationException("Truy vấn tìm kiếm Kanji không được để trống.");
         }
 
-        List<KanjiEntry> results = new ArrayList<>();
-        String regexQuery = "(?i).*" + Pattern.quote(query) + ".*"; // Tìm kiếm không phân biệt chữ hoa chữ thường
-
-        switch (searchType.toUpperCase()) {
-            case "KANJI":
-                results = kanjiEntryRepository.findByKanjiCharacter(query).map(List::of).orElse(List.of());
-                break;
-            case "ONYOMI":
-                results = kanjiEntryRepository.findByOnyomiRegex(regexQuery, "i");
-                break;
-            case "KUNYOMI":
-                results = kanjiEntryRepository.findByKunyomiRegex(regexQuery, "i");
-                break;
-            case "MEANING":
-                results = kanjiEntryRepository.findByMeaningRegex(regexQuery, "i");
-                break;
-            case "ALL":
-            default:
-                // Tìm kiếm trên tất cả các trường liên quan
-                Optional<KanjiEntry> byChar = kanjiEntryRepository.findByKanjiCharacter(query);
-                byChar.ifPresent(results::add);
-                results.addAll(kanjiEntryRepository.findByOnyomiRegex(regexQuery, "i"));
-                results.addAll(kanjiEntryRepository.findByKunyomiRegex(regexQuery, "i"));
-                results.addAll(kanjiEntryRepository.findByMeaningRegex(regexQuery, "i"));
-                // Loại bỏ các bản sao nếu có
-                results = results.stream().distinct().collect(Collectors.toList());
-                break;
-        }
+        // Các truy vấn dùng chỉ mục theo thứ tự kiểu khớp (ký tự, âm đọc, nghĩa), dừng khi đủ số kết quả đã xếp hạng
+        List<KanjiEntry> results = kanjiQueryEngine.search(query, searchType, searchRequest.getLimit());
         return results.stream()
                 .map(this::convertToKanjiResponse)
                 .collect(Collectors.toList());
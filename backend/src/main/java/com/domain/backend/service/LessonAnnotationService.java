@@ -0,0 +1,270 @@
+package com.domain.backend.service;
+
+import com.domain.backend.dto.response.LessonFuriganaResponse;
+import com.domain.backend.dto.response.MessageResponse;
+import com.domain.backend.entity.Lesson;
+import com.domain.backend.entity.LessonAnnotation;
+import com.domain.backend.entity.RubyToken;
+import com.domain.backend.entity.SearchIndex;
+import com.domain.backend.event.ContentChangedEvent;
+import com.domain.backend.exception.ResourceNotFoundException;
+import com.domain.backend.exception.UnauthorizedException;
+import com.domain.backend.exception.ValidationException;
+import com.domain.backend.repository.LessonAnnotationRepository;
+import com.domain.backend.repository.LessonRepository;
+import com.domain.backend.security.SecurityUtils;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+/**
+ * Tính sẵn và lưu furigana cùng token của nội dung bài học, để việc xem bài học không phải phân tích lại văn bản.
+ * <p>
+ * Khi bài học được tạo hoặc sửa (qua {@link ContentChangedEvent} do LessonService phát ra), nội dung được phân tích
+ * trong nền và lưu vào collection lessonAnnotations kèm mã băm của nội dung. Lúc đọc, mã băm đó được so với
+ * Lesson.contentHash: nếu khớp, bản đã lưu được trả về nguyên vẹn; nếu bài học vừa được sửa và bản mới chưa xong,
+ * bản cũ vẫn được trả về (đánh dấu stale) và việc tính lại được lên lịch (stale-while-revalidate).
+ * <p>
+ * Khi khởi động, một lần backfill tính sẵn cho các bài học chưa có bản lưu hoặc có bản đã cũ, bổ sung
+ * contentHash cho các bài học được lưu trước khi có trường này và xóa bản lưu của các bài học đã bị xóa.
+ * Việc phân tích chạy trên một luồng nền duy nhất để không tranh CPU với các yêu cầu đang phục vụ.
+ */
+@Service
+public class LessonAnnotationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(LessonAnnotationService.class);
+
+    @Autowired
+    private LessonRepository lessonRepository;
+
+    @Autowired
+    private LessonAnnotationRepository lessonAnnotationRepository;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private FuriganaService furiganaService;
+
+    private final ExecutorService annotationExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "lesson-annotation");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final ExecutorService backfillExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "lesson-annotation-backfill");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Set<String> pending = ConcurrentHashMap.newKeySet(); // Bài học đang chờ được tính lại
+    private final AtomicBoolean backfillRunning = new AtomicBoolean(false);
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        startBackfill();
+    }
+
+    @EventListener
+    public void onContentChanged(ContentChangedEvent event) {
+        if (SearchIndex.TYPE_LESSON.equals(event.getEntityType())) {
+            scheduleAnnotation(event.getEntityId());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        annotationExecutor.shutdownNow();
+        backfillExecutor.shutdownNow();
+    }
+
+    /**
+     * Lên lịch tính lại furigana của một bài học trong nền. Nhiều yêu cầu cho cùng một bài học khi nó còn đang chờ
+     * được gộp thành một lần tính; bài học đã bị xóa thì bản lưu của nó bị xóa theo.
+     *
+     * @param lessonId ID của bài học.
+     */
+    public void scheduleAnnotation(String lessonId) {
+        if (lessonId != null && pending.add(lessonId)) {
+            annotationExecutor.execute(() -> {
+                pending.remove(lessonId);
+                try {
+                    annotate(lessonId);
+                } catch (RuntimeException ex) {
+                    logger.warn("Không thể tính sẵn furigana cho bài học {}: {}", lessonId, ex.getMessage());
+                }
+            });
+        }
+    }
+
+    /**
+     * Tính sẵn furigana cho mọi bài học chưa có bản lưu hoặc có bản đã cũ (chạy trong nền).
+     * Chỉ ADMIN mới có thể thực hiện.
+     *
+     * @return MessageResponse thông báo tác vụ đã được bắt đầu.
+     * @throws UnauthorizedException nếu người dùng không phải ADMIN.
+     * @throws ValidationException   nếu một lần backfill khác đang chạy.
+     */
+    public MessageResponse backfillAll() {
+        if (!SecurityUtils.isAdmin()) {
+            throw new UnauthorizedException("Bạn không được phép tính sẵn furigana cho bài học.");
+        }
+        if (!startBackfill()) {
+            throw new ValidationException("Đang có một lần tính sẵn furigana chưa hoàn tất.");
+        }
+        return new MessageResponse("Đã bắt đầu tính sẵn furigana cho các bài học.");
+    }
+
+    /**
+     * Lấy furigana và token đã tính sẵn của một bài học.
+     * Nếu bài học chưa từng được tính (ví dụ backfill chưa tới), nó được tính ngay trong yêu cầu này một lần.
+     *
+     * @param lessonId ID của bài học.
+     * @return LessonFuriganaResponse; stale = true nếu nội dung vừa được sửa và bản mới đang được tính trong nền.
+     * @throws ResourceNotFoundException nếu không tìm thấy bài học.
+     */
+    public LessonFuriganaResponse getLessonFurigana(String lessonId) {
+        Query lessonQuery = new Query(Criteria.where("id").is(lessonId));
+        lessonQuery.fields().include("contentHash");
+        Lesson lesson = mongoTemplate.findOne(lessonQuery, Lesson.class);
+        if (lesson == null) {
+            throw new ResourceNotFoundException("Bài học", "id", lessonId);
+        }
+
+        Optional<LessonAnnotation> stored = lessonAnnotationRepository.findById(lessonId);
+        if (stored.isEmpty()) {
+            Lesson fullLesson = lessonRepository.findById(lessonId)
+                    .orElseThrow(() -> new ResourceNotFoundException("Bài học", "id", lessonId));
+            return convertToResponse(annotate(fullLesson, furiganaService.contentHash(fullLesson.getContent())), false);
+        }
+        LessonAnnotation annotation = stored.get();
+        boolean stale = !annotation.getContentHash().equals(lesson.getContentHash());
+        if (stale) {
+            scheduleAnnotation(lessonId);
+        }
+        return convertToResponse(annotation, stale);
+    }
+
+    /**
+     * Tính lại furigana của một bài học nếu nội dung đã thay đổi so với bản lưu.
+     *
+     * @param lessonId ID của bài học.
+     */
+    public void annotate(String lessonId) {
+        Optional<Lesson> lesson = lessonRepository.findById(lessonId);
+        if (lesson.isEmpty()) {
+            lessonAnnotationRepository.deleteById(lessonId);
+            return;
+        }
+        String contentHash = furiganaService.contentHash(lesson.get().getContent());
+        if (!contentHash.equals(storedContentHashes(Criteria.where("id").is(lessonId)).get(lessonId))) {
+            annotate(lesson.get(), contentHash);
+        } else {
+            updateContentHash(lesson.get(), contentHash);
+        }
+    }
+
+    private boolean startBackfill() {
+        if (!backfillRunning.compareAndSet(false, true)) {
+            return false;
+        }
+        backfillExecutor.execute(() -> {
+            try {
+                backfill();
+            } catch (RuntimeException ex) {
+                logger.warn("Không thể tính sẵn furigana cho các bài học: {}", ex.getMessage());
+            } finally {
+                backfillRunning.set(false);
+            }
+        });
+        return true;
+    }
+
+    private void backfill() {
+        long start = System.currentTimeMillis();
+        Map<String, String> storedHashes = storedContentHashes(new Criteria());
+        int annotated = 0;
+        Query query = new Query();
+        query.fields().include("content", "contentHash", "updatedAt");
+        try (Stream<Lesson> lessons = mongoTemplate.stream(query, Lesson.class)) {
+            for (Lesson lesson : (Iterable<Lesson>) lessons::iterator) {
+                String contentHash = furiganaService.contentHash(lesson.getContent());
+                if (!contentHash.equals(storedHashes.remove(lesson.getId()))) {
+                    annotate(lesson, contentHash);
+                    annotated++;
+                } else {
+                    updateContentHash(lesson, contentHash);
+                }
+            }
+        }
+        if (!storedHashes.isEmpty()) {
+            lessonAnnotationRepository.deleteAllById(storedHashes.keySet()); // Bản lưu của các bài học đã bị xóa
+        }
+        logger.info("Đã tính sẵn furigana cho {} bài học trong {} ms ({} bản lưu thừa bị xóa)",
+                annotated, System.currentTimeMillis() - start, storedHashes.size());
+    }
+
+    /**
+     * Phân tích nội dung bài học và lưu kết quả.
+     */
+    private LessonAnnotation annotate(Lesson lesson, String contentHash) {
+        List<RubyToken> tokens = furiganaService.generateRubyTokens(lesson.getContent());
+        LessonAnnotation annotation = new LessonAnnotation();
+        annotation.setId(lesson.getId());
+        annotation.setContentHash(contentHash);
+        annotation.setFurigana(furiganaService.toFurigana(tokens));
+        annotation.setTokens(tokens);
+        annotation.setAnnotatedAt(LocalDateTime.now());
+        LessonAnnotation saved = lessonAnnotationRepository.save(annotation);
+        updateContentHash(lesson, contentHash);
+        return saved;
+    }
+
+    /**
+     * Bổ sung contentHash cho bài học nếu còn thiếu hoặc sai (bài học được lưu trước khi có trường này),
+     * chỉ khi bài học chưa bị sửa kể từ lúc được đọc.
+     */
+    private void updateContentHash(Lesson lesson, String contentHash) {
+        if (!contentHash.equals(lesson.getContentHash())) {
+            Query unchanged = new Query(Criteria.where("id").is(lesson.getId()).and("updatedAt").is(lesson.getUpdatedAt()));
+            mongoTemplate.updateFirst(unchanged, Update.update("contentHash", contentHash), Lesson.class);
+        }
+    }
+
+    /**
+     * Mã băm nội dung của các bản lưu thỏa điều kiện, theo ID bài học (không nạp token).
+     */
+    private Map<String, String> storedContentHashes(Criteria criteria) {
+        Query query = new Query(criteria);
+        query.fields().include("contentHash");
+        Map<String, String> hashes = new HashMap<>();
+        try (Stream<LessonAnnotation> annotations = mongoTemplate.stream(query, LessonAnnotation.class)) {
+            annotations.forEach(annotation -> hashes.put(annotation.getId(), annotation.getContentHash()));
+        }
+        return hashes;
+    }
+
+    private LessonFuriganaResponse convertToResponse(LessonAnnotation annotation, boolean stale) {
+        return new LessonFuriganaResponse(annotation.getId(), annotation.getContentHash(), annotation.getFurigana(),
+                annotation.getTokens(), stale, annotation.getAnnotatedAt());
+    }
+}
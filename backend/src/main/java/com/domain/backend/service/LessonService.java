@@ -1,21 +1,29 @@
 package com.domain.backend.service;
 
 import com.domain.backend.dto.request.LessonRequest;
+import com.domain.backend.dto.response.KeysetPageResponse;
 import com.domain.backend.dto.response.LessonResponse;
 import com.domain.backend.dto.response.MessageResponse;
 import com.domain.backend.entity.Course;
 import com.domain.backend.entity.CourseModule;
 import com.domain.backend.entity.Lesson;
+import com.domain.backend.entity.SearchIndex;
+import com.domain.backend.event.ContentChangedEvent;
 import com.domain.backend.exception.ResourceNotFoundException;
 import com.domain.backend.exception.UnauthorizedException;
 import com.domain.backend.repository.CourseRepository;
 import com.domain.backend.repository.LessonRepository;
 import com.domain.backend.security.SecurityUtils;
+import com.domain.backend.util.KeysetPagination;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
@@ -32,6 +40,15 @@ public class LessonService {
     @Autowired
     private CourseRepository courseRepository; // Để cập nhật danh sách lessonIds của module
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher; // Thông báo thay đổi nội dung cho chỉ mục tìm kiếm
+
+    @Autowired
+    private KeysetPagination keysetPagination; // Phân trang theo khóa và xuất NDJSON
+
+    @Autowired
+    private FuriganaService furiganaService; // Mã băm nội dung cho furigana tính sẵn
+
     /**
      * Kiểm tra xem người dùng hiện tại có được ủy quyền để quản lý một khóa học hay không (người tạo hoặc ADMIN).
      *
@@ -91,6 +108,7 @@ public class LessonService {
         BeanUtils.copyProperties(lessonRequest, lesson); // Sao chép thuộc tính từ DTO sang entity
         lesson.setModuleId(moduleId);
         lesson.setCourseId(courseId);
+        lesson.setContentHash(furiganaService.contentHash(lesson.getContent()));
 
         Lesson savedLesson = lessonRepository.save(lesson); // Lưu bài học vào collection riêng của nó
 
@@ -98,6 +116,7 @@ public class LessonService {
         courseModule.getLessonIds().add(savedLesson.getId());
         course.setUpdatedAt(); // Cập nhật dấu thời gian khóa học
         courseRepository.save(course); // Lưu khóa học đã cập nhật với tham chiếu ID bài học mới
+        eventPublisher.publishEvent(new ContentChangedEvent(SearchIndex.TYPE_LESSON, savedLesson.getId(), ContentChangedEvent.Action.CREATED, savedLesson));
 
         return convertToLessonResponse(savedLesson);
     }
@@ -141,6 +160,27 @@ public class LessonService {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Lấy một trang bài học theo thứ tự ID (phân trang theo khóa).
+     *
+     * @param after ID của phần tử cuối trang trước, null cho trang đầu.
+     * @param size  Số phần tử tối đa của trang.
+     * @return Trang LessonResponse cùng con trỏ cho trang tiếp theo.
+     */
+    public KeysetPageResponse<LessonResponse> getLessonsPage(String after, Integer size) {
+        return keysetPagination.page(new Query(), Lesson.class, after, size, this::convertToLessonResponse);
+    }
+
+    /**
+     * Xuất toàn bộ bài học dưới dạng NDJSON, đọc qua cursor và ghi ra từng dòng.
+     *
+     * @param output Luồng đầu ra của phản hồi.
+     * @throws IOException nếu không thể ghi ra luồng đầu ra.
+     */
+    public void exportLessons(OutputStream output) throws IOException {
+        keysetPagination.streamNdjson(new Query(), Lesson.class, this::convertToLessonResponse, output);
+    }
+
     /**
      * Cập nhật một bài học hiện có.
      *
@@ -164,7 +204,9 @@ public class LessonService {
 
         BeanUtils.copyProperties(lessonRequest, existingLesson, "id", "createdAt", "moduleId", "courseId"); // Loại trừ các trường không thay đổi
         existingLesson.setUpdatedAt(); // Cập nhật dấu thời gian
+        existingLesson.setContentHash(furiganaService.contentHash(existingLesson.getContent()));
         Lesson updatedLesson = lessonRepository.save(existingLesson);
+        eventPublisher.publishEvent(new ContentChangedEvent(SearchIndex.TYPE_LESSON, updatedLesson.getId(), ContentChangedEvent.Action.UPDATED, updatedLesson));
         return convertToLessonResponse(updatedLesson);
     }
 
@@ -204,6 +246,7 @@ public class LessonService {
         }
 
         lessonRepository.delete(existingLesson); // Xóa tài liệu bài học
+        eventPublisher.publishEvent(new ContentChangedEvent(SearchIndex.TYPE_LESSON, lessonId, ContentChangedEvent.Action.DELETED, existingLesson));
         return new MessageResponse("Bài học đã xóa thành công!");
     }
 }
\ No newline at end of file
@@ -0,0 +1,393 @@
+package com.domain.backend.service;
+
+import com.domain.backend.entity.VocabularyEntry;
+import com.domain.backend.entity.VocabularyNgram;
+import com.domain.backend.repository.VocabularyNgramRepository;
+import com.domain.backend.util.JapaneseNormalizer;
+import com.mongodb.MongoNamespace;
+import com.mongodb.client.model.RenameCollectionOptions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Dịch vụ quản lý chỉ mục n-gram ký tự (bigram/trigram) cho các trường Kana/Kanji của từ vựng.
+ * <p>
+ * Tiếng Nhật không có khoảng trắng nên tìm kiếm chuỗi con trên japaneseWord/furigana trước đây
+ * phải dùng regex không neo, khiến MongoDB quét toàn bộ collection. Với chỉ mục này, một truy vấn
+ * như "日本" hoặc "たべ" được trả lời bằng cách tra các posting list của n-gram trong truy vấn,
+ * giao chúng lại, rồi xác minh chuỗi con trên một số ít ứng viên.
+ * <p>
+ * Posting list được lưu thành các cặp (gram, vocabularyId) với chỉ mục kép, nên không có tài liệu nào lớn dần theo
+ * số từ chứa một n-gram phổ biến. Khi dựng lại, chỉ mục được ghi vào một collection tạm rồi đổi tên thay cho
+ * collection đang dùng, nên truy vấn trong lúc dựng vẫn dùng chỉ mục cũ; thay đổi từ vựng trong lúc dựng được ghi
+ * vào cả hai collection.
+ * <p>
+ * Chỉ mục chỉ được dùng sau khi một lần dựng lại hoàn tất và ghi tài liệu đánh dấu vào {@value #STATE_COLLECTION}.
+ * Trước đó, thay đổi từ vựng không ghi vào collection đang dùng, vì một posting list chỉ chứa các từ mới ghi sẽ
+ * khiến tìm kiếm bỏ sót mọi từ cũ.
+ */
+@Service
+public class NgramIndexService {
+
+    private static final Logger logger = LoggerFactory.getLogger(NgramIndexService.class);
+
+    private static final int REBUILD_CHUNK_SIZE = 1000; // Số entry từ vựng xử lý trong mỗi lượt bulk insert
+    private static final int CANDIDATE_BATCH_SIZE = 500; // Số ứng viên của n-gram hiếm nhất được giao và xác minh mỗi lượt
+    private static final int DUPLICATE_KEY = 11000;
+    private static final String LEGACY_COLLECTION = "vocabularyNgrams"; // Posting list dạng mảng trước đây
+    private static final String STATE_COLLECTION = "vocabularyNgramState"; // Tài liệu đánh dấu chỉ mục đã dựng xong
+    private static final String BUILT_MARKER_ID = "postings";
+
+    @Autowired
+    private VocabularyNgramRepository vocabularyNgramRepository;
+
+    @Autowired
+    private DictionarySnapshotService dictionarySnapshotService; // Nạp các ứng viên từ bộ nhớ thay vì MongoDB
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private JapaneseNormalizer japaneseNormalizer;
+
+    private final Object rebuildLock = new Object();
+    private volatile String rebuildCollection; // Collection tạm của lần dựng lại đang chạy, null nếu không có
+    private volatile boolean postingsAvailable; // Chỉ mục đã được dựng hoàn chỉnh ít nhất một lần
+
+    /**
+     * Dựng lại toàn bộ chỉ mục n-gram từ collection từ vựng.
+     * Dữ liệu được đọc theo luồng và ghi theo từng khối nên bộ nhớ sử dụng không phụ thuộc kích thước từ điển.
+     *
+     * @return Số entry từ vựng đã được đánh chỉ mục.
+     */
+    public long rebuild() {
+        synchronized (rebuildLock) {
+            long start = System.currentTimeMillis();
+            String target = mongoTemplate.getCollectionName(VocabularyNgram.class);
+            String temporary = target + "_rebuild";
+            mongoTemplate.dropCollection(temporary); // Phần còn lại của một lần dựng bị gián đoạn
+            ensureIndex(temporary);
+            rebuildCollection = temporary;
+            try {
+                long indexed = 0;
+                List<VocabularyEntry> chunk = new ArrayList<>(REBUILD_CHUNK_SIZE);
+                try (Stream<VocabularyEntry> entries = mongoTemplate.stream(new Query(), VocabularyEntry.class)) {
+                    for (VocabularyEntry entry : (Iterable<VocabularyEntry>) entries::iterator) {
+                        chunk.add(entry);
+                        if (chunk.size() == REBUILD_CHUNK_SIZE) {
+                            indexed += insertAll(temporary, chunk);
+                            chunk.clear();
+                        }
+                    }
+                }
+                indexed += insertAll(temporary, chunk);
+                // Bật cờ trước khi đổi tên để thay đổi đồng thời được ghi vào cả collection tạm lẫn collection mới
+                boolean wasAvailable = postingsAvailable;
+                postingsAvailable = true;
+                try {
+                    mongoTemplate.getCollection(temporary).renameCollection(
+                            new MongoNamespace(mongoTemplate.getDb().getName(), target),
+                            new RenameCollectionOptions().dropTarget(true));
+                } catch (RuntimeException ex) {
+                    postingsAvailable = wasAvailable;
+                    throw ex;
+                }
+                mongoTemplate.upsert(Query.query(Criteria.where("_id").is(BUILT_MARKER_ID)),
+                        new Update().set("builtAt", new Date()).set("indexed", indexed), STATE_COLLECTION);
+                mongoTemplate.dropCollection(LEGACY_COLLECTION);
+                logger.info("Đã dựng lại chỉ mục n-gram cho {} từ vựng trong {} ms", indexed, System.currentTimeMillis() - start);
+                return indexed;
+            } catch (RuntimeException ex) {
+                mongoTemplate.dropCollection(temporary);
+                throw ex;
+            } finally {
+                rebuildCollection = null;
+            }
+        }
+    }
+
+    /**
+     * Thêm một entry từ vựng mới vào chỉ mục.
+     *
+     * @param entry Entry từ vựng đã lưu (có ID).
+     */
+    public void index(VocabularyEntry entry) {
+        add(entry.getId(), ngramsOf(entry));
+    }
+
+    /**
+     * Cập nhật chỉ mục sau khi một entry từ vựng thay đổi: chỉ gỡ các n-gram không còn xuất hiện
+     * và thêm các n-gram mới.
+     *
+     * @param entry         Entry từ vựng sau khi cập nhật.
+     * @param previousGrams Các n-gram của entry trước khi cập nhật (xem {@link #ngramsOf(VocabularyEntry)}).
+     */
+    public void reindex(VocabularyEntry entry, Set<String> previousGrams) {
+        Set<String> currentGrams = ngramsOf(entry);
+        Set<String> removedGrams = new HashSet<>(previousGrams);
+        removedGrams.removeAll(currentGrams);
+        pull(entry.getId(), removedGrams);
+
+        Set<String> addedGrams = new HashSet<>(currentGrams);
+        addedGrams.removeAll(previousGrams);
+        add(entry.getId(), addedGrams);
+    }
+
+    /**
+     * Gỡ một entry từ vựng đã xóa khỏi chỉ mục.
+     *
+     * @param entry Entry từ vựng đã xóa.
+     */
+    public void remove(VocabularyEntry entry) {
+        pull(entry.getId(), ngramsOf(entry));
+    }
+
+    /**
+     * Tìm các entry từ vựng có japaneseWord hoặc furigana chứa chuỗi truy vấn.
+     * <p>
+     * Posting list của n-gram hiếm nhất được đọc dần theo từng khối {@value #CANDIDATE_BATCH_SIZE} ứng viên; mỗi khối
+     * được giao với các n-gram còn lại rồi xác minh, và việc đọc dừng ngay khi đã đủ limit kết quả, nên một truy vấn
+     * phổ biến (ví dụ する) không kéo toàn bộ posting list về.
+     *
+     * @param queryText Chuỗi con cần tìm (Kana/Kanji).
+     * @param limit     Số kết quả tối đa.
+     * @return Danh sách entry phù hợp, hoặc Optional rỗng nếu truy vấn không thể trả lời bằng chỉ mục
+     * (ít hơn hai ký tự tiếng Nhật, chứa ký tự Latin, hoặc chỉ mục chưa được dựng).
+     */
+    public Optional<List<VocabularyEntry>> searchVocabulary(String queryText, int limit) {
+        String normalized = normalize(queryText);
+        Set<String> queryGrams = queryGrams(normalized);
+        if (queryGrams.isEmpty() || !postingsAvailable()) {
+            return Optional.empty();
+        }
+
+        // Đếm độ dài posting của từng n-gram (chỉ đọc chỉ mục), rồi giao bắt đầu từ n-gram hiếm nhất
+        Map<String, Long> postingSizes = new HashMap<>();
+        for (String gram : queryGrams) {
+            long size = vocabularyNgramRepository.countByGram(gram);
+            if (size == 0) {
+                return Optional.of(new ArrayList<>()); // Có n-gram không xuất hiện trong bất kỳ từ nào
+            }
+            postingSizes.put(gram, size);
+        }
+        List<String> grams = new ArrayList<>(queryGrams);
+        grams.sort(Comparator.comparing(postingSizes::get));
+
+        List<VocabularyEntry> results = new ArrayList<>();
+        Query rarest = Query.query(Criteria.where("gram").is(grams.get(0))).with(Sort.by("vocabularyId"));
+        rarest.fields().include("vocabularyId").exclude("_id");
+        try (Stream<VocabularyNgram> postings = mongoTemplate.stream(rarest, VocabularyNgram.class)) {
+            Iterator<VocabularyNgram> iterator = postings.iterator();
+            Set<String> batch = new LinkedHashSet<>();
+            while (iterator.hasNext() && results.size() < limit) {
+                batch.add(iterator.next().getVocabularyId());
+                if (batch.size() == CANDIDATE_BATCH_SIZE || !iterator.hasNext()) {
+                    verifyCandidates(batch, grams, normalized, limit, results);
+                    batch.clear();
+                }
+            }
+        }
+        return Optional.of(results);
+    }
+
+    /**
+     * Giao một khối ứng viên với các n-gram còn lại của truy vấn rồi thêm các entry thật sự chứa chuỗi truy vấn vào
+     * results cho tới khi đủ limit.
+     */
+    private void verifyCandidates(Set<String> batch, List<String> grams, String normalized, int limit,
+                                  List<VocabularyEntry> results) {
+        Set<String> candidateIds = batch;
+        for (int i = 1; i < grams.size() && !candidateIds.isEmpty(); i++) {
+            candidateIds = vocabularyIds(Criteria.where("gram").is(grams.get(i)).and("vocabularyId").in(candidateIds));
+        }
+        if (candidateIds.isEmpty()) {
+            return;
+        }
+        // Xác minh: các n-gram cùng xuất hiện chưa chắc đã liền nhau theo đúng thứ tự
+        for (VocabularyEntry entry : dictionarySnapshotService.findVocabularyByIds(candidateIds)) {
+            if (results.size() >= limit) {
+                return;
+            }
+            if (normalize(nullToEmpty(entry.getJapaneseWord())).contains(normalized)
+                    || normalize(nullToEmpty(entry.getFurigana())).contains(normalized)) {
+                results.add(entry);
+            }
+        }
+    }
+
+    /**
+     * Lấy tập n-gram của một entry từ vựng (từ japaneseWord và furigana).
+     *
+     * @param entry Entry từ vựng.
+     * @return Tập các bigram và trigram.
+     */
+    public Set<String> ngramsOf(VocabularyEntry entry) {
+        Set<String> grams = new HashSet<>();
+        addNgrams(normalize(nullToEmpty(entry.getJapaneseWord())), grams, 2, 3);
+        addNgrams(normalize(nullToEmpty(entry.getFurigana())), grams, 2, 3);
+        return grams;
+    }
+
+    /**
+     * Chỉ mục đã được dựng hoàn chỉnh: chỉ dựa vào tài liệu đánh dấu do {@link #rebuild()} ghi, không dựa vào việc
+     * collection posting tồn tại, vì collection có thể được tạo ngầm bởi một lần ghi trước khi dựng.
+     */
+    private boolean postingsAvailable() {
+        if (!postingsAvailable) {
+            postingsAvailable = mongoTemplate.exists(Query.query(Criteria.where("_id").is(BUILT_MARKER_ID)), STATE_COLLECTION);
+        }
+        return postingsAvailable;
+    }
+
+    private Set<String> vocabularyIds(Criteria criteria) {
+        Query query = Query.query(criteria);
+        query.fields().include("vocabularyId").exclude("_id"); // Được trả lời hoàn toàn từ chỉ mục kép
+        return mongoTemplate.find(query, VocabularyNgram.class).stream()
+                .map(VocabularyNgram::getVocabularyId)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+    }
+
+    /**
+     * Ghi các cặp của một khối entry vào collection tạm khi dựng lại. Cặp đã được ghi bởi một thay đổi đồng thời
+     * (lỗi trùng khóa) được bỏ qua.
+     */
+    private long insertAll(String collection, Collection<VocabularyEntry> entries) {
+        List<VocabularyNgram> pairs = new ArrayList<>();
+        for (VocabularyEntry entry : entries) {
+            for (String gram : ngramsOf(entry)) {
+                pairs.add(new VocabularyNgram(gram, entry.getId()));
+            }
+        }
+        if (!pairs.isEmpty()) {
+            try {
+                mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, VocabularyNgram.class, collection)
+                        .insert(pairs)
+                        .execute();
+            } catch (BulkOperationException ex) {
+                if (ex.getErrors().stream().anyMatch(error -> error.getCode() != DUPLICATE_KEY)) {
+                    throw ex;
+                }
+            }
+        }
+        return entries.size();
+    }
+
+    /**
+     * Thêm các cặp của một entry vào collection đang dùng (nếu chỉ mục đã dựng xong) và, nếu đang dựng lại,
+     * vào collection tạm.
+     */
+    private void add(String vocabularyId, Set<String> grams) {
+        if (grams.isEmpty()) {
+            return;
+        }
+        String rebuilding = rebuildCollection;
+        if (postingsAvailable()) {
+            addTo(mongoTemplate.getCollectionName(VocabularyNgram.class), vocabularyId, grams);
+        }
+        if (rebuilding != null) {
+            addTo(rebuilding, vocabularyId, grams);
+        }
+    }
+
+    private void addTo(String collection, String vocabularyId, Set<String> grams) {
+        BulkOperations bulkOps = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, VocabularyNgram.class, collection);
+        for (String gram : grams) {
+            bulkOps.upsert(Query.query(Criteria.where("gram").is(gram).and("vocabularyId").is(vocabularyId)),
+                    new Update().setOnInsert("gram", gram).setOnInsert("vocabularyId", vocabularyId));
+        }
+        bulkOps.execute();
+    }
+
+    private void pull(String vocabularyId, Set<String> grams) {
+        if (grams.isEmpty()) {
+            return;
+        }
+        String rebuilding = rebuildCollection;
+        Query pairQuery = Query.query(Criteria.where("gram").in(grams).and("vocabularyId").is(vocabularyId));
+        if (postingsAvailable()) {
+            mongoTemplate.remove(pairQuery, VocabularyNgram.class);
+        }
+        if (rebuilding != null) {
+            mongoTemplate.remove(pairQuery, VocabularyNgram.class, rebuilding);
+        }
+    }
+
+    private void ensureIndex(String collection) {
+        mongoTemplate.indexOps(collection).createIndex(new Index()
+                .on("gram", Sort.Direction.ASC)
+                .on("vocabularyId", Sort.Direction.ASC)
+                .unique()
+                .named("gram_vocabulary_idx"));
+    }
+
+    /**
+     * Các n-gram dùng để tra cứu truy vấn: trigram nếu truy vấn đủ dài (chọn lọc hơn), nếu không thì bigram.
+     * Truy vấn chứa ký tự không phải tiếng Nhật không được hỗ trợ vì chỉ mục chỉ bao phủ Kana/Kanji.
+     */
+    private Set<String> queryGrams(String normalized) {
+        Set<String> grams = new LinkedHashSet<>();
+        if (normalized.codePoints().allMatch(NgramIndexService::isJapaneseChar)) {
+            int length = normalized.codePointCount(0, normalized.length());
+            addNgrams(normalized, grams, Math.min(length, 3), Math.min(length, 3));
+            if (length < 2) {
+                grams.clear();
+            }
+        }
+        return grams;
+    }
+
+    /**
+     * Thêm các n-gram có độ dài từ minN đến maxN của mỗi đoạn ký tự tiếng Nhật liên tiếp trong văn bản.
+     */
+    private static void addNgrams(String text, Set<String> grams, int minN, int maxN) {
+        int[] codePoints = text.codePoints().toArray();
+        int runStart = 0;
+        for (int i = 0; i <= codePoints.length; i++) {
+            if (i == codePoints.length || !isJapaneseChar(codePoints[i])) {
+                for (int n = minN; n <= maxN; n++) {
+                    for (int start = runStart; start + n <= i; start++) {
+                        grams.add(new String(codePoints, start, n));
+                    }
+                }
+                runStart = i + 1;
+            }
+        }
+    }
+
+    private static boolean isJapaneseChar(int codePoint) {
+        return codePoint >= 0x3040 && Character.isLetterOrDigit(codePoint) || codePoint == 0x30FC;
+    }
+
+    private String normalize(String text) {
+        return japaneseNormalizer.foldKana(text).trim();
+    }
+
+    private static String nullToEmpty(String value) {
+        return value == null ? "" : value;
+    }
+}
@@ -1,6 +1,7 @@
 package com.domain.backend.service;
 
 import com.domain.backend.dto.request.*;
+import com.domain.backend.dto.response.KeysetPageResponse;
 import com.domain.backend.dto.response.MessageResponse;
 import com.domain.backend.dto.response.QuestionResponse;
 import com.domain.backend.dto.response.QuizAttemptResponse;
@@ -13,11 +14,15 @@ import com.domain.backend.repository.LessonRepository;
 import com.domain.backend.repository.QuizAttemptRepository;
 import com.domain.backend.repository.QuizRepository;
 import com.domain.backend.security.SecurityUtils;
+import com.domain.backend.util.KeysetPagination;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
@@ -37,6 +42,9 @@ public class QuizService {
     @Autowired
     private QuizAttemptRepository quizAttemptRepository;
 
+    @Autowired
+    private KeysetPagination keysetPagination; // Phân trang theo khóa và xuất NDJSON
+
     public List<QuizResponse> getAllQuizzes() {
         List<Quiz> quizzes = quizRepository.findAll();
         return quizzes.stream()
@@ -44,6 +52,27 @@ public class QuizService {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Lấy một trang quiz theo thứ tự ID (phân trang theo khóa).
+     *
+     * @param after ID của phần tử cuối trang trước, null cho trang đầu.
+     * @param size  Số phần tử tối đa của trang.
+     * @return Trang QuizResponse cùng con trỏ cho trang tiếp theo.
+     */
+    public KeysetPageResponse<QuizResponse> getQuizzesPage(String after, Integer size) {
+        return keysetPagination.page(new Query(), Quiz.class, after, size, this::convertToQuizResponse);
+    }
+
+    /**
+     * Xuất toàn bộ quiz dưới dạng NDJSON, đọc qua cursor và ghi ra từng dòng.
+     *
+     * @param output Luồng đầu ra của phản hồi.
+     * @throws IOException nếu không thể ghi ra luồng đầu ra.
+     */
+    public void exportQuizzes(OutputStream output) throws IOException {
+        keysetPagination.streamNdjson(new Query(), Quiz.class, this::convertToQuizResponse, output);
+    }
+
     /**
      * Chuyển đổi Quiz entity sang QuizResponse DTO.
      *
@@ -0,0 +1,296 @@
+package com.domain.backend.service;
+
+import com.domain.backend.dto.response.KanjiSummaryResponse;
+import com.domain.backend.dto.response.RadicalSearchResponse;
+import com.domain.backend.entity.KanjiEntry;
+import com.domain.backend.entity.SearchIndex;
+import com.domain.backend.event.ContentChangedEvent;
+import com.domain.backend.event.DictionaryImportedEvent;
+import com.domain.backend.exception.ValidationException;
+import com.domain.backend.util.IncrementalSnapshot;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+/**
+ * Chỉ mục tra cứu Kanji theo bộ thủ trong bộ nhớ.
+ * <p>
+ * Các Kanji được đánh số thứ tự liên tục (ordinal) theo số nét tăng dần. Mỗi bộ thủ ánh xạ tới một BitSet
+ * trên các ordinal đó, nên truy vấn nhiều bộ thủ là phép AND giữa các BitSet, và bộ lọc số nét chỉ là
+ * xóa các bit nằm ngoài một đoạn ordinal liên tiếp.
+ * <p>
+ * Chỉ mục là một snapshot bất biến, được dựng lại toàn bộ từ MongoDB trong nền khi khởi động và sau khi nhập Kanji.
+ * Khi một Kanji được sửa, snapshot mới được suy ra từ snapshot hiện tại trong bộ nhớ (bỏ Kanji cũ, chèn Kanji mới
+ * vào đúng vị trí theo số nét) mà không đọc lại collection.
+ */
+@Service
+public class RadicalIndexService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RadicalIndexService.class);
+
+    public static final int MAX_RADICALS = 10;
+    public static final int MAX_LIMIT = 500;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    private final IncrementalSnapshot<RadicalIndex> index = new IncrementalSnapshot<>("radical-index-rebuild", logger,
+            "Không thể dựng chỉ mục bộ thủ", this::build, this::applyChange);
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        index.scheduleRebuild();
+    }
+
+    /**
+     * Áp dụng thay đổi của một Kanji lên chỉ mục ngay lập tức.
+     */
+    @EventListener
+    public void onContentChanged(ContentChangedEvent event) {
+        if (SearchIndex.TYPE_KANJI.equals(event.getEntityType())) {
+            index.apply(event);
+        }
+    }
+
+    @EventListener
+    public void onDictionaryImported(DictionaryImportedEvent event) {
+        if (SearchIndex.TYPE_KANJI.equals(event.getEntityType())) {
+            index.scheduleRebuild();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        index.shutdown();
+    }
+
+    /**
+     * Lên lịch dựng lại chỉ mục bộ thủ trong nền. Nhiều yêu cầu liên tiếp được gộp thành một lần dựng.
+     */
+    public void scheduleRebuild() {
+        index.scheduleRebuild();
+    }
+
+    /**
+     * Dựng lại chỉ mục bộ thủ từ collection Kanji ngay trên luồng gọi.
+     */
+    public void rebuild() {
+        index.rebuild();
+    }
+
+    /**
+     * Dựng chỉ mục bộ thủ từ collection Kanji. Chỉ các trường cần thiết được nạp.
+     */
+    private RadicalIndex build() {
+        long start = System.currentTimeMillis();
+        Query query = new Query();
+        query.fields().include("kanjiCharacter", "strokeCount", "meaning", "jlptLevel", "radicals");
+        List<IndexedKanji> kanji = new ArrayList<>();
+        try (Stream<KanjiEntry> entries = mongoTemplate.stream(query, KanjiEntry.class)) {
+            entries.map(RadicalIndexService::indexedKanjiOf).filter(entry -> entry != null).forEach(kanji::add);
+        }
+        kanji.sort(IndexedKanji.ORDER);
+        RadicalIndex built = new RadicalIndex(kanji);
+        logger.info("Đã dựng chỉ mục bộ thủ: {} Kanji, {} bộ thủ trong {} ms",
+                built.summaries.length, built.kanjiByRadical.size(), System.currentTimeMillis() - start);
+        return built;
+    }
+
+    /**
+     * Bỏ Kanji cũ khỏi chỉ mục và chèn Kanji mới (nếu còn bộ thủ) vào đúng vị trí theo số nét.
+     */
+    private RadicalIndex applyChange(RadicalIndex current, ContentChangedEvent event) {
+        IndexedKanji changed = event.getAction() != ContentChangedEvent.Action.DELETED
+                && event.getEntity() instanceof KanjiEntry entry ? indexedKanjiOf(entry) : null;
+        List<IndexedKanji> kanji = new ArrayList<>(current.kanji.size() + 1);
+        for (IndexedKanji existing : current.kanji) {
+            if (!existing.summary.getId().equals(event.getEntityId())) {
+                kanji.add(existing);
+            }
+        }
+        if (changed == null && kanji.size() == current.kanji.size()) {
+            return current; // Kanji không có trong chỉ mục và vẫn không có bộ thủ
+        }
+        if (changed != null) {
+            int position = Collections.binarySearch(kanji, changed, IndexedKanji.ORDER);
+            kanji.add(position < 0 ? -position - 1 : position, changed);
+        }
+        return new RadicalIndex(kanji);
+    }
+
+    /**
+     * Phần của Kanji được đánh chỉ mục, hoặc null nếu Kanji không có bộ thủ.
+     */
+    private static IndexedKanji indexedKanjiOf(KanjiEntry entry) {
+        Set<String> radicals = new LinkedHashSet<>();
+        if (entry.getRadicals() != null) {
+            for (String radical : entry.getRadicals()) {
+                String key = normalizeRadical(radical);
+                if (!key.isEmpty()) {
+                    radicals.add(key);
+                }
+            }
+        }
+        if (radicals.isEmpty()) {
+            return null;
+        }
+        return new IndexedKanji(new KanjiSummaryResponse(entry.getId(), entry.getKanjiCharacter(), entry.getStrokeCount(),
+                entry.getMeaning(), entry.getJlptLevel()), radicals.toArray(new String[0]));
+    }
+
+    /**
+     * Tìm các Kanji chứa tất cả các bộ thủ đã chọn.
+     *
+     * @param radicals   Các bộ thủ (1 - {@value #MAX_RADICALS}); ký tự bộ thủ Khang Hy được quy về chữ Hán tương ứng.
+     * @param minStrokes Số nét tối thiểu, hoặc null.
+     * @param maxStrokes Số nét tối đa, hoặc null.
+     * @param limit      Số kết quả tối đa (1 - {@value #MAX_LIMIT}).
+     * @return Kết quả theo số nét tăng dần kèm các bộ thủ còn có thể chọn thêm; rỗng nếu chỉ mục chưa sẵn sàng.
+     * @throws ValidationException nếu danh sách bộ thủ, khoảng số nét hoặc limit không hợp lệ.
+     */
+    public RadicalSearchResponse findByRadicals(List<String> radicals, Integer minStrokes, Integer maxStrokes, int limit) {
+        Set<String> keys = new LinkedHashSet<>();
+        if (radicals != null) {
+            for (String radical : radicals) {
+                String key = normalizeRadical(radical);
+                if (!key.isEmpty()) {
+                    keys.add(key);
+                }
+            }
+        }
+        if (keys.isEmpty() || keys.size() > MAX_RADICALS) {
+            throw new ValidationException("Phải chọn từ 1 đến " + MAX_RADICALS + " bộ thủ.");
+        }
+        if (minStrokes != null && maxStrokes != null && minStrokes > maxStrokes) {
+            throw new ValidationException("Số nét tối thiểu không được lớn hơn số nét tối đa.");
+        }
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new ValidationException("Số kết quả phải nằm trong khoảng 1 - " + MAX_LIMIT + ".");
+        }
+        RadicalIndex current = index.get();
+        if (current == null) {
+            index.scheduleRebuild();
+            return new RadicalSearchResponse(new ArrayList<>(), 0, new ArrayList<>());
+        }
+        return current.find(keys, minStrokes, maxStrokes, limit);
+    }
+
+    /**
+     * Quy bộ thủ về một dạng: NFKC đưa các ký tự bộ thủ Khang Hy (U+2F00..) về chữ Hán thông thường.
+     */
+    private static String normalizeRadical(String radical) {
+        return radical == null ? "" : Normalizer.normalize(radical, Normalizer.Form.NFKC).trim();
+    }
+
+    /**
+     * Một Kanji trong chỉ mục: thông tin rút gọn và các bộ thủ đã chuẩn hóa.
+     */
+    private static final class IndexedKanji {
+        private static final Comparator<IndexedKanji> ORDER = Comparator
+                .comparingInt((IndexedKanji kanji) -> kanji.summary.getStrokeCount())
+                .thenComparing(kanji -> kanji.summary.getKanjiCharacter(), Comparator.nullsLast(Comparator.naturalOrder()));
+
+        private final KanjiSummaryResponse summary;
+        private final String[] radicals;
+
+        private IndexedKanji(KanjiSummaryResponse summary, String[] radicals) {
+            this.summary = summary;
+            this.radicals = radicals;
+        }
+    }
+
+    /**
+     * Snapshot bất biến của chỉ mục bộ thủ.
+     */
+    private static final class RadicalIndex {
+        private final List<IndexedKanji> kanji;         // Theo ordinal (số nét tăng dần); giữ lại để suy ra snapshot kế tiếp
+        private final KanjiSummaryResponse[] summaries; // Theo ordinal
+        private final int[] strokeCounts;               // Không giảm theo ordinal
+        private final Map<String, BitSet> kanjiByRadical;
+
+        private RadicalIndex(List<IndexedKanji> kanji) {
+            this.kanji = kanji;
+            this.summaries = new KanjiSummaryResponse[kanji.size()];
+            this.strokeCounts = new int[kanji.size()];
+            this.kanjiByRadical = new TreeMap<>();
+            for (int ordinal = 0; ordinal < kanji.size(); ordinal++) {
+                IndexedKanji entry = kanji.get(ordinal);
+                summaries[ordinal] = entry.summary;
+                strokeCounts[ordinal] = entry.summary.getStrokeCount();
+                for (String radical : entry.radicals) {
+                    kanjiByRadical.computeIfAbsent(radical, unused -> new BitSet(summaries.length)).set(ordinal);
+                }
+            }
+        }
+
+        private RadicalSearchResponse find(Set<String> radicals, Integer minStrokes, Integer maxStrokes, int limit) {
+            List<BitSet> sets = new ArrayList<>(radicals.size());
+            for (String radical : radicals) {
+                BitSet set = kanjiByRadical.get(radical);
+                if (set == null) {
+                    return new RadicalSearchResponse(new ArrayList<>(), 0, new ArrayList<>());
+                }
+                sets.add(set);
+            }
+            // Bắt đầu từ bộ thủ hiếm nhất để tập trung gian nhỏ nhất ngay từ đầu
+            sets.sort(Comparator.comparingInt(BitSet::cardinality));
+            BitSet result = (BitSet) sets.get(0).clone();
+            for (int i = 1; i < sets.size() && !result.isEmpty(); i++) {
+                result.and(sets.get(i));
+            }
+            int from = minStrokes == null ? 0 : lowerBound(minStrokes);
+            int to = maxStrokes == null ? summaries.length : lowerBound(maxStrokes + 1);
+            result.clear(0, from);
+            result.clear(to, summaries.length);
+
+            List<KanjiSummaryResponse> results = new ArrayList<>(Math.min(limit, result.cardinality()));
+            for (int ordinal = result.nextSetBit(0); ordinal >= 0 && results.size() < limit; ordinal = result.nextSetBit(ordinal + 1)) {
+                results.add(summaries[ordinal]);
+            }
+            List<String> available = new ArrayList<>();
+            if (!result.isEmpty()) {
+                kanjiByRadical.forEach((radical, set) -> {
+                    if (!radicals.contains(radical) && set.intersects(result)) {
+                        available.add(radical);
+                    }
+                });
+            }
+            return new RadicalSearchResponse(results, result.cardinality(), available);
+        }
+
+        /**
+         * Ordinal đầu tiên có số nét >= strokes.
+         */
+        private int lowerBound(int strokes) {
+            int low = 0;
+            int high = strokeCounts.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (strokeCounts[mid] < strokes) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+}
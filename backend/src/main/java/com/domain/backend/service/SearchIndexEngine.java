@@ -0,0 +1,757 @@
+package com.domain.backend.service;
+
+import com.domain.backend.entity.Course;
+import com.domain.backend.entity.KanjiEntry;
+import com.domain.backend.entity.Lesson;
+import com.domain.backend.entity.SearchIndex;
+import com.domain.backend.entity.VocabularyEntry;
+import com.domain.backend.event.ContentChangedEvent;
+import com.domain.backend.event.DictionaryImportedEvent;
+import com.domain.backend.event.SearchIndexRebuiltEvent;
+import com.domain.backend.exception.ValidationException;
+import com.domain.backend.util.IncrementalSnapshot;
+import com.domain.backend.util.JapaneseNormalizer;
+import com.domain.backend.util.SearchIndexMapper;
+import com.domain.backend.util.SymSpellIndex;
+import jakarta.annotation.PreDestroy;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Chỉ mục đảo ngược trong bộ nhớ phục vụ tìm kiếm văn bản đa script.
+ * <p>
+ * Mỗi thực thể (Kanji, từ vựng, bài học, khóa học) được chuyển thành một tài liệu SearchIndex,
+ * được đưa về khóa chuẩn bởi {@link JapaneseNormalizer} (Kana được La-tinh hóa), rồi được tách thành
+ * các term: từ Latin (kèm mọi hậu tố của từ để hỗ trợ khớp chuỗi con) và từng ký tự Kanji. Hậu tố chỉ được đánh chỉ
+ * mục tới độ dài {@value #MAX_INDEXED_TERM_LENGTH}, nên một đoạn Kana dài được La-tinh hóa thành một từ (ví dụ cả một
+ * bài học toàn hiragana) chỉ tốn số posting tuyến tính theo độ dài của nó.
+ * Một truy vấn được trả lời bằng phép giao các posting list, sau đó xác minh chuỗi con
+ * trên văn bản đã chuẩn hóa và chấm điểm theo trọng số @TextIndexed của SearchIndex.
+ * MongoDB chỉ được dùng để nạp chỉ mục và để lấy dữ liệu đầy đủ của các kết quả đứng đầu.
+ * <p>
+ * Chỉ mục là một snapshot bất biến (xem {@link IncrementalSnapshot}). Mỗi lần lưu hoặc xóa một thực thể chỉ cập nhật
+ * một lớp phủ nhỏ: tài liệu cũ của thực thể bị ẩn khỏi phần gốc và tài liệu mới được giữ riêng, được duyệt trực tiếp
+ * lúc truy vấn và gộp kết quả với phần gốc. Chỉ mục được dựng lại toàn bộ khi khởi động, sau khi nhập từ điển,
+ * hoặc khi lớp phủ vượt quá {@value #MAX_OVERLAY_DOCUMENTS} tài liệu.
+ */
+@Service
+public class SearchIndexEngine {
+
+    private static final Logger logger = LoggerFactory.getLogger(SearchIndexEngine.class);
+
+    // Hệ số theo kiểu khớp: trùng khớp toàn bộ > khớp tiền tố > khớp chuỗi con
+    private static final float EXACT_MATCH_FACTOR = 3.0f;
+    private static final float PREFIX_MATCH_FACTOR = 2.0f;
+    private static final float SUBSTRING_MATCH_FACTOR = 1.0f;
+
+    // Sửa lỗi chính tả: khoảng cách chỉnh sửa tối đa và độ dài tiền tố dùng để sinh biến thể xóa
+    private static final int SPELLING_MAX_DISTANCE = 2;
+    private static final int SPELLING_PREFIX_LENGTH = 7;
+
+    // Độ dài tối đa của một term Latin trong từ điển term: hậu tố dài hơn được cắt, tra cứu dùng tiền tố cùng độ dài
+    private static final int MAX_INDEXED_TERM_LENGTH = 32;
+
+    // Số tài liệu tối đa của lớp phủ trước khi chỉ mục được dựng lại toàn bộ
+    private static final int MAX_OVERLAY_DOCUMENTS = 1000;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private SearchIndexMapper searchIndexMapper;
+
+    @Autowired
+    private JapaneseNormalizer japaneseNormalizer;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    private final IncrementalSnapshot<Snapshot> index = new IncrementalSnapshot<>("search-index-rebuild", logger,
+            "Không thể dựng chỉ mục tìm kiếm", this::build, this::applyChange)
+            .onRebuilt(startedAtNanos -> eventPublisher.publishEvent(new SearchIndexRebuiltEvent(startedAtNanos)));
+
+    /**
+     * Một kết quả tìm kiếm: tham chiếu tới thực thể gốc kèm điểm liên quan.
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class Hit {
+        private final String entityType;
+        private final String entityId;
+        private final float score;
+    }
+
+    /**
+     * Một trang kết quả: top-k kết quả sau con trỏ, tổng số kết quả và con trỏ cho trang tiếp theo.
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class SearchPage {
+        private final List<Hit> hits;
+        private final int totalHits;
+        private final String nextCursor; // null nếu đây là trang cuối
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        index.scheduleRebuild();
+    }
+
+    /**
+     * Áp dụng thay đổi của một thực thể lên lớp phủ ngay lập tức, rồi phát {@link SearchIndexRebuiltEvent}
+     * để cache kết quả biết chỉ mục đã phản ánh thay đổi này.
+     */
+    @EventListener
+    public void onContentChanged(ContentChangedEvent event) {
+        long startedAtNanos = System.nanoTime();
+        index.apply(event);
+        eventPublisher.publishEvent(new SearchIndexRebuiltEvent(startedAtNanos));
+    }
+
+    @EventListener
+    public void onDictionaryImported(DictionaryImportedEvent event) {
+        index.scheduleRebuild();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        index.shutdown();
+    }
+
+    /**
+     * Lên lịch dựng lại toàn bộ chỉ mục trong nền. Nhiều yêu cầu liên tiếp được gộp thành một lần dựng.
+     */
+    public void scheduleRebuild() {
+        index.scheduleRebuild();
+    }
+
+    /**
+     * Dựng lại toàn bộ chỉ mục từ các collection nội dung, hoán đổi snapshot một cách nguyên tử
+     * và phát {@link SearchIndexRebuiltEvent}.
+     */
+    public void rebuild() {
+        index.rebuild();
+    }
+
+    private Snapshot build() {
+        long start = System.currentTimeMillis();
+        SnapshotBuilder builder = new SnapshotBuilder();
+        addAll(builder, KanjiEntry.class, searchIndexMapper::fromKanji);
+        addAll(builder, VocabularyEntry.class, searchIndexMapper::fromVocabulary);
+        addAll(builder, Lesson.class, searchIndexMapper::fromLesson);
+        addAll(builder, Course.class, searchIndexMapper::fromCourse);
+        Snapshot built = builder.build();
+        logger.info("Đã dựng chỉ mục tìm kiếm: {} tài liệu, {} term trong {} ms",
+                built.size(), built.terms.length, System.currentTimeMillis() - start);
+        return built;
+    }
+
+    /**
+     * Thay tài liệu của thực thể trong lớp phủ (hoặc chỉ ẩn tài liệu cũ nếu thực thể bị xóa).
+     */
+    private Snapshot applyChange(Snapshot current, ContentChangedEvent event) {
+        SearchIndex document = null;
+        if (event.getAction() != ContentChangedEvent.Action.DELETED) {
+            document = searchIndexMapper.fromEntity(event.getEntity());
+            if (document == null) {
+                return current; // Loại thực thể không được đánh chỉ mục
+            }
+        }
+        Snapshot updated = current.withChange(entityKey(event.getEntityType(), event.getEntityId()), document);
+        if (updated.overlay.length > MAX_OVERLAY_DOCUMENTS) {
+            index.scheduleRebuild();
+        }
+        return updated;
+    }
+
+    private static String entityKey(String entityType, String entityId) {
+        return entityType + ':' + entityId;
+    }
+
+    private <T> void addAll(SnapshotBuilder builder, Class<T> entityClass, Function<T, SearchIndex> mapper) {
+        Query query = new Query();
+        query.fields().include(SearchIndexMapper.sourceFields(entityClass)); // Không nạp SVG thứ tự nét, module nhúng, ...
+        try (Stream<T> entities = mongoTemplate.stream(query, entityClass)) {
+            entities.forEach(entity -> builder.add(mapper.apply(entity)));
+        }
+    }
+
+    /**
+     * Tìm kiếm trên chỉ mục trong bộ nhớ và trả về một trang gồm top-k kết quả.
+     * <p>
+     * Thứ tự xếp hạng là điểm giảm dần, sau đó (entityType, entityId) tăng dần để thứ tự luôn ổn định.
+     * Con trỏ là vị trí của kết quả cuối cùng trong trang trước (keyset), nên việc phân trang
+     * không cần nhớ trạng thái phía máy chủ và không bị lệch khi có kết quả ngang điểm.
+     *
+     * Truy vấn được chuẩn hóa về cùng khóa với dữ liệu, nên mọi cách viết (Kanji, Kana, Romaji)
+     * chỉ cần một lần tra cứu.
+     *
+     * @param queryText Văn bản truy vấn.
+     * @param limit     Số kết quả tối đa của trang.
+     * @param cursor    Con trỏ mờ từ trang trước, hoặc null cho trang đầu.
+     * @return Trang kết quả, hoặc Optional rỗng nếu chỉ mục chưa sẵn sàng.
+     * @throws ValidationException nếu con trỏ không hợp lệ.
+     */
+    public Optional<SearchPage> search(String queryText, int limit, String cursor) {
+        RankKey after = cursor == null || cursor.isBlank() ? null : RankKey.decode(cursor);
+        Snapshot current = index.get();
+        if (current == null) {
+            index.scheduleRebuild();
+            return Optional.empty();
+        }
+
+        // Truy vấn đọc được như Romaji có thêm khóa gộp Hepburn/Kunrei; mỗi tài liệu lấy điểm cao nhất giữa các khóa
+        Map<Integer, Float> scores = new HashMap<>();
+        for (String normalizedQuery : japaneseNormalizer.queryKeys(queryText)) {
+            for (int ordinal : current.candidates(tokenize(normalizedQuery))) {
+                float score = current.score(ordinal, normalizedQuery);
+                if (score > 0) {
+                    scores.merge(ordinal, score, Math::max);
+                }
+            }
+        }
+
+        // Chọn top-(k+1) sau con trỏ bằng heap có kích thước giới hạn thay vì sắp xếp toàn bộ kết quả
+        PriorityQueue<RankKey> heap = new PriorityQueue<>(Comparator.reverseOrder());
+        for (Map.Entry<Integer, Float> entry : scores.entrySet()) {
+            RankKey key = new RankKey(entry.getValue(), current.entityType(entry.getKey()), current.entityId(entry.getKey()));
+            if (after != null && key.compareTo(after) <= 0) {
+                continue;
+            }
+            heap.offer(key);
+            if (heap.size() > limit + 1) {
+                heap.poll();
+            }
+        }
+        List<RankKey> page = new ArrayList<>(heap);
+        page.sort(null);
+        boolean hasMore = page.size() > limit;
+        if (hasMore) {
+            page = page.subList(0, limit);
+        }
+
+        List<Hit> hits = page.stream()
+                .map(key -> new Hit(key.entityType, key.entityId, key.score))
+                .collect(Collectors.toList());
+        String nextCursor = hasMore ? page.get(page.size() - 1).encode() : null;
+        return Optional.of(new SearchPage(hits, scores.size(), nextCursor));
+    }
+
+    /**
+     * Đề xuất một truy vấn đã sửa lỗi chính tả ("có phải bạn muốn tìm") cho truy vấn Romaji/tiếng Anh.
+     * Mỗi từ không có trong từ điển được thay bằng từ gần nhất (khoảng cách chỉnh sửa có giới hạn)
+     * trong các từ Latin của chỉ mục, gồm Romaji đã chuẩn hóa và nghĩa tiếng Anh
+     * (từ của các tài liệu trong lớp phủ chỉ có mặt sau lần dựng lại toàn bộ kế tiếp).
+     *
+     * @param queryText Văn bản truy vấn.
+     * @return Truy vấn đã sửa, trong đó mỗi từ được thay hiển thị theo dạng gốc trong nội dung (ví dụ "study", "たべもの")
+     * chứ không phải khóa chuẩn; Optional rỗng nếu không có gì để sửa,
+     * truy vấn chứa Kanji, hoặc chỉ mục chưa sẵn sàng.
+     */
+    public Optional<String> suggestCorrection(String queryText) {
+        Snapshot current = index.get();
+        if (current == null) {
+            return Optional.empty();
+        }
+        List<String> terms = tokenize(japaneseNormalizer.normalize(queryText));
+        if (terms.isEmpty()) {
+            return Optional.empty();
+        }
+        List<String> corrected = new ArrayList<>(terms.size());
+        boolean changed = false;
+        for (String term : terms) {
+            if (!isWordChar(term.codePointAt(0))) {
+                return Optional.empty();
+            }
+            Optional<String> replacement = current.spelling.correct(term);
+            if (replacement.isEmpty()) {
+                return Optional.empty();
+            }
+            if (replacement.get().equals(term)) {
+                corrected.add(term);
+            } else {
+                corrected.add(current.surfaceOf(replacement.get()));
+                changed = true;
+            }
+        }
+        return changed ? Optional.of(String.join(" ", corrected)) : Optional.empty();
+    }
+
+    /**
+     * Khóa xếp hạng của một kết quả; cũng là nội dung (đã mã hóa) của con trỏ phân trang.
+     */
+    private static final class RankKey implements Comparable<RankKey> {
+        private final float score;
+        private final String entityType;
+        private final String entityId;
+
+        private RankKey(float score, String entityType, String entityId) {
+            this.score = score;
+            this.entityType = entityType;
+            this.entityId = entityId;
+        }
+
+        @Override
+        public int compareTo(RankKey other) {
+            int byScore = Float.compare(other.score, score);
+            if (byScore != 0) {
+                return byScore;
+            }
+            int byType = entityType.compareTo(other.entityType);
+            return byType != 0 ? byType : entityId.compareTo(other.entityId);
+        }
+
+        private String encode() {
+            String raw = Float.floatToIntBits(score) + "|" + entityType + "|" + entityId;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        private static RankKey decode(String cursor) {
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                String[] parts = raw.split("\\|", 3);
+                return new RankKey(Float.intBitsToFloat(Integer.parseInt(parts[0])), parts[1], parts[2]);
+            } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException ex) {
+                throw new ValidationException("Con trỏ phân trang không hợp lệ.");
+            }
+        }
+    }
+
+    private static boolean isWordChar(int codePoint) {
+        return codePoint < 0x3000 && Character.isLetterOrDigit(codePoint);
+    }
+
+    private static boolean isJapaneseChar(int codePoint) {
+        return codePoint >= 0x3040 && Character.isLetterOrDigit(codePoint) || codePoint == 0x30FC;
+    }
+
+    /**
+     * Tách văn bản đã chuẩn hóa thành các term: mỗi chuỗi chữ/số Latin là một term,
+     * mỗi ký tự Kanji (hoặc Kana còn sót lại) là một term riêng (tiếng Nhật không có khoảng trắng).
+     */
+    private static List<String> tokenize(String normalized) {
+        List<String> terms = new ArrayList<>();
+        int wordStart = -1;
+        int i = 0;
+        while (i < normalized.length()) {
+            int codePoint = normalized.codePointAt(i);
+            int next = i + Character.charCount(codePoint);
+            if (isWordChar(codePoint)) {
+                if (wordStart < 0) {
+                    wordStart = i;
+                }
+            } else {
+                if (wordStart >= 0) {
+                    terms.add(normalized.substring(wordStart, i));
+                    wordStart = -1;
+                }
+                if (isJapaneseChar(codePoint)) {
+                    terms.add(normalized.substring(i, next));
+                }
+            }
+            i = next;
+        }
+        if (wordStart >= 0) {
+            terms.add(normalized.substring(wordStart));
+        }
+        return terms;
+    }
+
+    /**
+     * Snapshot bất biến của chỉ mục: phần gốc (các cột tài liệu và từ điển term đã sắp xếp kèm posting list)
+     * cộng với lớp phủ gồm các ordinal gốc bị ẩn và các tài liệu đã thay đổi kể từ lần dựng gần nhất.
+     * Tài liệu thứ i của lớp phủ có ordinal size() + i.
+     */
+    private final class Snapshot {
+        private final String[] entityTypes;
+        private final String[] entityIds;
+        private final String[] fieldTexts; // Văn bản đã chuẩn hóa, FIELD_COUNT phần tử cho mỗi tài liệu
+        private final float[] jlptBoosts;  // Hệ số theo cấp độ JLPT của mỗi tài liệu
+        private final String[] terms;      // Đã sắp xếp để hỗ trợ tra cứu tiền tố bằng tìm kiếm nhị phân
+        private final int[][] postings;    // Ordinal tài liệu tăng dần cho mỗi term
+        private final SymSpellIndex spelling; // Từ điển sửa lỗi chính tả trên các từ Latin đầy đủ
+        private final Map<String, String> surfaces; // Dạng gốc của các từ có khóa chuẩn khác dạng viết (たべもの -> tabemono)
+        private final Map<String, Integer> ordinals; // "TYPE:id" -> ordinal gốc
+        private final BitSet hidden;                 // Ordinal gốc của các thực thể đã bị sửa hoặc xóa
+        private final OverlayDocument[] overlay;     // Tài liệu đã thay đổi kể từ lần dựng gần nhất
+
+        private Snapshot(String[] entityTypes, String[] entityIds, String[] fieldTexts, float[] jlptBoosts,
+                         String[] terms, int[][] postings, SymSpellIndex spelling, Map<String, String> surfaces,
+                         Map<String, Integer> ordinals, BitSet hidden, OverlayDocument[] overlay) {
+            this.entityTypes = entityTypes;
+            this.entityIds = entityIds;
+            this.fieldTexts = fieldTexts;
+            this.jlptBoosts = jlptBoosts;
+            this.terms = terms;
+            this.postings = postings;
+            this.spelling = spelling;
+            this.surfaces = surfaces;
+            this.ordinals = ordinals;
+            this.hidden = hidden;
+            this.overlay = overlay;
+        }
+
+        /**
+         * Snapshot mới dùng chung phần gốc, trong đó tài liệu của thực thể được thay bằng document
+         * (null nếu thực thể đã bị xóa).
+         */
+        private Snapshot withChange(String entityKey, SearchIndex document) {
+            BitSet newHidden = hidden;
+            Integer ordinal = ordinals.get(entityKey);
+            if (ordinal != null && !hidden.get(ordinal)) {
+                newHidden = (BitSet) hidden.clone();
+                newHidden.set(ordinal);
+            }
+            List<OverlayDocument> newOverlay = new ArrayList<>(overlay.length + 1);
+            for (OverlayDocument existing : overlay) {
+                if (!existing.entityKey.equals(entityKey)) {
+                    newOverlay.add(existing);
+                }
+            }
+            if (document != null) {
+                newOverlay.add(new OverlayDocument(entityKey, document));
+            }
+            return new Snapshot(entityTypes, entityIds, fieldTexts, jlptBoosts, terms, postings, spelling, surfaces,
+                    ordinals, newHidden, newOverlay.toArray(new OverlayDocument[0]));
+        }
+
+        private String surfaceOf(String word) {
+            return surfaces.getOrDefault(word, word);
+        }
+
+        private int size() {
+            return entityIds.length;
+        }
+
+        private String entityType(int ordinal) {
+            return ordinal < size() ? entityTypes[ordinal] : overlay[ordinal - size()].entityType;
+        }
+
+        private String entityId(int ordinal) {
+            return ordinal < size() ? entityIds[ordinal] : overlay[ordinal - size()].entityId;
+        }
+
+        private String fieldText(int ordinal, int field) {
+            return ordinal < size()
+                    ? fieldTexts[ordinal * SearchIndexMapper.FIELD_COUNT + field]
+                    : overlay[ordinal - size()].fieldTexts[field];
+        }
+
+        private float jlptBoost(int ordinal) {
+            return ordinal < size() ? jlptBoosts[ordinal] : overlay[ordinal - size()].jlptBoost;
+        }
+
+        /**
+         * Giao các posting list của tất cả term. Term Latin được khớp như tiền tố trên từ điển
+         * (vốn chứa mọi hậu tố của từ), tức là khớp chuỗi con: Kana đã được La-tinh hóa nên
+         * "べる" (beru) vẫn phải tìm thấy "食べる" (食beru). Term dài hơn {@value #MAX_INDEXED_TERM_LENGTH} chỉ được
+         * tra theo tiền tố có độ dài đó; ứng viên thừa bị loại khi chấm điểm.
+         * Ordinal gốc bị ẩn được bỏ qua; các tài liệu của lớp phủ được kiểm tra trực tiếp.
+         */
+        private int[] candidates(List<String> queryTerms) {
+            if (queryTerms.isEmpty()) {
+                return new int[0];
+            }
+            int[] base = baseCandidates(queryTerms);
+            if (hidden.isEmpty() && overlay.length == 0) {
+                return base;
+            }
+            int[] result = new int[base.length + overlay.length];
+            int count = 0;
+            for (int ordinal : base) {
+                if (!hidden.get(ordinal)) {
+                    result[count++] = ordinal;
+                }
+            }
+            for (int i = 0; i < overlay.length; i++) {
+                if (overlay[i].matches(queryTerms)) {
+                    result[count++] = size() + i;
+                }
+            }
+            return Arrays.copyOf(result, count);
+        }
+
+        private int[] baseCandidates(List<String> queryTerms) {
+            List<int[]> lists = new ArrayList<>(queryTerms.size());
+            for (String term : queryTerms) {
+                int[] list = isWordChar(term.codePointAt(0)) ? prefixPostings(truncate(term)) : exactPostings(term);
+                if (list.length == 0) {
+                    return list;
+                }
+                lists.add(list);
+            }
+            lists.sort(Comparator.comparingInt(list -> list.length));
+            int[] result = lists.get(0);
+            for (int i = 1; i < lists.size() && result.length > 0; i++) {
+                result = intersect(result, lists.get(i));
+            }
+            return result;
+        }
+
+        private int[] exactPostings(String term) {
+            int index = Arrays.binarySearch(terms, term);
+            return index >= 0 ? postings[index] : new int[0];
+        }
+
+        private int[] prefixPostings(String prefix) {
+            int from = Arrays.binarySearch(terms, prefix);
+            if (from < 0) {
+                from = -from - 1;
+            }
+            int to = from;
+            while (to < terms.length && terms[to].startsWith(prefix)) {
+                to++;
+            }
+            if (to - from <= 1) {
+                return to > from ? postings[from] : new int[0];
+            }
+            BitSet union = new BitSet(size());
+            for (int i = from; i < to; i++) {
+                for (int ordinal : postings[i]) {
+                    union.set(ordinal);
+                }
+            }
+            return union.stream().toArray();
+        }
+
+        /**
+         * Xác minh ứng viên (posting list chỉ đảm bảo các term cùng xuất hiện, không đảm bảo thứ tự)
+         * và tính điểm: tổng trọng số của các trường chứa truy vấn, nhân với hệ số kiểu khớp của trường đó,
+         * rồi nhân với hệ số JLPT của tài liệu.
+         */
+        private float score(int ordinal, String normalizedQuery) {
+            float score = 0;
+            for (int field = 0; field < SearchIndexMapper.FIELD_COUNT; field++) {
+                score += searchIndexMapper.getFieldWeight(field) * matchFactor(fieldText(ordinal, field), normalizedQuery);
+            }
+            return score * jlptBoost(ordinal);
+        }
+    }
+
+    /**
+     * Tài liệu của lớp phủ: văn bản đã chuẩn hóa của các trường và tập term, được khớp trực tiếp lúc truy vấn.
+     */
+    private final class OverlayDocument {
+        private final String entityKey;
+        private final String entityType;
+        private final String entityId;
+        private final String[] fieldTexts = new String[SearchIndexMapper.FIELD_COUNT];
+        private final float jlptBoost;
+        private final Set<String> words = new HashSet<>();      // Từ Latin đầy đủ
+        private final Set<String> characters = new HashSet<>(); // Ký tự Kanji/Kana
+
+        private OverlayDocument(String entityKey, SearchIndex searchIndex) {
+            this.entityKey = entityKey;
+            this.entityType = searchIndex.getEntityType();
+            this.entityId = searchIndex.getEntityId();
+            this.jlptBoost = SearchIndexMapper.jlptBoost(searchIndex.getJlptLevel());
+            for (int field = 0; field < SearchIndexMapper.FIELD_COUNT; field++) {
+                fieldTexts[field] = searchIndexMapper.getNormalizedFieldText(searchIndex, field);
+                for (String term : tokenize(fieldTexts[field])) {
+                    (isWordChar(term.codePointAt(0)) ? words : characters).add(term);
+                }
+            }
+        }
+
+        /**
+         * Cùng điều kiện với posting list của phần gốc: term Latin khớp chuỗi con của một từ, ký tự khớp chính xác.
+         */
+        private boolean matches(List<String> queryTerms) {
+            for (String term : queryTerms) {
+                boolean found = isWordChar(term.codePointAt(0))
+                        ? words.stream().anyMatch(word -> word.contains(term))
+                        : characters.contains(term);
+                if (!found) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Hệ số kiểu khớp tốt nhất của truy vấn trong một trường. Mỗi dòng của trường
+     * (scriptForms được nối bằng xuống dòng) được xem là một giá trị riêng.
+     *
+     * @return 0 nếu không khớp, ngược lại là một trong các hệ số *_MATCH_FACTOR.
+     */
+    private static float matchFactor(String text, String query) {
+        float best = 0;
+        for (int index = text.indexOf(query); index >= 0 && best < EXACT_MATCH_FACTOR; index = text.indexOf(query, index + 1)) {
+            boolean atStart = index == 0 || text.charAt(index - 1) == '\n';
+            int end = index + query.length();
+            boolean atEnd = end == text.length() || text.charAt(end) == '\n';
+            float factor = atStart ? (atEnd ? EXACT_MATCH_FACTOR : PREFIX_MATCH_FACTOR) : SUBSTRING_MATCH_FACTOR;
+            best = Math.max(best, factor);
+        }
+        return best;
+    }
+
+    private static String truncate(String term) {
+        return term.length() > MAX_INDEXED_TERM_LENGTH ? term.substring(0, MAX_INDEXED_TERM_LENGTH) : term;
+    }
+
+    private static int[] intersect(int[] a, int[] b) {
+        int[] result = new int[Math.min(a.length, b.length)];
+        int i = 0, j = 0, k = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                result[k++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, k);
+    }
+
+    /**
+     * Bộ dựng snapshot: tài liệu được thêm theo thứ tự ordinal tăng dần nên posting list luôn được sắp xếp.
+     */
+    private final class SnapshotBuilder {
+        private final List<String> entityTypes = new ArrayList<>();
+        private final List<String> entityIds = new ArrayList<>();
+        private final List<String> fieldTexts = new ArrayList<>();
+        private final List<Float> jlptBoosts = new ArrayList<>();
+        private final Map<String, IntArrayBuilder> postings = new HashMap<>();
+        private final Set<String> words = new HashSet<>(); // Từ Latin đầy đủ (không tính hậu tố)
+        private final Set<String> plainWords = new HashSet<>(); // Từ xuất hiện đúng như khóa chuẩn của nó trong nội dung
+        private final Map<String, String> surfaces = new HashMap<>();
+        private final Map<String, Integer> ordinals = new HashMap<>();
+
+        private void add(SearchIndex searchIndex) {
+            int ordinal = entityIds.size();
+            ordinals.put(entityKey(searchIndex.getEntityType(), searchIndex.getEntityId()), ordinal);
+            entityTypes.add(searchIndex.getEntityType());
+            entityIds.add(searchIndex.getEntityId());
+            jlptBoosts.add(SearchIndexMapper.jlptBoost(searchIndex.getJlptLevel()));
+            for (int field = 0; field < SearchIndexMapper.FIELD_COUNT; field++) {
+                String text = searchIndexMapper.getNormalizedFieldText(searchIndex, field);
+                fieldTexts.add(text);
+                addSurfaces(searchIndexMapper.getFieldText(searchIndex, field), field);
+                for (String term : tokenize(text)) {
+                    if (isWordChar(term.codePointAt(0))) {
+                        if (term.length() <= MAX_INDEXED_TERM_LENGTH) {
+                            words.add(term); // Đoạn dài hơn không phải một từ thật, không dùng cho sửa lỗi chính tả
+                        }
+                        // Đánh chỉ mục mọi hậu tố (cắt tới MAX_INDEXED_TERM_LENGTH) để tra cứu tiền tố trả lời được
+                        // truy vấn chuỗi con
+                        for (int start = 0; start < term.length(); start++) {
+                            addPosting(term.substring(start, Math.min(term.length(), start + MAX_INDEXED_TERM_LENGTH)), ordinal);
+                        }
+                    } else {
+                        addPosting(term, ordinal);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Ghi lại dạng gốc của các từ: mỗi chuỗi chữ Latin hoặc chuỗi Kana trong văn bản gốc được chuẩn hóa riêng,
+         * và nếu nó cho ra một từ khác với chính nó (Kana, Romaji Kunrei) thì dạng gốc đầu tiên gặp được giữ lại.
+         */
+        private void addSurfaces(String fieldText, int field) {
+            String folded = japaneseNormalizer.foldKana(fieldText);
+            int i = 0;
+            while (i < folded.length()) {
+                int codePoint = folded.codePointAt(i);
+                boolean kana = codePoint >= 'ぁ' && codePoint <= 'ゟ';
+                if (!kana && !isWordChar(codePoint)) {
+                    i += Character.charCount(codePoint);
+                    continue;
+                }
+                int end = i;
+                while (end < folded.length()) {
+                    int next = folded.codePointAt(end);
+                    if (kana ? next < 'ぁ' || next > 'ゟ' : !isWordChar(next)) {
+                        break;
+                    }
+                    end += Character.charCount(next);
+                }
+                String surface = folded.substring(i, end);
+                String word = searchIndexMapper.normalizeFieldText(surface, field);
+                if (word.equals(surface)) {
+                    plainWords.add(word);
+                } else if (!word.isEmpty() && word.codePoints().allMatch(SearchIndexEngine::isWordChar)) {
+                    surfaces.putIfAbsent(word, surface);
+                }
+                i = end;
+            }
+        }
+
+        private void addPosting(String term, int ordinal) {
+            postings.computeIfAbsent(term, key -> new IntArrayBuilder()).addDistinct(ordinal);
+        }
+
+        private Snapshot build() {
+            String[] terms = postings.keySet().toArray(new String[0]);
+            Arrays.sort(terms);
+            int[][] termPostings = new int[terms.length][];
+            for (int i = 0; i < terms.length; i++) {
+                termPostings[i] = postings.get(terms[i]).toArray();
+            }
+            float[] boosts = new float[jlptBoosts.size()];
+            for (int i = 0; i < boosts.length; i++) {
+                boosts[i] = jlptBoosts.get(i);
+            }
+            Map<String, Integer> wordFrequencies = new HashMap<>(words.size() * 2);
+            for (String word : words) {
+                wordFrequencies.put(word, postings.get(word).size);
+            }
+            surfaces.keySet().removeIf(word -> plainWords.contains(word) || !words.contains(word));
+            return new Snapshot(entityTypes.toArray(new String[0]), entityIds.toArray(new String[0]),
+                    fieldTexts.toArray(new String[0]), boosts, terms, termPostings,
+                    SymSpellIndex.build(wordFrequencies, SPELLING_MAX_DISTANCE, SPELLING_PREFIX_LENGTH), surfaces,
+                    ordinals, new BitSet(), new OverlayDocument[0]);
+        }
+    }
+
+    private static final class IntArrayBuilder {
+        private int[] values = new int[4];
+        private int size;
+
+        // Bỏ qua nếu ordinal đã là phần tử cuối (term lặp lại trong cùng tài liệu)
+        private void addDistinct(int value) {
+            if (size > 0 && values[size - 1] == value) {
+                return;
+            }
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        private int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
@@ -0,0 +1,249 @@
+package com.domain.backend.service;
+
+import com.domain.backend.dto.response.MessageResponse;
+import com.domain.backend.entity.Course;
+import com.domain.backend.entity.KanjiEntry;
+import com.domain.backend.entity.Lesson;
+import com.domain.backend.entity.SearchIndex;
+import com.domain.backend.entity.VocabularyEntry;
+import com.domain.backend.event.ContentChangedEvent;
+import com.domain.backend.event.DictionaryImportedEvent;
+import com.domain.backend.exception.UnauthorizedException;
+import com.domain.backend.exception.ValidationException;
+import com.domain.backend.security.SecurityUtils;
+import com.domain.backend.util.SearchIndexMapper;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+/**
+ * Duy trì collection searchIndex đồng bộ với nội dung gốc (Kanji, từ vựng, bài học, khóa học).
+ * <p>
+ * Mỗi {@link ContentChangedEvent} chỉ được ghi nhận vào một bảng thay đổi đang chờ (thay đổi sau cùng của
+ * một thực thể sẽ thay thế thay đổi trước), nên thao tác ghi nội dung không phải trả chi phí đánh chỉ mục.
+ * Một luồng nền gom các thay đổi thành lô và ghi bằng bulk upsert/remove.
+ * <p>
+ * Việc đánh chỉ mục lại toàn bộ chạy trên cùng luồng nền, đọc từng collection dạng stream và ghi theo từng
+ * khối, nên các thay đổi phát sinh trong lúc đó được áp dụng sau và luôn là trạng thái mới nhất.
+ */
+@Service
+public class SearchIndexingService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SearchIndexingService.class);
+
+    private static final int REINDEX_CHUNK_SIZE = 1000; // Số tài liệu ghi trong mỗi lượt bulk khi đánh chỉ mục lại
+    private static final long RETRY_DELAY_MS = 5000;    // Thời gian chờ trước khi ghi lại một lô bị lỗi
+
+    private static final String ENTITY_TYPE_FIELD = "entityType";
+    private static final String ENTITY_ID_FIELD = "entityId";
+    private static final String INDEXED_AT_FIELD = "indexedAt";
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private SearchIndexMapper searchIndexMapper;
+
+    @Value("${search.indexing.flush-delay-ms:200}")
+    private long flushDelayMs;
+
+    @Value("${search.indexing.batch-size:500}")
+    private int batchSize;
+
+    private final ScheduledExecutorService indexingExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "search-index-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Map<String, ContentChangedEvent> pendingChanges = new ConcurrentHashMap<>();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean(false);
+    private final AtomicBoolean reindexRunning = new AtomicBoolean(false);
+
+    @EventListener
+    public void onContentChanged(ContentChangedEvent event) {
+        pendingChanges.put(pendingKey(event.getEntityType(), event.getEntityId()), event);
+        scheduleFlush(flushDelayMs);
+    }
+
+    /**
+     * Sau khi nhập từ điển hàng loạt, đánh chỉ mục lại toàn bộ loại thực thể đó thay vì từng thay đổi.
+     */
+    @EventListener
+    public void onDictionaryImported(DictionaryImportedEvent event) {
+        Class<?> entityClass = SearchIndex.TYPE_KANJI.equals(event.getEntityType()) ? KanjiEntry.class : VocabularyEntry.class;
+        indexingExecutor.execute(() -> {
+            try {
+                long indexed = reindex(entityClass, event.getEntityType());
+                logger.info("Đã đánh chỉ mục lại {} tài liệu {} sau khi nhập từ điển", indexed, event.getEntityType());
+            } catch (RuntimeException ex) {
+                logger.warn("Không thể đánh chỉ mục lại sau khi nhập từ điển: {}", ex.getMessage());
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        indexingExecutor.shutdownNow();
+    }
+
+    /**
+     * Đánh chỉ mục lại toàn bộ nội dung trong nền, dùng để nạp dữ liệu ban đầu hoặc sửa chỉ mục bị lệch.
+     * Tài liệu chỉ mục của các thực thể không còn tồn tại sẽ bị xóa.
+     * Chỉ ADMIN mới có thể thực hiện.
+     *
+     * @return MessageResponse xác nhận tác vụ đã được bắt đầu.
+     * @throws UnauthorizedException nếu người dùng không phải ADMIN.
+     * @throws ValidationException   nếu đang có một lần đánh chỉ mục lại khác chạy.
+     */
+    public MessageResponse reindexAll() {
+        if (!SecurityUtils.isAdmin()) {
+            throw new UnauthorizedException("Bạn không được phép đánh chỉ mục lại nội dung.");
+        }
+        if (!reindexRunning.compareAndSet(false, true)) {
+            throw new ValidationException("Đang có một lần đánh chỉ mục lại chưa hoàn tất.");
+        }
+        indexingExecutor.execute(() -> {
+            try {
+                long started = System.currentTimeMillis();
+                long indexed = reindex(KanjiEntry.class, SearchIndex.TYPE_KANJI)
+                        + reindex(VocabularyEntry.class, SearchIndex.TYPE_VOCABULARY)
+                        + reindex(Lesson.class, SearchIndex.TYPE_LESSON)
+                        + reindex(Course.class, SearchIndex.TYPE_COURSE);
+                logger.info("Đã đánh chỉ mục lại {} tài liệu trong {} ms", indexed, System.currentTimeMillis() - started);
+            } catch (RuntimeException ex) {
+                logger.warn("Không thể đánh chỉ mục lại nội dung: {}", ex.getMessage());
+            } finally {
+                reindexRunning.set(false);
+            }
+        });
+        return new MessageResponse("Đã bắt đầu đánh chỉ mục lại toàn bộ nội dung.");
+    }
+
+    private void scheduleFlush(long delayMs) {
+        if (flushScheduled.compareAndSet(false, true)) {
+            indexingExecutor.schedule(this::flush, delayMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Ghi các thay đổi đang chờ theo từng lô. Khi một lô bị lỗi, lô đó được đưa trở lại hàng chờ
+     * (trừ các thực thể đã có thay đổi mới hơn) và được thử lại sau.
+     */
+    private void flush() {
+        // Xóa cờ trước khi lấy thay đổi để các sự kiện đến trong lúc ghi sẽ lên lịch thêm một lượt
+        flushScheduled.set(false);
+        List<ContentChangedEvent> batch = new ArrayList<>(batchSize);
+        for (String key : pendingChanges.keySet()) {
+            ContentChangedEvent event = pendingChanges.remove(key);
+            if (event != null) {
+                batch.add(event);
+            }
+            if (batch.size() == batchSize) {
+                if (!writeBatch(batch)) {
+                    return;
+                }
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            writeBatch(batch);
+        }
+    }
+
+    private boolean writeBatch(List<ContentChangedEvent> batch) {
+        try {
+            BulkOperations bulkOps = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, SearchIndex.class);
+            LocalDateTime indexedAt = LocalDateTime.now();
+            int operations = 0;
+            for (ContentChangedEvent event : batch) {
+                Query query = entityQuery(event.getEntityType(), event.getEntityId());
+                if (event.getAction() == ContentChangedEvent.Action.DELETED) {
+                    bulkOps.remove(query);
+                    operations++;
+                    continue;
+                }
+                SearchIndex searchIndex = searchIndexMapper.fromEntity(event.getEntity());
+                if (searchIndex != null) {
+                    searchIndex.setIndexedAt(indexedAt);
+                    bulkOps.replaceOne(query, searchIndex, FindAndReplaceOptions.options().upsert());
+                    operations++;
+                }
+            }
+            if (operations > 0) {
+                bulkOps.execute();
+            }
+            return true;
+        } catch (RuntimeException ex) {
+            logger.warn("Không thể cập nhật chỉ mục tìm kiếm cho {} thay đổi, sẽ thử lại: {}", batch.size(), ex.getMessage());
+            batch.forEach(event -> pendingChanges.putIfAbsent(pendingKey(event.getEntityType(), event.getEntityId()), event));
+            scheduleFlush(RETRY_DELAY_MS);
+            return false;
+        }
+    }
+
+    /**
+     * Đánh chỉ mục lại một loại thực thể: đọc collection dạng stream (chỉ các trường SearchIndexMapper dùng),
+     * ghi bulk upsert theo từng khối, rồi xóa các tài liệu chỉ mục không được ghi trong lần này (thực thể đã bị xóa).
+     *
+     * @return Số tài liệu đã được ghi.
+     */
+    private <T> long reindex(Class<T> entityClass, String entityType) {
+        LocalDateTime startedAt = LocalDateTime.now();
+        long indexed = 0;
+        BulkOperations bulkOps = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, SearchIndex.class);
+        int pending = 0;
+        Query query = new Query();
+        query.fields().include(SearchIndexMapper.sourceFields(entityClass)); // Không nạp SVG thứ tự nét, module nhúng, ...
+        try (Stream<T> entities = mongoTemplate.stream(query, entityClass)) {
+            for (T entity : (Iterable<T>) entities::iterator) {
+                SearchIndex searchIndex = searchIndexMapper.fromEntity(entity);
+                searchIndex.setIndexedAt(LocalDateTime.now());
+                bulkOps.replaceOne(entityQuery(entityType, searchIndex.getEntityId()), searchIndex,
+                        FindAndReplaceOptions.options().upsert());
+                if (++pending == REINDEX_CHUNK_SIZE) {
+                    bulkOps.execute();
+                    indexed += pending;
+                    pending = 0;
+                    bulkOps = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, SearchIndex.class);
+                }
+            }
+        }
+        if (pending > 0) {
+            bulkOps.execute();
+            indexed += pending;
+        }
+        mongoTemplate.remove(Query.query(Criteria.where(ENTITY_TYPE_FIELD).is(entityType)
+                .orOperator(Criteria.where(INDEXED_AT_FIELD).lt(startedAt), Criteria.where(INDEXED_AT_FIELD).exists(false))),
+                SearchIndex.class);
+        logger.info("Đã đánh chỉ mục lại {} tài liệu loại {}", indexed, entityType);
+        return indexed;
+    }
+
+    private static Query entityQuery(String entityType, String entityId) {
+        return Query.query(Criteria.where(ENTITY_TYPE_FIELD).is(entityType).and(ENTITY_ID_FIELD).is(entityId));
+    }
+
+    private static String pendingKey(String entityType, String entityId) {
+        return entityType + ':' + entityId;
+    }
+}
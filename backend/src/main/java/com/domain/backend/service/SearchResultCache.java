@@ -0,0 +1,310 @@
+package com.domain.backend.service;
+
+import com.domain.backend.dto.response.CourseResponse;
+import com.domain.backend.dto.response.KanjiResponse;
+import com.domain.backend.dto.response.LessonResponse;
+import com.domain.backend.dto.response.SearchCacheStatsResponse;
+import com.domain.backend.dto.response.SearchResponse;
+import com.domain.backend.entity.SearchIndex;
+import com.domain.backend.entity.VocabularyEntry;
+import com.domain.backend.event.ContentChangedEvent;
+import com.domain.backend.event.DictionaryImportedEvent;
+import com.domain.backend.event.SearchIndexRebuiltEvent;
+import com.domain.backend.util.Deinflector;
+import com.domain.backend.util.JapaneseNormalizer;
+import com.domain.backend.util.JapaneseTextUtils;
+import com.domain.backend.util.SearchIndexMapper;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import jakarta.annotation.PostConstruct;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Cache kết quả tìm kiếm (trang đầu) theo khóa truy vấn đã chuẩn hóa, việc truy vấn gốc có chứa Hiragana hay không,
+ * và số kết quả.
+ * <p>
+ * Dung lượng được giới hạn theo số byte ước tính (kích thước JSON của phản hồi) và Caffeine chọn mục cần loại
+ * theo W-TinyLFU, phù hợp với lưu lượng tập trung vào vài trăm truy vấn phổ biến.
+ * <p>
+ * Khi một thực thể thay đổi, chỉ các mục bị ảnh hưởng bị loại: mục đang chứa chính thực thể đó, hoặc mục có
+ * truy vấn (hay dạng gốc của truy vấn đã chia, vì tìm kiếm bổ sung từ vựng của dạng gốc) là chuỗi con của văn bản
+ * của thực thể (nên thực thể mới có thể xuất hiện trong kết quả). Các mục được đánh chỉ mục ngược theo thực thể và
+ * theo khóa truy vấn; mỗi khóa truy vấn khác nhau đang được cache được tìm trong văn bản của thực thể bằng
+ * {@link String#contains}, nên một lần ghi không tạo chuỗi con nào và chi phí tỉ lệ với số khóa nhân độ dài văn bản
+ * thay vì số mục trong cache. Chỉ mục ngược được cập nhật khi Caffeine loại hoặc thay thế một mục. Vì chỉ mục trong
+ * bộ nhớ được dựng lại bất đồng bộ, các thay đổi được giữ lại và áp dụng lại một lần nữa khi snapshot chứa
+ * chúng được hoán đổi, để kết quả cũ được cache trong khoảng thời gian dựng lại không tồn tại sau đó.
+ */
+@Service
+public class SearchResultCache {
+
+    private static final int MAX_PENDING_CHANGES = 1000; // Vượt quá thì xóa toàn bộ cache thay vì theo dõi từng thay đổi
+
+    @Autowired
+    private JapaneseNormalizer japaneseNormalizer;
+
+    @Autowired
+    private SearchIndexMapper searchIndexMapper;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private Deinflector deinflector;
+
+    @Autowired
+    private JapaneseTextUtils japaneseTextUtils;
+
+    @Value("${search.cache.max-bytes:67108864}")
+    private long maxBytes;
+
+    private Cache<Key, Entry> cache;
+    private final Map<String, Set<Entry>> entriesByEntity = new ConcurrentHashMap<>();   // "TYPE:id" -> mục chứa thực thể
+    private final Map<String, Set<Entry>> entriesByQueryKey = new ConcurrentHashMap<>(); // Khóa truy vấn -> mục của truy vấn
+    private final Deque<PendingChange> pendingChanges = new ArrayDeque<>(); // Được bảo vệ bởi synchronized(pendingChanges)
+    private final AtomicLong invalidationCount = new AtomicLong();
+    private volatile long bulkChangeNanos; // Thời điểm nhập từ điển chưa được chỉ mục trong bộ nhớ phản ánh, 0 nếu không có
+
+    @PostConstruct
+    public void init() {
+        cache = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((Key key, Entry entry) -> entry.weight)
+                .executor(Runnable::run) // Gỡ chỉ mục ngược ngay khi mục bị loại
+                .removalListener((Key key, Entry entry, RemovalCause cause) -> {
+                    if (entry != null) {
+                        unindex(entry);
+                    }
+                })
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Lấy phản hồi đã cache. Phản hồi được dùng chung giữa các yêu cầu nên không được sửa đổi.
+     *
+     * @return Phản hồi đã cache, hoặc Optional rỗng nếu chưa có.
+     */
+    public Optional<SearchResponse> get(String queryText, int limit) {
+        Entry entry = cache.getIfPresent(keyOf(queryText, limit));
+        return entry == null ? Optional.empty() : Optional.of(entry.response);
+    }
+
+    /**
+     * Lưu phản hồi vào cache. Phản hồi không được sửa đổi sau khi lưu.
+     */
+    public void put(String queryText, int limit, SearchResponse response) {
+        Key key = keyOf(queryText, limit);
+        String normalizedQuery = key.normalizedQuery;
+        Set<String> queryKeys = new LinkedHashSet<>(japaneseNormalizer.queryKeys(queryText));
+        if (key.hiragana) {
+            for (Deinflector.Deinflection deinflection : deinflector.deinflect(queryText.trim())) {
+                String baseKey = japaneseNormalizer.normalize(deinflection.getTerm());
+                if (!baseKey.isEmpty()) {
+                    queryKeys.add(baseKey);
+                }
+            }
+        }
+        if (response.getSuggestedQuery() != null) {
+            queryKeys.addAll(japaneseNormalizer.queryKeys(response.getSuggestedQuery()));
+        }
+        Entry entry = new Entry(key, response, queryKeys, entityKeysOf(response), weigh(normalizedQuery, response));
+        index(entry); // Trước khi lưu, để một lần loại ngay sau đó gỡ được chỉ mục
+        cache.put(key, entry);
+    }
+
+    @EventListener
+    public void onContentChanged(ContentChangedEvent event) {
+        invalidate(event);
+        synchronized (pendingChanges) {
+            pendingChanges.addLast(new PendingChange(event, System.nanoTime()));
+            if (pendingChanges.size() > MAX_PENDING_CHANGES) {
+                pendingChanges.clear();
+                invalidationCount.addAndGet(cache.estimatedSize());
+                cache.invalidateAll();
+            }
+        }
+    }
+
+    /**
+     * Nhập từ điển thay đổi quá nhiều thực thể để theo dõi từng cái: xóa toàn bộ cache ngay và một lần nữa khi
+     * chỉ mục trong bộ nhớ chứa dữ liệu mới được hoán đổi.
+     */
+    @EventListener
+    public void onDictionaryImported(DictionaryImportedEvent event) {
+        bulkChangeNanos = System.nanoTime();
+        invalidateAll();
+    }
+
+    @EventListener
+    public void onSearchIndexRebuilt(SearchIndexRebuiltEvent event) {
+        long bulkChange = bulkChangeNanos;
+        if (bulkChange != 0 && bulkChange - event.getStartedAtNanos() < 0) {
+            bulkChangeNanos = 0;
+            invalidateAll();
+        }
+        List<ContentChangedEvent> applied = new ArrayList<>();
+        synchronized (pendingChanges) {
+            while (!pendingChanges.isEmpty() && pendingChanges.peekFirst().receivedAtNanos - event.getStartedAtNanos() < 0) {
+                applied.add(pendingChanges.pollFirst().event);
+            }
+        }
+        applied.forEach(this::invalidate);
+    }
+
+    private void invalidateAll() {
+        invalidationCount.addAndGet(cache.estimatedSize());
+        cache.invalidateAll();
+    }
+
+    /**
+     * Số liệu hiện tại của cache.
+     */
+    public SearchCacheStatsResponse stats() {
+        CacheStats stats = cache.stats();
+        long weightedSize = cache.policy().eviction().map(eviction -> eviction.weightedSize().orElse(0L)).orElse(0L);
+        return new SearchCacheStatsResponse(stats.hitCount(), stats.missCount(), stats.hitRate(), stats.evictionCount(),
+                invalidationCount.get(), cache.estimatedSize(), weightedSize, maxBytes);
+    }
+
+    private void invalidate(ContentChangedEvent event) {
+        String entityKey = entityKey(event.getEntityType(), event.getEntityId());
+        SearchIndex searchIndex = searchIndexMapper.fromEntity(event.getEntity());
+        List<String> fieldTexts = new ArrayList<>(SearchIndexMapper.FIELD_COUNT);
+        if (searchIndex != null) {
+            for (int field = 0; field < SearchIndexMapper.FIELD_COUNT; field++) {
+                fieldTexts.add(searchIndexMapper.getNormalizedFieldText(searchIndex, field));
+            }
+        }
+        Set<Entry> affected = new HashSet<>(entriesByEntity.getOrDefault(entityKey, Set.of()));
+        if (!fieldTexts.isEmpty()) {
+            // Mục có khóa truy vấn xuất hiện trong văn bản của thực thể: thực thể có thể vào (hoặc rời) kết quả
+            for (Map.Entry<String, Set<Entry>> byQueryKey : entriesByQueryKey.entrySet()) {
+                if (containsAny(fieldTexts, byQueryKey.getKey())) {
+                    affected.addAll(byQueryKey.getValue());
+                }
+            }
+        }
+        for (Entry entry : affected) {
+            if (cache.asMap().remove(entry.key, entry)) {
+                invalidationCount.incrementAndGet();
+            }
+        }
+    }
+
+    private static boolean containsAny(List<String> texts, String queryKey) {
+        for (String text : texts) {
+            if (text.contains(queryKey)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void index(Entry entry) {
+        entry.entityKeys.forEach(entityKey -> entriesByEntity.computeIfAbsent(entityKey, k -> ConcurrentHashMap.newKeySet()).add(entry));
+        for (String queryKey : entry.queryKeys) {
+            entriesByQueryKey.compute(queryKey, (k, entries) -> {
+                Set<Entry> updated = entries == null ? ConcurrentHashMap.newKeySet() : entries;
+                updated.add(entry); // Trong compute để không thêm vào một tập vừa bị unindex gỡ khỏi map
+                return updated;
+            });
+        }
+    }
+
+    private void unindex(Entry entry) {
+        entry.entityKeys.forEach(entityKey -> entriesByEntity.computeIfPresent(entityKey, (k, entries) -> {
+            entries.remove(entry);
+            return entries.isEmpty() ? null : entries;
+        }));
+        for (String queryKey : entry.queryKeys) {
+            entriesByQueryKey.computeIfPresent(queryKey, (k, entries) -> {
+                entries.remove(entry);
+                return entries.isEmpty() ? null : entries;
+            });
+        }
+    }
+
+    private static Set<String> entityKeysOf(SearchResponse response) {
+        Set<String> keys = new HashSet<>();
+        addEntityKeys(keys, SearchIndex.TYPE_KANJI, response.getKanjiResults(), KanjiResponse::getId);
+        addEntityKeys(keys, SearchIndex.TYPE_VOCABULARY, response.getVocabularyResults(), VocabularyEntry::getId);
+        addEntityKeys(keys, SearchIndex.TYPE_LESSON, response.getLessonResults(), LessonResponse::getId);
+        addEntityKeys(keys, SearchIndex.TYPE_COURSE, response.getCourseResults(), CourseResponse::getId);
+        return keys;
+    }
+
+    private static <T> void addEntityKeys(Set<String> keys, String entityType, List<T> results, Function<T, String> idGetter) {
+        if (results != null) {
+            results.forEach(result -> keys.add(entityKey(entityType, idGetter.apply(result))));
+        }
+    }
+
+    private static String entityKey(String entityType, String entityId) {
+        return entityType + ':' + entityId;
+    }
+
+    /**
+     * Ước tính kích thước một mục bằng kích thước JSON của phản hồi cộng với khóa.
+     */
+    private int weigh(String normalizedQuery, SearchResponse response) {
+        try {
+            return objectMapper.writeValueAsBytes(response).length + 2 * normalizedQuery.length();
+        } catch (JsonProcessingException ex) {
+            return Integer.MAX_VALUE; // Không ước tính được thì để Caffeine loại ngay
+        }
+    }
+
+    /**
+     * Khóa cache của một truy vấn. "たべた" và "tabeta" có cùng khóa chuẩn nhưng chỉ truy vấn chứa Hiragana được bổ sung
+     * từ vựng của dạng gốc (xem SearchService), nên hai truy vấn không được dùng chung một mục.
+     */
+    private Key keyOf(String queryText, int limit) {
+        return new Key(japaneseNormalizer.normalize(queryText), japaneseTextUtils.containsHiragana(queryText), limit);
+    }
+
+    @EqualsAndHashCode
+    @AllArgsConstructor
+    private static final class Key {
+        private final String normalizedQuery;
+        private final boolean hiragana; // Truy vấn gốc chứa Hiragana (kết quả có thể gồm dạng gốc của từ đã chia)
+        private final int limit;
+    }
+
+    @AllArgsConstructor
+    private static final class Entry {
+        private final Key key;
+        private final SearchResponse response;
+        private final Set<String> queryKeys;   // Khóa chuẩn của truy vấn, dạng gốc của nó và của truy vấn đã sửa lỗi chính tả (nếu có)
+        private final Set<String> entityKeys;           // "TYPE:id" của mọi thực thể trong phản hồi
+        private final int weight;
+    }
+
+    @AllArgsConstructor
+    private static final class PendingChange {
+        private final ContentChangedEvent event;
+        private final long receivedAtNanos;
+    }
+}
@@ -1,28 +1,58 @@
 package com.domain.backend.service;
 
+import com.domain.backend.dto.request.HandwritingSearchRequest;
 import com.domain.backend.dto.request.SearchRequest;
 import com.domain.backend.dto.response.*;
 import com.domain.backend.entity.*;
+import com.domain.backend.exception.UnauthorizedException;
 import com.domain.backend.exception.ValidationException;
 import com.domain.backend.repository.CourseRepository;
 import com.domain.backend.repository.KanjiEntryRepository;
 import com.domain.backend.repository.LessonRepository;
 import com.domain.backend.repository.VocabularyEntryRepository;
+import com.domain.backend.security.SecurityUtils;
 import com.domain.backend.util.JapaneseTextUtils;
+import com.domain.backend.util.KanjiUtils;
 import com.domain.backend.util.SearchUtils;
 import org.springframework.beans.BeanUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.data.mongodb.core.BulkOperations;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service // Đánh dấu lớp này là một Spring Service
 public class SearchService {
 
+    private static final Logger logger = LoggerFactory.getLogger(SearchService.class);
+
+    private static final int SEARCH_KEYS_CHUNK_SIZE = 1000; // Số tài liệu cập nhật trong mỗi lượt bulk
+
     @Autowired
     private KanjiEntryRepository kanjiEntryRepository;
 
@@ -36,15 +66,51 @@ public class SearchService {
     private CourseRepository courseRepository;
 
     @Autowired
-    private JapaneseTextUtils japaneseTextUtils;
+    private SearchUtils searchUtils;
 
     @Autowired
-    private SearchUtils searchUtils;
+    private KanjiUtils kanjiUtils; // URL của SVG thứ tự nét
 
     @Autowired
     private MongoTemplate mongoTemplate; // Để truy vấn phức tạp hơn
 
-    // Đã xóa các @Value cho Google Cloud Vision API key và URL
+    @Autowired
+    private SearchIndexEngine searchIndexEngine; // Chỉ mục đảo ngược trong bộ nhớ
+
+    @Autowired
+    private SearchResultCache searchResultCache;
+
+    @Autowired
+    private NgramIndexService ngramIndexService; // Chỉ mục n-gram cho chuỗi con Kana/Kanji của từ vựng
+
+    @Autowired
+    private DictionarySnapshotService dictionarySnapshotService; // Nạp Kanji/từ vựng của kết quả từ bộ nhớ
+
+    @Autowired
+    private HandwritingRecognitionService handwritingRecognitionService; // Nhận dạng chữ viết tay cục bộ
+
+    @Autowired
+    private JapaneseTextService japaneseTextService; // Tra cứu dạng gốc của động từ/tính từ đã chia
+
+    @Autowired
+    private JapaneseTextUtils japaneseTextUtils;
+
+    @Autowired
+    @Qualifier("searchExecutor")
+    private AsyncTaskExecutor searchExecutor; // Truy vấn song song các nguồn tìm kiếm
+
+    // Ngân sách thời gian cho từng nguồn, tính từ lúc bắt đầu tìm kiếm
+    @Value("${search.timeout.kanji-ms:500}")
+    private long kanjiTimeoutMs;
+
+    @Value("${search.timeout.vocabulary-ms:500}")
+    private long vocabularyTimeoutMs;
+
+    @Value("${search.timeout.lesson-ms:800}")
+    private long lessonTimeoutMs;
+
+    @Value("${search.timeout.course-ms:800}")
+    private long courseTimeoutMs;
 
     /**
      * Chuyển đổi KanjiEntry entity sang KanjiResponse DTO.
@@ -55,6 +121,7 @@ public class SearchService {
     private KanjiResponse convertToKanjiResponse(KanjiEntry kanjiEntry) {
         KanjiResponse response = new KanjiResponse();
         BeanUtils.copyProperties(kanjiEntry, response);
+        response.setStrokeOrderSvgUrl(kanjiUtils.strokeOrderSvgUrl(kanjiEntry.getStrokeOrderSvgHash()));
         return response;
     }
 
@@ -71,30 +138,16 @@ public class SearchService {
     }
 
     /**
-     * Chuyển đổi Course entity sang CourseResponse DTO.
+     * Chuyển đổi Course entity sang CourseResponse DTO dạng tóm tắt cho kết quả tìm kiếm.
+     * Danh sách module không được nạp nên modules luôn là null; client lấy chi tiết qua /api/courses/{id}.
      *
-     * @param course Entity Course.
-     * @return CourseResponse DTO.
+     * @param course Entity Course (đã bỏ qua courseModules khi truy vấn).
+     * @return CourseResponse DTO không có modules.
      */
-    private CourseResponse convertToCourseResponse(Course course) {
+    private CourseResponse convertToCourseSummary(Course course) {
         CourseResponse response = new CourseResponse();
         BeanUtils.copyProperties(course, response);
-
-        if (course.getCourseModules() != null) {
-            List<ModuleResponse> moduleResponses = course.getCourseModules().stream()
-                    .map(this::convertToModuleResponse)
-                    .collect(Collectors.toList());
-            response.setModules(moduleResponses);
-        } else {
-            response.setModules(List.of());
-        }
-
-        return response;
-    }
-
-    private ModuleResponse convertToModuleResponse(CourseModule courseModule) {
-        ModuleResponse response = new ModuleResponse();
-        BeanUtils.copyProperties(courseModule, response);
+        response.setModules(null);
         return response;
     }
 
@@ -107,74 +160,391 @@ public class SearchService {
      */
     public SearchResponse searchText(SearchRequest searchRequest) {
         String queryText = searchRequest.getQuery();
-        String scriptType = searchRequest.getScriptType();
 
         if (queryText == null || queryText.trim().isEmpty()) {
             throw new ValidationException("Truy vấn tìm kiếm không được để trống.");
         }
 
-        // Tạo tiêu chí tìm kiếm đa script
-        Criteria searchCriteria = searchUtils.buildMultiScriptSearchCriteria(queryText, scriptType, japaneseTextUtils);
+        // Trang đầu của các truy vấn phổ biến được phục vụ từ cache
+        int limit = searchRequest.getLimit();
+        String cursor = searchRequest.getCursor() == null || searchRequest.getCursor().isBlank() ? null : searchRequest.getCursor();
+        boolean cacheable = cursor == null;
+        if (cacheable) {
+            Optional<SearchResponse> cached = searchResultCache.get(queryText, limit);
+            if (cached.isPresent()) {
+                return copyForQuery(cached.get(), queryText);
+            }
+        }
+
+        SearchResponse response = search(queryText, limit, cursor);
+        if (cacheable && !response.isPartial() && !isEmpty(response)) {
+            searchResultCache.put(queryText, limit, response);
+            return copyForQuery(response, queryText);
+        }
+        return response;
+    }
+
+    /**
+     * Tìm kiếm không qua cache: chỉ mục trong bộ nhớ (hoặc regex khi chỉ mục chưa sẵn sàng),
+     * rồi thử truy vấn đã sửa lỗi chính tả nếu trang đầu không có kết quả.
+     */
+    private SearchResponse search(String queryText, int limit, String cursor) {
+        // Ưu tiên chỉ mục trong bộ nhớ; chỉ quét bằng regex khi chỉ mục chưa được dựng xong.
+        // Quét regex chỉ trả về trang đầu, nên yêu cầu trang tiếp theo nhận trang rỗng thay vì lặp lại trang đầu.
+        SearchResponse response = searchIndexEngine.search(queryText, limit, cursor)
+                .map(this::hydratePage)
+                .orElseGet(() -> cursor == null ? searchWithRegex(queryText, limit) : emptyPage());
+        response.setQuery(queryText);
+        response.setMessage(response.isPartial()
+                ? "Tìm kiếm hoàn tất một phần. Bỏ qua: " + String.join(", ", response.getSkippedSources())
+                : "Tìm kiếm hoàn tất.");
+
+        // Dạng đã chia (食べた, 高くない) không khớp từ vựng nào vì từ điển chỉ lưu dạng gốc: bổ sung entry của dạng gốc
+        if (!response.isPartial() && cursor == null && response.getVocabularyResults().isEmpty()
+                && japaneseTextUtils.containsHiragana(queryText)) {
+            addDeinflectedVocabulary(response, queryText.trim());
+        }
+
+        // Không có kết quả: thử sửa lỗi chính tả Romaji/tiếng Anh và tìm lại với truy vấn đã sửa ("có phải bạn muốn tìm")
+        if (!response.isPartial() && cursor == null && isEmpty(response)) {
+            Optional<SearchResponse> corrected = searchIndexEngine.suggestCorrection(queryText)
+                    .flatMap(suggestedQuery -> searchIndexEngine.search(suggestedQuery, limit, null)
+                            .map(this::hydratePage)
+                            .filter(page -> !isEmpty(page))
+                            .map(page -> {
+                                page.setQuery(queryText);
+                                page.setSuggestedQuery(suggestedQuery);
+                                page.setMessage(correctionMessage(queryText, suggestedQuery));
+                                return page;
+                            }));
+            if (corrected.isPresent()) {
+                return corrected.get();
+            }
+        }
+
+        return response;
+    }
+
+    /**
+     * Thêm các entry từ vựng của dạng gốc của truy vấn (xem {@link JapaneseTextService#lookupInflectedWord}) vào đầu
+     * kết quả: một entry khớp chính xác dạng gốc phù hợp hơn mọi kết quả chuỗi con của truy vấn.
+     */
+    private void addDeinflectedVocabulary(SearchResponse response, String queryText) {
+        List<DeinflectionResponse> matches = japaneseTextService.lookupInflectedWord(queryText);
+        if (matches.isEmpty()) {
+            return;
+        }
+        List<SearchHitResponse> results = response.getResults();
+        float score = results == null || results.isEmpty() ? 1.0f : results.get(0).getScore();
+        List<VocabularyEntry> vocabulary = new ArrayList<>(matches.size());
+        List<SearchHitResponse> hits = new ArrayList<>();
+        for (DeinflectionResponse match : matches) {
+            vocabulary.add(match.getEntry());
+            hits.add(new SearchHitResponse(SearchIndex.TYPE_VOCABULARY, match.getEntry().getId(), score));
+        }
+        response.setVocabularyResults(vocabulary);
+        if (results != null) {
+            hits.addAll(results);
+            response.setResults(hits);
+        }
+        if (response.getTotalHits() != null) {
+            response.setTotalHits(response.getTotalHits() + matches.size());
+        }
+        response.setMessage(response.getMessage() + " Bao gồm kết quả cho dạng từ điển \"" + matches.get(0).getTerm() + "\".");
+    }
+
+    /**
+     * Tạo bản sao (nông) của phản hồi đã cache cho một truy vấn cụ thể, vì nhiều cách viết
+     * của cùng một truy vấn dùng chung một mục cache.
+     */
+    private SearchResponse copyForQuery(SearchResponse cached, String queryText) {
+        SearchResponse response = new SearchResponse();
+        BeanUtils.copyProperties(cached, response);
+        response.setQuery(queryText);
+        if (cached.getSuggestedQuery() != null) {
+            response.setMessage(correctionMessage(queryText, cached.getSuggestedQuery()));
+        }
+        return response;
+    }
+
+    private static String correctionMessage(String queryText, String suggestedQuery) {
+        return "Không tìm thấy kết quả cho \"" + queryText + "\". Hiển thị kết quả cho \"" + suggestedQuery + "\".";
+    }
+
+    /**
+     * Kiểm tra một phản hồi tìm kiếm không có kết quả nào ở cả bốn nguồn.
+     */
+    private boolean isEmpty(SearchResponse response) {
+        return response.getKanjiResults().isEmpty() && response.getVocabularyResults().isEmpty()
+                && response.getLessonResults().isEmpty() && response.getCourseResults().isEmpty();
+    }
+
+    /**
+     * Lấy dữ liệu đầy đủ cho một trang kết quả của chỉ mục, giữ nguyên thứ tự xếp hạng.
+     * Kanji và từ vựng được lấy từ snapshot từ điển trong bộ nhớ, bài học và khóa học từ MongoDB.
+     * Bốn nguồn được nạp song song.
+     *
+     * @param page Trang kết quả đã xếp hạng từ SearchIndexEngine.
+     * @return SearchResponse chứa kết quả đã nạp.
+     */
+    private SearchResponse hydratePage(SearchIndexEngine.SearchPage page) {
+        Map<String, List<String>> idsByType = new LinkedHashMap<>();
+        for (SearchIndexEngine.Hit hit : page.getHits()) {
+            idsByType.computeIfAbsent(hit.getEntityType(), type -> new ArrayList<>()).add(hit.getEntityId());
+        }
+
+        SearchResponse response = fanOut(
+                () -> findInOrder(dictionarySnapshotService::findKanjiByIds, KanjiEntry::getId,
+                        idsByType.get(SearchIndex.TYPE_KANJI)).stream()
+                        .map(this::convertToKanjiResponse)
+                        .collect(Collectors.toList()),
+                () -> findInOrder(dictionarySnapshotService::findVocabularyByIds, VocabularyEntry::getId,
+                        idsByType.get(SearchIndex.TYPE_VOCABULARY)),
+                () -> findInOrder(lessonRepository::findAllById, Lesson::getId,
+                        idsByType.get(SearchIndex.TYPE_LESSON)).stream()
+                        .map(this::convertToLessonResponse)
+                        .collect(Collectors.toList()),
+                () -> findInOrder(this::findCourseSummariesById, Course::getId,
+                        idsByType.get(SearchIndex.TYPE_COURSE)).stream()
+                        .map(this::convertToCourseSummary)
+                        .collect(Collectors.toList()));
+        response.setResults(page.getHits().stream()
+                .map(hit -> new SearchHitResponse(hit.getEntityType(), hit.getEntityId(), hit.getScore()))
+                .collect(Collectors.toList()));
+        response.setTotalHits(page.getTotalHits());
+        response.setNextCursor(page.getNextCursor());
+        return response;
+    }
 
-        // Tìm kiếm trong KanjiEntry
-        Query kanjiQuery = new Query(searchCriteria);
-        List<KanjiEntry> kanjiResults = mongoTemplate.find(kanjiQuery, KanjiEntry.class);
+    /**
+     * Nạp các khóa học theo ID nhưng bỏ qua danh sách module, vốn không cần cho kết quả tìm kiếm.
+     */
+    private List<Course> findCourseSummariesById(List<String> ids) {
+        Query query = new Query(Criteria.where("_id").in(ids));
+        query.fields().exclude("courseModules");
+        return mongoTemplate.find(query, Course.class);
+    }
 
-        // Tìm kiếm trong VocabularyEntry (sử dụng cùng tiêu chí)
-        Query vocabQuery = new Query(searchCriteria);
-        List<VocabularyEntry> vocabularyResults = mongoTemplate.find(vocabQuery, VocabularyEntry.class);
+    /**
+     * Nạp các thực thể theo danh sách ID bằng một truy vấn $in duy nhất và sắp xếp lại theo thứ tự của danh sách.
+     * Các ID không còn tồn tại (thực thể đã bị xóa sau lần dựng chỉ mục gần nhất) được bỏ qua.
+     */
+    private <T> List<T> findInOrder(Function<List<String>, List<T>> finder, Function<T, String> idGetter, List<String> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<String, T> byId = finder.apply(ids).stream()
+                .collect(Collectors.toMap(idGetter, Function.identity()));
+        return ids.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
 
-        // Tìm kiếm trong Lesson (ví dụ: theo tiêu đề hoặc nội dung)
-        // Đây là một cách tiếp cận đơn giản; trong thực tế, bạn có thể muốn sử dụng SearchIndex
-        // hoặc một thư viện tìm kiếm toàn văn như Elasticsearch.
+    /**
+     * Tìm kiếm bằng cách quét các collection với regex.
+     * Chỉ được dùng khi chỉ mục trong bộ nhớ chưa sẵn sàng (ví dụ: ngay sau khi khởi động).
+     * Mỗi truy vấn được giới hạn thời gian phía MongoDB bằng đúng ngân sách của nguồn tương ứng.
+     *
+     * @param queryText  Văn bản truy vấn.
+     * @param limit      Số kết quả tối đa cho mỗi nguồn.
+     * @return SearchResponse chứa kết quả tìm kiếm.
+     */
+    private SearchResponse searchWithRegex(String queryText, int limit) {
+        // Một điều kiện duy nhất trên khóa chuẩn thay cho mọi biến thể script
+        Criteria searchCriteria = searchUtils.buildSearchKeyCriteria(queryText);
+
+        // Tìm kiếm trong Lesson (theo tiêu đề hoặc nội dung) và Course (theo tiêu đề hoặc mô tả)
         Query lessonQuery = new Query(new Criteria().orOperator(
                 Criteria.where("title").regex(queryText, "i"),
                 Criteria.where("content").regex(queryText, "i")
-        ));
-        List<Lesson> rawLessonResults = mongoTemplate.find(lessonQuery, Lesson.class);
-        List<LessonResponse> lessonResponses = rawLessonResults.stream()
-                .map(this::convertToLessonResponse)
-                .collect(Collectors.toList());
-
-        // Tìm kiếm trong Course (ví dụ: theo tiêu đề hoặc mô tả)
+        )).limit(limit).maxTime(Duration.ofMillis(lessonTimeoutMs));
         Query courseQuery = new Query(new Criteria().orOperator(
                 Criteria.where("title").regex(queryText, "i"),
                 Criteria.where("description").regex(queryText, "i")
-        ));
-        List<Course> rawCourseResults = mongoTemplate.find(courseQuery, Course.class);
-        List<CourseResponse> courseResponses = rawCourseResults.stream()
-                .map(this::convertToCourseResponse)
-                .collect(Collectors.toList());
+        )).limit(limit).maxTime(Duration.ofMillis(courseTimeoutMs));
+        courseQuery.fields().exclude("courseModules");
+        Query kanjiQuery = new Query(searchCriteria).limit(limit).maxTime(Duration.ofMillis(kanjiTimeoutMs));
+        kanjiQuery.fields().exclude(KanjiUtils.STROKE_ORDER_SVG_FIELD);
 
+        return fanOut(
+                () -> mongoTemplate.find(kanjiQuery, KanjiEntry.class).stream()
+                        .map(this::convertToKanjiResponse)
+                        .collect(Collectors.toList()),
+                // Truy vấn Kana/Kanji dùng chỉ mục n-gram, còn lại dùng cùng tiêu chí
+                () -> ngramIndexService.searchVocabulary(queryText.trim(), limit)
+                        .orElseGet(() -> mongoTemplate.find(new Query(searchCriteria).limit(limit).maxTime(Duration.ofMillis(vocabularyTimeoutMs)), VocabularyEntry.class)),
+                () -> mongoTemplate.find(lessonQuery, Lesson.class).stream()
+                        .map(this::convertToLessonResponse)
+                        .collect(Collectors.toList()),
+                () -> mongoTemplate.find(courseQuery, Course.class).stream()
+                        .map(this::convertToCourseSummary)
+                        .collect(Collectors.toList()));
+    }
 
+    /**
+     * Trang rỗng không có con trỏ tiếp theo, trả về khi không thể tiếp tục phân trang.
+     */
+    private SearchResponse emptyPage() {
         SearchResponse response = new SearchResponse();
-        response.setQuery(queryText);
-        response.setKanjiResults(kanjiResults.stream().map(this::convertToKanjiResponse).collect(Collectors.toList()));
-        response.setVocabularyResults(vocabularyResults); // VocabularyEntry đã là DTO đủ tốt
-        response.setLessonResults(lessonResponses);
-        response.setCourseResults(courseResponses);
-        response.setMessage("Tìm kiếm hoàn tất.");
-
-        // Thêm dữ liệu giả lập nếu không có kết quả để minh họa
-        if (kanjiResults.isEmpty() && vocabularyResults.isEmpty() && lessonResponses.isEmpty() && courseResponses.isEmpty()) {
-            if (queryText.contains("日本")) {
-                KanjiEntry mockKanji = new KanjiEntry();
-                mockKanji.setKanjiCharacter("日本");
-                mockKanji.setMeaning("Japan");
-                mockKanji.setFurigana("にほん");
-                response.getKanjiResults().add(convertToKanjiResponse(mockKanji));
-            } else {
-                VocabularyEntry mockVocab = new VocabularyEntry();
-                mockVocab.setJapaneseWord("こんにちは");
-                mockVocab.setMeaning("Hello");
-                mockVocab.setFurigana("こんにちわ");
-                response.getVocabularyResults().add(mockVocab);
+        response.setKanjiResults(new ArrayList<>());
+        response.setVocabularyResults(new ArrayList<>());
+        response.setLessonResults(new ArrayList<>());
+        response.setCourseResults(new ArrayList<>());
+        response.setSkippedSources(new ArrayList<>());
+        return response;
+    }
+
+    /**
+     * Truy vấn bốn nguồn dữ liệu đồng thời, mỗi nguồn có hạn chót riêng tính từ lúc bắt đầu.
+     * Nguồn nào bị từ chối (executor quá tải), lỗi hoặc trễ hạn sẽ bị bỏ qua và được ghi vào skippedSources của phản hồi.
+     */
+    private SearchResponse fanOut(Supplier<List<KanjiResponse>> kanjiSource,
+                                  Supplier<List<VocabularyEntry>> vocabularySource,
+                                  Supplier<List<LessonResponse>> lessonSource,
+                                  Supplier<List<CourseResponse>> courseSource) {
+        long startNanos = System.nanoTime();
+        Future<List<KanjiResponse>> kanjiFuture = submit(SearchIndex.TYPE_KANJI, kanjiSource);
+        Future<List<VocabularyEntry>> vocabularyFuture = submit(SearchIndex.TYPE_VOCABULARY, vocabularySource);
+        Future<List<LessonResponse>> lessonFuture = submit(SearchIndex.TYPE_LESSON, lessonSource);
+        Future<List<CourseResponse>> courseFuture = submit(SearchIndex.TYPE_COURSE, courseSource);
+
+        List<String> skippedSources = new ArrayList<>();
+        SearchResponse response = new SearchResponse();
+        response.setKanjiResults(await(SearchIndex.TYPE_KANJI, kanjiFuture, startNanos, kanjiTimeoutMs, skippedSources));
+        response.setVocabularyResults(await(SearchIndex.TYPE_VOCABULARY, vocabularyFuture, startNanos, vocabularyTimeoutMs, skippedSources));
+        response.setLessonResults(await(SearchIndex.TYPE_LESSON, lessonFuture, startNanos, lessonTimeoutMs, skippedSources));
+        response.setCourseResults(await(SearchIndex.TYPE_COURSE, courseFuture, startNanos, courseTimeoutMs, skippedSources));
+        response.setPartial(!skippedSources.isEmpty());
+        response.setSkippedSources(skippedSources);
+        return response;
+    }
+
+    /**
+     * Gửi một nguồn vào searchExecutor. Trả về null nếu executor đang quá tải và từ chối tác vụ.
+     * Future của executor (không phải CompletableFuture) được giữ lại để cancel(true) ngắt được luồng đang truy vấn.
+     */
+    private <T> Future<List<T>> submit(String sourceName, Supplier<List<T>> source) {
+        try {
+            return searchExecutor.submit(source::get);
+        } catch (RejectedExecutionException ex) {
+            logger.warn("Executor tìm kiếm quá tải, bỏ qua nguồn {}.", sourceName);
+            return null;
+        }
+    }
+
+    private <T> List<T> await(String sourceName, Future<List<T>> future, long startNanos, long timeoutMs,
+                              List<String> skippedSources) {
+        if (future == null) {
+            skippedSources.add(sourceName);
+            return new ArrayList<>();
+        }
+        long remainingNanos = startNanos + TimeUnit.MILLISECONDS.toNanos(timeoutMs) - System.nanoTime();
+        try {
+            return future.get(Math.max(0, remainingNanos), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException ex) {
+            future.cancel(true);
+            logger.warn("Nguồn tìm kiếm {} vượt quá hạn chót {} ms, bỏ qua.", sourceName, timeoutMs);
+        } catch (ExecutionException ex) {
+            logger.warn("Nguồn tìm kiếm {} gặp lỗi, bỏ qua: {}", sourceName, ex.getCause().getMessage());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        skippedSources.add(sourceName);
+        return new ArrayList<>();
+    }
+
+    /**
+     * Tính lại các trường tìm kiếm dẫn xuất (searchKeys; thêm readings và meaningTerms với Kanji) cho toàn bộ
+     * Kanji và từ vựng (dữ liệu có sẵn trước khi có các trường này, hoặc sau khi quy tắc chuẩn hóa thay đổi).
+     * Các lần lưu thông thường tự cập nhật các trường này.
+     * Chỉ ADMIN mới có thể thực hiện.
+     *
+     * @return MessageResponse với số tài liệu đã được cập nhật.
+     * @throws UnauthorizedException nếu người dùng không được phép.
+     */
+    public MessageResponse rebuildSearchKeys() {
+        if (!SecurityUtils.isAdmin()) {
+            throw new UnauthorizedException("Bạn không được phép dựng lại khóa tìm kiếm.");
+        }
+        long updated = rebuildSearchKeys(KanjiEntry.class, KanjiEntry::getId, entry -> new Update()
+                        .set(SearchUtils.SEARCH_KEYS_FIELD, searchUtils.searchKeysOf(entry))
+                        .set(SearchUtils.READINGS_FIELD, searchUtils.readingsOf(entry))
+                        .set(SearchUtils.MEANING_TERMS_FIELD, searchUtils.meaningTermsOf(entry)))
+                + rebuildSearchKeys(VocabularyEntry.class, VocabularyEntry::getId, entry -> new Update()
+                        .set(SearchUtils.SEARCH_KEYS_FIELD, searchUtils.searchKeysOf(entry)));
+        return new MessageResponse("Đã cập nhật khóa tìm kiếm cho " + updated + " tài liệu.");
+    }
+
+    private <T> long rebuildSearchKeys(Class<T> entityClass, Function<T, String> idGetter, Function<T, Update> updateOf) {
+        long updated = 0;
+        BulkOperations bulkOps = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, entityClass);
+        int pending = 0;
+        try (Stream<T> entities = mongoTemplate.stream(new Query(), entityClass)) {
+            for (T entity : (Iterable<T>) entities::iterator) {
+                bulkOps.updateOne(Query.query(Criteria.where("_id").is(idGetter.apply(entity))), updateOf.apply(entity));
+                if (++pending == SEARCH_KEYS_CHUNK_SIZE) {
+                    bulkOps.execute();
+                    updated += pending;
+                    pending = 0;
+                    bulkOps = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, entityClass);
+                }
             }
-            response.setMessage("Tìm kiếm hoàn tất. (Dữ liệu giả lập)");
         }
+        if (pending > 0) {
+            bulkOps.execute();
+            updated += pending;
+        }
+        return updated;
+    }
 
-        return response;
+    /**
+     * Lấy số liệu của cache kết quả tìm kiếm (trúng/trượt/bị loại, kích thước).
+     * Chỉ ADMIN mới có thể xem.
+     *
+     * @return SearchCacheStatsResponse chứa số liệu hiện tại.
+     * @throws UnauthorizedException nếu người dùng không phải ADMIN.
+     */
+    public SearchCacheStatsResponse getCacheStats() {
+        if (!SecurityUtils.isAdmin()) {
+            throw new UnauthorizedException("Bạn không được phép xem số liệu cache tìm kiếm.");
+        }
+        return searchResultCache.stats();
     }
 
-    // Đã xóa phương thức searchHandwriting và parseRecognizedTextFromVisionApiResponse
+    /**
+     * Tìm Kanji từ ký tự viết tay bằng bộ nhận dạng cục bộ.
+     *
+     * @param request Yêu cầu chứa ảnh Base64 của ký tự đã vẽ, số nét (tùy chọn) và số ứng viên tối đa.
+     * @return SearchResponse với các Kanji ứng viên theo độ tương tự giảm dần; recognizedText là ứng viên tốt nhất.
+     * @throws ValidationException     nếu ảnh không hợp lệ hoặc không có nét vẽ nào.
+     * @throws ResponseStatusException 503 nếu chỉ mục nhận dạng chưa sẵn sàng hoặc hệ thống nhận dạng quá tải.
+     */
+    public SearchResponse searchHandwriting(HandwritingSearchRequest request) {
+        List<HandwritingRecognitionService.Candidate> candidates = handwritingRecognitionService.recognize(
+                request.getImageDataBase64(), request.getStrokeCount(), request.getLimit());
+
+        List<KanjiResponse> kanjiResults = findInOrder(dictionarySnapshotService::findKanjiByIds, KanjiEntry::getId,
+                candidates.stream().map(HandwritingRecognitionService.Candidate::getKanjiId).collect(Collectors.toList()))
+                .stream()
+                .map(this::convertToKanjiResponse)
+                .collect(Collectors.toList());
+        List<SearchHitResponse> hits = candidates.stream()
+                .map(candidate -> new SearchHitResponse(SearchIndex.TYPE_KANJI, candidate.getKanjiId(), candidate.getScore()))
+                .collect(Collectors.toList());
+
+        SearchResponse response = new SearchResponse();
+        response.setRecognizedText(candidates.isEmpty() ? null : candidates.get(0).getKanjiCharacter());
+        response.setKanjiResults(kanjiResults);
+        response.setVocabularyResults(new ArrayList<>());
+        response.setLessonResults(new ArrayList<>());
+        response.setCourseResults(new ArrayList<>());
+        response.setResults(hits);
+        response.setTotalHits(hits.size());
+        response.setSkippedSources(new ArrayList<>());
+        response.setMessage(candidates.isEmpty()
+                ? "Không nhận dạng được ký tự nào."
+                : "Đã nhận dạng " + candidates.size() + " ký tự ứng viên.");
+        return response;
+    }
 }
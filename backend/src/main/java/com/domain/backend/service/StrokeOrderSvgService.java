@@ -0,0 +1,408 @@
+package com.domain.backend.service;
+
+import com.domain.backend.entity.KanjiEntry;
+import com.domain.backend.entity.SearchIndex;
+import com.domain.backend.event.ContentChangedEvent;
+import com.domain.backend.event.DictionaryImportedEvent;
+import com.domain.backend.util.IncrementalSnapshot;
+import com.domain.backend.util.KanjiUtils;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Phục vụ SVG thứ tự nét của Kanji theo địa chỉ nội dung (SHA-256 của SVG, xem {@link KanjiUtils#strokeOrderSvgHash}).
+ * <p>
+ * Mọi SVG khác nhau được nén gzip sẵn và ghi liền nhau vào một tệp blob, rồi tệp được ánh xạ vào bộ nhớ
+ * (memory-mapped) chỉ đọc. Mỗi yêu cầu chỉ là một lần tra bảng băm và ghi thẳng một lát của vùng ánh xạ ra phản hồi:
+ * không truy vấn MongoDB, không nén lại và không sao chép vào heap. Blob được dựng lại toàn bộ trong nền khi khởi động
+ * và sau khi nhập Kanji. Khi một Kanji được lưu, chỉ SVG của nó được nén (nếu địa chỉ chưa có) và giữ trong một lớp
+ * phủ trên heap; blob chỉ được dựng lại khi lớp phủ vượt quá {@value #MAX_OVERLAY_BYTES} byte. Địa chỉ không có
+ * trong cả hai (ví dụ dữ liệu được ghi thẳng vào MongoDB) được đọc từ MongoDB.
+ * <p>
+ * Lần dựng blob cũng bổ sung địa chỉ nội dung cho các Kanji được lưu trước khi có trường strokeOrderSvgHash; khi có
+ * Kanji được bổ sung, snapshot từ điển (nguồn của strokeOrderSvgUrl trong phản hồi Kanji) được nạp lại.
+ */
+@Service
+public class StrokeOrderSvgService {
+
+    private static final Logger logger = LoggerFactory.getLogger(StrokeOrderSvgService.class);
+
+    private static final Pattern HASH_PATTERN = Pattern.compile("[0-9a-f]{64}");
+    private static final String BLOB_PREFIX = "stroke-order-";
+    private static final String BLOB_SUFFIX = ".blob";
+    private static final int BACKFILL_BATCH_SIZE = 500;
+
+    // Tổng số byte nén tối đa của lớp phủ trước khi blob được dựng lại toàn bộ
+    private static final long MAX_OVERLAY_BYTES = 4L * 1024 * 1024;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private KanjiUtils kanjiUtils;
+
+    @Autowired
+    private DictionarySnapshotService dictionarySnapshotService;
+
+    @Value("${kanji.stroke-order.blob-dir:./data/stroke-order}")
+    private String blobDir;
+
+    private final IncrementalSnapshot<Blob> blob = new IncrementalSnapshot<>("stroke-order-blob-rebuild", logger,
+            "Không thể dựng blob SVG thứ tự nét", this::build, this::applyChange);
+
+    /**
+     * Nội dung của một SVG: các byte (đã nén gzip hoặc chưa) chỉ được đọc, không được sửa đổi.
+     */
+    public static final class SvgContent {
+        private final ByteBuffer bytes;
+        private final boolean gzipped;
+
+        private SvgContent(ByteBuffer bytes, boolean gzipped) {
+            this.bytes = bytes;
+            this.gzipped = gzipped;
+        }
+
+        public ByteBuffer getBytes() {
+            return bytes.duplicate();
+        }
+
+        public boolean isGzipped() {
+            return gzipped;
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        blob.scheduleRebuild();
+    }
+
+    /**
+     * Nén SVG của Kanji vừa lưu vào lớp phủ nếu địa chỉ nội dung của nó chưa có.
+     */
+    @EventListener
+    public void onContentChanged(ContentChangedEvent event) {
+        if (SearchIndex.TYPE_KANJI.equals(event.getEntityType())) {
+            blob.apply(event);
+        }
+    }
+
+    @EventListener
+    public void onDictionaryImported(DictionaryImportedEvent event) {
+        if (SearchIndex.TYPE_KANJI.equals(event.getEntityType())) {
+            blob.scheduleRebuild();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        blob.shutdown();
+        Blob current = blob.get();
+        if (current != null) {
+            deleteQuietly(current.file);
+        }
+    }
+
+    /**
+     * Lên lịch dựng lại blob trong nền. Nhiều yêu cầu liên tiếp được gộp thành một lần dựng.
+     */
+    public void scheduleRebuild() {
+        blob.scheduleRebuild();
+    }
+
+    /**
+     * Dựng lại tệp blob ngay trên luồng gọi và hoán đổi vùng ánh xạ một cách nguyên tử.
+     */
+    public void rebuild() {
+        blob.rebuild();
+    }
+
+    /**
+     * Dựng tệp blob mới từ mọi SVG thứ tự nét khác nhau. Tệp của blob hiện tại được xóa: vùng ánh xạ cũ vẫn hợp lệ
+     * cho các yêu cầu đang đọc nó cho tới khi blob mới được hoán đổi.
+     */
+    private Blob build() {
+        long start = System.currentTimeMillis();
+        Query query = new Query(Criteria.where(KanjiUtils.STROKE_ORDER_SVG_FIELD).exists(true));
+        query.fields().include(KanjiUtils.STROKE_ORDER_SVG_FIELD, KanjiUtils.STROKE_ORDER_SVG_HASH_FIELD);
+
+        BlobWriter writer = new BlobWriter();
+        BackfillWriter backfill = new BackfillWriter();
+        try (Stream<KanjiEntry> entries = mongoTemplate.stream(query, KanjiEntry.class)) {
+            entries.forEach(entry -> {
+                String hash = kanjiUtils.strokeOrderSvgHash(entry.getStrokeOrderSvg());
+                if (hash == null) {
+                    return;
+                }
+                if (!hash.equals(entry.getStrokeOrderSvgHash())) {
+                    backfill.add(entry.getId(), hash);
+                }
+                writer.add(hash, entry.getStrokeOrderSvg());
+            });
+            backfill.flush();
+            if (backfill.total > 0) {
+                // Snapshot có thể đã được nạp song song với lần bổ sung này và thiếu địa chỉ nội dung vừa ghi
+                dictionarySnapshotService.scheduleRebuild();
+            }
+            Blob built = writer.finish();
+            Blob previous = blob.get();
+            if (previous != null) {
+                deleteQuietly(previous.file);
+            }
+            logger.info("Đã dựng blob SVG thứ tự nét: {} SVG, {} KB nén trong {} ms ({} Kanji được bổ sung địa chỉ)",
+                    built.slots.size(), built.size / 1024, System.currentTimeMillis() - start, backfill.total);
+            return built;
+        } catch (IOException ex) {
+            writer.abort();
+            throw new UncheckedIOException(ex);
+        } catch (RuntimeException ex) {
+            writer.abort();
+            throw ex;
+        }
+    }
+
+    /**
+     * Thêm SVG của Kanji đã lưu vào lớp phủ. Kanji bị xóa không cần xử lý: địa chỉ nội dung cũ chỉ còn trong blob
+     * tới lần dựng lại kế tiếp và không còn Kanji nào trỏ tới nó.
+     */
+    private Blob applyChange(Blob current, ContentChangedEvent event) {
+        if (event.getAction() == ContentChangedEvent.Action.DELETED || !(event.getEntity() instanceof KanjiEntry entry)) {
+            return current;
+        }
+        String hash = kanjiUtils.strokeOrderSvgHash(entry.getStrokeOrderSvg());
+        if (hash == null || current.slots.containsKey(hash) || current.overlay.containsKey(hash)) {
+            return current;
+        }
+        Blob updated = current.withOverlay(hash, gzip(entry.getStrokeOrderSvg()));
+        if (updated.overlayBytes > MAX_OVERLAY_BYTES) {
+            blob.scheduleRebuild();
+        }
+        return updated;
+    }
+
+    /**
+     * Tìm SVG theo địa chỉ nội dung. Khi có trong blob hoặc lớp phủ, trả về các byte đã nén gzip;
+     * nếu không (dữ liệu được ghi mà không qua dịch vụ Kanji), đọc SVG từ MongoDB.
+     *
+     * @param hash Địa chỉ nội dung (SHA-256 dạng hex chữ thường).
+     * @return Nội dung SVG, hoặc Optional rỗng nếu không có SVG nào với địa chỉ này.
+     */
+    public Optional<SvgContent> find(String hash) {
+        if (hash == null || !HASH_PATTERN.matcher(hash).matches()) {
+            return Optional.empty();
+        }
+        Blob current = blob.get();
+        if (current != null) {
+            long slot = current.slots.getOrDefault(hash, -1L);
+            if (slot >= 0) {
+                int offset = (int) (slot >>> 32);
+                int length = (int) slot;
+                return Optional.of(new SvgContent(current.buffer.slice(offset, length), true));
+            }
+            byte[] compressed = current.overlay.get(hash);
+            if (compressed != null) {
+                return Optional.of(new SvgContent(ByteBuffer.wrap(compressed).asReadOnlyBuffer(), true));
+            }
+        }
+        Query query = new Query(Criteria.where(KanjiUtils.STROKE_ORDER_SVG_HASH_FIELD).is(hash));
+        query.fields().include(KanjiUtils.STROKE_ORDER_SVG_FIELD);
+        KanjiEntry entry = mongoTemplate.findOne(query, KanjiEntry.class);
+        if (entry == null || !hash.equals(kanjiUtils.strokeOrderSvgHash(entry.getStrokeOrderSvg()))) {
+            return Optional.empty();
+        }
+        return Optional.of(new SvgContent(ByteBuffer.wrap(entry.getStrokeOrderSvg().getBytes(StandardCharsets.UTF_8)), false));
+    }
+
+    private static byte[] gzip(String svg) {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(4096);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(svg.getBytes(StandardCharsets.UTF_8));
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return compressed.toByteArray();
+    }
+
+    private static void deleteQuietly(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException ex) {
+            logger.debug("Không thể xóa tệp blob cũ {}: {}", file, ex.getMessage());
+        }
+    }
+
+    /**
+     * Blob đã ánh xạ: offset (32 bit cao) và độ dài (32 bit thấp) của mỗi SVG đã nén trong vùng ánh xạ,
+     * cùng lớp phủ các SVG đã nén được thêm từ sau lần dựng. file và buffer là null khi không có SVG nào.
+     */
+    private static final class Blob {
+        private final Path file;
+        private final MappedByteBuffer buffer;
+        private final Map<String, Long> slots;
+        private final long size;
+        private final Map<String, byte[]> overlay;
+        private final long overlayBytes;
+
+        private Blob(Path file, MappedByteBuffer buffer, Map<String, Long> slots, long size) {
+            this(file, buffer, slots, size, Map.of(), 0);
+        }
+
+        private Blob(Path file, MappedByteBuffer buffer, Map<String, Long> slots, long size,
+                     Map<String, byte[]> overlay, long overlayBytes) {
+            this.file = file;
+            this.buffer = buffer;
+            this.slots = slots;
+            this.size = size;
+            this.overlay = overlay;
+            this.overlayBytes = overlayBytes;
+        }
+
+        private Blob withOverlay(String hash, byte[] compressed) {
+            Map<String, byte[]> updated = new HashMap<>(overlay);
+            updated.put(hash, compressed);
+            return new Blob(file, buffer, slots, size, updated, overlayBytes + compressed.length);
+        }
+    }
+
+    /**
+     * Ghi tuần tự các SVG đã nén vào một tệp blob mới. Tệp (và thư mục) chỉ được tạo khi có SVG đầu tiên.
+     */
+    private final class BlobWriter {
+        private final Map<String, Long> slots = new HashMap<>();
+        private final ByteArrayOutputStream compressed = new ByteArrayOutputStream(4096);
+        private Path file;
+        private OutputStream output;
+        private long size;
+
+        private void add(String hash, String svg) {
+            if (slots.containsKey(hash)) {
+                return; // Cùng nội dung, dùng chung một lát
+            }
+            try {
+                if (output == null) {
+                    Path dir = Paths.get(blobDir);
+                    Files.createDirectories(dir);
+                    file = Files.createTempFile(dir, BLOB_PREFIX, BLOB_SUFFIX);
+                    output = new BufferedOutputStream(Files.newOutputStream(file), 64 * 1024);
+                }
+                compressed.reset();
+                try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+                    gzip.write(svg.getBytes(StandardCharsets.UTF_8));
+                }
+                if (size + compressed.size() > Integer.MAX_VALUE) {
+                    throw new IllegalStateException("Blob SVG thứ tự nét vượt quá 2 GB");
+                }
+                compressed.writeTo(output);
+                slots.put(hash, (size << 32) | compressed.size());
+                size += compressed.size();
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+
+        private Blob finish() throws IOException {
+            if (output == null) {
+                return new Blob(null, null, Map.of(), 0); // Không có SVG nào: không tạo tệp
+            }
+            output.close();
+            MappedByteBuffer buffer;
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size); // Vẫn hợp lệ sau khi đóng channel
+            }
+            deleteStaleBlobs(file);
+            return new Blob(file, buffer, slots, size);
+        }
+
+        private void abort() {
+            if (file != null) {
+                try {
+                    if (output != null) {
+                        output.close();
+                    }
+                } catch (IOException ignored) {
+                    // Tệp sẽ bị xóa ngay sau đây
+                }
+                deleteQuietly(file);
+            }
+        }
+
+        /**
+         * Xóa các tệp blob còn sót lại từ những lần chạy trước (ví dụ khi máy chủ bị dừng đột ngột).
+         */
+        private void deleteStaleBlobs(Path keep) {
+            Blob current = blob.get();
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(keep.getParent(), BLOB_PREFIX + "*" + BLOB_SUFFIX)) {
+                for (Path stale : files) {
+                    if (!stale.equals(keep) && (current == null || !stale.equals(current.file))) {
+                        deleteQuietly(stale);
+                    }
+                }
+            } catch (IOException ex) {
+                logger.debug("Không thể dọn các tệp blob cũ: {}", ex.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Ghi bổ sung địa chỉ nội dung cho các Kanji chưa có (hoặc có địa chỉ lệch với SVG) theo lô.
+     */
+    private final class BackfillWriter {
+        private BulkOperations bulkOps;
+        private int pending;
+        private long total;
+
+        private void add(String id, String hash) {
+            if (bulkOps == null) {
+                bulkOps = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, KanjiEntry.class);
+            }
+            bulkOps.updateOne(Query.query(Criteria.where("id").is(id)),
+                    new Update().set(KanjiUtils.STROKE_ORDER_SVG_HASH_FIELD, hash));
+            total++;
+            if (++pending == BACKFILL_BATCH_SIZE) {
+                flush();
+            }
+        }
+
+        private void flush() {
+            if (pending > 0) {
+                bulkOps.execute();
+                bulkOps = null;
+                pending = 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,514 @@
+package com.domain.backend.service;
+
+import com.domain.backend.dto.response.SuggestionResponse;
+import com.domain.backend.entity.Course;
+import com.domain.backend.entity.KanjiEntry;
+import com.domain.backend.entity.Lesson;
+import com.domain.backend.entity.SearchIndex;
+import com.domain.backend.entity.VocabularyEntry;
+import com.domain.backend.event.ContentChangedEvent;
+import com.domain.backend.event.DictionaryImportedEvent;
+import com.domain.backend.exception.ValidationException;
+import com.domain.backend.util.IncrementalSnapshot;
+import com.domain.backend.util.JapaneseNormalizer;
+import com.domain.backend.util.SearchIndexMapper;
+import com.domain.backend.util.SearchUtils;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Dịch vụ gợi ý tự động hoàn thành (type-ahead) cho thanh tìm kiếm.
+ * <p>
+ * Từ điển gợi ý là một mảng khóa đã chuẩn hóa (xem {@link JapaneseNormalizer}) được sắp xếp,
+ * tức là một trie được làm phẳng theo thứ tự duyệt: mọi khóa có cùng tiền tố nằm trong một đoạn liên tiếp
+ * tìm được bằng hai lần tìm kiếm nhị phân. Một cây phân đoạn lưu vị trí khóa có trọng số cao nhất
+ * của mỗi đoạn, nên top-N của một tiền tố được lấy trong O(N log n) mà không cần duyệt toàn bộ đoạn.
+ * <p>
+ * Từ điển là một snapshot bất biến, được dựng lại toàn bộ trong nền khi khởi động và sau khi nhập từ điển.
+ * Thay đổi của từng thực thể được áp dụng ngay dưới dạng lớp phủ: gợi ý cũ của thực thể bị ẩn và gợi ý mới được
+ * trộn vào kết quả theo trọng số lúc truy vấn; từ điển chỉ được dựng lại khi lớp phủ vượt quá
+ * {@value #MAX_OVERLAY_ENTRIES} gợi ý.
+ */
+@Service
+public class SuggestionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SuggestionService.class);
+
+    public static final int MAX_LIMIT = 20;
+
+    // Trọng số theo loại thực thể: mục từ điển được ưu tiên hơn tiêu đề bài học/khóa học
+    private static final float KANJI_WEIGHT = 1.2f;
+    private static final float VOCABULARY_WEIGHT = 1.1f;
+    private static final float COURSE_WEIGHT = 1.0f;
+    private static final float LESSON_WEIGHT = 0.9f;
+
+    // Số gợi ý tối đa của lớp phủ trước khi từ điển được dựng lại toàn bộ
+    private static final int MAX_OVERLAY_ENTRIES = 1000;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private JapaneseNormalizer japaneseNormalizer;
+
+    @Autowired
+    private SearchUtils searchUtils;
+
+    private final IncrementalSnapshot<Dictionary> dictionary = new IncrementalSnapshot<>("suggestion-rebuild", logger,
+            "Không thể dựng từ điển gợi ý", this::build, this::applyChange);
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        dictionary.scheduleRebuild();
+    }
+
+    /**
+     * Áp dụng thay đổi của một thực thể lên lớp phủ ngay lập tức.
+     */
+    @EventListener
+    public void onContentChanged(ContentChangedEvent event) {
+        dictionary.apply(event);
+    }
+
+    @EventListener
+    public void onDictionaryImported(DictionaryImportedEvent event) {
+        dictionary.scheduleRebuild();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        dictionary.shutdown();
+    }
+
+    /**
+     * Lên lịch dựng lại từ điển gợi ý trong nền. Nhiều yêu cầu liên tiếp được gộp thành một lần dựng.
+     */
+    public void scheduleRebuild() {
+        dictionary.scheduleRebuild();
+    }
+
+    /**
+     * Dựng lại từ điển gợi ý từ các collection nội dung ngay trên luồng gọi.
+     */
+    public void rebuild() {
+        dictionary.rebuild();
+    }
+
+    /**
+     * Dựng từ điển gợi ý từ các collection nội dung. Chỉ các trường cần thiết được nạp.
+     */
+    private Dictionary build() {
+        long start = System.currentTimeMillis();
+        DictionaryBuilder builder = new DictionaryBuilder();
+
+        Query kanjiQuery = new Query();
+        kanjiQuery.fields().include("kanjiCharacter", "meaning", "onyomi", "kunyomi", "jlptLevel");
+        forEach(kanjiQuery, KanjiEntry.class, kanji -> builder.add(suggestionOf(kanji)));
+
+        Query vocabularyQuery = new Query();
+        vocabularyQuery.fields().include("japaneseWord", "furigana", "romaji", "meaning", "jlptLevel");
+        forEach(vocabularyQuery, VocabularyEntry.class, vocabulary -> builder.add(suggestionOf(vocabulary)));
+
+        Query courseQuery = new Query();
+        courseQuery.fields().include("title");
+        forEach(courseQuery, Course.class, course -> builder.add(suggestionOf(course)));
+
+        Query lessonQuery = new Query();
+        lessonQuery.fields().include("title");
+        forEach(lessonQuery, Lesson.class, lesson -> builder.add(suggestionOf(lesson)));
+
+        Dictionary built = builder.build();
+        logger.info("Đã dựng từ điển gợi ý: {} khóa trong {} ms", built.keys.length, System.currentTimeMillis() - start);
+        return built;
+    }
+
+    /**
+     * Thay gợi ý của thực thể trong lớp phủ (hoặc chỉ ẩn gợi ý cũ nếu thực thể bị xóa).
+     */
+    private Dictionary applyChange(Dictionary current, ContentChangedEvent event) {
+        // Thực thể bị xóa hoặc không còn văn bản để gợi ý: chỉ ẩn gợi ý cũ
+        Suggestion suggestion = event.getAction() != ContentChangedEvent.Action.DELETED ? suggestionOf(event.getEntity()) : null;
+        Dictionary updated = current.withChange(entityKey(event.getEntityType(), event.getEntityId()), suggestion);
+        if (updated.overlay.length > MAX_OVERLAY_ENTRIES) {
+            dictionary.scheduleRebuild();
+        }
+        return updated;
+    }
+
+    /**
+     * Gợi ý của một thực thể nội dung, hoặc null nếu thực thể không có văn bản để gợi ý.
+     */
+    private Suggestion suggestionOf(Object entity) {
+        if (entity instanceof KanjiEntry kanji) {
+            // On'yomi và Kun'yomi được lưu dạng "ショク, ジキ": mỗi âm đọc là một khóa riêng
+            List<String> keySources = new ArrayList<>(searchUtils.readingsOf(kanji));
+            keySources.add(0, kanji.getKanjiCharacter());
+            return suggestion(SearchIndex.TYPE_KANJI, kanji.getId(), kanji.getKanjiCharacter(), kanji.getMeaning(),
+                    KANJI_WEIGHT * SearchIndexMapper.jlptBoost(kanji.getJlptLevel()), keySources.toArray(new String[0]));
+        }
+        if (entity instanceof VocabularyEntry vocabulary) {
+            return suggestion(SearchIndex.TYPE_VOCABULARY, vocabulary.getId(), vocabulary.getJapaneseWord(), vocabulary.getFurigana(),
+                    VOCABULARY_WEIGHT * SearchIndexMapper.jlptBoost(vocabulary.getJlptLevel()),
+                    vocabulary.getJapaneseWord(), vocabulary.getFurigana(), japaneseNormalizer.normalizeRomaji(vocabulary.getRomaji()));
+        }
+        if (entity instanceof Course course) {
+            return suggestion(SearchIndex.TYPE_COURSE, course.getId(), course.getTitle(), null, COURSE_WEIGHT, course.getTitle());
+        }
+        if (entity instanceof Lesson lesson) {
+            return suggestion(SearchIndex.TYPE_LESSON, lesson.getId(), lesson.getTitle(), null, LESSON_WEIGHT, lesson.getTitle());
+        }
+        return null;
+    }
+
+    private Suggestion suggestion(String entityType, String entityId, String text, String detail, float weight,
+                                  String... keySources) {
+        if (text == null || text.isBlank()) {
+            return null;
+        }
+        Set<String> keys = new LinkedHashSet<>();
+        for (String source : keySources) {
+            String key = japaneseNormalizer.normalize(source);
+            if (!key.isEmpty()) {
+                keys.add(key);
+            }
+        }
+        return new Suggestion(entityType, entityId, text, detail, weight, keys.toArray(new String[0]));
+    }
+
+    private static String entityKey(String entityType, String entityId) {
+        return entityType + ':' + entityId;
+    }
+
+    private <T> void forEach(Query query, Class<T> entityClass, Consumer<T> consumer) {
+        try (Stream<T> entities = mongoTemplate.stream(query, entityClass)) {
+            entities.forEach(consumer);
+        }
+    }
+
+    /**
+     * Lấy top-N gợi ý cho một tiền tố, xếp theo trọng số giảm dần (khóa ngắn hơn đứng trước khi ngang trọng số).
+     *
+     * @param prefix Tiền tố người dùng đang gõ (Kanji, Kana hoặc Romaji).
+     * @param limit  Số gợi ý tối đa (1 - {@value #MAX_LIMIT}).
+     * @return Danh sách gợi ý; rỗng nếu không có hoặc từ điển chưa sẵn sàng.
+     * @throws ValidationException nếu tiền tố trống hoặc limit không hợp lệ.
+     */
+    public List<SuggestionResponse> suggest(String prefix, int limit) {
+        if (prefix == null || prefix.trim().isEmpty()) {
+            throw new ValidationException("Tiền tố gợi ý không được để trống.");
+        }
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new ValidationException("Số gợi ý phải nằm trong khoảng 1 - " + MAX_LIMIT + ".");
+        }
+        Dictionary current = dictionary.get();
+        if (current == null) {
+            dictionary.scheduleRebuild();
+            return new ArrayList<>();
+        }
+        List<String> keys = japaneseNormalizer.queryKeys(prefix);
+        return keys.isEmpty() ? new ArrayList<>() : current.topN(keys, limit);
+    }
+
+    /**
+     * Một gợi ý cùng các khóa đã chuẩn hóa của nó.
+     */
+    private static final class Suggestion {
+        private final String entityType;
+        private final String entityId;
+        private final String text;
+        private final String detail;     // Thông tin phụ: furigana của từ vựng, nghĩa của Kanji
+        private final float weight;
+        private final String[] keys;
+
+        private Suggestion(String entityType, String entityId, String text, String detail, float weight, String[] keys) {
+            this.entityType = entityType;
+            this.entityId = entityId;
+            this.text = text;
+            this.detail = detail;
+            this.weight = weight;
+            this.keys = keys;
+        }
+
+        /**
+         * Độ dài của khóa ngắn nhất khớp một trong các tiền tố, hoặc -1 nếu không khóa nào khớp.
+         */
+        private int matchLength(List<String> prefixes) {
+            int length = -1;
+            for (String key : keys) {
+                for (String prefix : prefixes) {
+                    if (key.startsWith(prefix) && (length < 0 || key.length() < length)) {
+                        length = key.length();
+                    }
+                }
+            }
+            return length;
+        }
+
+        private SuggestionResponse toResponse() {
+            return new SuggestionResponse(text, detail, entityType, entityId);
+        }
+    }
+
+    /**
+     * Snapshot bất biến của từ điển gợi ý: phần gốc được dựng toàn bộ cùng lớp phủ các thay đổi từ sau lần dựng đó.
+     */
+    private static final class Dictionary {
+        private final String[] keys;        // Khóa đã chuẩn hóa, sắp xếp tăng dần
+        private final int[] entryOfKey;     // Ordinal gợi ý của mỗi khóa
+        private final float[] weights;      // Trọng số của mỗi gợi ý
+        private final String[] texts;
+        private final String[] details;     // Thông tin phụ: furigana của từ vựng, nghĩa của Kanji
+        private final String[] entityTypes;
+        private final String[] entityIds;
+        private final Map<String, Integer> entryOfEntity; // "loại:ID" -> ordinal gợi ý của phần gốc
+        private final int[] bestInRange;    // Cây phân đoạn: vị trí khóa tốt nhất của mỗi nút
+        private final int leafOffset;
+        private final BitSet hidden;        // Gợi ý của phần gốc đã bị sửa hoặc xóa
+        private final Suggestion[] overlay; // Gợi ý của các thực thể đã được tạo hoặc sửa
+
+        private Dictionary(String[] keys, int[] entryOfKey, float[] weights, String[] texts, String[] details,
+                           String[] entityTypes, String[] entityIds, Map<String, Integer> entryOfEntity) {
+            this.keys = keys;
+            this.entryOfKey = entryOfKey;
+            this.weights = weights;
+            this.texts = texts;
+            this.details = details;
+            this.entityTypes = entityTypes;
+            this.entityIds = entityIds;
+            this.entryOfEntity = entryOfEntity;
+            this.hidden = new BitSet();
+            this.overlay = new Suggestion[0];
+
+            int offset = 1;
+            while (offset < Math.max(1, keys.length)) {
+                offset <<= 1;
+            }
+            this.leafOffset = offset;
+            this.bestInRange = new int[offset * 2];
+            Arrays.fill(bestInRange, -1);
+            for (int i = 0; i < keys.length; i++) {
+                bestInRange[offset + i] = i;
+            }
+            for (int node = offset - 1; node >= 1; node--) {
+                bestInRange[node] = better(bestInRange[node * 2], bestInRange[node * 2 + 1]);
+            }
+        }
+
+        // Dùng chung phần gốc với base, chỉ thay lớp phủ
+        private Dictionary(Dictionary base, BitSet hidden, Suggestion[] overlay) {
+            this.keys = base.keys;
+            this.entryOfKey = base.entryOfKey;
+            this.weights = base.weights;
+            this.texts = base.texts;
+            this.details = base.details;
+            this.entityTypes = base.entityTypes;
+            this.entityIds = base.entityIds;
+            this.entryOfEntity = base.entryOfEntity;
+            this.bestInRange = base.bestInRange;
+            this.leafOffset = base.leafOffset;
+            this.hidden = hidden;
+            this.overlay = overlay;
+        }
+
+        /**
+         * Từ điển mới trong đó gợi ý của thực thể được thay bằng suggestion (null nếu thực thể không còn gợi ý).
+         */
+        private Dictionary withChange(String entityKey, Suggestion suggestion) {
+            Integer entry = entryOfEntity.get(entityKey);
+            List<Suggestion> updatedOverlay = new ArrayList<>(overlay.length + 1);
+            for (Suggestion existing : overlay) {
+                if (!entityKey(existing.entityType, existing.entityId).equals(entityKey)) {
+                    updatedOverlay.add(existing);
+                }
+            }
+            if (suggestion == null && entry == null && updatedOverlay.size() == overlay.length) {
+                return this; // Thực thể chưa từng có gợi ý
+            }
+            if (suggestion != null) {
+                updatedOverlay.add(suggestion);
+            }
+            BitSet updatedHidden = hidden;
+            if (entry != null && !hidden.get(entry)) {
+                updatedHidden = (BitSet) hidden.clone();
+                updatedHidden.set(entry);
+            }
+            return new Dictionary(this, updatedHidden, updatedOverlay.toArray(new Suggestion[0]));
+        }
+        /**
+         * Khóa tốt hơn trong hai khóa: trọng số cao hơn, rồi khóa ngắn hơn, rồi vị trí nhỏ hơn. -1 là không có khóa.
+         */
+        private int better(int a, int b) {
+            if (a < 0 || b < 0) {
+                return a < 0 ? b : a;
+            }
+            float weightA = weights[entryOfKey[a]];
+            float weightB = weights[entryOfKey[b]];
+            if (weightA != weightB) {
+                return weightA > weightB ? a : b;
+            }
+            if (keys[a].length() != keys[b].length()) {
+                return keys[a].length() < keys[b].length() ? a : b;
+            }
+            return Math.min(a, b);
+        }
+
+        /**
+         * Vị trí khóa tốt nhất trong đoạn [from, to), hoặc -1 nếu đoạn rỗng.
+         */
+        private int best(int from, int to) {
+            int result = -1;
+            for (int lo = from + leafOffset, hi = to + leafOffset; lo < hi; lo >>= 1, hi >>= 1) {
+                if ((lo & 1) == 1) {
+                    result = better(result, bestInRange[lo++]);
+                }
+                if ((hi & 1) == 1) {
+                    result = better(result, bestInRange[--hi]);
+                }
+            }
+            return result;
+        }
+
+        private List<SuggestionResponse> topN(List<String> prefixes, int limit) {
+            List<SuggestionResponse> suggestions = new ArrayList<>(limit);
+
+            // Mỗi phần tử heap là một đoạn {from, to, vị trí tốt nhất}; lấy đoạn có khóa tốt nhất rồi tách đôi quanh khóa đó.
+            // Mỗi tiền tố (biến thể khóa của truy vấn) đóng góp một đoạn ban đầu.
+            PriorityQueue<int[]> ranges = new PriorityQueue<>((a, b) -> better(a[2], b[2]) == a[2] ? -1 : 1);
+            for (String prefix : prefixes) {
+                int from = lowerBound(prefix);
+                int to = lowerBound(prefix + Character.MAX_VALUE);
+                if (from < to) {
+                    ranges.offer(new int[]{from, to, best(from, to)});
+                }
+            }
+
+            // Gợi ý khớp của lớp phủ, theo cùng thứ tự với phần gốc: {vị trí trong lớp phủ, độ dài khóa khớp}
+            List<int[]> overlayMatches = new ArrayList<>();
+            for (int i = 0; i < overlay.length; i++) {
+                int length = overlay[i].matchLength(prefixes);
+                if (length >= 0) {
+                    overlayMatches.add(new int[]{i, length});
+                }
+            }
+            overlayMatches.sort(Comparator.<int[]>comparingDouble(match -> -overlay[match[0]].weight)
+                    .thenComparingInt(match -> match[1]));
+            int nextOverlay = 0;
+
+            Set<Integer> seenEntries = new HashSet<>();
+            while (!ranges.isEmpty() && suggestions.size() < limit) {
+                int[] range = ranges.poll();
+                int position = range[2];
+                int entry = entryOfKey[position];
+                // Trộn các gợi ý của lớp phủ tốt hơn khóa này vào trước nó
+                while (nextOverlay < overlayMatches.size() && suggestions.size() < limit
+                        && isBetter(overlayMatches.get(nextOverlay), weights[entry], keys[position].length())) {
+                    suggestions.add(overlay[overlayMatches.get(nextOverlay++)[0]].toResponse());
+                }
+                // Một thực thể có thể có nhiều khóa cùng khớp tiền tố
+                if (suggestions.size() < limit && !hidden.get(entry) && seenEntries.add(entry)) {
+                    suggestions.add(new SuggestionResponse(texts[entry], details[entry], entityTypes[entry], entityIds[entry]));
+                }
+                if (range[0] < position) {
+                    ranges.offer(new int[]{range[0], position, best(range[0], position)});
+                }
+                if (position + 1 < range[1]) {
+                    ranges.offer(new int[]{position + 1, range[1], best(position + 1, range[1])});
+                }
+            }
+            while (nextOverlay < overlayMatches.size() && suggestions.size() < limit) {
+                suggestions.add(overlay[overlayMatches.get(nextOverlay++)[0]].toResponse());
+            }
+            return suggestions;
+        }
+
+        private boolean isBetter(int[] overlayMatch, float weight, int keyLength) {
+            float overlayWeight = overlay[overlayMatch[0]].weight;
+            return overlayWeight != weight ? overlayWeight > weight : overlayMatch[1] < keyLength;
+        }
+
+        // Vị trí đầu tiên có khóa >= key (mảng có thể chứa khóa lặp lại nên không dùng Arrays.binarySearch)
+        private int lowerBound(String key) {
+            int lo = 0, hi = keys.length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (keys[mid].compareTo(key) < 0) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo;
+        }
+    }
+
+    private static final class DictionaryBuilder {
+        private final Map<String, List<Integer>> entriesByKey = new HashMap<>();
+        private final Map<String, Integer> entryOfEntity = new HashMap<>();
+        private final List<Float> weights = new ArrayList<>();
+        private final List<String> texts = new ArrayList<>();
+        private final List<String> details = new ArrayList<>();
+        private final List<String> entityTypes = new ArrayList<>();
+        private final List<String> entityIds = new ArrayList<>();
+
+        private void add(Suggestion suggestion) {
+            if (suggestion == null) {
+                return;
+            }
+            int entry = texts.size();
+            texts.add(suggestion.text);
+            details.add(suggestion.detail);
+            entityTypes.add(suggestion.entityType);
+            entityIds.add(suggestion.entityId);
+            weights.add(suggestion.weight);
+            entryOfEntity.put(entityKey(suggestion.entityType, suggestion.entityId), entry);
+            for (String key : suggestion.keys) {
+                entriesByKey.computeIfAbsent(key, k -> new ArrayList<>(1)).add(entry);
+            }
+        }
+        private Dictionary build() {
+            String[] distinctKeys = entriesByKey.keySet().toArray(new String[0]);
+            Arrays.sort(distinctKeys);
+            int total = 0;
+            for (List<Integer> entries : entriesByKey.values()) {
+                total += entries.size();
+            }
+            // Khóa trùng nhau giữa các thực thể được lặp lại để mỗi vị trí ứng với đúng một gợi ý
+            String[] keys = new String[total];
+            int[] entryOfKey = new int[total];
+            int position = 0;
+            for (String key : distinctKeys) {
+                for (int entry : entriesByKey.get(key)) {
+                    keys[position] = key;
+                    entryOfKey[position++] = entry;
+                }
+            }
+            float[] weightArray = new float[weights.size()];
+            for (int i = 0; i < weightArray.length; i++) {
+                weightArray[i] = weights.get(i);
+            }
+            return new Dictionary(keys, entryOfKey, weightArray, texts.toArray(new String[0]), details.toArray(new String[0]),
+                    entityTypes.toArray(new String[0]), entityIds.toArray(new String[0]), entryOfEntity);
+        }
+    }
+}
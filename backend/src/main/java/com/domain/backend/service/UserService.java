@@ -1,6 +1,7 @@
 package com.domain.backend.service;
 
 import com.domain.backend.dto.request.UserProfileUpdateRequest;
+import com.domain.backend.dto.response.KeysetPageResponse;
 import com.domain.backend.dto.response.MessageResponse;
 import com.domain.backend.dto.response.UserResponse;
 import com.domain.backend.entity.User;
@@ -9,11 +10,15 @@ import com.domain.backend.exception.UnauthorizedException;
 import com.domain.backend.exception.ValidationException;
 import com.domain.backend.repository.UserRepository;
 import com.domain.backend.security.SecurityUtils;
+import com.domain.backend.util.KeysetPagination;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -29,6 +34,9 @@ public class UserService {
     @Autowired
     private PasswordEncoder passwordEncoder; // Để mã hóa mật khẩu nếu cập nhật
 
+    @Autowired
+    private KeysetPagination keysetPagination; // Phân trang theo khóa và xuất NDJSON
+
     /**
      * Lấy thông tin người dùng theo ID.
      *
@@ -133,6 +141,46 @@ public class UserService {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Lấy một trang người dùng theo thứ tự ID (phân trang theo khóa).
+     * Chỉ ADMIN mới có thể truy cập.
+     *
+     * @param after ID của phần tử cuối trang trước, null cho trang đầu.
+     * @param size  Số phần tử tối đa của trang.
+     * @return Trang UserResponse cùng con trỏ cho trang tiếp theo.
+     * @throws UnauthorizedException nếu người dùng không phải ADMIN.
+     */
+    public KeysetPageResponse<UserResponse> getUsersPage(String after, Integer size) {
+        if (!SecurityUtils.isAdmin()) {
+            throw new UnauthorizedException("Bạn không được phép xem danh sách người dùng.");
+        }
+        return keysetPagination.page(userListQuery(), User.class, after, size, this::convertToUserResponse);
+    }
+
+    /**
+     * Xuất toàn bộ người dùng dưới dạng NDJSON, đọc qua cursor và ghi ra từng dòng.
+     * Chỉ ADMIN mới có thể truy cập.
+     *
+     * @param output Luồng đầu ra của phản hồi.
+     * @throws IOException           nếu không thể ghi ra luồng đầu ra.
+     * @throws UnauthorizedException nếu người dùng không phải ADMIN.
+     */
+    public void exportUsers(OutputStream output) throws IOException {
+        if (!SecurityUtils.isAdmin()) {
+            throw new UnauthorizedException("Bạn không được phép xem danh sách người dùng.");
+        }
+        keysetPagination.streamNdjson(userListQuery(), User.class, this::convertToUserResponse, output);
+    }
+
+    /**
+     * Truy vấn danh sách người dùng; mật khẩu đã băm không bao giờ được đọc ra.
+     */
+    private static Query userListQuery() {
+        Query query = new Query();
+        query.fields().exclude("passwordHash");
+        return query;
+    }
+
     /**
      * Chuyển đổi User entity sang UserResponse DTO.
      *
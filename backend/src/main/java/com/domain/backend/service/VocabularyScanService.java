@@ -0,0 +1,414 @@
+package com.domain.backend.service;
+
+import com.domain.backend.dto.response.TextMatchResponse;
+import com.domain.backend.dto.response.TextScanResponse;
+import com.domain.backend.entity.SearchIndex;
+import com.domain.backend.entity.VocabularyEntry;
+import com.domain.backend.event.ContentChangedEvent;
+import com.domain.backend.event.DictionaryImportedEvent;
+import com.domain.backend.util.DoubleArrayTrie;
+import com.domain.backend.util.IncrementalSnapshot;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Quét văn bản (ví dụ nội dung bài học) và tìm mọi từ có trong từ điển, cho chế độ hỗ trợ đọc.
+ * <p>
+ * Khóa là japaneseWord và furigana của mọi từ vựng, lưu trong một trie mảng kép (xem {@link DoubleArrayTrie});
+ * văn bản được duyệt một lượt và mỗi khớp dài nhất được báo cùng vị trí. Mỗi khóa trỏ tới các từ vựng tương ứng
+ * (từ khớp theo cách viết đứng trước từ khớp theo cách đọc).
+ * <p>
+ * Trie là một snapshot bất biến, được dựng lại toàn bộ trong nền khi khởi động và sau khi nhập từ vựng. Khi một từ
+ * vựng được sửa, khóa mới của nó được đưa vào một trie phủ nhỏ và ID của nó bị che trong trie gốc; khi có lớp phủ,
+ * mỗi vị trí được dò trên cả hai trie và khớp dài nhất còn hiệu lực được chọn. Các khóa gốc chỉ còn trỏ tới từ vựng
+ * đã thay đổi được tính sẵn thành một BitSet khi lớp phủ thay đổi, nên việc dò không tạo đối tượng nào cho mỗi vị
+ * trí; ID chỉ được giải quyết cho các khớp cuối cùng. Trie chỉ được dựng lại khi lớp phủ
+ * vượt quá {@value #MAX_OVERLAY_ENTRIES} từ vựng. Các từ vựng được lấy qua {@link DictionarySnapshotService}, nên từ
+ * đã bị xóa sẽ bị bỏ khỏi kết quả.
+ */
+@Service
+public class VocabularyScanService {
+
+    private static final Logger logger = LoggerFactory.getLogger(VocabularyScanService.class);
+
+    // Số từ vựng tối đa của lớp phủ trước khi trie được dựng lại toàn bộ
+    private static final int MAX_OVERLAY_ENTRIES = 1000;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private DictionarySnapshotService dictionarySnapshotService;
+
+    private final IncrementalSnapshot<ScanDictionary> dictionary = new IncrementalSnapshot<>("vocabulary-scan-rebuild", logger,
+            "Không thể dựng trie quét từ vựng", this::build, this::applyChange);
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        dictionary.scheduleRebuild();
+    }
+
+    /**
+     * Áp dụng thay đổi của một từ vựng lên lớp phủ ngay lập tức.
+     */
+    @EventListener
+    public void onContentChanged(ContentChangedEvent event) {
+        if (SearchIndex.TYPE_VOCABULARY.equals(event.getEntityType())) {
+            dictionary.apply(event);
+        }
+    }
+
+    @EventListener
+    public void onDictionaryImported(DictionaryImportedEvent event) {
+        if (SearchIndex.TYPE_VOCABULARY.equals(event.getEntityType())) {
+            dictionary.scheduleRebuild();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        dictionary.shutdown();
+    }
+
+    /**
+     * Lên lịch dựng lại trie trong nền. Nhiều yêu cầu liên tiếp được gộp thành một lần dựng.
+     */
+    public void scheduleRebuild() {
+        dictionary.scheduleRebuild();
+    }
+
+    /**
+     * Dựng lại trie từ collection từ vựng ngay trên luồng gọi.
+     */
+    public void rebuild() {
+        dictionary.rebuild();
+    }
+
+    /**
+     * Dựng trie từ collection từ vựng. Chỉ japaneseWord và furigana được nạp.
+     */
+    private ScanDictionary build() {
+        long start = System.currentTimeMillis();
+        KeyIndexBuilder builder = new KeyIndexBuilder();
+        Query query = new Query();
+        query.fields().include("japaneseWord", "furigana");
+        try (Stream<VocabularyEntry> entries = mongoTemplate.stream(query, VocabularyEntry.class)) {
+            entries.forEach(entry -> builder.add(entry.getId(), entry.getJapaneseWord(), entry.getFurigana()));
+        }
+        KeyIndex base = builder.build();
+        logger.info("Đã dựng trie quét từ vựng: {} khóa, ~{} KB trong {} ms",
+                base.trie.size(), base.trie.estimatedBytes() / 1024, System.currentTimeMillis() - start);
+        return new ScanDictionary(base, Set.of(), new BitSet(), Map.of(), null);
+    }
+
+    /**
+     * Thay khóa của từ vựng trong lớp phủ (hoặc chỉ che khóa cũ nếu từ vựng bị xóa).
+     */
+    private ScanDictionary applyChange(ScanDictionary current, ContentChangedEvent event) {
+        String[] keys = event.getAction() != ContentChangedEvent.Action.DELETED
+                && event.getEntity() instanceof VocabularyEntry entry
+                ? new String[]{entry.getJapaneseWord(), entry.getFurigana()} : null;
+        ScanDictionary updated = current.withChange(event.getEntityId(), keys);
+        if (updated.changedIds.size() > MAX_OVERLAY_ENTRIES) {
+            dictionary.scheduleRebuild();
+        }
+        return updated;
+    }
+
+    /**
+     * Quét văn bản và trả về mọi từ trong từ điển được tìm thấy, theo thứ tự vị trí.
+     *
+     * @param text        Văn bản cần quét.
+     * @param overlapping true để báo khớp dài nhất tại mọi vị trí bắt đầu; false để phân đoạn văn bản
+     *                    thành các khớp không chồng lấp (trái nhất, dài nhất).
+     * @return TextScanResponse với các khớp và các từ vựng được tham chiếu; rỗng nếu trie chưa sẵn sàng.
+     */
+    public TextScanResponse scan(String text, boolean overlapping) {
+        ScanDictionary current = dictionary.get();
+        if (current == null || text == null || text.isEmpty()) {
+            if (current == null) {
+                dictionary.scheduleRebuild();
+            }
+            return new TextScanResponse(new ArrayList<>(), new LinkedHashMap<>());
+        }
+
+        // Vị trí khớp được gom vào mảng int {start, end, khóa gốc, khóa phủ}; đối tượng kết quả chỉ được tạo sau khi quét xong
+        MatchBuffer buffer = new MatchBuffer();
+        current.scan(text, overlapping, buffer);
+
+        Set<String> referencedIds = new LinkedHashSet<>();
+        for (int i = 0; i < buffer.count; i++) {
+            referencedIds.addAll(current.idsOf(buffer.matches[i * 4 + 2], buffer.matches[i * 4 + 3]));
+        }
+        Map<String, VocabularyEntry> entries = new LinkedHashMap<>();
+        Map<String, VocabularyEntry> found = new HashMap<>();
+        for (VocabularyEntry entry : dictionarySnapshotService.findVocabularyByIds(referencedIds)) {
+            found.put(entry.getId(), entry);
+        }
+
+        List<TextMatchResponse> matches = new ArrayList<>(buffer.count);
+        for (int i = 0; i < buffer.count; i++) {
+            int start = buffer.matches[i * 4];
+            int end = buffer.matches[i * 4 + 1];
+            List<String> keyIds = current.idsOf(buffer.matches[i * 4 + 2], buffer.matches[i * 4 + 3]);
+            List<String> entryIds = new ArrayList<>(keyIds.size());
+            for (String id : keyIds) {
+                VocabularyEntry entry = found.get(id);
+                if (entry != null) {
+                    entryIds.add(entry.getId());
+                    entries.putIfAbsent(entry.getId(), entry);
+                }
+            }
+            if (!entryIds.isEmpty()) {
+                matches.add(new TextMatchResponse(start, end, text.substring(start, end), entryIds));
+            }
+        }
+        return new TextScanResponse(matches, entries);
+    }
+
+    /**
+     * Trie và danh sách ID từ vựng của mỗi khóa (dạng CSR: ids[idOffsets[k] .. idOffsets[k + 1])).
+     */
+    private static final class KeyIndex {
+        private final DoubleArrayTrie trie;
+        private final int[] idOffsets;
+        private final String[] ids;
+
+        private KeyIndex(DoubleArrayTrie trie, int[] idOffsets, String[] ids) {
+            this.trie = trie;
+            this.idOffsets = idOffsets;
+            this.ids = ids;
+        }
+
+        private List<String> idsOf(int key) {
+            return Arrays.asList(ids).subList(idOffsets[key], idOffsets[key + 1]);
+        }
+    }
+
+    /**
+     * Gom khóa của các từ vựng: từ khớp theo cách viết đứng trước từ khớp theo cách đọc.
+     */
+    private static final class KeyIndexBuilder {
+        private final Map<String, List<String>> idsByWord = new HashMap<>();
+        private final Map<String, List<String>> idsByReading = new HashMap<>();
+
+        private void add(String id, String japaneseWord, String furigana) {
+            addKey(idsByWord, japaneseWord, id);
+            addKey(idsByReading, furigana, id);
+        }
+
+        private static void addKey(Map<String, List<String>> idsByKey, String key, String id) {
+            if (key != null && !key.isBlank() && id != null) {
+                idsByKey.computeIfAbsent(key.trim(), k -> new ArrayList<>(1)).add(id);
+            }
+        }
+
+        private KeyIndex build() {
+            Set<String> keySet = new LinkedHashSet<>(idsByWord.keySet());
+            keySet.addAll(idsByReading.keySet());
+            String[] keys = keySet.toArray(new String[0]);
+            Arrays.sort(keys);
+            int[] idOffsets = new int[keys.length + 1];
+            List<String> ids = new ArrayList<>();
+            for (int i = 0; i < keys.length; i++) {
+                idOffsets[i] = ids.size();
+                Set<String> keyIds = new LinkedHashSet<>(idsByWord.getOrDefault(keys[i], List.of()));
+                keyIds.addAll(idsByReading.getOrDefault(keys[i], List.of()));
+                ids.addAll(keyIds);
+            }
+            idOffsets[keys.length] = ids.size();
+            return new KeyIndex(DoubleArrayTrie.build(keys), idOffsets, ids.toArray(new String[0]));
+        }
+    }
+
+    /**
+     * Snapshot bất biến: trie gốc cùng lớp phủ các từ vựng thay đổi từ sau lần dựng.
+     */
+    private static final class ScanDictionary {
+        private final KeyIndex base;
+        private final Set<String> changedIds;              // Từ vựng đã tạo, sửa hoặc xóa: ID bị che trong trie gốc
+        private final BitSet maskedBaseKeys;               // Khóa gốc mà mọi ID đều đã thay đổi; không được sửa sau khi dựng
+        private final Map<String, String[]> overlayKeys;  // ID -> {japaneseWord, furigana} của từ vựng còn tồn tại
+        private final KeyIndex overlay;                    // null khi lớp phủ không có khóa nào
+
+        private ScanDictionary(KeyIndex base, Set<String> changedIds, BitSet maskedBaseKeys, Map<String, String[]> overlayKeys,
+                               KeyIndex overlay) {
+            this.base = base;
+            this.changedIds = changedIds;
+            this.maskedBaseKeys = maskedBaseKeys;
+            this.overlayKeys = overlayKeys;
+            this.overlay = overlay;
+        }
+
+        /**
+         * Snapshot mới trong đó khóa của từ vựng được thay bằng keys (null nếu từ vựng bị xóa).
+         */
+        private ScanDictionary withChange(String id, String[] keys) {
+            Set<String> changed = new HashSet<>(changedIds);
+            changed.add(id);
+            Map<String, String[]> updatedKeys = new HashMap<>(overlayKeys);
+            if (keys == null) {
+                updatedKeys.remove(id);
+            } else {
+                updatedKeys.put(id, keys);
+            }
+            KeyIndex updatedOverlay = null;
+            if (!updatedKeys.isEmpty()) {
+                KeyIndexBuilder builder = new KeyIndexBuilder();
+                updatedKeys.forEach((entryId, entryKeys) -> builder.add(entryId, entryKeys[0], entryKeys[1]));
+                updatedOverlay = builder.build();
+            }
+            return new ScanDictionary(base, changed, maskedWith(id, changed), updatedKeys, updatedOverlay);
+        }
+
+        /**
+         * Tập khóa gốc bị che sau khi thêm id vào tập thay đổi: chỉ các khóa chứa id có thể mới bị che.
+         */
+        private BitSet maskedWith(String id, Set<String> changed) {
+            if (changedIds.contains(id)) {
+                return maskedBaseKeys;
+            }
+            BitSet masked = (BitSet) maskedBaseKeys.clone();
+            for (int key = 0; key + 1 < base.idOffsets.length; key++) {
+                int from = base.idOffsets[key];
+                int to = base.idOffsets[key + 1];
+                for (int i = from; i < to; i++) {
+                    if (base.ids[i].equals(id)) {
+                        boolean allChanged = true;
+                        for (int j = from; j < to && allChanged; j++) {
+                            allChanged = changed.contains(base.ids[j]);
+                        }
+                        if (allChanged) {
+                            masked.set(key);
+                        }
+                        break;
+                    }
+                }
+            }
+            return masked;
+        }
+
+        /**
+         * ID từ vựng của một khớp: ID còn hiệu lực của khóa gốc rồi ID của khóa phủ (NOT_FOUND nếu không có khóa).
+         */
+        private List<String> idsOf(int baseKey, int overlayKey) {
+            List<String> baseIds = baseKey == DoubleArrayTrie.NOT_FOUND ? List.of() : base.idsOf(baseKey);
+            if (changedIds.isEmpty()) {
+                return baseIds;
+            }
+            Set<String> ids = new LinkedHashSet<>();
+            for (String id : baseIds) {
+                if (!changedIds.contains(id)) {
+                    ids.add(id);
+                }
+            }
+            if (overlayKey != DoubleArrayTrie.NOT_FOUND) {
+                ids.addAll(overlay.idsOf(overlayKey));
+            }
+            return new ArrayList<>(ids);
+        }
+
+        private void scan(String text, boolean overlapping, MatchBuffer buffer) {
+            if (changedIds.isEmpty()) {
+                base.trie.scan(text, overlapping, buffer);
+                return;
+            }
+            // Có lớp phủ: dò cả hai trie tại mỗi vị trí, bỏ khóa gốc chỉ còn trỏ tới từ vựng đã thay đổi
+            LongestMatch longest = new LongestMatch(maskedBaseKeys);
+            int start = 0;
+            while (start < text.length()) {
+                longest.reset();
+                base.trie.prefixesAt(text, start, longest.baseConsumer);
+                if (overlay != null) {
+                    overlay.trie.prefixesAt(text, start, longest.overlayConsumer);
+                }
+                if (longest.end > 0) {
+                    buffer.add(start, longest.end, longest.baseKey, longest.overlayKey);
+                    start = overlapping ? start + 1 : longest.end;
+                } else {
+                    start++;
+                }
+            }
+        }
+    }
+
+    /**
+     * Giữ khớp dài nhất tại một vị trí; khi khóa gốc và khóa phủ dài bằng nhau, cả hai được giữ.
+     * Được tạo một lần cho mỗi lần quét cùng hai consumer của nó (khóa gốc bị che được bỏ qua).
+     */
+    private static final class LongestMatch {
+        private final BitSet maskedBaseKeys;
+        private final DoubleArrayTrie.MatchConsumer baseConsumer;
+        private final DoubleArrayTrie.MatchConsumer overlayConsumer;
+        private int end;
+        private int baseKey;
+        private int overlayKey;
+
+        private LongestMatch(BitSet maskedBaseKeys) {
+            this.maskedBaseKeys = maskedBaseKeys;
+            this.baseConsumer = (start, matchEnd, key) -> {
+                if (!this.maskedBaseKeys.get(key)) {
+                    accept(matchEnd, key, DoubleArrayTrie.NOT_FOUND);
+                }
+            };
+            this.overlayConsumer = (start, matchEnd, key) -> accept(matchEnd, DoubleArrayTrie.NOT_FOUND, key);
+        }
+
+        private void reset() {
+            end = -1;
+            baseKey = DoubleArrayTrie.NOT_FOUND;
+            overlayKey = DoubleArrayTrie.NOT_FOUND;
+        }
+
+        private void accept(int end, int baseKey, int overlayKey) {
+            if (end > this.end) {
+                this.end = end;
+                this.baseKey = baseKey;
+                this.overlayKey = overlayKey;
+            } else if (end == this.end) {
+                this.baseKey = Math.max(this.baseKey, baseKey);
+                this.overlayKey = Math.max(this.overlayKey, overlayKey);
+            }
+        }
+    }
+
+    private static final class MatchBuffer implements DoubleArrayTrie.MatchConsumer {
+        private int[] matches = new int[128];
+        private int count;
+
+        @Override
+        public void accept(int start, int end, int value) {
+            add(start, end, value, DoubleArrayTrie.NOT_FOUND);
+        }
+
+        private void add(int start, int end, int baseKey, int overlayKey) {
+            if ((count + 1) * 4 > matches.length) {
+                matches = Arrays.copyOf(matches, matches.length * 2);
+            }
+            matches[count * 4] = start;
+            matches[count * 4 + 1] = end;
+            matches[count * 4 + 2] = baseKey;
+            matches[count * 4 + 3] = overlayKey;
+            count++;
+        }
+    }
+}
@@ -0,0 +1,264 @@
+package com.domain.backend.util;
+
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Bộ khử biến đổi (deinflection) động từ và tính từ -i dựa trên luật, để dạng đã chia như 食べた, 飲みます
+ * hay 高くない tìm được entry ở dạng từ điển (食べる, 飲む, 高い).
+ * <p>
+ * Mỗi luật thay một hậu tố đã chia bằng hậu tố của dạng gốc, kèm điều kiện về loại từ: luật chỉ áp dụng khi
+ * dạng hiện tại có thể thuộc loại đầu vào của luật (ví dụ 〜ない chia như tính từ -i), và dạng sinh ra mang loại
+ * đầu ra của luật. Các luật được áp dụng lặp lại theo chiều rộng, nên các chuỗi biến đổi như
+ * 食べていなかった → 食べていない → 食べている → 食べて → 食べる được khử từng bước.
+ * <p>
+ * Bảng luật (sinh từ bảng hàng Kana của động từ godan) được biên dịch một lần khi nạp lớp thành một trie mảng kép
+ * trên các hậu tố viết ngược ({@link DoubleArrayTrie}): mọi luật khớp với đuôi của một từ được tìm bằng một lần
+ * duyệt từ ký tự cuối.
+ */
+@Component
+public class Deinflector {
+
+    // Loại từ (bitmask)
+    public static final int ANY = 0;        // Từ đầu vào: chưa biết loại, mọi luật đều áp dụng được
+    public static final int V1 = 1;         // Động từ ichidan (một đoạn)
+    public static final int V5 = 1 << 1;    // Động từ godan (năm đoạn)
+    public static final int VS = 1 << 2;    // Động từ する
+    public static final int VK = 1 << 3;    // Động từ 来る
+    public static final int ADJ_I = 1 << 4; // Tính từ -i
+    public static final int TE = 1 << 5;    // Dạng て (chỉ là bước trung gian)
+    public static final int VERB = V1 | V5 | VS | VK;
+
+    private static final int MAX_CANDIDATES = 128; // Giới hạn số dạng sinh ra cho một từ
+
+    // {hậu tố dạng từ điển, hàng あ, hàng い, hàng え, hàng お, dạng て, dạng た} của động từ godan
+    private static final String[][] GODAN_ROWS = {
+            {"う", "わ", "い", "え", "お", "って", "った"},
+            {"く", "か", "き", "け", "こ", "いて", "いた"},
+            {"ぐ", "が", "ぎ", "げ", "ご", "いで", "いだ"},
+            {"す", "さ", "し", "せ", "そ", "して", "した"},
+            {"つ", "た", "ち", "て", "と", "って", "った"},
+            {"ぬ", "な", "に", "ね", "の", "んで", "んだ"},
+            {"ぶ", "ば", "び", "べ", "ぼ", "んで", "んだ"},
+            {"む", "ま", "み", "め", "も", "んで", "んだ"},
+            {"る", "ら", "り", "れ", "ろ", "って", "った"},
+    };
+    private static final int ROW_A = 1;
+    private static final int ROW_I = 2;
+    private static final int ROW_E = 3;
+    private static final int ROW_O = 4;
+    private static final int ROW_TE = 5;
+    private static final int ROW_TA = 6;
+
+    // Các luật đã biên dịch: trie trên hậu tố viết ngược; luật của khóa k là RULE_*[RULE_OFFSETS[k] .. RULE_OFFSETS[k + 1])
+    private static final DoubleArrayTrie SUFFIXES;
+    private static final int[] RULE_OFFSETS;
+    private static final int[] RULE_FROM_LENGTHS;
+    private static final String[] RULE_TO;
+    private static final int[] RULE_IN;
+    private static final int[] RULE_OUT;
+    private static final String[] RULE_REASONS;
+
+    static {
+        List<Rule> rules = new ArrayList<>();
+
+        // Động từ godan: {lý do, hàng của gốc, đuôi sau gốc, loại đầu vào}
+        Object[][] godanTemplates = {
+                {"negative", ROW_A, "ない", ADJ_I},
+                {"past", ROW_TA, "", ANY},
+                {"te", ROW_TE, "", TE},
+                {"polite", ROW_I, "ます", ANY},
+                {"polite-past", ROW_I, "ました", ANY},
+                {"polite-negative", ROW_I, "ません", ANY},
+                {"polite-past-negative", ROW_I, "ませんでした", ANY},
+                {"polite-volitional", ROW_I, "ましょう", ANY},
+                {"tai", ROW_I, "たい", ADJ_I},
+                {"volitional", ROW_O, "う", ANY},
+                {"potential", ROW_E, "る", V1},
+                {"passive", ROW_A, "れる", V1},
+                {"causative", ROW_A, "せる", V1},
+                {"imperative", ROW_E, "", ANY},
+                {"conditional", ROW_E, "ば", ANY},
+        };
+        for (String[] row : GODAN_ROWS) {
+            for (Object[] template : godanTemplates) {
+                rules.add(new Rule(row[(int) template[1]] + template[2], row[0], (int) template[3], V5, (String) template[0]));
+            }
+        }
+        // 行く có dạng て/た bất quy tắc
+        for (String iku : new String[]{"い", "行"}) {
+            rules.add(new Rule(iku + "って", iku + "く", TE, V5, "te"));
+            rules.add(new Rule(iku + "った", iku + "く", ANY, V5, "past"));
+        }
+
+        // Động từ ichidan: {lý do, hậu tố đã chia, loại đầu vào}
+        Object[][] ichidanRules = {
+                {"negative", "ない", ADJ_I}, {"past", "た", ANY}, {"te", "て", TE},
+                {"polite", "ます", ANY}, {"polite-past", "ました", ANY}, {"polite-negative", "ません", ANY},
+                {"polite-past-negative", "ませんでした", ANY}, {"polite-volitional", "ましょう", ANY},
+                {"tai", "たい", ADJ_I}, {"volitional", "よう", ANY}, {"potential", "られる", V1},
+                {"causative", "させる", V1}, {"imperative", "ろ", ANY}, {"imperative", "よ", ANY},
+                {"conditional", "れば", ANY},
+        };
+        for (Object[] rule : ichidanRules) {
+            rules.add(new Rule((String) rule[1], "る", (int) rule[2], V1, (String) rule[0]));
+        }
+
+        // する và 来る: {lý do, dạng đã chia của する, dạng đã chia của くる, loại đầu vào}
+        Object[][] irregularRules = {
+                {"negative", "しない", "こない", ADJ_I}, {"past", "した", "きた", ANY}, {"te", "して", "きて", TE},
+                {"polite", "します", "きます", ANY}, {"polite-past", "しました", "きました", ANY},
+                {"polite-negative", "しません", "きません", ANY},
+                {"polite-past-negative", "しませんでした", "きませんでした", ANY},
+                {"polite-volitional", "しましょう", "きましょう", ANY}, {"tai", "したい", "きたい", ADJ_I},
+                {"volitional", "しよう", "こよう", ANY}, {"potential", "できる", "こられる", V1},
+                {"passive", "される", "こられる", V1}, {"causative", "させる", "こさせる", V1},
+                {"imperative", "しろ", "こい", ANY}, {"conditional", "すれば", "くれば", ANY},
+        };
+        for (Object[] rule : irregularRules) {
+            String kuru = (String) rule[2];
+            rules.add(new Rule((String) rule[1], "する", (int) rule[3], VS, (String) rule[0]));
+            rules.add(new Rule(kuru, "くる", (int) rule[3], VK, (String) rule[0]));
+            rules.add(new Rule("来" + kuru.substring(1), "来る", (int) rule[3], VK, (String) rule[0]));
+        }
+
+        // Tính từ -i
+        rules.add(new Rule("くない", "い", ADJ_I, ADJ_I, "negative"));
+        rules.add(new Rule("かった", "い", ANY, ADJ_I, "past"));
+        rules.add(new Rule("くて", "い", TE, ADJ_I, "te"));
+        rules.add(new Rule("ければ", "い", ANY, ADJ_I, "conditional"));
+        rules.add(new Rule("くありません", "い", ANY, ADJ_I, "polite-negative"));
+        rules.add(new Rule("く", "い", ANY, ADJ_I, "adverbial"));
+
+        // Trợ động từ theo sau dạng て: 〜ている / 〜てる chia như ichidan, 〜てしまう như godan
+        for (String te : new String[]{"て", "で"}) {
+            rules.add(new Rule(te + "いる", te, V1, TE, "progressive"));
+            rules.add(new Rule(te + "る", te, V1, TE, "progressive"));
+            rules.add(new Rule(te + "しまう", te, V5, TE, "completion"));
+        }
+
+        // Gom luật theo hậu tố viết ngược, theo thứ tự khóa đã sắp xếp của trie
+        TreeMap<String, List<Rule>> rulesBySuffix = new TreeMap<>();
+        for (Rule rule : rules) {
+            rulesBySuffix.computeIfAbsent(new StringBuilder(rule.from).reverse().toString(), key -> new ArrayList<>()).add(rule);
+        }
+        SUFFIXES = DoubleArrayTrie.build(rulesBySuffix.keySet().toArray(new String[0]));
+        RULE_OFFSETS = new int[rulesBySuffix.size() + 1];
+        RULE_FROM_LENGTHS = new int[rules.size()];
+        RULE_TO = new String[rules.size()];
+        RULE_IN = new int[rules.size()];
+        RULE_OUT = new int[rules.size()];
+        RULE_REASONS = new String[rules.size()];
+        int key = 0;
+        int index = 0;
+        for (List<Rule> group : rulesBySuffix.values()) {
+            RULE_OFFSETS[key++] = index;
+            for (Rule rule : group) {
+                RULE_FROM_LENGTHS[index] = rule.from.length();
+                RULE_TO[index] = rule.to;
+                RULE_IN[index] = rule.in;
+                RULE_OUT[index] = rule.out;
+                RULE_REASONS[index] = rule.reason;
+                index++;
+            }
+        }
+        RULE_OFFSETS[key] = index;
+    }
+
+    /**
+     * Sinh mọi dạng gốc có thể của một từ, bắt đầu bằng chính từ đó (loại {@link #ANY}, không có lý do),
+     * theo thứ tự số bước khử tăng dần. Các dạng chưa chắc là từ có thật; bên gọi đối chiếu với từ điển.
+     *
+     * @param word Từ cần khử biến đổi (đã bỏ khoảng trắng).
+     * @return Danh sách dạng gốc ứng viên, không trùng (theo dạng và loại từ).
+     */
+    public List<Deinflection> deinflect(String word) {
+        List<Deinflection> results = new ArrayList<>();
+        if (word == null || word.isEmpty()) {
+            return results;
+        }
+        Set<String> seen = new HashSet<>();
+        results.add(new Deinflection(word, ANY, List.of()));
+        seen.add(word + '\u0000' + ANY);
+        for (int i = 0; i < results.size() && results.size() < MAX_CANDIDATES; i++) {
+            Deinflection current = results.get(i);
+            String term = current.term;
+            String reversed = new StringBuilder(term).reverse().toString();
+            SUFFIXES.prefixesAt(reversed, 0, (start, end, value) -> {
+                for (int rule = RULE_OFFSETS[value]; rule < RULE_OFFSETS[value + 1]; rule++) {
+                    if (current.types != ANY && (current.types & RULE_IN[rule]) == 0) {
+                        continue;
+                    }
+                    String base = term.substring(0, term.length() - RULE_FROM_LENGTHS[rule]) + RULE_TO[rule];
+                    if (base.length() < 2 || !seen.add(base + '\u0000' + RULE_OUT[rule])) {
+                        continue; // Bỏ dạng chỉ còn một ký tự (ví dụ "る" từ "た") và dạng đã sinh
+                    }
+                    List<String> reasons = new ArrayList<>(current.reasons.size() + 1);
+                    reasons.add(RULE_REASONS[rule]);
+                    reasons.addAll(current.reasons);
+                    results.add(new Deinflection(base, RULE_OUT[rule], reasons));
+                }
+            });
+        }
+        return results;
+    }
+
+    /**
+     * Một dạng gốc ứng viên.
+     */
+    public static final class Deinflection {
+        private final String term;
+        private final int types;
+        private final List<String> reasons;
+
+        public Deinflection(String term, int types, List<String> reasons) {
+            this.term = term;
+            this.types = types;
+            this.reasons = reasons;
+        }
+
+        public String getTerm() {
+            return term;
+        }
+
+        /**
+         * Loại từ có thể của dạng này (bitmask), {@link #ANY} với từ đầu vào.
+         */
+        public int getTypes() {
+            return types;
+        }
+
+        /**
+         * Các biến đổi đã khử, từ dạng gốc ra ngoài (ví dụ ["negative", "past"] cho 高くなかった).
+         */
+        public List<String> getReasons() {
+            return reasons;
+        }
+
+        @Override
+        public String toString() {
+            return term + " " + reasons;
+        }
+    }
+
+    private static final class Rule {
+        private final String from;
+        private final String to;
+        private final int in;
+        private final int out;
+        private final String reason;
+
+        private Rule(String from, String to, int in, int out, String reason) {
+            this.from = from;
+            this.to = to;
+            this.in = in;
+            this.out = out;
+            this.reason = reason;
+        }
+    }
+}
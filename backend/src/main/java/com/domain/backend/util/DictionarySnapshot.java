@@ -0,0 +1,404 @@
+package com.domain.backend.util;
+
+import com.domain.backend.entity.KanjiEntry;
+import com.domain.backend.entity.VocabularyEntry;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bản sao chỉ đọc của toàn bộ từ điển (Kanji và từ vựng) trong heap, tổ chức theo cột (struct-of-arrays).
+ * <p>
+ * Mỗi bản ghi được xác định bằng một ordinal kiểu int; mỗi trường là một mảng song song đánh theo ordinal thay vì
+ * một đối tượng entity riêng, nên không tốn header đối tượng và con trỏ cho từng bản ghi. Chuỗi được gộp (intern)
+ * trong phạm vi snapshot: các giá trị lặp lại nhiều như cấp độ JLPT, loại từ, bộ thủ hay âm đọc chỉ được lưu một lần.
+ * Tra cứu theo id, ký tự Kanji hoặc từ tiếng Nhật là một lần dò trong bảng băm địa chỉ mở trên mảng int
+ * trả về ordinal. Các từ vựng đồng tự (cùng từ tiếng Nhật) được nối với nhau theo thứ tự ordinal qua một mảng int,
+ * nên có thể duyệt mọi bản ghi của một từ mà không cần thêm đối tượng.
+ * <p>
+ * Đối tượng là bất biến sau khi dựng nên có thể dùng đồng thời từ nhiều luồng. Các phương thức trả về entity
+ * tạo đối tượng mới mỗi lần gọi, nên bên gọi có thể sửa đổi kết quả mà không ảnh hưởng tới snapshot.
+ */
+public final class DictionarySnapshot {
+
+    public static final int NOT_FOUND = -1;
+
+    private static final String[] NO_STRINGS = new String[0];
+    private static final long NO_ENT_SEQ = Long.MIN_VALUE; // entSeq null (từ vựng tạo thủ công)
+
+    // Cột của Kanji, đánh theo ordinal
+    private final String[] kanjiIds;
+    private final String[] kanjiCharacters;
+    private final String[] kanjiOnyomi;
+    private final String[] kanjiKunyomi;
+    private final String[] kanjiMeanings;
+    private final String[] kanjiFurigana;
+    private final int[] kanjiStrokeCounts;
+    private final String[] kanjiStrokeOrderSvgHashes;
+    private final String[][] kanjiExamples;
+    private final String[][] kanjiRadicals;
+    private final String[] kanjiJlptLevels;
+    private final OrdinalIndex kanjiById;
+    private final OrdinalIndex kanjiByCharacter;
+
+    // Cột của từ vựng, đánh theo ordinal
+    private final String[] vocabularyIds;
+    private final long[] vocabularyEntSeqs;      // NO_ENT_SEQ khi entSeq là null
+    private final String[] vocabularyWords;
+    private final String[] vocabularyFurigana;
+    private final String[] vocabularyRomaji;
+    private final String[] vocabularyMeanings;
+    private final String[][] vocabularyExampleSentences;
+    private final String[] vocabularyPartsOfSpeech;
+    private final String[] vocabularyJlptLevels;
+    private final String[] vocabularyAudioUrls;
+    private final OrdinalIndex vocabularyById;
+    private final OrdinalIndex vocabularyByWord;
+    private final int[] vocabularyNextByWord; // Ordinal kế tiếp có cùng từ tiếng Nhật, hoặc NOT_FOUND
+
+    private final int uniqueStrings;
+    private final long estimatedBytes;
+
+    private DictionarySnapshot(Builder builder) {
+        int kanjiCount = builder.kanji.size();
+        kanjiIds = new String[kanjiCount];
+        kanjiCharacters = new String[kanjiCount];
+        kanjiOnyomi = new String[kanjiCount];
+        kanjiKunyomi = new String[kanjiCount];
+        kanjiMeanings = new String[kanjiCount];
+        kanjiFurigana = new String[kanjiCount];
+        kanjiStrokeCounts = new int[kanjiCount];
+        kanjiStrokeOrderSvgHashes = new String[kanjiCount];
+        kanjiExamples = new String[kanjiCount][];
+        kanjiRadicals = new String[kanjiCount][];
+        kanjiJlptLevels = new String[kanjiCount];
+        for (int ordinal = 0; ordinal < kanjiCount; ordinal++) {
+            KanjiEntry entry = builder.kanji.get(ordinal);
+            kanjiIds[ordinal] = builder.intern(entry.getId());
+            kanjiCharacters[ordinal] = builder.intern(entry.getKanjiCharacter());
+            kanjiOnyomi[ordinal] = builder.intern(entry.getOnyomi());
+            kanjiKunyomi[ordinal] = builder.intern(entry.getKunyomi());
+            kanjiMeanings[ordinal] = builder.intern(entry.getMeaning());
+            kanjiFurigana[ordinal] = builder.intern(entry.getFurigana());
+            kanjiStrokeCounts[ordinal] = entry.getStrokeCount();
+            kanjiStrokeOrderSvgHashes[ordinal] = entry.getStrokeOrderSvgHash();
+            kanjiExamples[ordinal] = builder.intern(entry.getExamples());
+            kanjiRadicals[ordinal] = builder.intern(entry.getRadicals());
+            kanjiJlptLevels[ordinal] = builder.intern(entry.getJlptLevel());
+        }
+        kanjiById = new OrdinalIndex(kanjiIds);
+        kanjiByCharacter = new OrdinalIndex(kanjiCharacters);
+
+        int vocabularyCount = builder.vocabulary.size();
+        vocabularyIds = new String[vocabularyCount];
+        vocabularyEntSeqs = new long[vocabularyCount];
+        vocabularyWords = new String[vocabularyCount];
+        vocabularyFurigana = new String[vocabularyCount];
+        vocabularyRomaji = new String[vocabularyCount];
+        vocabularyMeanings = new String[vocabularyCount];
+        vocabularyExampleSentences = new String[vocabularyCount][];
+        vocabularyPartsOfSpeech = new String[vocabularyCount];
+        vocabularyJlptLevels = new String[vocabularyCount];
+        vocabularyAudioUrls = new String[vocabularyCount];
+        for (int ordinal = 0; ordinal < vocabularyCount; ordinal++) {
+            VocabularyEntry entry = builder.vocabulary.get(ordinal);
+            vocabularyIds[ordinal] = builder.intern(entry.getId());
+            vocabularyEntSeqs[ordinal] = entry.getEntSeq() == null ? NO_ENT_SEQ : entry.getEntSeq();
+            vocabularyWords[ordinal] = builder.intern(entry.getJapaneseWord());
+            vocabularyFurigana[ordinal] = builder.intern(entry.getFurigana());
+            vocabularyRomaji[ordinal] = builder.intern(entry.getRomaji());
+            vocabularyMeanings[ordinal] = builder.intern(entry.getMeaning());
+            vocabularyExampleSentences[ordinal] = builder.intern(entry.getExampleSentences());
+            vocabularyPartsOfSpeech[ordinal] = builder.intern(entry.getPartOfSpeech());
+            vocabularyJlptLevels[ordinal] = builder.intern(entry.getJlptLevel());
+            vocabularyAudioUrls[ordinal] = builder.intern(entry.getAudioUrl());
+        }
+        vocabularyById = new OrdinalIndex(vocabularyIds);
+        vocabularyByWord = new OrdinalIndex(vocabularyWords);
+        vocabularyNextByWord = chainDuplicates(vocabularyByWord, vocabularyWords);
+
+        uniqueStrings = builder.strings.size();
+        estimatedBytes = estimateBytes(builder);
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public int kanjiCount() {
+        return kanjiIds.length;
+    }
+
+    public int vocabularyCount() {
+        return vocabularyIds.length;
+    }
+
+    /**
+     * Số chuỗi khác nhau được lưu sau khi gộp.
+     */
+    public int uniqueStrings() {
+        return uniqueStrings;
+    }
+
+    /**
+     * Kích thước ước tính trong heap (byte): các mảng cột, bảng băm và các chuỗi khác nhau
+     * (giả định compressed oops và compact strings).
+     */
+    public long estimatedBytes() {
+        return estimatedBytes;
+    }
+
+    /**
+     * @return Ordinal của Kanji có id đã cho, hoặc {@value #NOT_FOUND}.
+     */
+    public int kanjiOrdinalById(String id) {
+        return kanjiById.find(kanjiIds, id);
+    }
+
+    /**
+     * @return Ordinal của Kanji có ký tự đã cho, hoặc {@value #NOT_FOUND}.
+     */
+    public int kanjiOrdinalByCharacter(String kanjiCharacter) {
+        return kanjiByCharacter.find(kanjiCharacters, kanjiCharacter);
+    }
+
+    /**
+     * @return Ordinal của từ vựng có id đã cho, hoặc {@value #NOT_FOUND}.
+     */
+    public int vocabularyOrdinalById(String id) {
+        return vocabularyById.find(vocabularyIds, id);
+    }
+
+    /**
+     * @return Ordinal đầu tiên của từ vựng có từ tiếng Nhật đã cho (xem {@link #nextVocabularyOrdinalByWord}), hoặc
+     * {@value #NOT_FOUND}.
+     */
+    public int vocabularyOrdinalByWord(String japaneseWord) {
+        return vocabularyByWord.find(vocabularyWords, japaneseWord);
+    }
+
+    /**
+     * @return Ordinal kế tiếp (lớn hơn) của từ vựng có cùng từ tiếng Nhật với ordinal đã cho, hoặc {@value #NOT_FOUND}.
+     */
+    public int nextVocabularyOrdinalByWord(int ordinal) {
+        return vocabularyNextByWord[ordinal];
+    }
+
+    /**
+     * @return ID của Kanji tại ordinal đã cho (không tạo entity).
+     */
+    public String kanjiIdAt(int ordinal) {
+        return kanjiIds[ordinal];
+    }
+
+    /**
+     * @return ID của từ vựng tại ordinal đã cho (không tạo entity).
+     */
+    public String vocabularyIdAt(int ordinal) {
+        return vocabularyIds[ordinal];
+    }
+
+    /**
+     * Tạo entity Kanji mới từ các cột tại ordinal đã cho. Các trường khóa tìm kiếm và bản thân SVG thứ tự nét
+     * (chỉ có địa chỉ nội dung) không được lưu trong snapshot.
+     */
+    public KanjiEntry kanjiAt(int ordinal) {
+        KanjiEntry entry = new KanjiEntry();
+        entry.setId(kanjiIds[ordinal]);
+        entry.setKanjiCharacter(kanjiCharacters[ordinal]);
+        entry.setOnyomi(kanjiOnyomi[ordinal]);
+        entry.setKunyomi(kanjiKunyomi[ordinal]);
+        entry.setMeaning(kanjiMeanings[ordinal]);
+        entry.setFurigana(kanjiFurigana[ordinal]);
+        entry.setStrokeCount(kanjiStrokeCounts[ordinal]);
+        entry.setStrokeOrderSvgHash(kanjiStrokeOrderSvgHashes[ordinal]);
+        entry.setExamples(toList(kanjiExamples[ordinal]));
+        entry.setRadicals(toList(kanjiRadicals[ordinal]));
+        entry.setJlptLevel(kanjiJlptLevels[ordinal]);
+        return entry;
+    }
+
+    /**
+     * Tạo entity từ vựng mới từ các cột tại ordinal đã cho. Các trường khóa tìm kiếm không được lưu trong snapshot.
+     */
+    public VocabularyEntry vocabularyAt(int ordinal) {
+        VocabularyEntry entry = new VocabularyEntry();
+        entry.setId(vocabularyIds[ordinal]);
+        entry.setEntSeq(vocabularyEntSeqs[ordinal] == NO_ENT_SEQ ? null : vocabularyEntSeqs[ordinal]);
+        entry.setJapaneseWord(vocabularyWords[ordinal]);
+        entry.setFurigana(vocabularyFurigana[ordinal]);
+        entry.setRomaji(vocabularyRomaji[ordinal]);
+        entry.setMeaning(vocabularyMeanings[ordinal]);
+        entry.setExampleSentences(toList(vocabularyExampleSentences[ordinal]));
+        entry.setPartOfSpeech(vocabularyPartsOfSpeech[ordinal]);
+        entry.setJlptLevel(vocabularyJlptLevels[ordinal]);
+        entry.setAudioUrl(vocabularyAudioUrls[ordinal]);
+        return entry;
+    }
+
+    /**
+     * Nối các ordinal có cùng khóa thành chuỗi tăng dần bắt đầu từ ordinal mà chỉ mục trả về (bản ghi đầu tiên).
+     */
+    private static int[] chainDuplicates(OrdinalIndex index, String[] keys) {
+        int[] next = new int[keys.length];
+        int[] tails = new int[keys.length]; // Chỉ dùng tại ordinal đầu của mỗi khóa: ordinal cuối của chuỗi
+        Arrays.fill(next, NOT_FOUND);
+        for (int ordinal = 0; ordinal < keys.length; ordinal++) {
+            int first = index.find(keys, keys[ordinal]);
+            if (first == NOT_FOUND) {
+                continue; // Khóa null
+            }
+            if (first == ordinal) {
+                tails[ordinal] = ordinal;
+            } else {
+                next[tails[first]] = ordinal;
+                tails[first] = ordinal;
+            }
+        }
+        return next;
+    }
+
+    private static List<String> toList(String[] values) {
+        return values == null ? null : new ArrayList<>(Arrays.asList(values));
+    }
+
+    private long estimateBytes(Builder builder) {
+        long bytes = 0;
+        for (String value : builder.strings.keySet()) {
+            bytes += stringBytes(value);
+        }
+        for (String[] column : new String[][]{kanjiIds, kanjiCharacters, kanjiOnyomi, kanjiKunyomi, kanjiMeanings,
+                kanjiFurigana, kanjiStrokeOrderSvgHashes, kanjiJlptLevels, vocabularyIds, vocabularyWords, vocabularyFurigana,
+                vocabularyRomaji, vocabularyMeanings, vocabularyPartsOfSpeech, vocabularyJlptLevels, vocabularyAudioUrls}) {
+            bytes += referenceArrayBytes(column.length);
+        }
+        for (String[][] column : new String[][][]{kanjiExamples, kanjiRadicals, vocabularyExampleSentences}) {
+            bytes += referenceArrayBytes(column.length);
+            for (String[] values : column) {
+                bytes += values == null ? 0 : referenceArrayBytes(values.length);
+            }
+        }
+        bytes += align(16 + 4L * kanjiStrokeCounts.length) + align(16 + 4L * vocabularyNextByWord.length);
+        bytes += align(16 + 8L * vocabularyEntSeqs.length);
+        bytes += kanjiById.bytes() + kanjiByCharacter.bytes() + vocabularyById.bytes() + vocabularyByWord.bytes();
+        return bytes;
+    }
+
+    private static long stringBytes(String value) {
+        boolean latin1 = true;
+        for (int i = 0; i < value.length() && latin1; i++) {
+            latin1 = value.charAt(i) < 256;
+        }
+        return 24 + align(16 + (long) value.length() * (latin1 ? 1 : 2)); // String + mảng byte bên trong
+    }
+
+    private static long referenceArrayBytes(int length) {
+        return align(16 + 4L * length);
+    }
+
+    private static long align(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+
+    /**
+     * Thu thập các entity và gộp chuỗi trước khi dựng snapshot.
+     */
+    public static final class Builder {
+        private final List<KanjiEntry> kanji = new ArrayList<>();
+        private final List<VocabularyEntry> vocabulary = new ArrayList<>();
+        private final Map<String, String> strings = new HashMap<>();
+
+        private Builder() {
+        }
+
+        public Builder addKanji(KanjiEntry entry) {
+            kanji.add(entry);
+            return this;
+        }
+
+        public Builder addVocabulary(VocabularyEntry entry) {
+            vocabulary.add(entry);
+            return this;
+        }
+
+        public DictionarySnapshot build() {
+            return new DictionarySnapshot(this);
+        }
+
+        private String intern(String value) {
+            return value == null ? null : strings.computeIfAbsent(value, key -> key);
+        }
+
+        private String[] intern(List<String> values) {
+            if (values == null) {
+                return null;
+            }
+            if (values.isEmpty()) {
+                return NO_STRINGS;
+            }
+            String[] result = new String[values.size()];
+            for (int i = 0; i < result.length; i++) {
+                result[i] = intern(values.get(i));
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Bảng băm địa chỉ mở (dò tuyến tính) từ khóa tới ordinal. Chỉ lưu ordinal + 1 trong một mảng int;
+     * khóa được so sánh trực tiếp với cột tương ứng. Khi trùng khóa, bản ghi đầu tiên được giữ.
+     */
+    private static final class OrdinalIndex {
+        private final int[] slots; // 0 = ô trống, ngược lại là ordinal + 1
+        private final int mask;
+
+        private OrdinalIndex(String[] keys) {
+            int capacity = Integer.highestOneBit(Math.max(4, keys.length * 2 - 1)) << 1; // Hệ số tải <= 0.5
+            slots = new int[capacity];
+            mask = capacity - 1;
+            for (int ordinal = 0; ordinal < keys.length; ordinal++) {
+                String key = keys[ordinal];
+                if (key == null) {
+                    continue;
+                }
+                int slot = mix(key.hashCode()) & mask;
+                while (slots[slot] != 0 && !key.equals(keys[slots[slot] - 1])) {
+                    slot = (slot + 1) & mask;
+                }
+                if (slots[slot] == 0) {
+                    slots[slot] = ordinal + 1;
+                }
+            }
+        }
+
+        private int find(String[] keys, String key) {
+            if (key == null) {
+                return NOT_FOUND;
+            }
+            int slot = mix(key.hashCode()) & mask;
+            while (slots[slot] != 0) {
+                int ordinal = slots[slot] - 1;
+                if (key.equals(keys[ordinal])) {
+                    return ordinal;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return NOT_FOUND;
+        }
+
+        private long bytes() {
+            return align(16 + 4L * slots.length);
+        }
+
+        /**
+         * Trộn các bit của hashCode để các chuỗi có hash gần nhau không dồn vào cùng một vùng của bảng.
+         */
+        private static int mix(int hash) {
+            int h = hash * 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+    }
+}
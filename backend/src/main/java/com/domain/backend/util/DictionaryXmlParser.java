@@ -0,0 +1,296 @@
+package com.domain.backend.util;
+
+import com.domain.backend.entity.KanjiEntry;
+import com.domain.backend.entity.VocabularyEntry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.xml.XMLConstants;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.InputStream;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Đọc các tệp từ điển JMdict và KANJIDIC2 bằng StAX: mỗi entry được chuyển thành entity và giao cho bên gọi
+ * ngay khi đọc xong, nên bộ nhớ sử dụng không phụ thuộc kích thước tệp.
+ * <p>
+ * JMdict khai báo các mã (loại từ, lĩnh vực...) dưới dạng entity trong DTD nội bộ. Các tham chiếu entity không được
+ * thay thế mà được đọc trực tiếp dưới dạng tên mã (ví dụ {@code &v5r;} thành "v5r"), vừa gọn hơn vừa tránh giới hạn
+ * số lần mở rộng entity của JAXP. Entity bên ngoài bị tắt.
+ */
+@Component
+public class DictionaryXmlParser {
+
+    private static final int MAX_SENSES = 3; // Số nghĩa đầu tiên của một từ được đưa vào meaning
+
+    @Autowired
+    private RomajiTransliterator romajiTransliterator;
+
+    /**
+     * Đọc tệp JMdict, gọi consumer cho mỗi entry theo thứ tự trong tệp.
+     * <p>
+     * japaneseWord là cách viết Kanji đầu tiên (hoặc cách đọc đầu tiên nếu từ chỉ viết bằng Kana), furigana là cách
+     * đọc đầu tiên, meaning gồm các nghĩa tiếng Anh của tối đa {@value #MAX_SENSES} nghĩa đầu tiên và partOfSpeech
+     * là loại từ đầu tiên của nghĩa đầu tiên. entSeq là số thứ tự (ent_seq) của entry, định danh ổn định giữa các
+     * phiên bản JMdict và phân biệt các từ đồng tự (cùng cách viết, khác entry).
+     *
+     * @param input    Nội dung tệp JMdict (XML, UTF-8).
+     * @param consumer Nhận từng entry đã chuyển đổi; ngoại lệ ném ra từ consumer sẽ dừng việc đọc.
+     * @throws XMLStreamException nếu tệp không phải XML hợp lệ.
+     */
+    public void parseJmdict(InputStream input, Consumer<VocabularyEntry> consumer) throws XMLStreamException {
+        XMLStreamReader reader = createReader(input);
+        try {
+            List<String> kanjiForms = new ArrayList<>();
+            List<String> readings = new ArrayList<>();
+            List<List<String>> senses = new ArrayList<>();
+            String partOfSpeech = null;
+            Long entSeq = null;
+            StringBuilder text = new StringBuilder();
+            boolean englishGloss = false;
+            while (reader.hasNext()) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    String name = reader.getLocalName();
+                    text.setLength(0);
+                    switch (name) {
+                        case "entry":
+                            kanjiForms.clear();
+                            readings.clear();
+                            senses.clear();
+                            partOfSpeech = null;
+                            entSeq = null;
+                            break;
+                        case "sense":
+                            senses.add(new ArrayList<>());
+                            break;
+                        case "gloss":
+                            String lang = reader.getAttributeValue(XMLConstants.XML_NS_URI, "lang");
+                            englishGloss = lang == null || lang.equals("eng");
+                            break;
+                        default:
+                            break;
+                    }
+                } else if (event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA) {
+                    text.append(reader.getText());
+                } else if (event == XMLStreamConstants.ENTITY_REFERENCE) {
+                    text.append(reader.getLocalName());
+                } else if (event == XMLStreamConstants.END_ELEMENT) {
+                    switch (reader.getLocalName()) {
+                        case "ent_seq":
+                            entSeq = parseEntSeq(text.toString().trim());
+                            break;
+                        case "keb":
+                            kanjiForms.add(text.toString().trim());
+                            break;
+                        case "reb":
+                            readings.add(text.toString().trim());
+                            break;
+                        case "pos":
+                            if (partOfSpeech == null && senses.size() == 1) {
+                                partOfSpeech = partOfSpeechLabel(text.toString().trim());
+                            }
+                            break;
+                        case "gloss":
+                            if (englishGloss && !senses.isEmpty() && senses.size() <= MAX_SENSES) {
+                                senses.get(senses.size() - 1).add(text.toString().trim());
+                            }
+                            break;
+                        case "entry":
+                            if (!readings.isEmpty()) {
+                                consumer.accept(toVocabularyEntry(entSeq, kanjiForms, readings, senses, partOfSpeech));
+                            }
+                            break;
+                        default:
+                            break;
+                    }
+                    text.setLength(0);
+                }
+            }
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * Đọc tệp KANJIDIC2, gọi consumer cho mỗi ký tự theo thứ tự trong tệp.
+     * <p>
+     * On'yomi và Kun'yomi được nối bằng "、", meaning gồm các nghĩa tiếng Anh, radicals là bộ thủ Khang Hy (classical)
+     * của ký tự. Cấp JLPT cũ (1 - 4) được quy đổi gần đúng sang cấp mới: 4 → N5, 3 → N4, 2 → N2, 1 → N1.
+     *
+     * @param input    Nội dung tệp KANJIDIC2 (XML, UTF-8).
+     * @param consumer Nhận từng Kanji đã chuyển đổi; ngoại lệ ném ra từ consumer sẽ dừng việc đọc.
+     * @throws XMLStreamException nếu tệp không phải XML hợp lệ.
+     */
+    public void parseKanjidic(InputStream input, Consumer<KanjiEntry> consumer) throws XMLStreamException {
+        XMLStreamReader reader = createReader(input);
+        try {
+            KanjiEntry current = null;
+            List<String> onyomi = new ArrayList<>();
+            List<String> kunyomi = new ArrayList<>();
+            List<String> meanings = new ArrayList<>();
+            StringBuilder text = new StringBuilder();
+            String attribute = null; // r_type của reading, m_lang của meaning hoặc rad_type của rad_value
+            while (reader.hasNext()) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    String name = reader.getLocalName();
+                    text.setLength(0);
+                    switch (name) {
+                        case "character":
+                            current = new KanjiEntry();
+                            onyomi.clear();
+                            kunyomi.clear();
+                            meanings.clear();
+                            break;
+                        case "reading":
+                            attribute = reader.getAttributeValue(null, "r_type");
+                            break;
+                        case "meaning":
+                            attribute = reader.getAttributeValue(null, "m_lang");
+                            break;
+                        case "rad_value":
+                            attribute = reader.getAttributeValue(null, "rad_type");
+                            break;
+                        default:
+                            break;
+                    }
+                } else if (event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA) {
+                    text.append(reader.getText());
+                } else if (event == XMLStreamConstants.END_ELEMENT && current != null) {
+                    String value = text.toString().trim();
+                    switch (reader.getLocalName()) {
+                        case "literal":
+                            current.setKanjiCharacter(value);
+                            break;
+                        case "stroke_count":
+                            if (current.getStrokeCount() == 0) { // Các giá trị sau là cách đếm sai thường gặp
+                                current.setStrokeCount(parseInt(value));
+                            }
+                            break;
+                        case "jlpt":
+                            current.setJlptLevel(jlptLevel(parseInt(value)));
+                            break;
+                        case "rad_value":
+                            int radical = parseInt(value);
+                            if ("classical".equals(attribute) && radical >= 1 && radical <= 214) {
+                                // Ký tự bộ thủ Khang Hy (U+2F00..) được NFKC quy về chữ Hán tương ứng
+                                current.setRadicals(List.of(Normalizer.normalize(
+                                        String.valueOf((char) (0x2F00 + radical - 1)), Normalizer.Form.NFKC)));
+                            }
+                            break;
+                        case "reading":
+                            if ("ja_on".equals(attribute)) {
+                                onyomi.add(value);
+                            } else if ("ja_kun".equals(attribute)) {
+                                kunyomi.add(value);
+                            }
+                            break;
+                        case "meaning":
+                            if (attribute == null) {
+                                meanings.add(value);
+                            }
+                            break;
+                        case "character":
+                            if (current.getKanjiCharacter() != null && !current.getKanjiCharacter().isEmpty()) {
+                                current.setOnyomi(onyomi.isEmpty() ? null : String.join("、", onyomi));
+                                current.setKunyomi(kunyomi.isEmpty() ? null : String.join("、", kunyomi));
+                                current.setMeaning(meanings.isEmpty() ? null : String.join(", ", meanings));
+                                consumer.accept(current);
+                            }
+                            current = null;
+                            break;
+                        default:
+                            break;
+                    }
+                    text.setLength(0);
+                }
+            }
+        } finally {
+            reader.close();
+        }
+    }
+
+    private static XMLStreamReader createReader(InputStream input) throws XMLStreamException {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, true); // Cần để đọc các entity khai báo trong DTD nội bộ
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_REPLACING_ENTITY_REFERENCES, false);
+        return factory.createXMLStreamReader(input, "UTF-8");
+    }
+
+    private VocabularyEntry toVocabularyEntry(Long entSeq, List<String> kanjiForms, List<String> readings,
+                                              List<List<String>> senses, String partOfSpeech) {
+        VocabularyEntry entry = new VocabularyEntry();
+        entry.setEntSeq(entSeq);
+        String reading = readings.get(0);
+        entry.setJapaneseWord(kanjiForms.isEmpty() ? reading : kanjiForms.get(0));
+        entry.setFurigana(reading);
+        entry.setRomaji(romajiTransliterator.toRomaji(reading));
+        List<String> meanings = new ArrayList<>(senses.size());
+        for (List<String> glosses : senses) {
+            if (!glosses.isEmpty()) {
+                meanings.add(String.join(", ", glosses));
+            }
+        }
+        entry.setMeaning(meanings.isEmpty() ? null : String.join("; ", meanings));
+        entry.setPartOfSpeech(partOfSpeech);
+        return entry;
+    }
+
+    private static Long parseEntSeq(String value) {
+        try {
+            return Long.valueOf(value);
+        } catch (NumberFormatException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * Quy đổi mã loại từ của JMdict về các nhãn đang dùng trong hệ thống; mã khác được giữ nguyên.
+     */
+    private static String partOfSpeechLabel(String code) {
+        if (code.startsWith("adj")) {
+            return "Adjective";
+        }
+        if (code.startsWith("adv")) {
+            return "Adverb";
+        }
+        if (code.equals("n") || code.startsWith("n-")) {
+            return "Noun";
+        }
+        if (code.startsWith("v")) {
+            return "Verb";
+        }
+        return code;
+    }
+
+    private static String jlptLevel(int oldLevel) {
+        switch (oldLevel) {
+            case 4:
+                return "N5";
+            case 3:
+                return "N4";
+            case 2:
+                return "N2";
+            case 1:
+                return "N1";
+            default:
+                return null;
+        }
+    }
+
+    private static int parseInt(String value) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException ex) {
+            return 0;
+        }
+    }
+}
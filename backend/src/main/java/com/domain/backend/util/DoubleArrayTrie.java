@@ -0,0 +1,320 @@
+package com.domain.backend.util;
+
+import java.util.Arrays;
+
+/**
+ * Trie mảng kép (double-array trie) chỉ đọc trên một tập khóa chuỗi, dùng để quét văn bản tìm các khóa
+ * khớp dài nhất.
+ * <p>
+ * Mỗi nút là một chỉ số mảng; chuyển trạng thái từ nút {@code s} theo ký tự có mã {@code c} là
+ * {@code t = base[s] + c}, hợp lệ khi {@code check[t] == s}. Ký tự được ánh xạ sang mã dày đặc 1..K theo
+ * bảng chữ cái của các khóa, nên mảng không bị thưa theo khoảng mã Unicode. Một bước chuyển chỉ là hai lần đọc
+ * mảng int, nên việc quét không cấp phát đối tượng nào cho từng ký tự.
+ * <p>
+ * Giá trị của một khóa là vị trí của nó trong mảng khóa đã sắp xếp truyền vào {@link #build(String[])}.
+ * Đối tượng là bất biến sau khi dựng nên có thể dùng đồng thời từ nhiều luồng.
+ */
+public final class DoubleArrayTrie {
+
+    public static final int NOT_FOUND = -1;
+
+    private static final int FREE = -1; // Giá trị check của ô chưa dùng
+    private static final int ROOT = 0;
+
+    private final char[] codes;  // Ký tự → mã dày đặc (1..K); 0 nếu ký tự không xuất hiện trong khóa nào
+    private final int[] base;
+    private final int[] check;
+    private final int[] values;  // Vị trí khóa kết thúc tại nút, hoặc NOT_FOUND
+    private final int keyCount;
+
+    /**
+     * Nhận một khớp khi quét văn bản. Dùng tham số nguyên thủy để việc quét không cấp phát đối tượng.
+     */
+    @FunctionalInterface
+    public interface MatchConsumer {
+        /**
+         * @param start Vị trí bắt đầu của khớp trong văn bản (tính theo char).
+         * @param end   Vị trí kết thúc (không bao gồm).
+         * @param value Vị trí của khóa trong mảng khóa đã dựng trie.
+         */
+        void accept(int start, int end, int value);
+    }
+
+    private DoubleArrayTrie(char[] codes, int[] base, int[] check, int[] values, int keyCount) {
+        this.codes = codes;
+        this.base = base;
+        this.check = check;
+        this.values = values;
+        this.keyCount = keyCount;
+    }
+
+    /**
+     * Dựng trie từ một mảng khóa đã sắp xếp tăng dần (theo {@link String#compareTo}), không trùng lặp và không rỗng.
+     *
+     * @param keys Các khóa; giá trị của khóa {@code keys[i]} là {@code i}.
+     * @return Trie đã dựng.
+     * @throws IllegalArgumentException nếu các khóa không được sắp xếp, bị trùng hoặc có khóa rỗng.
+     */
+    public static DoubleArrayTrie build(String[] keys) {
+        char[] codes = new char[Character.MAX_VALUE + 1];
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i].isEmpty() || (i > 0 && keys[i - 1].compareTo(keys[i]) >= 0)) {
+                throw new IllegalArgumentException("Các khóa phải không rỗng, được sắp xếp tăng dần và không trùng lặp.");
+            }
+            for (int j = 0; j < keys[i].length(); j++) {
+                codes[keys[i].charAt(j)] = 1;
+            }
+        }
+        // Mã dày đặc theo thứ tự ký tự, nên các nút con của một nút (liên tiếp trong mảng khóa) có mã tăng dần
+        char nextCode = 1;
+        for (int c = 0; c < codes.length; c++) {
+            if (codes[c] != 0) {
+                codes[c] = nextCode++;
+            }
+        }
+        return new Builder(keys, codes).build();
+    }
+
+    /**
+     * Số khóa trong trie.
+     */
+    public int size() {
+        return keyCount;
+    }
+
+    /**
+     * Tra cứu chính xác một khóa.
+     *
+     * @return Giá trị của khóa, hoặc {@link #NOT_FOUND}.
+     */
+    public int get(CharSequence key) {
+        int node = ROOT;
+        for (int i = 0; i < key.length(); i++) {
+            node = next(node, key.charAt(i));
+            if (node == FREE) {
+                return NOT_FOUND;
+            }
+        }
+        return key.length() == 0 ? NOT_FOUND : values[node];
+    }
+
+    /**
+     * Quét văn bản một lượt từ trái sang phải và báo mọi khớp dài nhất.
+     * <p>
+     * Tại mỗi vị trí, trie được duyệt cho tới khi không còn bước chuyển và khóa dài nhất đã đi qua được báo.
+     * Ở chế độ không chồng lấp, việc quét tiếp tục ngay sau khớp (phân đoạn tham lam trái-nhất, dài-nhất);
+     * ở chế độ chồng lấp, mỗi vị trí bắt đầu đều được thử. Chi phí là O(n · L) với L là độ dài khóa dài nhất,
+     * tức tuyến tính theo độ dài văn bản.
+     *
+     * @param text        Văn bản cần quét.
+     * @param overlapping true để báo khớp dài nhất tại mọi vị trí bắt đầu, kể cả khi nằm trong một khớp trước đó.
+     * @param consumer    Nhận từng khớp theo thứ tự vị trí bắt đầu.
+     */
+    public void scan(CharSequence text, boolean overlapping, MatchConsumer consumer) {
+        int length = text.length();
+        int start = 0;
+        while (start < length) {
+            int node = ROOT;
+            int matchEnd = -1;
+            int matchValue = NOT_FOUND;
+            for (int i = start; i < length; i++) {
+                node = next(node, text.charAt(i));
+                if (node == FREE) {
+                    break;
+                }
+                if (values[node] != NOT_FOUND) {
+                    matchEnd = i + 1;
+                    matchValue = values[node];
+                }
+            }
+            if (matchEnd > 0) {
+                consumer.accept(start, matchEnd, matchValue);
+                start = overlapping ? start + 1 : matchEnd;
+            } else {
+                start++;
+            }
+        }
+    }
+
+    /**
+     * Báo mọi khóa là tiền tố của văn bản bắt đầu tại {@code start}, theo thứ tự độ dài tăng dần.
+     *
+     * @param text     Văn bản.
+     * @param start    Vị trí bắt đầu.
+     * @param consumer Nhận từng khóa khớp (start, end, giá trị).
+     */
+    public void prefixesAt(CharSequence text, int start, MatchConsumer consumer) {
+        int node = ROOT;
+        for (int i = start; i < text.length(); i++) {
+            node = next(node, text.charAt(i));
+            if (node == FREE) {
+                return;
+            }
+            if (values[node] != NOT_FOUND) {
+                consumer.accept(start, i + 1, values[node]);
+            }
+        }
+    }
+
+    /**
+     * Kích thước ước tính của trie trong heap (byte).
+     */
+    public long estimatedBytes() {
+        return (long) codes.length * Character.BYTES + (long) (base.length + check.length + values.length) * Integer.BYTES;
+    }
+
+    /**
+     * Nút con của {@code node} theo ký tự {@code c}, hoặc FREE nếu không có.
+     */
+    private int next(int node, char c) {
+        int code = codes[c];
+        if (code == 0) {
+            return FREE;
+        }
+        int target = base[node] + code;
+        return target < check.length && check[target] == node ? target : FREE;
+    }
+
+    /**
+     * Dựng mảng kép theo chiều sâu: mỗi nút tương ứng một đoạn liên tiếp của mảng khóa đã sắp xếp có chung tiền tố.
+     */
+    private static final class Builder {
+        private static final int SEARCH_LIMIT = 4096; // Số vị trí tối đa được thử trước khi đặt nút sau ô cuối cùng
+
+        private final String[] keys;
+        private final char[] codes;
+        private int[] base;
+        private int[] check;
+        private int[] values;
+        private int nextCheckPos = 1; // Vị trí bắt đầu tìm base; các đoạn đã gần đầy phía trước được bỏ qua
+        private int maxUsed = ROOT;
+
+        private Builder(String[] keys, char[] codes) {
+            this.keys = keys;
+            this.codes = codes;
+            int capacity = Math.max(1024, keys.length * 4);
+            this.base = new int[capacity];
+            this.check = new int[capacity];
+            this.values = new int[capacity];
+            Arrays.fill(check, FREE);
+            Arrays.fill(values, NOT_FOUND);
+            check[ROOT] = ROOT;
+        }
+
+        private DoubleArrayTrie build() {
+            // Ngăn xếp các nút đang chờ: {nút, đầu đoạn, cuối đoạn (không bao gồm), độ sâu}
+            int[][] stack = new int[16][];
+            int top = 0;
+            stack[top++] = new int[]{ROOT, 0, keys.length, 0};
+            int[] childCodes = new int[16];
+            int[] childStarts = new int[17];
+            while (top > 0) {
+                int[] item = stack[--top];
+                int node = item[0];
+                int from = item[1];
+                int to = item[2];
+                int depth = item[3];
+                if (from < to && keys[from].length() == depth) { // Khóa ngắn nhất của đoạn kết thúc tại nút này
+                    values[node] = from++;
+                }
+                if (from >= to) {
+                    continue;
+                }
+
+                // Gom các khóa theo ký tự tại vị trí depth; các nhóm liên tiếp do mảng khóa đã sắp xếp
+                int childCount = 0;
+                for (int i = from; i < to; i++) {
+                    int code = codes[keys[i].charAt(depth)];
+                    if (childCount == 0 || childCodes[childCount - 1] != code) {
+                        if (childCount == childCodes.length) {
+                            childCodes = Arrays.copyOf(childCodes, childCount * 2);
+                            childStarts = Arrays.copyOf(childStarts, childCount * 2 + 1);
+                        }
+                        childCodes[childCount] = code;
+                        childStarts[childCount] = i;
+                        childCount++;
+                    }
+                }
+                childStarts[childCount] = to;
+
+                int nodeBase = findBase(childCodes, childCount);
+                base[node] = nodeBase;
+                for (int i = 0; i < childCount; i++) {
+                    int child = nodeBase + childCodes[i];
+                    check[child] = node;
+                    maxUsed = Math.max(maxUsed, child);
+                    if (top == stack.length) {
+                        stack = Arrays.copyOf(stack, top * 2);
+                    }
+                    stack[top++] = new int[]{child, childStarts[i], childStarts[i + 1], depth + 1};
+                }
+            }
+            int length = maxUsed + 1;
+            return new DoubleArrayTrie(codes, Arrays.copyOf(base, length), Arrays.copyOf(check, length),
+                    Arrays.copyOf(values, length), keys.length);
+        }
+
+        /**
+         * Tìm giá trị base nhỏ nhất (từ nextCheckPos) sao cho mọi ô con {@code base + code} đều trống.
+         * <p>
+         * Như darts: nếu đoạn đã duyệt qua dày đặc (≥ 95% ô đã dùng), nextCheckPos được dời tới vị trí tìm được.
+         * Nút có nhiều con với mã rải rác (thường gặp do bảng chữ cái Kanji lớn) hiếm khi lọt vào các lỗ trống,
+         * nên sau {@value #SEARCH_LIMIT} vị trí, nút được đặt ngay sau ô đã dùng cuối cùng. Hai quy tắc này đổi
+         * một ít ô trống bị bỏ lại lấy thời gian dựng gần tuyến tính.
+         */
+        private int findBase(int[] childCodes, int childCount) {
+            int firstCode = childCodes[0];
+            int lastCode = childCodes[childCount - 1];
+            int position = Math.max(nextCheckPos, firstCode + 1) - 1;
+            int searchEnd = position + SEARCH_LIMIT;
+            int occupied = 0;
+            boolean firstFreeSeen = false;
+            while (true) {
+                position++;
+                if (position > searchEnd) {
+                    // Mọi ô sau maxUsed đều trống, và mã con tăng dần nên mọi ô con đều nằm sau position
+                    position = Math.max(maxUsed + 1, firstCode + 1);
+                    ensureCapacity(position - firstCode + lastCode + 1);
+                    return position - firstCode;
+                }
+                ensureCapacity(position + 1);
+                if (check[position] != FREE) {
+                    occupied++;
+                    continue;
+                }
+                if (!firstFreeSeen) {
+                    nextCheckPos = position;
+                    firstFreeSeen = true;
+                }
+                int candidate = position - firstCode;
+                ensureCapacity(candidate + lastCode + 1);
+                boolean fits = true;
+                for (int i = 1; i < childCount; i++) {
+                    if (check[candidate + childCodes[i]] != FREE) {
+                        fits = false;
+                        break;
+                    }
+                }
+                if (fits) {
+                    if ((double) occupied / (position - nextCheckPos + 1) >= 0.95) {
+                        nextCheckPos = position;
+                    }
+                    return candidate;
+                }
+            }
+        }
+
+        private void ensureCapacity(int capacity) {
+            if (capacity <= check.length) {
+                return;
+            }
+            int oldLength = check.length;
+            int newLength = Math.max(capacity, oldLength * 2);
+            base = Arrays.copyOf(base, newLength);
+            check = Arrays.copyOf(check, newLength);
+            values = Arrays.copyOf(values, newLength);
+            Arrays.fill(check, oldLength, newLength, FREE);
+            Arrays.fill(values, oldLength, newLength, NOT_FOUND);
+        }
+    }
+}
@@ -0,0 +1,451 @@
+package com.domain.backend.util;
+
+import org.springframework.stereotype.Component;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.GraphicsEnvironment;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Path2D;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Trích xuất đặc trưng hướng nét (gradient direction feature) từ ảnh một ký tự viết tay hoặc ảnh mẫu.
+ * <p>
+ * Ảnh được nhị phân hóa, cắt theo khung bao của nét và co giãn (giữ tỉ lệ) về lưới {@value #GRID}x{@value #GRID},
+ * làm mờ nhẹ để giảm ảnh hưởng của độ dày nét, rồi hướng gradient tại mỗi điểm được phân rã vào
+ * {@value #DIRECTIONS} hướng (0°, 45°, 90°, 135°) và cộng dồn vào {@value #ZONES}x{@value #ZONES} vùng.
+ * Vector kết quả được lấy căn bậc hai và chuẩn hóa L2, nên khoảng cách Euclid giữa hai vector
+ * tương đương với độ tương tự cosine.
+ * <p>
+ * Ảnh mẫu được dựng từ dữ liệu nét SVG (dạng KanjiVG) hoặc, nếu không có, từ font CJK của hệ thống,
+ * nên không cần dịch vụ bên ngoài.
+ */
+@Component
+public class HandwritingFeatureExtractor {
+
+    public static final int GRID = 64;
+    public static final int ZONES = 8;
+    public static final int DIRECTIONS = 4;
+    public static final int FEATURE_SIZE = ZONES * ZONES * DIRECTIONS;
+
+    private static final int MARGIN = 4;
+    private static final int TEMPLATE_SIZE = 128;
+    private static final Pattern PATH_DATA = Pattern.compile("\\bd\\s*=\\s*\"([^\"]+)\"");
+    private static final Pattern VIEW_BOX = Pattern.compile("viewBox\\s*=\\s*\"([^\"]+)\"");
+    private static final Pattern PATH_TOKEN = Pattern.compile("[MmLlHhVvCcSsQqTtZz]|-?(?:\\d+\\.?\\d*|\\.\\d+)(?:[eE][-+]?\\d+)?");
+
+    private volatile Optional<Font> cjkFont; // Font hiển thị được Kanji, tìm một lần khi cần
+
+    /**
+     * Trích xuất vector đặc trưng từ một ảnh. Điểm được xem là nét nếu đủ tối và không trong suốt,
+     * nên cả ảnh nền trắng lẫn ảnh canvas nền trong suốt đều dùng được.
+     *
+     * @param image Ảnh chứa một ký tự.
+     * @return Vector {@value #FEATURE_SIZE} chiều đã chuẩn hóa, hoặc null nếu ảnh không có nét nào.
+     */
+    public float[] extract(BufferedImage image) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int[] pixels = image.getRGB(0, 0, width, height, null, 0, width); // Đọc một lần thay vì từng điểm ảnh
+        boolean[] ink = new boolean[width * height];
+        int minX = width, minY = height, maxX = -1, maxY = -1;
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int argb = pixels[y * width + x];
+                int alpha = argb >>> 24;
+                int luminance = (((argb >> 16) & 0xFF) * 299 + ((argb >> 8) & 0xFF) * 587 + (argb & 0xFF) * 114) / 1000;
+                if (alpha >= 128 && luminance < 128) {
+                    ink[y * width + x] = true;
+                    minX = Math.min(minX, x);
+                    maxX = Math.max(maxX, x);
+                    minY = Math.min(minY, y);
+                    maxY = Math.max(maxY, y);
+                }
+            }
+        }
+        if (maxX < 0) {
+            return null;
+        }
+        return features(blur(normalize(ink, width, minX, minY, maxX, maxY)));
+    }
+
+    /**
+     * Dựng ảnh mẫu từ dữ liệu nét SVG (các thẻ path, ví dụ dữ liệu KanjiVG).
+     *
+     * @param svg Chuỗi SVG.
+     * @return Ảnh đã vẽ các nét, hoặc null nếu SVG không có path nào đọc được.
+     */
+    public BufferedImage renderSvgStrokes(String svg) {
+        if (svg == null) {
+            return null;
+        }
+        List<Path2D> paths = new ArrayList<>();
+        Matcher matcher = PATH_DATA.matcher(svg);
+        while (matcher.find()) {
+            Path2D path = parsePath(matcher.group(1));
+            if (path != null) {
+                paths.add(path);
+            }
+        }
+        if (paths.isEmpty()) {
+            return null;
+        }
+        double[] viewBox = {0, 0, 109, 109}; // Kích thước mặc định của KanjiVG
+        Matcher viewBoxMatcher = VIEW_BOX.matcher(svg);
+        if (viewBoxMatcher.find()) {
+            String[] parts = viewBoxMatcher.group(1).trim().split("[\\s,]+");
+            if (parts.length == 4) {
+                try {
+                    for (int i = 0; i < 4; i++) {
+                        viewBox[i] = Double.parseDouble(parts[i]);
+                    }
+                } catch (NumberFormatException ignored) {
+                    viewBox = new double[]{0, 0, 109, 109};
+                }
+            }
+        }
+        BufferedImage image = newCanvas();
+        Graphics2D graphics = image.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            graphics.setColor(Color.BLACK);
+            double scale = TEMPLATE_SIZE / Math.max(viewBox[2], viewBox[3]);
+            AffineTransform transform = AffineTransform.getScaleInstance(scale, scale);
+            transform.translate(-viewBox[0], -viewBox[1]);
+            graphics.setStroke(new BasicStroke(TEMPLATE_SIZE / 32f, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND));
+            for (Path2D path : paths) {
+                graphics.draw(transform.createTransformedShape(path));
+            }
+        } finally {
+            graphics.dispose();
+        }
+        return image;
+    }
+
+    /**
+     * Dựng ảnh mẫu của một ký tự bằng font CJK có sẵn trên hệ thống.
+     *
+     * @param character Ký tự Kanji.
+     * @return Ảnh ký tự, hoặc null nếu không có font nào hiển thị được ký tự hoặc glyph vẽ ra trống.
+     */
+    public BufferedImage renderCharacter(String character) {
+        Optional<Font> font = cjkFont();
+        if (font.isEmpty() || character == null || character.isEmpty() || font.get().canDisplayUpTo(character) != -1) {
+            return null;
+        }
+        BufferedImage image = draw(font.get(), character);
+        return hasInk(image) ? image : null;
+    }
+
+    /**
+     * @return true nếu hệ thống có font vẽ được Kanji (xem {@link #renderCharacter(String)}).
+     */
+    public boolean canRenderCharacters() {
+        return cjkFont().isPresent();
+    }
+
+    private static BufferedImage draw(Font font, String character) {
+        BufferedImage image = newCanvas();
+        Graphics2D graphics = image.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+            graphics.setColor(Color.BLACK);
+            graphics.setFont(font);
+            FontMetrics metrics = graphics.getFontMetrics();
+            int x = (TEMPLATE_SIZE - metrics.stringWidth(character)) / 2;
+            int y = (TEMPLATE_SIZE - metrics.getHeight()) / 2 + metrics.getAscent();
+            graphics.drawString(character, x, y);
+        } finally {
+            graphics.dispose();
+        }
+        return image;
+    }
+
+    private Optional<Font> cjkFont() {
+        Optional<Font> font = cjkFont;
+        if (font == null) {
+            font = Optional.empty();
+            Font logical = new Font(Font.SANS_SERIF, Font.PLAIN, TEMPLATE_SIZE * 3 / 4);
+            if (rendersKanji(logical)) {
+                font = Optional.of(logical);
+            } else {
+                for (String family : GraphicsEnvironment.getLocalGraphicsEnvironment().getAvailableFontFamilyNames()) {
+                    Font candidate = new Font(family, Font.PLAIN, TEMPLATE_SIZE * 3 / 4);
+                    if (rendersKanji(candidate)) {
+                        font = Optional.of(candidate);
+                        break;
+                    }
+                }
+            }
+            cjkFont = font;
+        }
+        return font;
+    }
+
+    /**
+     * canDisplay không đủ: trên máy chủ không có màn hình, font dự phòng có thể nhận là hiển thị được nhưng vẽ ra
+     * glyph trống hoặc cùng một hộp thay thế cho mọi ký tự. Font chỉ được dùng nếu hai Kanji khác nhau vẽ ra hai ảnh
+     * có nét và khác nhau.
+     */
+    private static boolean rendersKanji(Font font) {
+        if (!font.canDisplay('日') || !font.canDisplay('語')) {
+            return false;
+        }
+        int[] first = pixels(draw(font, "日"));
+        int[] second = pixels(draw(font, "語"));
+        return hasInk(first) && hasInk(second) && !Arrays.equals(first, second);
+    }
+
+    private static int[] pixels(BufferedImage image) {
+        return image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth());
+    }
+
+    private static boolean hasInk(BufferedImage image) {
+        return hasInk(pixels(image));
+    }
+
+    private static boolean hasInk(int[] pixels) {
+        for (int argb : pixels) {
+            if ((argb & 0xFFFFFF) != 0xFFFFFF) { // Nền của newCanvas là trắng
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static BufferedImage newCanvas() {
+        BufferedImage image = new BufferedImage(TEMPLATE_SIZE, TEMPLATE_SIZE, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setColor(Color.WHITE);
+        graphics.fillRect(0, 0, TEMPLATE_SIZE, TEMPLATE_SIZE);
+        graphics.dispose();
+        return image;
+    }
+
+    /**
+     * Co giãn khung bao của nét vào giữa lưới GRID x GRID, giữ tỉ lệ, với lấy mẫu 2x2 cho mỗi ô.
+     */
+    private static float[] normalize(boolean[] ink, int width, int minX, int minY, int maxX, int maxY) {
+        int boxWidth = maxX - minX + 1;
+        int boxHeight = maxY - minY + 1;
+        double scale = (GRID - 2.0 * MARGIN) / Math.max(boxWidth, boxHeight);
+        double offsetX = (GRID - boxWidth * scale) / 2;
+        double offsetY = (GRID - boxHeight * scale) / 2;
+        float[] grid = new float[GRID * GRID];
+        for (int gy = 0; gy < GRID; gy++) {
+            for (int gx = 0; gx < GRID; gx++) {
+                int hits = 0;
+                for (int sy = 0; sy < 2; sy++) {
+                    for (int sx = 0; sx < 2; sx++) {
+                        int x = minX + (int) Math.floor((gx + 0.25 + 0.5 * sx - offsetX) / scale);
+                        int y = minY + (int) Math.floor((gy + 0.25 + 0.5 * sy - offsetY) / scale);
+                        if (x >= minX && x <= maxX && y >= minY && y <= maxY && ink[y * width + x]) {
+                            hits++;
+                        }
+                    }
+                }
+                grid[gy * GRID + gx] = hits / 4f;
+            }
+        }
+        return grid;
+    }
+
+    private static float[] blur(float[] grid) {
+        float[] result = new float[grid.length];
+        for (int y = 0; y < GRID; y++) {
+            for (int x = 0; x < GRID; x++) {
+                float sum = 0;
+                for (int dy = -1; dy <= 1; dy++) {
+                    for (int dx = -1; dx <= 1; dx++) {
+                        sum += pixel(grid, x + dx, y + dy);
+                    }
+                }
+                result[y * GRID + x] = sum / 9f;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Phân rã gradient Sobel vào 4 hướng và cộng dồn vào các vùng bằng nội suy song tuyến tính.
+     */
+    private static float[] features(float[] grid) {
+        float[] feature = new float[FEATURE_SIZE];
+        float zoneSize = (float) GRID / ZONES;
+        for (int y = 0; y < GRID; y++) {
+            for (int x = 0; x < GRID; x++) {
+                float gx = pixel(grid, x + 1, y - 1) + 2 * pixel(grid, x + 1, y) + pixel(grid, x + 1, y + 1)
+                        - pixel(grid, x - 1, y - 1) - 2 * pixel(grid, x - 1, y) - pixel(grid, x - 1, y + 1);
+                float gy = pixel(grid, x - 1, y + 1) + 2 * pixel(grid, x, y + 1) + pixel(grid, x + 1, y + 1)
+                        - pixel(grid, x - 1, y - 1) - 2 * pixel(grid, x, y - 1) - pixel(grid, x + 1, y - 1);
+                float magnitude = (float) Math.sqrt(gx * gx + gy * gy);
+                if (magnitude < 1e-3f) {
+                    continue;
+                }
+                // Hướng không phân biệt chiều (0..π), chia thành 4 khoảng 45°
+                double angle = Math.atan2(gy, gx);
+                if (angle < 0) {
+                    angle += Math.PI;
+                }
+                double position = angle / (Math.PI / DIRECTIONS);
+                int direction = (int) Math.floor(position) % DIRECTIONS;
+                float toNext = (float) (position - Math.floor(position));
+                int nextDirection = (direction + 1) % DIRECTIONS;
+
+                float zx = (x + 0.5f) / zoneSize - 0.5f;
+                float zy = (y + 0.5f) / zoneSize - 0.5f;
+                int zx0 = (int) Math.floor(zx);
+                int zy0 = (int) Math.floor(zy);
+                float fx = zx - zx0;
+                float fy = zy - zy0;
+                for (int dy = 0; dy <= 1; dy++) {
+                    int zoneY = zy0 + dy;
+                    if (zoneY < 0 || zoneY >= ZONES) {
+                        continue;
+                    }
+                    float wy = dy == 0 ? 1 - fy : fy;
+                    for (int dx = 0; dx <= 1; dx++) {
+                        int zoneX = zx0 + dx;
+                        if (zoneX < 0 || zoneX >= ZONES) {
+                            continue;
+                        }
+                        float weight = magnitude * wy * (dx == 0 ? 1 - fx : fx);
+                        int zone = (zoneY * ZONES + zoneX) * DIRECTIONS;
+                        feature[zone + direction] += weight * (1 - toNext);
+                        feature[zone + nextDirection] += weight * toNext;
+                    }
+                }
+            }
+        }
+        double norm = 0;
+        for (int i = 0; i < feature.length; i++) {
+            feature[i] = (float) Math.sqrt(feature[i]);
+            norm += feature[i] * feature[i];
+        }
+        float inverse = norm > 0 ? (float) (1 / Math.sqrt(norm)) : 0;
+        for (int i = 0; i < feature.length; i++) {
+            feature[i] *= inverse;
+        }
+        return feature;
+    }
+
+    private static float pixel(float[] grid, int x, int y) {
+        return x < 0 || y < 0 || x >= GRID || y >= GRID ? 0 : grid[y * GRID + x];
+    }
+
+    /**
+     * Đọc dữ liệu path SVG (M, L, H, V, C, S, Q, T, Z; tuyệt đối và tương đối) thành Path2D.
+     *
+     * @return Path đã đọc, hoặc null nếu dữ liệu không hợp lệ.
+     */
+    private static Path2D parsePath(String data) {
+        List<String> tokens = new ArrayList<>();
+        Matcher matcher = PATH_TOKEN.matcher(data);
+        while (matcher.find()) {
+            tokens.add(matcher.group());
+        }
+        Path2D.Double path = new Path2D.Double();
+        double x = 0, y = 0, startX = 0, startY = 0, controlX = 0, controlY = 0;
+        char command = 0;
+        char previous = 0;
+        int i = 0;
+        try {
+            while (i < tokens.size()) {
+                String token = tokens.get(i);
+                if (Character.isLetter(token.charAt(0))) {
+                    command = token.charAt(0);
+                    i++;
+                    if (command == 'Z' || command == 'z') {
+                        path.closePath();
+                        x = startX;
+                        y = startY;
+                        previous = command;
+                        continue;
+                    }
+                } else if (command == 0) {
+                    return null;
+                }
+                boolean relative = Character.isLowerCase(command);
+                double baseX = relative ? x : 0;
+                double baseY = relative ? y : 0;
+                switch (Character.toUpperCase(command)) {
+                    case 'M':
+                        x = baseX + Double.parseDouble(tokens.get(i++));
+                        y = baseY + Double.parseDouble(tokens.get(i++));
+                        path.moveTo(x, y);
+                        startX = x;
+                        startY = y;
+                        command = relative ? 'l' : 'L'; // Các cặp tọa độ tiếp theo là lệnh vẽ đường thẳng
+                        break;
+                    case 'L':
+                        x = baseX + Double.parseDouble(tokens.get(i++));
+                        y = baseY + Double.parseDouble(tokens.get(i++));
+                        path.lineTo(x, y);
+                        break;
+                    case 'H':
+                        x = baseX + Double.parseDouble(tokens.get(i++));
+                        path.lineTo(x, y);
+                        break;
+                    case 'V':
+                        y = baseY + Double.parseDouble(tokens.get(i++));
+                        path.lineTo(x, y);
+                        break;
+                    case 'C': {
+                        double x1 = baseX + Double.parseDouble(tokens.get(i++));
+                        double y1 = baseY + Double.parseDouble(tokens.get(i++));
+                        controlX = baseX + Double.parseDouble(tokens.get(i++));
+                        controlY = baseY + Double.parseDouble(tokens.get(i++));
+                        x = baseX + Double.parseDouble(tokens.get(i++));
+                        y = baseY + Double.parseDouble(tokens.get(i++));
+                        path.curveTo(x1, y1, controlX, controlY, x, y);
+                        break;
+                    }
+                    case 'S': {
+                        boolean smooth = "CcSs".indexOf(previous) >= 0;
+                        double x1 = smooth ? 2 * x - controlX : x;
+                        double y1 = smooth ? 2 * y - controlY : y;
+                        controlX = baseX + Double.parseDouble(tokens.get(i++));
+                        controlY = baseY + Double.parseDouble(tokens.get(i++));
+                        x = baseX + Double.parseDouble(tokens.get(i++));
+                        y = baseY + Double.parseDouble(tokens.get(i++));
+                        path.curveTo(x1, y1, controlX, controlY, x, y);
+                        break;
+                    }
+                    case 'Q':
+                        controlX = baseX + Double.parseDouble(tokens.get(i++));
+                        controlY = baseY + Double.parseDouble(tokens.get(i++));
+                        x = baseX + Double.parseDouble(tokens.get(i++));
+                        y = baseY + Double.parseDouble(tokens.get(i++));
+                        path.quadTo(controlX, controlY, x, y);
+                        break;
+                    case 'T': {
+                        boolean smooth = "QqTt".indexOf(previous) >= 0;
+                        controlX = smooth ? 2 * x - controlX : x;
+                        controlY = smooth ? 2 * y - controlY : y;
+                        x = baseX + Double.parseDouble(tokens.get(i++));
+                        y = baseY + Double.parseDouble(tokens.get(i++));
+                        path.quadTo(controlX, controlY, x, y);
+                        break;
+                    }
+                    default:
+                        return null;
+                }
+                previous = command;
+            }
+        } catch (NumberFormatException | IndexOutOfBoundsException ex) {
+            return null;
+        }
+        return path.getCurrentPoint() == null ? null : path;
+    }
+}
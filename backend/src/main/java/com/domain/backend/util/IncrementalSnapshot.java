@@ -0,0 +1,163 @@
+package com.domain.backend.util;
+
+import com.domain.backend.event.ContentChangedEvent;
+import org.slf4j.Logger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiFunction;
+import java.util.function.LongConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Giữ snapshot bất biến của một chỉ mục trong bộ nhớ và cập nhật nó theo hai cách:
+ * <ul>
+ *     <li>dựng lại toàn bộ trong nền trên một luồng riêng (khi khởi động, sau khi nhập từ điển, hoặc khi phần
+ *     thay đổi tích lũy đã quá lớn); nhiều yêu cầu liên tiếp được gộp thành một lần dựng;</li>
+ *     <li>áp dụng ngay từng thay đổi của một thực thể ({@link ContentChangedEvent}) lên snapshot hiện tại bằng
+ *     một hàm delta rẻ, thay vì dựng lại toàn bộ.</li>
+ * </ul>
+ * Thay đổi đến trong lúc đang dựng lại được ghi nhớ và áp dụng lên snapshot mới trước khi hoán đổi, nên một lần
+ * dựng đã đọc dữ liệu trước khi thay đổi được lưu không làm mất thay đổi đó. Hàm delta phải áp dụng được nhiều lần
+ * cho cùng một thay đổi (thay thế hoặc xóa theo ID thực thể).
+ *
+ * @param <S> Kiểu snapshot bất biến.
+ */
+public final class IncrementalSnapshot<S> {
+
+    private final Logger logger;
+    private final String failureMessage;
+    private final Supplier<S> builder;
+    private final BiFunction<S, ContentChangedEvent, S> delta;
+    private final ExecutorService rebuildExecutor;
+    private final AtomicBoolean rebuildScheduled = new AtomicBoolean(false);
+    private final Object rebuildLock = new Object();
+    private LongConsumer rebuiltListener = startedAtNanos -> { };
+
+    private volatile S snapshot; // null cho đến khi lần dựng đầu tiên hoàn tất
+    private List<ContentChangedEvent> changesDuringRebuild; // Khác null trong lúc dựng lại; được bảo vệ bởi this
+
+    /**
+     * @param threadName     Tên luồng dựng lại.
+     * @param logger         Logger của dịch vụ sở hữu chỉ mục.
+     * @param failureMessage Thông báo ghi log khi dựng lại hoặc cập nhật thất bại (ví dụ "Không thể dựng chỉ mục bộ thủ").
+     * @param builder        Dựng snapshot mới từ nguồn dữ liệu.
+     * @param delta          Trả về snapshot mới sau khi áp dụng một thay đổi lên snapshot cho trước.
+     */
+    public IncrementalSnapshot(String threadName, Logger logger, String failureMessage,
+                               Supplier<S> builder, BiFunction<S, ContentChangedEvent, S> delta) {
+        this.logger = logger;
+        this.failureMessage = failureMessage;
+        this.builder = builder;
+        this.delta = delta;
+        this.rebuildExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, threadName);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Đăng ký hàm được gọi sau mỗi lần dựng lại toàn bộ, với thời điểm (System.nanoTime) bắt đầu đọc dữ liệu.
+     *
+     * @param listener Hàm được gọi sau khi snapshot mới đã được hoán đổi.
+     * @return Chính đối tượng này.
+     */
+    public IncrementalSnapshot<S> onRebuilt(LongConsumer listener) {
+        this.rebuiltListener = listener;
+        return this;
+    }
+
+    /**
+     * @return Snapshot hiện tại, hoặc null nếu lần dựng đầu tiên chưa hoàn tất.
+     */
+    public S get() {
+        return snapshot;
+    }
+
+    /**
+     * Lên lịch dựng lại toàn bộ trong nền. Nhiều yêu cầu liên tiếp được gộp thành một lần dựng.
+     */
+    public void scheduleRebuild() {
+        if (rebuildScheduled.compareAndSet(false, true)) {
+            rebuildExecutor.execute(() -> {
+                // Xóa cờ trước khi đọc dữ liệu để yêu cầu đến trong lúc dựng sẽ lên lịch thêm một lần nữa
+                rebuildScheduled.set(false);
+                try {
+                    rebuild();
+                } catch (RuntimeException ex) {
+                    logger.warn("{}: {}", failureMessage, ex.getMessage());
+                }
+            });
+        }
+    }
+
+    /**
+     * Dựng lại toàn bộ snapshot ngay trên luồng gọi, áp dụng lại các thay đổi đến trong lúc dựng rồi hoán đổi.
+     */
+    public void rebuild() {
+        synchronized (rebuildLock) {
+            synchronized (this) {
+                changesDuringRebuild = new ArrayList<>();
+            }
+            try {
+                long startedAtNanos = System.nanoTime();
+                S built = builder.get();
+                synchronized (this) {
+                    for (ContentChangedEvent event : changesDuringRebuild) {
+                        built = applyQuietly(built, event);
+                    }
+                    snapshot = built;
+                }
+                rebuiltListener.accept(startedAtNanos);
+            } finally {
+                synchronized (this) {
+                    changesDuringRebuild = null;
+                }
+            }
+        }
+    }
+
+    /**
+     * Áp dụng một thay đổi lên snapshot hiện tại. Nếu chưa có snapshot, thay đổi sẽ có trong lần dựng đầu tiên.
+     * Khi hàm delta thất bại, một lần dựng lại toàn bộ được lên lịch thay thế.
+     *
+     * @param event Thay đổi của một thực thể.
+     */
+    public void apply(ContentChangedEvent event) {
+        try {
+            synchronized (this) {
+                if (changesDuringRebuild != null) {
+                    changesDuringRebuild.add(event);
+                }
+                S current = snapshot;
+                if (current != null) {
+                    snapshot = delta.apply(current, event);
+                }
+            }
+        } catch (RuntimeException ex) {
+            logger.warn("{} sau thay đổi {} {}: {}", failureMessage, event.getEntityType(), event.getEntityId(), ex.getMessage());
+            scheduleRebuild();
+        }
+    }
+
+    private S applyQuietly(S built, ContentChangedEvent event) {
+        try {
+            return delta.apply(built, event);
+        } catch (RuntimeException ex) {
+            // Snapshot mới đã đọc dữ liệu từ nguồn; chỉ thiếu thay đổi này nếu nó được lưu sau khi đọc
+            logger.warn("{} sau thay đổi {} {}: {}", failureMessage, event.getEntityType(), event.getEntityId(), ex.getMessage());
+            return built;
+        }
+    }
+
+    /**
+     * Dừng luồng dựng lại.
+     */
+    public void shutdown() {
+        rebuildExecutor.shutdownNow();
+    }
+}
@@ -0,0 +1,224 @@
+package com.domain.backend.util;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Bộ chuẩn hóa văn bản tiếng Nhật dùng chung cho cả truy vấn và dữ liệu được đánh chỉ mục.
+ * <p>
+ * Mọi chuỗi (Kanji, Hiragana, Katakana, Romaji theo bất kỳ cách viết nào, nghĩa tiếng Anh) được đưa về
+ * một khóa chuẩn duy nhất, nên một truy vấn chỉ cần một lần tra cứu thay vì thử từng biến thể script:
+ * <ol>
+ *     <li>NFKC: chữ toàn độ (ｔａｂｅｒｕ) về bán độ, Katakana bán độ (ﾀﾍﾞﾙ) về toàn độ;</li>
+ *     <li>chữ thường, bỏ dấu thanh của chữ Latin (ā → a);</li>
+ *     <li>Katakana gộp về Hiragana, dấu trường âm ー thay bằng nguyên âm đứng trước;</li>
+ *     <li>Kana được La-tinh hóa theo Hepburn bằng {@link RomajiTransliterator} (Kana nhỏ, âm ghép, っ được xử lý theo ngữ cảnh);</li>
+ *     <li>các cách viết Kunrei/IME (si, tu, sya, n', nn, shimbun, ...) được gộp về Hepburn;</li>
+ *     <li>nguyên âm dài được rút gọn (ou, oo, uu, aa, ii, ee → một nguyên âm).</li>
+ * </ol>
+ * Kanji và các ký tự khác được giữ nguyên.
+ * <p>
+ * Hai bước gộp Romaji cuối chỉ áp dụng cho phần La-tinh hóa từ Kana và cho chữ Latin được biết là Romaji
+ * ({@link #normalizeRomaji}); chữ Latin thông thường (nghĩa tiếng Anh, tiêu đề) được giữ nguyên để "study"
+ * hay "time" không bị đổi thành "stsudy", "chime". Truy vấn dùng {@link #queryKeys}: khi các từ Latin của truy vấn
+ * đọc được như Romaji, khóa gộp Romaji được thêm làm biến thể thứ hai.
+ */
+@Component
+public class JapaneseNormalizer {
+
+    private static final char LONG_VOWEL_MARK = 'ー'; // ー
+
+    @Autowired
+    private RomajiTransliterator romajiTransliterator;
+
+    // Các phép gộp cách viết Romaji, áp dụng theo thứ tự
+    private static final Pattern[] ROMAJI_FOLD_PATTERNS = {
+            Pattern.compile("n'"),
+            Pattern.compile("nn(?=[^aeiouy]|$)"),
+            Pattern.compile("m(?=[bpm])"),
+            Pattern.compile("sy([auo])"),
+            Pattern.compile("ty([auo])"),
+            Pattern.compile("(?:j|z|d)y([auo])"),
+            Pattern.compile("(?<![sc])si"),
+            Pattern.compile("ti"),
+            Pattern.compile("(?<!t)tu"),
+            Pattern.compile("(?<![sc])hu"),
+            Pattern.compile("[zd]i"),
+            Pattern.compile("du"),
+            Pattern.compile("tch"),
+            Pattern.compile("ou"),
+            Pattern.compile("([aeiou])\\1+"),
+    };
+    private static final String[] ROMAJI_FOLD_REPLACEMENTS = {
+            "n", "n", "n", "sh$1", "ch$1", "j$1", "shi", "chi", "tsu", "fu", "ji", "zu", "cch", "o", "$1",
+    };
+
+    // Một từ Latin đọc được hoàn toàn như chuỗi âm tiết Romaji (Hepburn, Kunrei hoặc kiểu gõ IME)
+    private static final Pattern ROMAJI_WORD = Pattern.compile(
+            "(?:(?:([bcdfghjkmprstz])(?=\\1)|t(?=ch))?"
+                    + "(?:[kgsztdnhbpmr]y|ch|sh|ts|[kgsztdnhbpmrjfvwy])?[aeiou]|n'?|m(?=[bpm]))+");
+    private static final Pattern LATIN_WORD = Pattern.compile("[a-z']+");
+
+    /**
+     * Đưa một chuỗi về khóa chuẩn dùng để so khớp.
+     *
+     * @param text Chuỗi đầu vào (truy vấn hoặc giá trị trường).
+     * @return Khóa chuẩn; chuỗi rỗng nếu đầu vào null.
+     */
+    public String normalize(String text) {
+        return normalize(text, false);
+    }
+
+    /**
+     * Đưa một chuỗi được biết là cách đọc (Romaji, Kana, âm đọc Kanji) về khóa chuẩn:
+     * khác với {@link #normalize}, chữ Latin cũng được gộp cách viết Romaji (si → shi, toukyou → tokyo).
+     *
+     * @param text Cách đọc (Romaji hoặc Kana).
+     * @return Khóa chuẩn; chuỗi rỗng nếu đầu vào null.
+     */
+    public String normalizeRomaji(String text) {
+        return normalize(text, true);
+    }
+
+    /**
+     * Các khóa chuẩn cần tra cứu cho một truy vấn: khóa của {@link #normalize}, cộng thêm khóa của
+     * {@link #normalizeRomaji} nếu mọi từ Latin của truy vấn đọc được như Romaji và hai khóa khác nhau.
+     *
+     * @param queryText Văn bản truy vấn.
+     * @return Danh sách khóa không trùng lặp (rỗng nếu truy vấn không còn gì sau chuẩn hóa).
+     */
+    public List<String> queryKeys(String queryText) {
+        Set<String> keys = new LinkedHashSet<>();
+        String key = normalize(queryText);
+        if (!key.isEmpty()) {
+            keys.add(key);
+            if (isRomaji(queryText)) {
+                keys.add(normalizeRomaji(queryText));
+            }
+        }
+        return new ArrayList<>(keys);
+    }
+
+    /**
+     * Kiểm tra văn bản có ít nhất một từ Latin và mọi từ Latin của nó đều đọc được như Romaji.
+     *
+     * @param text Chuỗi đầu vào.
+     * @return true nếu văn bản có thể là Romaji.
+     */
+    public boolean isRomaji(String text) {
+        Matcher words = LATIN_WORD.matcher(foldKana(text));
+        boolean found = false;
+        while (words.find()) {
+            if (!ROMAJI_WORD.matcher(words.group()).matches()) {
+                return false;
+            }
+            found = true;
+        }
+        return found;
+    }
+
+    private String normalize(String text, boolean latinIsRomaji) {
+        if (text == null || text.isEmpty()) {
+            return "";
+        }
+        String folded = foldKana(text);
+        StringBuilder key = new StringBuilder(folded.length() * 2);
+        int length = folded.length();
+        int start = 0;
+        while (start < length) {
+            char c = folded.charAt(start);
+            int end = start + 1;
+            if (isKana(c)) {
+                while (end < length && isKana(folded.charAt(end))) {
+                    end++;
+                }
+                StringBuilder romaji = new StringBuilder((end - start) * 3);
+                romajiTransliterator.appendRomaji(folded.subSequence(start, end), romaji, false);
+                key.append(foldRomaji(romaji.toString()));
+            } else if (isLatin(c)) {
+                while (end < length && isLatin(folded.charAt(end))) {
+                    end++;
+                }
+                String word = folded.substring(start, end);
+                key.append(latinIsRomaji ? foldRomaji(word) : word);
+            } else {
+                key.append(c);
+            }
+            start = end;
+        }
+        return key.toString().trim();
+    }
+
+    private static String foldRomaji(String romaji) {
+        for (int i = 0; i < ROMAJI_FOLD_PATTERNS.length; i++) {
+            romaji = ROMAJI_FOLD_PATTERNS[i].matcher(romaji).replaceAll(ROMAJI_FOLD_REPLACEMENTS[i]);
+        }
+        return romaji;
+    }
+
+    private static boolean isKana(char c) {
+        return c >= 'ぁ' && c <= 'ゟ';
+    }
+
+    private static boolean isLatin(char c) {
+        return (c >= 'a' && c <= 'z') || c == '\'';
+    }
+
+    /**
+     * Chuẩn hóa độ rộng, chữ hoa/thường và gộp Katakana về Hiragana mà không La-tinh hóa.
+     * Dùng cho các chỉ mục cần giữ nguyên ký tự Kana (ví dụ: chỉ mục n-gram).
+     *
+     * @param text Chuỗi đầu vào.
+     * @return Chuỗi đã gộp; chuỗi rỗng nếu đầu vào null.
+     */
+    public String foldKana(String text) {
+        if (text == null || text.isEmpty()) {
+            return "";
+        }
+        String nfkc = Normalizer.normalize(text, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+        StringBuilder folded = new StringBuilder(nfkc.length());
+        for (int i = 0; i < nfkc.length(); i++) {
+            char c = nfkc.charAt(i);
+            if (c >= 'ァ' && c <= 'ヶ') {
+                folded.append((char) (c - 0x60)); // Katakana -> Hiragana
+            } else if (c == LONG_VOWEL_MARK) {
+                char vowel = folded.length() > 0 ? romajiTransliterator.vowelOf(folded.charAt(folded.length() - 1)) : 0;
+                if (vowel != 0) {
+                    folded.append(vowel);
+                }
+            } else if (c >= 'À' && c <= 'ſ') {
+                // Bỏ dấu thanh của chữ Latin (ā, â, é, ...); chỉ áp dụng cho khối Latin để không làm mất dakuten của Kana
+                folded.append(Normalizer.normalize(String.valueOf(c), Normalizer.Form.NFD).charAt(0));
+            } else {
+                folded.append(c);
+            }
+        }
+        return folded.toString();
+    }
+
+    /**
+     * Tạo tập khóa chuẩn (không trùng lặp, bỏ giá trị rỗng) từ nhiều giá trị trường.
+     *
+     * @param values Các giá trị trường.
+     * @return Danh sách khóa chuẩn.
+     */
+    public List<String> searchKeys(String... values) {
+        Set<String> keys = new LinkedHashSet<>();
+        for (String value : values) {
+            String key = normalize(value);
+            if (!key.isEmpty()) {
+                keys.add(key);
+            }
+        }
+        return new ArrayList<>(keys);
+    }
+}
@@ -1,7 +1,14 @@
 package com.domain.backend.util;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * Lớp tiện ích cho việc xử lý văn bản tiếng Nhật.
  * Trong một ứng dụng thực tế, lớp này sẽ tích hợp với một thư viện NLP tiếng Nhật mạnh mẽ
@@ -13,36 +20,18 @@ import org.springframework.stereotype.Component;
 @Component
 public class JapaneseTextUtils {
 
+    static final String SENTENCE_ENDINGS = "。！？!?\n"; // Dùng chung với SentenceReader
+    static final String CLOSING_BRACKETS = "」』）)】\"'";
+
+    @Autowired
+    private RomajiTransliterator romajiTransliterator;
+
     /**
-     * Chuyển đổi Romaji sang Hiragana (rất cơ bản, để minh họa).
-     * Đây là một ví dụ cực kỳ đơn giản hóa và sẽ cần một ánh xạ toàn diện
-     * hoặc một thư viện chuyên dụng để sử dụng trong thực tế.
+     * Chuyển đổi Romaji sang Hiragana (Hepburn, Kunrei và các cách gõ IME phổ biến).
+     * Các ký tự không phải Romaji được giữ nguyên.
      */
     public String romajiToHiragana(String romaji) {
-        // Mã giữ chỗ cho logic chuyển đổi Romaji sang Hiragana phức tạp
-        // Ví dụ: "konnichiwa" -> "こんにちは"
-        // Điều này thường liên quan đến một ánh xạ lớn hoặc một thư viện như Kuromoji.
-        // Để minh họa, chúng ta sẽ chỉ trả về đầu vào hoặc một phép biến đổi đơn giản.
-        switch (romaji.toLowerCase()) {
-            case "konnichiwa":
-                return "こんにちは";
-            case "arigato":
-                return "ありがとう";
-            case "sayonara":
-                return "さようなら";
-            case "a":
-                return "あ";
-            case "i":
-                return "い";
-            case "u":
-                return "う";
-            case "e":
-                return "え";
-            case "o":
-                return "お";
-            default:
-                return romaji; // Fallback
-        }
+        return romajiTransliterator.toHiragana(romaji);
     }
 
     /**
@@ -110,6 +99,29 @@ public class JapaneseTextUtils {
         return "furigana_placeholder"; // Fallback
     }
 
+    /**
+     * Tách văn bản thành các câu, sau dấu kết thúc câu (。！？!? hoặc xuống dòng) cùng các dấu đóng ngoặc ngay sau đó.
+     * Nối các câu lại theo thứ tự sẽ được đúng văn bản ban đầu.
+     *
+     * @param text Văn bản cần tách.
+     * @return Danh sách các câu; rỗng nếu văn bản trống.
+     */
+    public List<String> splitSentences(String text) {
+        List<String> sentences = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return sentences;
+        }
+        SentenceReader reader = new SentenceReader(new StringReader(text), Integer.MAX_VALUE);
+        try {
+            for (String sentence = reader.next(); sentence != null; sentence = reader.next()) {
+                sentences.add(sentence);
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex); // StringReader không ném IOException
+        }
+        return sentences;
+    }
+
     /**
      * Kiểm tra xem một chuỗi có chứa ký tự Kanji hay không.
      *
@@ -2,6 +2,10 @@ package com.domain.backend.util;
 
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
 import java.util.List;
 
 /**
@@ -12,6 +16,10 @@ import java.util.List;
 @Component
 public class KanjiUtils {
 
+    public static final String STROKE_ORDER_SVG_FIELD = "strokeOrderSvg";
+    public static final String STROKE_ORDER_SVG_HASH_FIELD = "strokeOrderSvgHash";
+    public static final String STROKE_ORDER_SVG_PATH = "/api/kanji/stroke-order/"; // Tiền tố URL của endpoint SVG thứ tự nét
+
     /**
      * Tạo dữ liệu SVG giả cho thứ tự nét của một ký tự Kanji.
      * Trong thực tế, bạn sẽ có một cơ sở dữ liệu hoặc một thư viện
@@ -33,13 +41,43 @@ public class KanjiUtils {
     }
 
     /**
-     * Kiểm tra xem một ký tự có phải là Kanji hay không.
+     * Tính địa chỉ nội dung của SVG thứ tự nét: SHA-256 (hex) của các byte UTF-8.
+     * Hai Kanji có cùng SVG dùng chung một địa chỉ, và SVG thay đổi thì địa chỉ cũng thay đổi.
+     *
+     * @param strokeOrderSvg Chuỗi SVG.
+     * @return Mã băm dạng hex, hoặc null nếu không có SVG.
+     */
+    public String strokeOrderSvgHash(String strokeOrderSvg) {
+        if (strokeOrderSvg == null || strokeOrderSvg.isEmpty()) {
+            return null;
+        }
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(strokeOrderSvg.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 không khả dụng", ex); // Mọi JVM đều phải hỗ trợ SHA-256
+        }
+    }
+
+    /**
+     * URL (tương đối so với gốc máy chủ) của SVG thứ tự nét theo địa chỉ nội dung.
+     *
+     * @param strokeOrderSvgHash Mã băm của SVG.
+     * @return URL của SVG, hoặc null nếu Kanji không có SVG.
+     */
+    public String strokeOrderSvgUrl(String strokeOrderSvgHash) {
+        return strokeOrderSvgHash == null ? null : STROKE_ORDER_SVG_PATH + strokeOrderSvgHash + ".svg";
+    }
+
+    /**
+     * Kiểm tra xem một ký tự có phải là Kanji hay không, kể cả các ký tự ngoài BMP (CJK Extension B trở đi,
+     * được lưu bằng cặp surrogate).
      *
-     * @param c Ký tự cần kiểm tra.
+     * @param codePoint Code point cần kiểm tra.
      * @return True nếu là Kanji, ngược lại là false.
      */
-    public boolean isKanji(char c) {
-        return c >= 0x4E00 && c <= 0x9FFF;
+    public boolean isKanji(int codePoint) {
+        return Character.isIdeographic(codePoint) && Character.UnicodeScript.of(codePoint) == Character.UnicodeScript.HAN;
     }
 
     /**
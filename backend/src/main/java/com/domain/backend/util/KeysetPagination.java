@@ -0,0 +1,121 @@
+package com.domain.backend.util;
+
+import com.domain.backend.dto.response.KeysetPageResponse;
+import com.domain.backend.exception.ValidationException;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Phân trang theo khóa (keyset) và xuất NDJSON cho các danh sách toàn bộ collection.
+ * <p>
+ * Các trang được sắp theo _id tăng dần và trang tiếp theo bắt đầu sau _id cuối của trang trước, nên MongoDB
+ * đi thẳng tới vị trí đó trên chỉ mục _id thay vì bỏ qua (skip) các tài liệu phía trước như phân trang theo số trang.
+ * Khi xuất NDJSON, tài liệu được đọc qua cursor và ghi ra ngay từng dòng, nên số đối tượng trong heap không phụ
+ * thuộc kích thước collection.
+ */
+@Component
+public class KeysetPagination {
+
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int MAX_PAGE_SIZE = 500;
+
+    private static final int CURSOR_BATCH_SIZE = 500;
+    private static final int FLUSH_EVERY = 200; // Số dòng giữa hai lần đẩy dữ liệu tới client
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * Lấy một trang theo khóa.
+     *
+     * @param query       Truy vấn gốc (bộ lọc, projection); không được có sắp xếp hay giới hạn.
+     * @param entityClass Lớp entity của collection.
+     * @param after       ID của phần tử cuối trang trước, null cho trang đầu.
+     * @param size        Số phần tử tối đa (mặc định {@value #DEFAULT_PAGE_SIZE}, tối đa {@value #MAX_PAGE_SIZE}).
+     * @param mapper      Chuyển entity sang DTO.
+     * @return Trang kết quả cùng con trỏ cho trang tiếp theo.
+     * @throws ValidationException nếu size không hợp lệ.
+     */
+    public <T, R> KeysetPageResponse<R> page(Query query, Class<T> entityClass, String after, Integer size,
+                                             Function<T, R> mapper) {
+        int pageSize = size == null ? DEFAULT_PAGE_SIZE : size;
+        if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+            throw new ValidationException("Kích thước trang phải từ 1 đến " + MAX_PAGE_SIZE + ".");
+        }
+        if (after != null && !after.isBlank()) {
+            query.addCriteria(Criteria.where("id").gt(after));
+        }
+        query.with(Sort.by(Sort.Direction.ASC, "id")).limit(pageSize + 1); // Đọc thêm một phần tử để biết còn trang sau
+
+        List<T> entities = mongoTemplate.find(query, entityClass);
+        boolean hasMore = entities.size() > pageSize;
+        List<R> items = new ArrayList<>(Math.min(entities.size(), pageSize));
+        for (int i = 0; i < entities.size() && i < pageSize; i++) {
+            items.add(mapper.apply(entities.get(i)));
+        }
+        String nextCursor = hasMore ? idOf(entities.get(pageSize - 1)) : null;
+        return new KeysetPageResponse<>(items, pageSize, nextCursor);
+    }
+
+    /**
+     * Ghi toàn bộ kết quả của truy vấn dưới dạng NDJSON (mỗi dòng một đối tượng JSON), đọc qua cursor theo thứ tự _id.
+     *
+     * @param query       Truy vấn gốc (bộ lọc, projection).
+     * @param entityClass Lớp entity của collection.
+     * @param mapper      Chuyển entity sang DTO.
+     * @param output      Luồng đầu ra; không bị đóng.
+     * @return Số dòng đã ghi.
+     * @throws IOException nếu không thể ghi (ví dụ client ngắt kết nối).
+     */
+    public <T, R> long streamNdjson(Query query, Class<T> entityClass, Function<T, R> mapper, OutputStream output)
+            throws IOException {
+        query.with(Sort.by(Sort.Direction.ASC, "id")).cursorBatchSize(CURSOR_BATCH_SIZE);
+        ObjectWriter writer = objectMapper.writer()
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                .withRootValueSeparator("\n");
+        long written = 0;
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(output);
+             Stream<T> entities = mongoTemplate.stream(query, entityClass)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            for (T entity : (Iterable<T>) entities::iterator) {
+                writer.writeValue(generator, mapper.apply(entity));
+                if (++written % FLUSH_EVERY == 0) {
+                    generator.flush();
+                }
+            }
+            if (written > 0) {
+                generator.writeRaw('\n');
+            }
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+        return written;
+    }
+
+    private String idOf(Object entity) {
+        Object id = mongoTemplate.getConverter().getMappingContext()
+                .getRequiredPersistentEntity(entity.getClass())
+                .getIdentifierAccessor(entity)
+                .getIdentifier();
+        return id == null ? null : id.toString();
+    }
+}
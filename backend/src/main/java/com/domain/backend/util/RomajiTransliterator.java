@@ -0,0 +1,428 @@
+package com.domain.backend.util;
+
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Bộ chuyển tự Romaji ↔ Kana dựa trên bảng trạng thái.
+ * <p>
+ * Chiều Romaji → Kana dùng một trie nén (bảng chuyển trạng thái dạng mảng int) và khớp dài nhất,
+ * chấp nhận Hepburn, Kunrei/Nihon-shiki và các cách gõ IME phổ biến (xa/la, xtu/ltu, thi, dhi, nn, n', ...).
+ * Phụ âm đôi (kk, tch), "n" đứng trước phụ âm, "m" trước b/p/m và nguyên âm dài có dấu (ā, ō, ...)
+ * được xử lý theo ngữ cảnh.
+ * <p>
+ * Chiều Kana → Romaji dùng bảng tra theo ký tự (không cần HashMap) và có hai chế độ:
+ * chế độ không mất thông tin (mặc định) sinh cách viết có thể chuyển ngược chính xác về Kana
+ * (ぢ → di, を → wo, ん + nguyên âm → n', っ đứng một mình → xtu), còn chế độ Hepburn rút gọn
+ * dùng cho chuẩn hóa tìm kiếm.
+ * <p>
+ * Mọi bảng được dựng một lần khi nạp lớp; các phương thức append* chỉ ghi vào StringBuilder được truyền vào,
+ * không tạo đối tượng trung gian.
+ */
+@Component
+public class RomajiTransliterator {
+
+    private static final char HIRAGANA_FIRST = 'ぁ'; // ぁ
+    private static final char HIRAGANA_LAST = 'ゖ';  // ゖ
+    private static final char KATAKANA_FIRST = 'ァ'; // ァ
+    private static final char KATAKANA_LAST = 'ヶ';  // ヶ
+    private static final int KATAKANA_OFFSET = KATAKANA_FIRST - HIRAGANA_FIRST;
+    private static final char SOKUON = 'っ';         // っ
+    private static final char MORAIC_N = 'ん';       // ん
+    private static final char LONG_VOWEL_MARK = 'ー'; // ー
+    private static final String SMALL_KANA = "ぁぃぅぇぉゃゅょゎ";
+
+    // Bảng Kana -> Romaji, chỉ số theo (ký tự - HIRAGANA_FIRST); chỉ số thứ hai của DIGRAPH theo SMALL_KANA
+    private static final String[] SINGLE = new String[HIRAGANA_LAST - HIRAGANA_FIRST + 1];
+    private static final String[] SINGLE_HEPBURN = new String[SINGLE.length];
+    private static final String[][] DIGRAPH = new String[SINGLE.length][SMALL_KANA.length()];
+    private static final String[][] DIGRAPH_HEPBURN = new String[SINGLE.length][SMALL_KANA.length()];
+
+    // Trie Romaji -> Kana: nút 0 là gốc, CHILDREN[nút * ALPHABET + ký tự] là nút con (0 = không có)
+    private static final int ALPHABET = 28; // a-z, ' và -
+    private static final int[] CHILDREN;
+    private static final String[] OUTPUTS;
+
+    static {
+        // {kana, romaji không mất thông tin, romaji Hepburn rút gọn (null = giống cột trước)}
+        String[][] syllables = {
+                {"あ", "a", null}, {"い", "i", null}, {"う", "u", null}, {"え", "e", null}, {"お", "o", null},
+                {"か", "ka", null}, {"き", "ki", null}, {"く", "ku", null}, {"け", "ke", null}, {"こ", "ko", null},
+                {"が", "ga", null}, {"ぎ", "gi", null}, {"ぐ", "gu", null}, {"げ", "ge", null}, {"ご", "go", null},
+                {"さ", "sa", null}, {"し", "shi", null}, {"す", "su", null}, {"せ", "se", null}, {"そ", "so", null},
+                {"ざ", "za", null}, {"じ", "ji", null}, {"ず", "zu", null}, {"ぜ", "ze", null}, {"ぞ", "zo", null},
+                {"た", "ta", null}, {"ち", "chi", null}, {"つ", "tsu", null}, {"て", "te", null}, {"と", "to", null},
+                {"だ", "da", null}, {"ぢ", "di", "ji"}, {"づ", "du", "zu"}, {"で", "de", null}, {"ど", "do", null},
+                {"な", "na", null}, {"に", "ni", null}, {"ぬ", "nu", null}, {"ね", "ne", null}, {"の", "no", null},
+                {"は", "ha", null}, {"ひ", "hi", null}, {"ふ", "fu", null}, {"へ", "he", null}, {"ほ", "ho", null},
+                {"ば", "ba", null}, {"び", "bi", null}, {"ぶ", "bu", null}, {"べ", "be", null}, {"ぼ", "bo", null},
+                {"ぱ", "pa", null}, {"ぴ", "pi", null}, {"ぷ", "pu", null}, {"ぺ", "pe", null}, {"ぽ", "po", null},
+                {"ま", "ma", null}, {"み", "mi", null}, {"む", "mu", null}, {"め", "me", null}, {"も", "mo", null},
+                {"や", "ya", null}, {"ゆ", "yu", null}, {"よ", "yo", null},
+                {"ら", "ra", null}, {"り", "ri", null}, {"る", "ru", null}, {"れ", "re", null}, {"ろ", "ro", null},
+                {"わ", "wa", null}, {"ゐ", "wyi", "i"}, {"ゑ", "wye", "e"}, {"を", "wo", "o"}, {"ん", "n", null},
+                {"ゔ", "vu", null},
+                // Kana nhỏ đứng một mình
+                {"ぁ", "xa", "a"}, {"ぃ", "xi", "i"}, {"ぅ", "xu", "u"}, {"ぇ", "xe", "e"}, {"ぉ", "xo", "o"},
+                {"ゃ", "xya", "ya"}, {"ゅ", "xyu", "yu"}, {"ょ", "xyo", "yo"}, {"ゎ", "xwa", "wa"},
+                {"ゕ", "xka", "ka"}, {"ゖ", "xke", "ke"}, {"っ", "xtu", ""},
+                // Âm ghép với ゃ/ゅ/ょ
+                {"きゃ", "kya", null}, {"きゅ", "kyu", null}, {"きょ", "kyo", null},
+                {"ぎゃ", "gya", null}, {"ぎゅ", "gyu", null}, {"ぎょ", "gyo", null},
+                {"しゃ", "sha", null}, {"しゅ", "shu", null}, {"しょ", "sho", null},
+                {"じゃ", "ja", null}, {"じゅ", "ju", null}, {"じょ", "jo", null},
+                {"ちゃ", "cha", null}, {"ちゅ", "chu", null}, {"ちょ", "cho", null},
+                {"ぢゃ", "dya", "ja"}, {"ぢゅ", "dyu", "ju"}, {"ぢょ", "dyo", "jo"},
+                {"にゃ", "nya", null}, {"にゅ", "nyu", null}, {"にょ", "nyo", null},
+                {"ひゃ", "hya", null}, {"ひゅ", "hyu", null}, {"ひょ", "hyo", null},
+                {"びゃ", "bya", null}, {"びゅ", "byu", null}, {"びょ", "byo", null},
+                {"ぴゃ", "pya", null}, {"ぴゅ", "pyu", null}, {"ぴょ", "pyo", null},
+                {"みゃ", "mya", null}, {"みゅ", "myu", null}, {"みょ", "myo", null},
+                {"りゃ", "rya", null}, {"りゅ", "ryu", null}, {"りょ", "ryo", null},
+                // Âm mở rộng (chủ yếu trong từ mượn viết bằng Katakana)
+                {"しぇ", "she", null}, {"じぇ", "je", null}, {"ちぇ", "che", null}, {"いぇ", "ye", null},
+                {"ふぁ", "fa", null}, {"ふぃ", "fi", null}, {"ふぇ", "fe", null}, {"ふぉ", "fo", null}, {"ふゅ", "fyu", null},
+                {"てぃ", "thi", null}, {"てゅ", "thu", null}, {"でぃ", "dhi", null}, {"でゅ", "dhu", null},
+                {"とぅ", "twu", null}, {"どぅ", "dwu", null},
+                {"うぃ", "wi", null}, {"うぇ", "we", null}, {"うぉ", "who", null},
+                {"ゔぁ", "va", null}, {"ゔぃ", "vi", null}, {"ゔぇ", "ve", null}, {"ゔぉ", "vo", null}, {"ゔゅ", "vyu", null},
+                {"つぁ", "tsa", null}, {"つぃ", "tsi", null}, {"つぇ", "tse", null}, {"つぉ", "tso", null},
+                {"くぁ", "kwa", null}, {"くぃ", "kwi", null}, {"くぇ", "kwe", null}, {"くぉ", "kwo", null},
+                {"ぐぁ", "gwa", null},
+        };
+        // Các cách viết chỉ dùng cho chiều Romaji -> Kana (Kunrei/Nihon-shiki và IME)
+        String[][] aliases = {
+                {"し", "si"}, {"ち", "ti"}, {"つ", "tu"}, {"ふ", "hu"}, {"じ", "zi"},
+                {"しゃ", "sya"}, {"しゅ", "syu"}, {"しょ", "syo"},
+                {"ちゃ", "tya"}, {"ちゅ", "tyu"}, {"ちょ", "tyo"},
+                {"ちゃ", "cya"}, {"ちゅ", "cyu"}, {"ちょ", "cyo"},
+                {"じゃ", "zya"}, {"じゅ", "zyu"}, {"じょ", "zyo"},
+                {"じゃ", "jya"}, {"じゅ", "jyu"}, {"じょ", "jyo"},
+                {"ぁ", "la"}, {"ぃ", "li"}, {"ぅ", "lu"}, {"ぇ", "le"}, {"ぉ", "lo"},
+                {"ゃ", "lya"}, {"ゅ", "lyu"}, {"ょ", "lyo"}, {"ゎ", "lwa"},
+                {"っ", "ltu"}, {"っ", "xtsu"}, {"っ", "ltsu"},
+                {"ー", "-"},
+        };
+
+        List<int[]> children = new ArrayList<>();
+        List<String> outputs = new ArrayList<>();
+        children.add(new int[ALPHABET]);
+        outputs.add(null);
+        for (String[] syllable : syllables) {
+            String kana = syllable[0];
+            String romaji = syllable[1];
+            String hepburn = syllable[2] != null ? syllable[2] : romaji;
+            int first = kana.charAt(0) - HIRAGANA_FIRST;
+            if (kana.length() == 1) {
+                SINGLE[first] = romaji;
+                SINGLE_HEPBURN[first] = hepburn;
+            } else {
+                int small = SMALL_KANA.indexOf(kana.charAt(1));
+                DIGRAPH[first][small] = romaji;
+                DIGRAPH_HEPBURN[first][small] = hepburn;
+            }
+            if (!"ん".equals(kana)) { // "n" được xử lý theo ngữ cảnh, không qua trie
+                insert(children, outputs, romaji, kana);
+            }
+        }
+        for (String[] alias : aliases) {
+            insert(children, outputs, alias[1], alias[0]);
+        }
+
+        CHILDREN = new int[children.size() * ALPHABET];
+        for (int node = 0; node < children.size(); node++) {
+            System.arraycopy(children.get(node), 0, CHILDREN, node * ALPHABET, ALPHABET);
+        }
+        OUTPUTS = outputs.toArray(new String[0]);
+    }
+
+    private static void insert(List<int[]> children, List<String> outputs, String romaji, String kana) {
+        int node = 0;
+        for (int i = 0; i < romaji.length(); i++) {
+            int symbol = symbolOf(romaji.charAt(i));
+            int child = children.get(node)[symbol];
+            if (child == 0) {
+                child = children.size();
+                children.get(node)[symbol] = child;
+                children.add(new int[ALPHABET]);
+                outputs.add(null);
+            }
+            node = child;
+        }
+        if (outputs.get(node) == null) { // Cách viết đầu tiên được khai báo được ưu tiên
+            outputs.set(node, kana);
+        }
+    }
+
+    /**
+     * Chuyển Romaji sang Hiragana. Các ký tự không phải Romaji được giữ nguyên.
+     *
+     * @param romaji Chuỗi Romaji (không phân biệt hoa thường).
+     * @return Chuỗi Hiragana.
+     */
+    public String toHiragana(String romaji) {
+        StringBuilder out = new StringBuilder(romaji.length());
+        appendHiragana(romaji, out);
+        return out.toString();
+    }
+
+    /**
+     * Chuyển Romaji sang Katakana. Các ký tự không phải Romaji được giữ nguyên.
+     *
+     * @param romaji Chuỗi Romaji (không phân biệt hoa thường).
+     * @return Chuỗi Katakana.
+     */
+    public String toKatakana(String romaji) {
+        StringBuilder out = new StringBuilder(romaji.length());
+        appendHiragana(romaji, out);
+        for (int i = 0; i < out.length(); i++) {
+            char c = out.charAt(i);
+            if (c >= HIRAGANA_FIRST && c <= HIRAGANA_LAST) {
+                out.setCharAt(i, (char) (c + KATAKANA_OFFSET));
+            }
+        }
+        return out.toString();
+    }
+
+    /**
+     * Chuyển Kana (Hiragana hoặc Katakana) sang Romaji ở chế độ không mất thông tin:
+     * {@code toHiragana(toRomaji(kana))} trả lại đúng chuỗi Hiragana tương ứng.
+     *
+     * @param kana Chuỗi Kana.
+     * @return Chuỗi Romaji.
+     */
+    public String toRomaji(String kana) {
+        StringBuilder out = new StringBuilder(kana.length() * 2);
+        appendRomaji(kana, out, true);
+        return out.toString();
+    }
+
+    /**
+     * Ghi kết quả chuyển Romaji sang Hiragana vào một StringBuilder có sẵn.
+     *
+     * @param romaji Chuỗi Romaji.
+     * @param out    Nơi ghi kết quả.
+     */
+    public void appendHiragana(CharSequence romaji, StringBuilder out) {
+        int length = romaji.length();
+        int i = 0;
+        while (i < length) {
+            char c = lower(romaji.charAt(i));
+            char next = letterAt(romaji, i + 1);
+
+            if (c == 'n' && !isVowel(next) && next != 'y') {
+                // ん: "n'" và "nn" (khi sau đó không phải nguyên âm) tiêu thụ hai ký tự, "n" trước phụ âm tiêu thụ một
+                char afterNext = letterAt(romaji, i + 2);
+                out.append(MORAIC_N);
+                i += next == '\'' || (next == 'n' && !isVowel(afterNext) && afterNext != 'y') ? 2 : 1;
+                continue;
+            }
+            if (c == 'm' && (next == 'b' || next == 'p' || next == 'm')) {
+                out.append(MORAIC_N); // Hepburn: shimbun
+                i++;
+                continue;
+            }
+            if (isConsonant(c) && (next == c || (c == 't' && next == 'c' && letterAt(romaji, i + 2) == 'h'))) {
+                out.append(SOKUON); // Phụ âm đôi (kk, ss, tt, tch, ...)
+                i++;
+                continue;
+            }
+
+            // Khớp dài nhất trên trie; nguyên âm có dấu được khớp như nguyên âm thường
+            int node = 0;
+            String match = null;
+            int matchEnd = i;
+            for (int j = i; j < length; j++) {
+                char symbolChar = lower(romaji.charAt(j));
+                char base = macronBase(symbolChar);
+                int symbol = symbolOf(base != 0 ? base : symbolChar);
+                if (symbol < 0 || (node = CHILDREN[node * ALPHABET + symbol]) == 0) {
+                    break;
+                }
+                if (OUTPUTS[node] != null) {
+                    match = OUTPUTS[node];
+                    matchEnd = j + 1;
+                }
+                if (base != 0) {
+                    break; // Nguyên âm luôn kết thúc âm tiết
+                }
+            }
+            if (match != null) {
+                out.append(match);
+                char base = macronBase(lower(romaji.charAt(matchEnd - 1)));
+                if (base != 0) {
+                    out.append(longVowelExtension(base));
+                }
+                i = matchEnd;
+            } else {
+                out.append(romaji.charAt(i));
+                i++;
+            }
+        }
+    }
+
+    /**
+     * Ghi kết quả chuyển Kana sang Romaji vào một StringBuilder có sẵn.
+     *
+     * @param kana     Chuỗi chứa Kana; các ký tự khác được giữ nguyên.
+     * @param out      Nơi ghi kết quả.
+     * @param lossless true để sinh cách viết chuyển ngược được chính xác; false để sinh Hepburn rút gọn
+     *                 (ぢ → ji, を → o, ん luôn là n, Kana nhỏ đứng một mình đọc như Kana lớn, っ không nhân đôi được thì bỏ).
+     */
+    public void appendRomaji(CharSequence kana, StringBuilder out, boolean lossless) {
+        String[] single = lossless ? SINGLE : SINGLE_HEPBURN;
+        String[][] digraph = lossless ? DIGRAPH : DIGRAPH_HEPBURN;
+        boolean geminate = false;
+        int length = kana.length();
+        for (int i = 0; i < length; i++) {
+            char c = toHiraganaChar(kana.charAt(i));
+            if (c == SOKUON) {
+                if (geminate) {
+                    out.append(single[SOKUON - HIRAGANA_FIRST]);
+                }
+                geminate = true;
+                continue;
+            }
+            String romaji = null;
+            if (c >= HIRAGANA_FIRST && c <= HIRAGANA_LAST) {
+                int small = i + 1 < length ? SMALL_KANA.indexOf(toHiraganaChar(kana.charAt(i + 1))) : -1;
+                if (small >= 0 && digraph[c - HIRAGANA_FIRST][small] != null) {
+                    romaji = digraph[c - HIRAGANA_FIRST][small];
+                    i++;
+                } else {
+                    romaji = single[c - HIRAGANA_FIRST];
+                }
+            }
+            if (romaji == null) {
+                if (geminate) {
+                    out.append(single[SOKUON - HIRAGANA_FIRST]);
+                    geminate = false;
+                }
+                out.append(c == LONG_VOWEL_MARK ? '-' : kana.charAt(i));
+                continue;
+            }
+            if (geminate) {
+                char first = romaji.charAt(0);
+                if (isConsonant(first) && (first != 'm' || !lossless)) { // "mm" được đọc là ん + m (Hepburn)
+                    out.append(first == 'c' ? 't' : first); // Hepburn: っち -> tchi
+                } else {
+                    out.append(single[SOKUON - HIRAGANA_FIRST]);
+                }
+                geminate = false;
+            }
+            out.append(romaji);
+            if (c == MORAIC_N && lossless && i + 1 < length) {
+                // Tách ん khỏi nguyên âm, y hoặc n theo sau để tránh đọc nhầm (kan'i, kan'ya, kan'na)
+                char next = toHiraganaChar(kana.charAt(i + 1));
+                String nextRomaji = next >= HIRAGANA_FIRST && next <= HIRAGANA_LAST ? SINGLE[next - HIRAGANA_FIRST] : null;
+                if (nextRomaji != null && (isVowel(nextRomaji.charAt(0)) || nextRomaji.charAt(0) == 'y' || nextRomaji.charAt(0) == 'n')) {
+                    out.append('\'');
+                }
+            }
+        }
+        if (geminate) {
+            out.append(single[SOKUON - HIRAGANA_FIRST]);
+        }
+    }
+
+    /**
+     * Nguyên âm (dạng Hiragana) mà một Kana kết thúc, dùng để khai triển dấu trường âm ー.
+     *
+     * @param kana Ký tự Hiragana hoặc Katakana.
+     * @return あ/い/う/え/お, hoặc 0 nếu ký tự không kết thúc bằng nguyên âm (ん, っ, không phải Kana).
+     */
+    public char vowelOf(char kana) {
+        char c = toHiraganaChar(kana);
+        if (c < HIRAGANA_FIRST || c > HIRAGANA_LAST || c == MORAIC_N || c == SOKUON) {
+            return 0;
+        }
+        String romaji = SINGLE_HEPBURN[c - HIRAGANA_FIRST];
+        switch (romaji.charAt(romaji.length() - 1)) {
+            case 'a':
+                return 'あ';
+            case 'i':
+                return 'い';
+            case 'u':
+                return 'う';
+            case 'e':
+                return 'え';
+            case 'o':
+                return 'お';
+            default:
+                return 0;
+        }
+    }
+
+    private static char toHiraganaChar(char c) {
+        return c >= KATAKANA_FIRST && c <= KATAKANA_LAST ? (char) (c - KATAKANA_OFFSET) : c;
+    }
+
+    private static int symbolOf(char c) {
+        if (c >= 'a' && c <= 'z') {
+            return c - 'a';
+        }
+        return c == '\'' ? 26 : c == '-' ? 27 : -1;
+    }
+
+    /**
+     * Ký tự tại vị trí index ở dạng chữ thường, nguyên âm có dấu quy về nguyên âm gốc; 0 nếu vượt quá độ dài.
+     */
+    private static char letterAt(CharSequence romaji, int index) {
+        if (index >= romaji.length()) {
+            return 0;
+        }
+        char c = lower(romaji.charAt(index));
+        char base = macronBase(c);
+        return base != 0 ? base : c;
+    }
+
+    private static char lower(char c) {
+        return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+    }
+
+    private static boolean isVowel(char c) {
+        return c == 'a' || c == 'i' || c == 'u' || c == 'e' || c == 'o';
+    }
+
+    private static boolean isConsonant(char c) {
+        return c >= 'a' && c <= 'z' && c != 'n' && !isVowel(c);
+    }
+
+    /**
+     * Nguyên âm gốc của một nguyên âm dài viết có dấu (Hepburn ā/ō hoặc kiểu ISO â/ô), hoặc 0.
+     */
+    private static char macronBase(char c) {
+        switch (c) {
+            case 'ā': case 'â': case 'Ā': case 'Â':
+                return 'a';
+            case 'ī': case 'î': case 'Ī': case 'Î':
+                return 'i';
+            case 'ū': case 'û': case 'Ū': case 'Û':
+                return 'u';
+            case 'ē': case 'ê': case 'Ē': case 'Ê':
+                return 'e';
+            case 'ō': case 'ô': case 'Ō': case 'Ô':
+                return 'o';
+            default:
+                return 0;
+        }
+    }
+
+    /**
+     * Kana kéo dài nguyên âm: ō được viết là おう, các nguyên âm khác được lặp lại (ā -> ああ).
+     */
+    private static char longVowelExtension(char vowel) {
+        switch (vowel) {
+            case 'a':
+                return 'あ';
+            case 'i':
+                return 'い';
+            case 'e':
+                return 'え';
+            default:
+                return 'う';
+        }
+    }
+}
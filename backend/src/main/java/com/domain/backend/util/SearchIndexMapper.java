@@ -0,0 +1,240 @@
+package com.domain.backend.util;
+
+import com.domain.backend.entity.Course;
+import com.domain.backend.entity.KanjiEntry;
+import com.domain.backend.entity.Lesson;
+import com.domain.backend.entity.SearchIndex;
+import com.domain.backend.entity.VocabularyEntry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.index.TextIndexed;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Lớp tiện ích chuyển đổi các thực thể nội dung thành tài liệu SearchIndex.
+ * Đây là nơi duy nhất quyết định trường nào của thực thể đóng vai trò title/content/keywords,
+ * để chỉ mục trong bộ nhớ và collection searchIndex luôn nhất quán với nhau.
+ */
+@Component
+public class SearchIndexMapper {
+
+    public static final int FIELD_TITLE = 0;
+    public static final int FIELD_CONTENT = 1;
+    public static final int FIELD_KEYWORDS = 2;
+    public static final int FIELD_SCRIPT_FORMS = 3;
+    public static final int FIELD_COUNT = 4;
+
+    // Các trường của thực thể mà from* đọc (ngoài _id), để truy vấn nạp hàng loạt chỉ lấy đúng các trường này
+    private static final String[] KANJI_SOURCE_FIELDS = {"kanjiCharacter", "meaning", "examples", "onyomi", "kunyomi", "furigana", "jlptLevel"};
+    private static final String[] VOCABULARY_SOURCE_FIELDS = {"japaneseWord", "meaning", "partOfSpeech", "furigana", "romaji", "jlptLevel"};
+    private static final String[] LESSON_SOURCE_FIELDS = {"title", "content", "lessonType", "courseId"};
+    private static final String[] COURSE_SOURCE_FIELDS = {"title", "description", "difficultyLevel"};
+
+    // Trọng số đọc từ @TextIndexed trên SearchIndex để chỉ có một nguồn cấu hình duy nhất
+    @Autowired
+    private JapaneseNormalizer japaneseNormalizer;
+
+    private final float[] fieldWeights = new float[FIELD_COUNT];
+
+    public SearchIndexMapper() {
+        fieldWeights[FIELD_TITLE] = textIndexWeight("title");
+        fieldWeights[FIELD_CONTENT] = textIndexWeight("content");
+        fieldWeights[FIELD_KEYWORDS] = textIndexWeight("keywords");
+        // scriptForms là các cách viết khác của title (furigana, romaji, âm đọc) nên dùng cùng trọng số
+        fieldWeights[FIELD_SCRIPT_FORMS] = fieldWeights[FIELD_TITLE];
+    }
+
+    private static float textIndexWeight(String fieldName) {
+        try {
+            TextIndexed textIndexed = SearchIndex.class.getDeclaredField(fieldName).getAnnotation(TextIndexed.class);
+            return textIndexed != null ? textIndexed.weight() : 1.0f;
+        } catch (NoSuchFieldException e) {
+            throw new IllegalStateException("SearchIndex không có trường " + fieldName, e);
+        }
+    }
+
+    /**
+     * Lấy trọng số của một trường chỉ mục.
+     *
+     * @param field Một trong các hằng số FIELD_*.
+     * @return Trọng số của trường.
+     */
+    public float getFieldWeight(int field) {
+        return fieldWeights[field];
+    }
+
+    /**
+     * Hệ số theo cấp độ JLPT: từ ở cấp dễ hơn (N5) được ưu tiên hơn một chút vì người học gặp chúng thường xuyên hơn.
+     *
+     * @param jlptLevel Cấp độ JLPT (ví dụ: "N5"), có thể null.
+     * @return Hệ số từ 1.0 (không rõ cấp độ) đến 1.25 (N5).
+     */
+    public static float jlptBoost(String jlptLevel) {
+        if (jlptLevel != null && jlptLevel.length() == 2 && (jlptLevel.charAt(0) == 'N' || jlptLevel.charAt(0) == 'n')) {
+            int level = Character.digit(jlptLevel.charAt(1), 10);
+            if (level >= 1 && level <= 5) {
+                return 1.0f + 0.05f * level;
+            }
+        }
+        return 1.0f;
+    }
+
+    /**
+     * Lấy giá trị văn bản của một trường chỉ mục trong tài liệu SearchIndex.
+     * scriptForms được nối bằng ký tự phân cách để không tạo ra khớp giả giữa hai dạng chữ.
+     *
+     * @param searchIndex Tài liệu SearchIndex.
+     * @param field       Một trong các hằng số FIELD_*.
+     * @return Văn bản của trường, hoặc chuỗi rỗng.
+     */
+    public String getFieldText(SearchIndex searchIndex, int field) {
+        switch (field) {
+            case FIELD_TITLE:
+                return nullToEmpty(searchIndex.getTitle());
+            case FIELD_CONTENT:
+                return nullToEmpty(searchIndex.getContent());
+            case FIELD_KEYWORDS:
+                return nullToEmpty(searchIndex.getKeywords());
+            case FIELD_SCRIPT_FORMS:
+                return searchIndex.getScriptForms() == null ? "" : String.join("\n", searchIndex.getScriptForms());
+            default:
+                throw new IllegalArgumentException("Trường chỉ mục không hợp lệ: " + field);
+        }
+    }
+
+    /**
+     * Lấy văn bản đã chuẩn hóa của một trường chỉ mục, dùng chung cho chỉ mục trong bộ nhớ và cache kết quả.
+     * scriptForms chỉ gồm các cách đọc (furigana, romaji, âm đọc) nên được chuẩn hóa như Romaji;
+     * các trường còn lại có thể chứa tiếng Anh nên chữ Latin được giữ nguyên.
+     *
+     * @param searchIndex Tài liệu SearchIndex.
+     * @param field       Một trong các hằng số FIELD_*.
+     * @return Văn bản đã chuẩn hóa của trường, hoặc chuỗi rỗng.
+     */
+    public String getNormalizedFieldText(SearchIndex searchIndex, int field) {
+        return normalizeFieldText(getFieldText(searchIndex, field), field);
+    }
+
+    /**
+     * Chuẩn hóa một đoạn văn bản theo quy tắc của trường chứa nó (xem {@link #getNormalizedFieldText}).
+     *
+     * @param text  Văn bản hoặc một phần văn bản của trường.
+     * @param field Một trong các hằng số FIELD_*.
+     * @return Văn bản đã chuẩn hóa.
+     */
+    public String normalizeFieldText(String text, int field) {
+        return field == FIELD_SCRIPT_FORMS ? japaneseNormalizer.normalizeRomaji(text) : japaneseNormalizer.normalize(text);
+    }
+
+    /**
+     * Chuyển một thực thể nội dung bất kỳ thành tài liệu SearchIndex.
+     *
+     * @param entity Kanji, từ vựng, bài học hoặc khóa học.
+     * @return Tài liệu SearchIndex, hoặc null nếu thực thể không thuộc loại có thể tìm kiếm.
+     */
+    public SearchIndex fromEntity(Object entity) {
+        if (entity instanceof KanjiEntry kanjiEntry) {
+            return fromKanji(kanjiEntry);
+        }
+        if (entity instanceof VocabularyEntry vocabularyEntry) {
+            return fromVocabulary(vocabularyEntry);
+        }
+        if (entity instanceof Lesson lesson) {
+            return fromLesson(lesson);
+        }
+        if (entity instanceof Course course) {
+            return fromCourse(course);
+        }
+        return null;
+    }
+
+    /**
+     * Các trường của một loại thực thể cần để tạo tài liệu SearchIndex, dùng làm projection khi đọc cả collection
+     * (ví dụ không nạp SVG thứ tự nét của Kanji hay các module nhúng của khóa học).
+     *
+     * @param entityClass KanjiEntry, VocabularyEntry, Lesson hoặc Course.
+     * @return Tên các trường (không gồm _id, vốn luôn được trả về).
+     * @throws IllegalArgumentException nếu loại thực thể không được đánh chỉ mục.
+     */
+    public static String[] sourceFields(Class<?> entityClass) {
+        if (entityClass == KanjiEntry.class) {
+            return KANJI_SOURCE_FIELDS.clone();
+        }
+        if (entityClass == VocabularyEntry.class) {
+            return VOCABULARY_SOURCE_FIELDS.clone();
+        }
+        if (entityClass == Lesson.class) {
+            return LESSON_SOURCE_FIELDS.clone();
+        }
+        if (entityClass == Course.class) {
+            return COURSE_SOURCE_FIELDS.clone();
+        }
+        throw new IllegalArgumentException("Loại thực thể không được đánh chỉ mục: " + entityClass.getSimpleName());
+    }
+
+    public SearchIndex fromKanji(KanjiEntry kanjiEntry) {
+        SearchIndex searchIndex = newSearchIndex(SearchIndex.TYPE_KANJI, kanjiEntry.getId());
+        searchIndex.setTitle(kanjiEntry.getKanjiCharacter());
+        searchIndex.setContent(kanjiEntry.getMeaning());
+        searchIndex.setKeywords(joinNonEmpty(kanjiEntry.getExamples()));
+        searchIndex.setScriptForms(nonEmpty(kanjiEntry.getOnyomi(), kanjiEntry.getKunyomi(), kanjiEntry.getFurigana()));
+        searchIndex.setJlptLevel(kanjiEntry.getJlptLevel());
+        return searchIndex;
+    }
+
+    public SearchIndex fromVocabulary(VocabularyEntry vocabularyEntry) {
+        SearchIndex searchIndex = newSearchIndex(SearchIndex.TYPE_VOCABULARY, vocabularyEntry.getId());
+        searchIndex.setTitle(vocabularyEntry.getJapaneseWord());
+        searchIndex.setContent(vocabularyEntry.getMeaning());
+        searchIndex.setKeywords(vocabularyEntry.getPartOfSpeech());
+        searchIndex.setScriptForms(nonEmpty(vocabularyEntry.getFurigana(), vocabularyEntry.getRomaji()));
+        searchIndex.setJlptLevel(vocabularyEntry.getJlptLevel());
+        return searchIndex;
+    }
+
+    public SearchIndex fromLesson(Lesson lesson) {
+        SearchIndex searchIndex = newSearchIndex(SearchIndex.TYPE_LESSON, lesson.getId());
+        searchIndex.setTitle(lesson.getTitle());
+        searchIndex.setContent(lesson.getContent());
+        searchIndex.setKeywords(lesson.getLessonType());
+        searchIndex.setCourseId(lesson.getCourseId());
+        return searchIndex;
+    }
+
+    public SearchIndex fromCourse(Course course) {
+        SearchIndex searchIndex = newSearchIndex(SearchIndex.TYPE_COURSE, course.getId());
+        searchIndex.setTitle(course.getTitle());
+        searchIndex.setContent(course.getDescription());
+        searchIndex.setKeywords(course.getDifficultyLevel());
+        searchIndex.setDifficultyLevel(course.getDifficultyLevel());
+        return searchIndex;
+    }
+
+    private SearchIndex newSearchIndex(String entityType, String entityId) {
+        SearchIndex searchIndex = new SearchIndex();
+        searchIndex.setEntityType(entityType);
+        searchIndex.setEntityId(entityId);
+        return searchIndex;
+    }
+
+    private static String nullToEmpty(String value) {
+        return value == null ? "" : value;
+    }
+
+    private static String joinNonEmpty(List<String> values) {
+        return values == null ? null : String.join(" ", values.stream().filter(Objects::nonNull).toList());
+    }
+
+    private static List<String> nonEmpty(String... values) {
+        List<String> result = new ArrayList<>(values.length);
+        for (String value : values) {
+            if (value != null && !value.isBlank()) {
+                result.add(value);
+            }
+        }
+        return result;
+    }
+}
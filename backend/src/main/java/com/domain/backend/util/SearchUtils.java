@@ -1,10 +1,16 @@
 package com.domain.backend.util;
 
+import com.domain.backend.entity.KanjiEntry;
+import com.domain.backend.entity.VocabularyEntry;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.stereotype.Component;
 
 import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
 
 /**
  * Lớp tiện ích cho việc xây dựng các tiêu chí tìm kiếm MongoDB.
@@ -12,56 +18,152 @@ import java.util.List;
 @Component
 public class SearchUtils {
 
+    public static final String SEARCH_KEYS_FIELD = "searchKeys";
+    public static final String READINGS_FIELD = "readings";
+    public static final String MEANING_TERMS_FIELD = "meaningTerms";
+
+    // Dấu phân cách giữa các âm đọc trong chuỗi onyomi/kunyomi (ví dụ: "ショク, ジキ" hoặc "た.べる、く.う")
+    private static final Pattern READING_SEPARATOR = Pattern.compile("[,、，;；/／・\\s]+");
+    // Dấu okurigana (.) và dấu tiền tố/hậu tố (-) trong âm đọc Kun'yomi không phải là một phần của cách đọc
+    private static final Pattern READING_MARKS = Pattern.compile("[.\\-．－]");
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    @Autowired
+    private JapaneseNormalizer japaneseNormalizer;
+
     /**
      * Xây dựng Criteria cho tìm kiếm đa script trong MongoDB.
+     * <p>
+     * Truy vấn được đưa về khóa chuẩn (xem {@link JapaneseNormalizer#queryKeys}) và so khớp theo tiền tố với trường
+     * searchKeys đã được chuẩn hóa sẵn khi lưu, nên mọi cách viết (Kanji, Hiragana, Katakana, Romaji Hepburn/Kunrei,
+     * toàn độ/bán độ) chỉ cần một hoặc hai regex neo ở đầu chuỗi, dùng được chỉ mục của searchKeys.
      *
-     * @param queryText         Văn bản truy vấn.
-     * @param scriptType        Loại script (KANJI, HIRAGANA, KATAKANA, ROMAJI, ALL).
-     * @param japaneseTextUtils Tiện ích chuyển đổi văn bản tiếng Nhật.
+     * @param queryText Văn bản truy vấn (chưa chuẩn hóa).
      * @return Đối tượng Criteria được xây dựng.
      */
-    public Criteria buildMultiScriptSearchCriteria(String queryText, String scriptType, JapaneseTextUtils japaneseTextUtils) {
-        List<Criteria> criteriaList = new ArrayList<>();
-
-        // Luôn bao gồm tìm kiếm chính xác trên các trường liên quan
-        criteriaList.add(Criteria.where("japaneseWord").regex(queryText, "i"));
-        criteriaList.add(Criteria.where("furigana").regex(queryText, "i"));
-        criteriaList.add(Criteria.where("romaji").regex(queryText, "i"));
+    public Criteria buildSearchKeyCriteria(String queryText) {
+        List<String> keys = japaneseNormalizer.queryKeys(queryText);
+        if (keys.size() <= 1) {
+            return Criteria.where(SEARCH_KEYS_FIELD).regex(prefixRegex(keys.isEmpty() ? "" : keys.get(0)));
+        }
+        return new Criteria().orOperator(keys.stream()
+                .map(key -> Criteria.where(SEARCH_KEYS_FIELD).regex(prefixRegex(key)))
+                .toArray(Criteria[]::new));
+    }
 
-        // Thêm các biến thể script nếu scriptType là ALL hoặc ROMAJI
-        if ("ALL".equalsIgnoreCase(scriptType) || "ROMAJI".equalsIgnoreCase(scriptType)) {
-            String hiraganaFromRomaji = japaneseTextUtils.romajiToHiragana(queryText);
-            if (!hiraganaFromRomaji.equals(queryText)) { // Tránh thêm nếu không có chuyển đổi thực sự
-                criteriaList.add(Criteria.where("furigana").regex(hiraganaFromRomaji, "i"));
-                criteriaList.add(Criteria.where("japaneseWord").regex(hiraganaFromRomaji, "i")); // Có thể từ Romaji ra Hiragana rồi tìm Kanji
-            }
-            String katakanaFromRomaji = japaneseTextUtils.hiraganaToKatakana(hiraganaFromRomaji);
-            if (!katakanaFromRomaji.equals(hiraganaFromRomaji)) {
-                criteriaList.add(Criteria.where("furigana").regex(katakanaFromRomaji, "i")); // Có thể tìm Katakana trong furigana
-                criteriaList.add(Criteria.where("japaneseWord").regex(katakanaFromRomaji, "i"));
+    /**
+     * Tạo regex khớp tiền tố có thể dùng chỉ mục: neo ở đầu chuỗi và chỉ gồm ký tự thường
+     * (ký tự đặc biệt được escape từng ký tự thay vì dùng \\Q...\\E mà MongoDB không tối ưu được).
+     *
+     * @param prefix Tiền tố cần khớp.
+     * @return Biểu thức regex dạng "^prefix".
+     */
+    public static String prefixRegex(String prefix) {
+        StringBuilder regex = new StringBuilder(prefix.length() + 1).append('^');
+        for (int i = 0; i < prefix.length(); i++) {
+            char c = prefix.charAt(i);
+            if ("\\^$.|?*+()[]{}".indexOf(c) >= 0) {
+                regex.append('\\');
             }
+            regex.append(c);
         }
+        return regex.toString();
+    }
 
-        // Thêm các biến thể script nếu scriptType là ALL hoặc HIRAGANA/KATAKANA
-        if ("ALL".equalsIgnoreCase(scriptType) || "HIRAGANA".equalsIgnoreCase(scriptType) || "KATAKANA".equalsIgnoreCase(scriptType)) {
-            String hiragana = queryText;
-            if ("KATAKANA".equalsIgnoreCase(scriptType)) {
-                hiragana = japaneseTextUtils.katakanaToHiragana(queryText);
-            }
-            String katakana = japaneseTextUtils.hiraganaToKatakana(queryText);
+    /**
+     * Tính các khóa tìm kiếm chuẩn của một entry từ vựng.
+     *
+     * @param entry Entry từ vựng.
+     * @return Danh sách khóa chuẩn của japaneseWord, furigana và romaji (romaji được gộp cách viết Hepburn/Kunrei).
+     */
+    public List<String> searchKeysOf(VocabularyEntry entry) {
+        Set<String> keys = new LinkedHashSet<>(japaneseNormalizer.searchKeys(entry.getJapaneseWord(), entry.getFurigana()));
+        String romaji = japaneseNormalizer.normalizeRomaji(entry.getRomaji());
+        if (!romaji.isEmpty()) {
+            keys.add(romaji);
+        }
+        return new ArrayList<>(keys);
+    }
 
-            if (!hiragana.equals(queryText)) {
-                criteriaList.add(Criteria.where("furigana").regex(hiragana, "i"));
-                criteriaList.add(Criteria.where("japaneseWord").regex(hiragana, "i"));
-            }
-            if (!katakana.equals(queryText)) {
-                criteriaList.add(Criteria.where("furigana").regex(katakana, "i"));
-                criteriaList.add(Criteria.where("japaneseWord").regex(katakana, "i"));
+    /**
+     * Tính các khóa tìm kiếm chuẩn của một Kanji.
+     *
+     * @param entry Entry Kanji.
+     * @return Danh sách khóa chuẩn của ký tự, các âm đọc và furigana.
+     */
+    public List<String> searchKeysOf(KanjiEntry entry) {
+        return japaneseNormalizer.searchKeys(entry.getKanjiCharacter(), entry.getOnyomi(), entry.getKunyomi(), entry.getFurigana());
+    }
+
+    /**
+     * Tách các âm đọc (On'yomi và Kun'yomi) của một Kanji thành mảng khóa chuẩn,
+     * dùng cho tra cứu chính xác hoặc theo tiền tố trên chỉ mục multikey.
+     *
+     * @param entry Entry Kanji.
+     * @return Danh sách các âm đọc đã chuẩn hóa, không trùng lặp.
+     */
+    public List<String> readingsOf(KanjiEntry entry) {
+        Set<String> readings = new LinkedHashSet<>(readingsOf(entry.getOnyomi()));
+        readings.addAll(readingsOf(entry.getKunyomi()));
+        return new ArrayList<>(readings);
+    }
+
+    /**
+     * Tách một chuỗi âm đọc được nối bằng dấu phẩy thành các khóa chuẩn.
+     *
+     * @param readings Chuỗi âm đọc (ví dụ: "ショク, ジキ").
+     * @return Danh sách các âm đọc đã chuẩn hóa, không trùng lặp.
+     */
+    public List<String> readingsOf(String readings) {
+        if (readings == null || readings.isBlank()) {
+            return List.of();
+        }
+        Set<String> keys = new LinkedHashSet<>();
+        for (String reading : READING_SEPARATOR.split(readings)) {
+            String key = readingKey(reading);
+            if (!key.isEmpty()) {
+                keys.add(key);
             }
         }
-        // Lưu ý: Chuyển đổi Kanji sang Kana/Romaji là phức tạp và thường được thực hiện bởi NLP library.
-        // Nếu bạn có một trường 'reading' chung chứa cả furigana và romaji, việc tìm kiếm sẽ đơn giản hơn.
+        return new ArrayList<>(keys);
+    }
+
+    /**
+     * Đưa một âm đọc (hoặc truy vấn âm đọc) về khóa chuẩn, bỏ các dấu okurigana và tiền tố/hậu tố.
+     *
+     * @param reading Âm đọc bằng Kana hoặc Romaji.
+     * @return Khóa chuẩn của âm đọc.
+     */
+    public String readingKey(String reading) {
+        return japaneseNormalizer.normalizeRomaji(READING_MARKS.matcher(reading).replaceAll(""));
+    }
+
+    /**
+     * Tách nghĩa của một Kanji thành các từ đã chuẩn hóa (chữ thường, bỏ dấu).
+     *
+     * @param entry Entry Kanji.
+     * @return Danh sách các từ của nghĩa, không trùng lặp.
+     */
+    public List<String> meaningTermsOf(KanjiEntry entry) {
+        return meaningTerms(entry.getMeaning());
+    }
 
-        return new Criteria().orOperator(criteriaList.toArray(new Criteria[0]));
+    /**
+     * Tách một chuỗi nghĩa (hoặc truy vấn theo nghĩa) thành các từ đã chuẩn hóa, giữ nguyên thứ tự.
+     *
+     * @param meaning Chuỗi nghĩa.
+     * @return Danh sách các từ, không trùng lặp.
+     */
+    public List<String> meaningTerms(String meaning) {
+        if (meaning == null || meaning.isBlank()) {
+            return List.of();
+        }
+        Set<String> terms = new LinkedHashSet<>();
+        for (String term : NON_WORD.split(japaneseNormalizer.foldKana(meaning))) {
+            if (!term.isEmpty()) {
+                terms.add(term);
+            }
+        }
+        return new ArrayList<>(terms);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,62 @@
+package com.domain.backend.util;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Đọc văn bản từ một Reader theo từng câu, với cùng quy tắc như {@link JapaneseTextUtils#splitSentences(String)}:
+ * câu kết thúc sau dấu 。！？!? hoặc xuống dòng, cùng các dấu đóng ngoặc ngay sau đó.
+ * <p>
+ * Chỉ một bộ đệm cố định và câu hiện tại được giữ trong bộ nhớ, nên có thể đọc văn bản lớn tùy ý.
+ * Câu dài hơn maxLength (văn bản không có dấu câu) bị cắt, không cắt giữa một cặp surrogate.
+ * Nối các câu lại theo thứ tự sẽ được đúng văn bản ban đầu.
+ */
+public final class SentenceReader {
+
+    private final Reader reader;
+    private final int maxLength;
+    private final char[] buffer = new char[8192];
+    private int position;
+    private int limit;
+    private final StringBuilder sentence = new StringBuilder();
+
+    public SentenceReader(Reader reader, int maxLength) {
+        if (maxLength < 2) {
+            throw new IllegalArgumentException("maxLength phải từ 2 trở lên");
+        }
+        this.reader = reader;
+        this.maxLength = maxLength;
+    }
+
+    /**
+     * Đọc câu tiếp theo.
+     *
+     * @return Câu tiếp theo (kể cả dấu kết thúc), hoặc null khi đã hết văn bản.
+     * @throws IOException nếu không thể đọc từ Reader.
+     */
+    public String next() throws IOException {
+        sentence.setLength(0);
+        boolean ended = false;
+        while (position < limit || fill()) {
+            char c = buffer[position];
+            if (ended ? JapaneseTextUtils.CLOSING_BRACKETS.indexOf(c) < 0
+                    : sentence.length() >= maxLength && !Character.isLowSurrogate(c)) {
+                break;
+            }
+            sentence.append(c);
+            position++;
+            ended = ended || JapaneseTextUtils.SENTENCE_ENDINGS.indexOf(c) >= 0;
+        }
+        return sentence.length() == 0 ? null : sentence.toString();
+    }
+
+    private boolean fill() throws IOException {
+        int read;
+        do {
+            read = reader.read(buffer, 0, buffer.length);
+        } while (read == 0);
+        position = 0;
+        limit = Math.max(read, 0);
+        return read > 0;
+    }
+}
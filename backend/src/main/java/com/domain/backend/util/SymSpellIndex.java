@@ -0,0 +1,186 @@
+package com.domain.backend.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Chỉ mục sửa lỗi chính tả kiểu SymSpell (symmetric delete) cho một từ điển từ Latin.
+ * <p>
+ * Khi dựng, mọi biến thể thu được bằng cách xóa tối đa {@code maxDistance} ký tự khỏi (tiền tố của) mỗi từ
+ * được lưu trong một bảng băm trỏ về các từ gốc. Khi tra cứu, các biến thể xóa của từ truy vấn được tra trong bảng
+ * để lấy ứng viên, rồi khoảng cách Damerau-Levenshtein (OSA) được tính trên số ít ứng viên đó.
+ * Không có thao tác nào duyệt toàn bộ từ điển.
+ * <p>
+ * Đối tượng là bất biến sau khi dựng nên có thể dùng đồng thời từ nhiều luồng.
+ */
+public final class SymSpellIndex {
+
+    private static final int[] NO_WORDS = new int[0];
+
+    private final String[] words;
+    private final int[] frequencies;
+    private final Map<String, Integer> wordIds;
+    private final Map<String, int[]> deletes; // Biến thể xóa -> id các từ gốc
+    private final int maxDistance;
+    private final int prefixLength;
+
+    private SymSpellIndex(String[] words, int[] frequencies, Map<String, Integer> wordIds, Map<String, int[]> deletes,
+                          int maxDistance, int prefixLength) {
+        this.words = words;
+        this.frequencies = frequencies;
+        this.wordIds = wordIds;
+        this.deletes = deletes;
+        this.maxDistance = maxDistance;
+        this.prefixLength = prefixLength;
+    }
+
+    /**
+     * Dựng chỉ mục từ bảng tần suất từ.
+     *
+     * @param frequencies  Từ -> số tài liệu chứa từ (dùng để chọn giữa các ứng viên cùng khoảng cách).
+     * @param maxDistance  Khoảng cách chỉnh sửa tối đa được hỗ trợ.
+     * @param prefixLength Chỉ sinh biến thể xóa trên tối đa chừng này ký tự đầu của mỗi từ (giảm bộ nhớ như SymSpell).
+     * @return Chỉ mục đã dựng.
+     */
+    public static SymSpellIndex build(Map<String, Integer> frequencies, int maxDistance, int prefixLength) {
+        String[] words = frequencies.keySet().toArray(new String[0]);
+        Arrays.sort(words);
+        int[] wordFrequencies = new int[words.length];
+        Map<String, Integer> wordIds = new HashMap<>(words.length * 2);
+        Map<String, List<Integer>> idsByVariant = new HashMap<>();
+        Set<String> variants = new HashSet<>();
+        for (int id = 0; id < words.length; id++) {
+            wordFrequencies[id] = frequencies.get(words[id]);
+            wordIds.put(words[id], id);
+            variants.clear();
+            String prefix = words[id].length() > prefixLength ? words[id].substring(0, prefixLength) : words[id];
+            variants.add(prefix);
+            collectDeletes(prefix, maxDistanceFor(words[id].length(), maxDistance), variants);
+            for (String variant : variants) {
+                idsByVariant.computeIfAbsent(variant, key -> new ArrayList<>(1)).add(id);
+            }
+        }
+        Map<String, int[]> deletes = new HashMap<>(idsByVariant.size() * 2);
+        idsByVariant.forEach((variant, ids) -> deletes.put(variant, ids.stream().mapToInt(Integer::intValue).toArray()));
+        return new SymSpellIndex(words, wordFrequencies, wordIds, deletes, maxDistance, prefixLength);
+    }
+
+    /**
+     * Khoảng cách chỉnh sửa cho phép theo độ dài từ: từ rất ngắn phải khớp chính xác,
+     * nếu không gần như mọi từ ngắn khác đều trở thành ứng viên.
+     */
+    private static int maxDistanceFor(int length, int maxDistance) {
+        if (length <= 2) {
+            return 0;
+        }
+        return length <= 4 ? Math.min(1, maxDistance) : maxDistance;
+    }
+
+    /**
+     * Kiểm tra một từ có trong từ điển hay không.
+     *
+     * @param word Từ đã chuẩn hóa.
+     * @return true nếu từ có trong từ điển.
+     */
+    public boolean contains(String word) {
+        return wordIds.containsKey(word);
+    }
+
+    /**
+     * Tìm từ gần nhất trong từ điển: khoảng cách nhỏ nhất, rồi tần suất cao nhất, rồi theo thứ tự từ điển.
+     *
+     * @param word Từ đã chuẩn hóa.
+     * @return Từ gần nhất (có thể là chính nó nếu đã đúng), hoặc Optional rỗng nếu không có từ nào đủ gần.
+     */
+    public Optional<String> correct(String word) {
+        if (contains(word)) {
+            return Optional.of(word);
+        }
+        int allowed = maxDistanceFor(word.length(), maxDistance);
+        if (allowed == 0) {
+            return Optional.empty();
+        }
+        Set<String> variants = new HashSet<>();
+        String prefix = word.length() > prefixLength ? word.substring(0, prefixLength) : word;
+        variants.add(prefix);
+        collectDeletes(prefix, allowed, variants);
+
+        int bestId = -1;
+        int bestDistance = allowed + 1;
+        Set<Integer> checked = new HashSet<>();
+        for (String variant : variants) {
+            for (int id : deletes.getOrDefault(variant, NO_WORDS)) {
+                if (!checked.add(id) || Math.abs(words[id].length() - word.length()) > allowed) {
+                    continue;
+                }
+                int distance = editDistance(word, words[id], Math.min(allowed, bestDistance));
+                if (distance < bestDistance || (distance == bestDistance && bestId >= 0
+                        && (frequencies[id] > frequencies[bestId] || (frequencies[id] == frequencies[bestId] && id < bestId)))) {
+                    bestDistance = distance;
+                    bestId = id;
+                }
+            }
+        }
+        return bestId >= 0 && bestDistance <= allowed ? Optional.of(words[bestId]) : Optional.empty();
+    }
+
+    /**
+     * Số từ trong từ điển.
+     */
+    public int size() {
+        return words.length;
+    }
+
+    private static void collectDeletes(String word, int distance, Set<String> variants) {
+        if (distance == 0 || word.length() <= 1) {
+            return;
+        }
+        for (int i = 0; i < word.length(); i++) {
+            String variant = word.substring(0, i) + word.substring(i + 1);
+            if (variants.add(variant)) {
+                collectDeletes(variant, distance - 1, variants);
+            }
+        }
+    }
+
+    /**
+     * Khoảng cách Damerau-Levenshtein (optimal string alignment), dừng sớm khi vượt quá bound.
+     *
+     * @return Khoảng cách, hoặc bound + 1 nếu lớn hơn bound.
+     */
+    static int editDistance(String a, String b, int bound) {
+        int[] previousPrevious = new int[b.length() + 1];
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                int value = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    value = Math.min(value, previousPrevious[j - 2] + 1); // Hoán vị hai ký tự liền kề
+                }
+                current[j] = value;
+                rowMin = Math.min(rowMin, value);
+            }
+            if (rowMin > bound) {
+                return bound + 1;
+            }
+            int[] recycled = previousPrevious;
+            previousPrevious = previous;
+            previous = current;
+            current = recycled;
+        }
+        return Math.min(previous[b.length()], bound + 1);
+    }
+}
@@ -0,0 +1,56 @@
+package com.domain.backend.util;
+
+import com.atilika.kuromoji.ipadic.Token;
+import com.atilika.kuromoji.ipadic.Tokenizer;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Các Kuromoji Tokenizer dùng chung cho toàn ứng dụng, chia thành nhiều shard.
+ * <p>
+ * Tokenizer của Kuromoji an toàn khi dùng đồng thời (mỗi lần gọi tự tạo lattice riêng), nên một shard không bị
+ * khóa giữa các luồng; chia shard chỉ giúp khi nhiều luồng cùng phân tích làm tranh chấp cache CPU trên các bảng
+ * từ điển dùng chung. Mỗi shard nạp một bản từ điển IPADIC riêng (vài chục MB heap), nên số shard mặc định là 1;
+ * xem FuriganaContentionBenchmarkTest để đo trước khi tăng {@code japanese.tokenizer.shards}.
+ * Luồng được gán cố định vào một shard theo ID luồng, không cần khóa hay mượn/trả.
+ */
+@Component
+public class TokenizerPool {
+
+    @Value("${japanese.tokenizer.shards:1}")
+    private int shardCount;
+
+    private Tokenizer[] shards;
+
+    @PostConstruct
+    public void init() {
+        shards = new Tokenizer[Math.max(1, shardCount)];
+        for (int i = 0; i < shards.length; i++) {
+            shards[i] = new Tokenizer();
+        }
+    }
+
+    /**
+     * Phân tích văn bản thành các token (hình vị).
+     *
+     * @param text Văn bản tiếng Nhật.
+     * @return Danh sách token theo thứ tự trong văn bản.
+     */
+    public List<Token> tokenize(String text) {
+        return shard().tokenize(text);
+    }
+
+    /**
+     * Số shard (số bản Tokenizer) đang dùng.
+     */
+    public int shardCount() {
+        return shards.length;
+    }
+
+    private Tokenizer shard() {
+        return shards.length == 1 ? shards[0] : shards[(int) (Thread.currentThread().getId() % shards.length)];
+    }
+}
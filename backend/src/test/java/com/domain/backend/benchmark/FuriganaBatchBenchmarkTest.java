@@ -0,0 +1,93 @@
+package com.domain.backend.benchmark;
+
+import com.domain.backend.service.FuriganaService;
+import com.domain.backend.util.JapaneseTextUtils;
+import com.domain.backend.util.TokenizerPool;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Đo thông lượng (câu/giây) của FuriganaService.generateFuriganaBatch theo số luồng của pool fork-join,
+ * trên một "khóa học" gồm nhiều bài học với các câu không lặp lại (cache không che kết quả).
+ * Kết quả hàng loạt cũng được so với kết quả tạo tuần tự cho từng văn bản.
+ * <p>
+ * Chạy bằng: mvn test -Pbenchmark
+ */
+@Tag("benchmark")
+class FuriganaBatchBenchmarkTest {
+
+    private static final int LESSONS = 100;
+    private static final int SENTENCES_PER_LESSON = 40;
+    private static final String[] SENTENCES = {
+            "私は毎日日本語を勉強しています。", "東京は日本の首都で、人口がとても多いです。",
+            "昨日、友達と一緒に映画館へ行きました。", "この本は難しいですが、とても面白いと思います！",
+            "週末には家族と公園で散歩するのが好きです。", "電車が遅れたので、会議に間に合いませんでした。",
+            "先生は「明日は試験です」と言いました。", "雨が降りそうなので、傘を持って出かけましょう。\n",
+            "新しい漢字を覚えるために、毎朝ノートに書いています。", "駅の近くに美味しいラーメン屋があるそうですか？",
+    };
+
+    private final Random random = new Random(23);
+    private final TokenizerPool tokenizerPool = new TokenizerPool();
+
+    @Test
+    void batchThroughputByCoreCount() {
+        ReflectionTestUtils.setField(tokenizerPool, "shardCount", 1);
+        tokenizerPool.init();
+        int cores = Runtime.getRuntime().availableProcessors();
+        TreeSet<Integer> parallelisms = new TreeSet<>(List.of(1, 2, 4, cores, cores * 2));
+        System.out.printf("CPU: %d lõi, %d bài học, %d câu%n", cores, LESSONS, LESSONS * SENTENCES_PER_LESSON);
+
+        List<String> warmUp = course(-1);
+        service(cores).generateFuriganaBatch(warmUp); // Làm nóng JIT và từ điển
+
+        for (int parallelism : parallelisms) {
+            List<String> lessons = course(parallelism); // Câu mới cho mỗi lần đo, cache trống
+            FuriganaService service = service(parallelism);
+            long start = System.nanoTime();
+            List<String> results = service.generateFuriganaBatch(lessons);
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("%2d luồng: %,.0f câu/giây%n", parallelism, LESSONS * SENTENCES_PER_LESSON / seconds);
+            service.shutdown();
+
+            FuriganaService sequential = service(1);
+            for (int i = 0; i < lessons.size(); i++) {
+                assertEquals(sequential.generateFurigana(lessons.get(i)), results.get(i));
+            }
+            sequential.shutdown();
+        }
+    }
+
+    /**
+     * Các bài học gồm những câu mẫu được đánh số theo lượt đo, để không câu nào trùng giữa các lượt.
+     */
+    private List<String> course(int round) {
+        List<String> lessons = new ArrayList<>(LESSONS);
+        for (int lesson = 0; lesson < LESSONS; lesson++) {
+            StringBuilder text = new StringBuilder();
+            for (int s = 0; s < SENTENCES_PER_LESSON; s++) {
+                text.append("第").append(round + 2).append("回").append(lesson).append("課").append(s)
+                        .append(SENTENCES[random.nextInt(SENTENCES.length)]);
+            }
+            lessons.add(text.toString());
+        }
+        return lessons;
+    }
+
+    private FuriganaService service(int parallelism) {
+        FuriganaService service = new FuriganaService();
+        ReflectionTestUtils.setField(service, "tokenizerPool", tokenizerPool);
+        ReflectionTestUtils.setField(service, "japaneseTextUtils", new JapaneseTextUtils());
+        ReflectionTestUtils.setField(service, "maxBytes", 64L * 1024 * 1024);
+        ReflectionTestUtils.setField(service, "batchParallelism", parallelism);
+        service.init();
+        return service;
+    }
+}
@@ -0,0 +1,130 @@
+package com.domain.backend.benchmark;
+
+import com.domain.backend.service.FuriganaService;
+import com.domain.backend.util.JapaneseTextUtils;
+import com.domain.backend.util.TokenizerPool;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Đo thông lượng phân tích furigana khi nhiều luồng cùng gọi: một Tokenizer dùng chung so với nhiều shard,
+ * và FuriganaService có cache trên lưu lượng lệch (vài đoạn văn được yêu cầu rất nhiều lần).
+ * Tính đúng đắn của cache được kiểm tra trong FuriganaCacheTest.
+ * <p>
+ * Chạy bằng: mvn test -Pbenchmark
+ */
+@Tag("benchmark")
+class FuriganaContentionBenchmarkTest {
+
+    private static final int PARAGRAPHS = 200;
+    private static final int REQUESTS_PER_THREAD = 400;
+    private static final int[] THREAD_COUNTS = {1, 2, 4, 8};
+    private static final String[] SENTENCES = {
+            "私は毎日日本語を勉強しています。", "東京は日本の首都で、人口がとても多いです。",
+            "昨日、友達と一緒に映画館へ行きました。", "この本は難しいですが、とても面白いと思います。",
+            "週末には家族と公園で散歩するのが好きです。", "電車が遅れたので、会議に間に合いませんでした。",
+            "先生の説明は分かりやすくて、学生に人気があります。", "雨が降りそうなので、傘を持って出かけましょう。",
+            "新しい漢字を覚えるために、毎朝ノートに書いています。", "駅の近くに美味しいラーメン屋があるそうです。",
+    };
+
+    private final Random random = new Random(11);
+
+    @Test
+    void tokenizerContention() throws Exception {
+        List<String> paragraphs = paragraphs();
+        int cores = Runtime.getRuntime().availableProcessors();
+        TokenizerPool shared = pool(1);
+        TokenizerPool sharded = pool(Math.min(4, Math.max(2, cores)));
+        System.out.printf("CPU: %d lõi, %d đoạn văn, %d shard%n", cores, PARAGRAPHS, sharded.shardCount());
+
+        for (TokenizerPool pool : new TokenizerPool[]{shared, sharded}) {
+            run(THREAD_COUNTS[THREAD_COUNTS.length - 1], index -> pool.tokenize(paragraphs.get(index % PARAGRAPHS))); // Làm nóng JIT
+            for (int threads : THREAD_COUNTS) {
+                double perSecond = run(threads, index -> pool.tokenize(paragraphs.get(index % PARAGRAPHS)));
+                System.out.printf("%d shard, %d luồng: %,.0f đoạn/giây%n", pool.shardCount(), threads, perSecond);
+            }
+        }
+
+        // Lưu lượng lệch: 80% yêu cầu rơi vào 10% đoạn văn
+        FuriganaService service = service(shared, 32L * 1024 * 1024);
+        for (int threads : THREAD_COUNTS) {
+            double perSecond = run(threads, index -> service.generateFurigana(paragraphs.get(skewedIndex(index))));
+            System.out.printf("FuriganaService có cache, %d luồng: %,.0f yêu cầu/giây%n", threads, perSecond);
+        }
+    }
+
+    private interface Work {
+        void run(int index);
+    }
+
+    /**
+     * Chạy REQUESTS_PER_THREAD lần mỗi luồng và trả về thông lượng (lần/giây).
+     */
+    private static double run(int threads, Work work) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int offset = t * REQUESTS_PER_THREAD;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < REQUESTS_PER_THREAD; i++) {
+                        work.run(offset + i);
+                    }
+                    return null;
+                }));
+            }
+            long begin = System.nanoTime();
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            return threads * REQUESTS_PER_THREAD / ((System.nanoTime() - begin) / 1e9);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private int skewedIndex(int index) {
+        Random local = new Random(index);
+        return local.nextInt(10) < 8 ? local.nextInt(PARAGRAPHS / 10) : local.nextInt(PARAGRAPHS);
+    }
+
+    private List<String> paragraphs() {
+        List<String> paragraphs = new ArrayList<>(PARAGRAPHS);
+        for (int i = 0; i < PARAGRAPHS; i++) {
+            StringBuilder paragraph = new StringBuilder();
+            for (int s = 3 + random.nextInt(5); s > 0; s--) {
+                paragraph.append(SENTENCES[random.nextInt(SENTENCES.length)]);
+            }
+            paragraphs.add(paragraph.append(i).toString()); // Mỗi đoạn khác nhau
+        }
+        return paragraphs;
+    }
+
+    private static TokenizerPool pool(int shards) {
+        TokenizerPool pool = new TokenizerPool();
+        ReflectionTestUtils.setField(pool, "shardCount", shards);
+        pool.init();
+        return pool;
+    }
+
+    private static FuriganaService service(TokenizerPool pool, long maxBytes) {
+        FuriganaService service = new FuriganaService();
+        ReflectionTestUtils.setField(service, "tokenizerPool", pool);
+        ReflectionTestUtils.setField(service, "japaneseTextUtils", new JapaneseTextUtils());
+        ReflectionTestUtils.setField(service, "maxBytes", maxBytes);
+        service.init();
+        return service;
+    }
+}
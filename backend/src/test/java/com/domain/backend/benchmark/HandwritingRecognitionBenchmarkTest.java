@@ -0,0 +1,210 @@
+package com.domain.backend.benchmark;
+
+import com.domain.backend.config.SearchConfig;
+import com.domain.backend.entity.KanjiEntry;
+import com.domain.backend.service.HandwritingRecognitionService;
+import com.domain.backend.util.HandwritingFeatureExtractor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.imageio.ImageIO;
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.Path2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Đo độ trễ nhận dạng chữ viết tay (p50/p95/p99) trên một chỉ mục mẫu tổng hợp cỡ bảng Jōyō,
+ * khi gọi tuần tự (có và không có số nét) và khi nhiều người dùng gọi đồng thời.
+ * Ảnh truy vấn được vẽ lại từ cùng các nét với độ lệch ngẫu nhiên, độ dày nét và kích thước canvas khác mẫu.
+ * <p>
+ * Chạy bằng: mvn test -Pbenchmark
+ */
+@Tag("benchmark")
+class HandwritingRecognitionBenchmarkTest {
+
+    private static final int KANJI_COUNT = 3_000;
+    private static final int QUERY_COUNT = 300;
+    private static final int CONCURRENT_CALLERS = 8;
+    private static final int CANVAS_SIZE = 300;
+    private static final double JITTER = 2.5; // Đơn vị của viewBox 109
+
+    private final Random random = new Random(7);
+    private final List<List<double[]>> strokesByKanji = new ArrayList<>();
+    private HandwritingRecognitionService service;
+    private ThreadPoolTaskExecutor executor;
+
+    @BeforeEach
+    void setUp() {
+        List<KanjiEntry> kanji = new ArrayList<>(KANJI_COUNT);
+        for (int i = 0; i < KANJI_COUNT; i++) {
+            List<double[]> strokes = new ArrayList<>();
+            for (int s = random.nextInt(20) + 1; s > 0; s--) {
+                strokes.add(new double[]{10 + random.nextDouble() * 89, 10 + random.nextDouble() * 89,
+                        10 + random.nextDouble() * 89, 10 + random.nextDouble() * 89});
+            }
+            strokesByKanji.add(strokes);
+            KanjiEntry entry = new KanjiEntry();
+            entry.setId("k" + i);
+            entry.setKanjiCharacter(String.valueOf((char) (0x4E00 + i)));
+            entry.setStrokeCount(strokes.size());
+            entry.setStrokeOrderSvg(toSvg(strokes));
+            kanji.add(entry);
+        }
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        when(mongoTemplate.stream(any(Query.class), eq(KanjiEntry.class))).thenAnswer(invocation -> kanji.stream());
+
+        executor = (ThreadPoolTaskExecutor) new SearchConfig().handwritingExecutor(4, 64);
+        service = new HandwritingRecognitionService();
+        ReflectionTestUtils.setField(service, "mongoTemplate", mongoTemplate);
+        ReflectionTestUtils.setField(service, "featureExtractor", new HandwritingFeatureExtractor());
+        ReflectionTestUtils.setField(service, "handwritingExecutor", executor);
+        ReflectionTestUtils.setField(service, "timeoutMs", 10_000L);
+
+        long start = System.currentTimeMillis();
+        service.rebuild();
+        System.out.printf("Dựng chỉ mục %d mẫu: %d ms%n", KANJI_COUNT, System.currentTimeMillis() - start);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+        service.shutdown();
+    }
+
+    @Test
+    void recognitionLatency() throws Exception {
+        int[] targets = new int[QUERY_COUNT];
+        String[] images = new String[QUERY_COUNT];
+        for (int i = 0; i < QUERY_COUNT; i++) {
+            targets[i] = random.nextInt(KANJI_COUNT);
+            images[i] = drawQuery(strokesByKanji.get(targets[i]));
+        }
+        for (int i = 0; i < 50; i++) { // Làm nóng JIT
+            service.recognize(images[i], null, 10);
+        }
+
+        long[] pruned = new long[QUERY_COUNT];
+        long[] fullScan = new long[QUERY_COUNT];
+        int top1 = 0, top5 = 0;
+        for (int i = 0; i < QUERY_COUNT; i++) {
+            int strokeCount = strokesByKanji.get(targets[i]).size();
+            long start = System.nanoTime();
+            List<HandwritingRecognitionService.Candidate> candidates = service.recognize(images[i], strokeCount, 10);
+            pruned[i] = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            service.recognize(images[i], null, 10);
+            fullScan[i] = System.nanoTime() - start;
+
+            String expected = "k" + targets[i];
+            for (int rank = 0; rank < Math.min(5, candidates.size()); rank++) {
+                if (candidates.get(rank).getKanjiId().equals(expected)) {
+                    top1 += rank == 0 ? 1 : 0;
+                    top5++;
+                    break;
+                }
+            }
+        }
+        report("Tuần tự, có số nét", pruned);
+        report("Tuần tự, quét toàn bộ", fullScan);
+        System.out.printf("Độ chính xác: top-1 %.1f%%, top-5 %.1f%%%n", 100.0 * top1 / QUERY_COUNT, 100.0 * top5 / QUERY_COUNT);
+
+        long[] concurrent = new long[QUERY_COUNT];
+        AtomicInteger next = new AtomicInteger();
+        ExecutorService callers = Executors.newFixedThreadPool(CONCURRENT_CALLERS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int c = 0; c < CONCURRENT_CALLERS; c++) {
+                futures.add(callers.submit(() -> {
+                    for (int i = next.getAndIncrement(); i < QUERY_COUNT; i = next.getAndIncrement()) {
+                        long start = System.nanoTime();
+                        service.recognize(images[i], strokesByKanji.get(targets[i]).size(), 10);
+                        concurrent[i] = System.nanoTime() - start;
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            callers.shutdown();
+        }
+        report(CONCURRENT_CALLERS + " người gọi đồng thời, có số nét", concurrent);
+
+        assertTrue(top1 >= QUERY_COUNT * 0.8, "Độ chính xác top-1 quá thấp: " + top1 + "/" + QUERY_COUNT);
+        assertTrue(top5 >= QUERY_COUNT * 0.9, "Độ chính xác top-5 quá thấp: " + top5 + "/" + QUERY_COUNT);
+    }
+
+    private static void report(String label, long[] nanos) {
+        long[] sorted = nanos.clone();
+        Arrays.sort(sorted);
+        System.out.printf("%-36s p50 %.2f ms, p95 %.2f ms, p99 %.2f ms%n", label,
+                percentile(sorted, 0.50), percentile(sorted, 0.95), percentile(sorted, 0.99));
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(p * sorted.length) - 1)] / 1e6;
+    }
+
+    private static String toSvg(List<double[]> strokes) {
+        StringBuilder svg = new StringBuilder("<svg xmlns=\"http://www.w3.org/2000/svg\" viewBox=\"0 0 109 109\">");
+        for (double[] stroke : strokes) {
+            svg.append(String.format(Locale.ROOT, "<path d=\"M%.1f,%.1fL%.1f,%.1f\"/>",
+                    stroke[0], stroke[1], stroke[2], stroke[3]));
+        }
+        return svg.append("</svg>").toString();
+    }
+
+    /**
+     * Vẽ lại các nét như người dùng vẽ trên canvas: nền trong suốt, nét dày hơn, mỗi điểm lệch ngẫu nhiên.
+     */
+    private String drawQuery(List<double[]> strokes) throws IOException {
+        BufferedImage image = new BufferedImage(CANVAS_SIZE, CANVAS_SIZE, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        graphics.setColor(Color.BLACK);
+        graphics.setStroke(new BasicStroke(12f, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND));
+        double scale = CANVAS_SIZE / 109.0;
+        for (double[] stroke : strokes) {
+            Path2D.Double path = new Path2D.Double();
+            path.moveTo((stroke[0] + jitter()) * scale, (stroke[1] + jitter()) * scale);
+            path.lineTo((stroke[2] + jitter()) * scale, (stroke[3] + jitter()) * scale);
+            graphics.draw(path);
+        }
+        graphics.dispose();
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", output);
+        return "data:image/png;base64," + Base64.getEncoder().encodeToString(output.toByteArray());
+    }
+
+    private double jitter() {
+        return (random.nextDouble() * 2 - 1) * JITTER;
+    }
+}
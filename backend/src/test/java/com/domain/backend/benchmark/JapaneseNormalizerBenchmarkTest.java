@@ -0,0 +1,131 @@
+package com.domain.backend.benchmark;
+
+import com.domain.backend.util.JapaneseNormalizer;
+import com.domain.backend.util.JapaneseTextUtils;
+import com.domain.backend.util.RomajiTransliterator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * So sánh chi phí so khớp của khóa chuẩn (JapaneseNormalizer) với tổ hợp $or regex của
+ * buildMultiScriptSearchCriteria trước đây, trên một từ điển tổng hợp.
+ * <p>
+ * Chạy bằng: mvn test -Pbenchmark
+ */
+@Tag("benchmark")
+class JapaneseNormalizerBenchmarkTest {
+
+    private static final int DICTIONARY_SIZE = 20_000;
+    private static final int ROUNDS = 20;
+    private static final String[] SYLLABLES = {
+            "か", "き", "く", "け", "こ", "さ", "し", "す", "た", "ち", "つ", "な", "に", "は", "ひ", "ふ",
+            "ま", "み", "や", "ゆ", "よ", "ら", "り", "る", "わ", "ん", "しゃ", "きょ", "っ", "ー", "が", "ぱ",
+    };
+
+    private final JapaneseNormalizer normalizer = new JapaneseNormalizer();
+    private final JapaneseTextUtils japaneseTextUtils = new JapaneseTextUtils();
+
+    @BeforeEach
+    void setUp() {
+        RomajiTransliterator transliterator = new RomajiTransliterator();
+        ReflectionTestUtils.setField(normalizer, "romajiTransliterator", transliterator);
+        ReflectionTestUtils.setField(japaneseTextUtils, "romajiTransliterator", transliterator);
+    }
+
+    @Test
+    void compareWithLegacyOrCriteria() {
+        Random random = new Random(42);
+        List<String[]> entries = new ArrayList<>(DICTIONARY_SIZE); // {japaneseWord, furigana, romaji}
+        List<List<String>> searchKeys = new ArrayList<>(DICTIONARY_SIZE);
+        for (int i = 0; i < DICTIONARY_SIZE; i++) {
+            StringBuilder furigana = new StringBuilder("あ");
+            for (int j = random.nextInt(4) + 2; j > 0; j--) {
+                furigana.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+            }
+            String word = i % 2 == 0 ? japaneseTextUtils.hiraganaToKatakana(furigana.toString()) : furigana.toString();
+            String romaji = normalizer.normalizeRomaji(furigana.toString());
+            entries.add(new String[]{word, furigana.toString(), romaji});
+            searchKeys.add(normalizer.searchKeys(word, furigana.toString(), romaji));
+        }
+        String[] queries = {"かし", "カシ", "kashi", "kasi", "ｶｼ", "しゃ", "sya", "あんな"};
+
+        long legacyMatches = 0, unifiedMatches = 0;
+        long legacyNanos = 0, unifiedNanos = 0;
+        int legacyClauses = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            for (String query : queries) {
+                long start = System.nanoTime();
+                List<Pattern> patterns = legacyPatterns(query);
+                long matches = 0;
+                for (String[] entry : entries) {
+                    if (matchesAny(patterns, entry)) {
+                        matches++;
+                    }
+                }
+                legacyNanos += System.nanoTime() - start;
+                legacyMatches += matches;
+                legacyClauses = Math.max(legacyClauses, patterns.size());
+
+                start = System.nanoTime();
+                List<String> queryKeys = normalizer.queryKeys(query);
+                matches = 0;
+                for (List<String> keys : searchKeys) {
+                    if (keys.stream().anyMatch(candidate -> queryKeys.stream().anyMatch(candidate::startsWith))) {
+                        matches++;
+                    }
+                }
+                unifiedNanos += System.nanoTime() - start;
+                unifiedMatches += matches;
+            }
+        }
+
+        System.out.printf("Legacy $or regex: tối đa %d mệnh đề, %d ms, %d kết quả%n",
+                legacyClauses, legacyNanos / 1_000_000, legacyMatches);
+        System.out.printf("Khóa chuẩn:       tối đa 2 mệnh đề, %d ms, %d kết quả%n",
+                unifiedNanos / 1_000_000, unifiedMatches);
+        // Số kết quả không trùng khớp hoàn toàn: regex trên Kana coi "かし" là chuỗi con của "かしゃ",
+        // còn khóa chuẩn so khớp theo âm tiết (kashi / kasha)
+        assertTrue(legacyMatches > 0 && unifiedMatches > 0);
+    }
+
+    /**
+     * Tái hiện các mệnh đề do buildMultiScriptSearchCriteria (scriptType = ALL) tạo ra trước đây.
+     */
+    private List<Pattern> legacyPatterns(String query) {
+        List<String> variants = new ArrayList<>();
+        variants.add(query);
+        String hiraganaFromRomaji = japaneseTextUtils.romajiToHiragana(query);
+        variants.add(hiraganaFromRomaji);
+        variants.add(japaneseTextUtils.hiraganaToKatakana(hiraganaFromRomaji));
+        variants.add(japaneseTextUtils.hiraganaToKatakana(query));
+        List<Pattern> patterns = new ArrayList<>();
+        for (String variant : variants) {
+            // Mỗi biến thể được thử trên japaneseWord, furigana (và romaji với truy vấn gốc)
+            Pattern pattern = Pattern.compile(variant, Pattern.CASE_INSENSITIVE);
+            patterns.add(pattern);
+            patterns.add(pattern);
+        }
+        patterns.add(Pattern.compile(query, Pattern.CASE_INSENSITIVE));
+        return patterns;
+    }
+
+    private static boolean matchesAny(List<Pattern> patterns, String[] entry) {
+        for (int i = 0; i < patterns.size(); i++) {
+            Pattern pattern = patterns.get(i);
+            String field = i == patterns.size() - 1 ? entry[2] : entry[i % 2];
+            if (pattern.matcher(field).find()) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,53 @@
+package com.domain.backend.benchmark;
+
+import com.domain.backend.util.RomajiTransliterator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark JMH cho RomajiTransliterator: chuyển một truy vấn điển hình và một câu dài theo cả hai chiều.
+ * Được chạy bởi {@link RomajiTransliteratorBenchmarkTest} trong profile benchmark.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RomajiTransliteratorBenchmark {
+
+    private final RomajiTransliterator transliterator = new RomajiTransliterator();
+    private final StringBuilder buffer = new StringBuilder(256);
+
+    private final String query = "toukyou";
+    private final String sentence = "watashiha mainichi nihongo wo benkyoushiteimasu. kinou ha tomodachi to kissaten de maccha wo nomimashita.";
+    private final String kanaSentence = "わたしはまいにちにほんごをべんきょうしています。きのうはともだちときっさてんでまっちゃをのみました。";
+
+    @Benchmark
+    public String queryToHiragana() {
+        return transliterator.toHiragana(query);
+    }
+
+    @Benchmark
+    public int sentenceToHiragana() {
+        buffer.setLength(0);
+        transliterator.appendHiragana(sentence, buffer);
+        return buffer.length();
+    }
+
+    @Benchmark
+    public int sentenceToRomaji() {
+        buffer.setLength(0);
+        transliterator.appendRomaji(kanaSentence, buffer, true);
+        return buffer.length();
+    }
+}
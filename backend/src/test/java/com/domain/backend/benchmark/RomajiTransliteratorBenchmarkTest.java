@@ -0,0 +1,25 @@
+package com.domain.backend.benchmark;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Chạy benchmark JMH của RomajiTransliterator.
+ * <p>
+ * Chạy bằng: mvn test -Pbenchmark
+ */
+@Tag("benchmark")
+class RomajiTransliteratorBenchmarkTest {
+
+    @Test
+    void runJmh() throws RunnerException {
+        assertFalse(new Runner(new OptionsBuilder()
+                .include(RomajiTransliteratorBenchmark.class.getSimpleName())
+                .build()).run().isEmpty());
+    }
+}
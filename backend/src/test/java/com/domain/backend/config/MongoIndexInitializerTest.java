@@ -0,0 +1,114 @@
+package com.domain.backend.config;
+
+import com.domain.backend.entity.CourseModule;
+import com.domain.backend.entity.KanjiEntry;
+import com.domain.backend.entity.SearchIndex;
+import com.domain.backend.entity.VocabularyEntry;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class MongoIndexInitializerTest {
+
+    private final Map<String, IndexOperations> indexOps = new HashMap<>();
+    private MongoTemplate mongoTemplate;
+    private MongoIndexInitializer initializer;
+
+    @BeforeEach
+    void setUp() {
+        MongoMappingContext mappingContext = new MongoMappingContext();
+        mappingContext.setSimpleTypeHolder(new MongoCustomConversions(List.of()).getSimpleTypeHolder()); // Như cấu hình của Spring Boot
+        mappingContext.setInitialEntitySet(Set.of(VocabularyEntry.class, KanjiEntry.class, SearchIndex.class, CourseModule.class));
+        mappingContext.afterPropertiesSet();
+        MongoConverter converter = mock(MongoConverter.class);
+        when(converter.getMappingContext()).thenAnswer(invocation -> mappingContext);
+
+        mongoTemplate = mock(MongoTemplate.class);
+        when(mongoTemplate.getConverter()).thenReturn(converter);
+        when(mongoTemplate.indexOps(any(String.class)))
+                .thenAnswer(invocation -> indexOps.computeIfAbsent(invocation.getArgument(0), name -> mock(IndexOperations.class)));
+
+        initializer = new MongoIndexInitializer();
+        ReflectionTestUtils.setField(initializer, "mongoTemplate", mongoTemplate);
+    }
+
+    @Test
+    void createsVocabularyImportIndexes() {
+        initializer.ensureIndexes();
+
+        List<IndexDefinition> indexes = createdIndexes("vocabularyEntries");
+        IndexDefinition entSeq = find(indexes, "entSeq");
+        assertNotNull(entSeq, "Upsert theo ent_seq khi nhập JMdict cần chỉ mục entSeq");
+        assertEquals(Boolean.TRUE, entSeq.getIndexOptions().get("unique"));
+        assertEquals(Boolean.TRUE, entSeq.getIndexOptions().get("sparse"));
+        assertNotNull(find(indexes, "searchKeys"));
+        assertNotNull(find(indexes, "japaneseWord"));
+    }
+
+    @Test
+    void createsSearchIndexEntityAndKanjiSearchIndexes() {
+        initializer.ensureIndexes();
+
+        IndexDefinition entity = find(createdIndexes("searchIndex"), "entityType");
+        assertNotNull(entity);
+        assertEquals(new Document("entityType", 1).append("entityId", 1), entity.getIndexKeys());
+        assertEquals(Boolean.TRUE, entity.getIndexOptions().get("unique"));
+
+        List<IndexDefinition> kanjiIndexes = createdIndexes("kanjiEntries");
+        assertNotNull(find(kanjiIndexes, "readings"));
+        assertNotNull(find(kanjiIndexes, "meaningTerms"));
+        assertNotNull(find(kanjiIndexes, "kanjiCharacter"));
+    }
+
+    @Test
+    void skipsEmbeddedTypesAndContinuesAfterFailure() {
+        IndexOperations vocabularyIndexOps = mock(IndexOperations.class);
+        doThrow(new IllegalStateException("E11000 duplicate key")).when(vocabularyIndexOps).createIndex(any());
+        indexOps.put("vocabularyEntries", vocabularyIndexOps);
+
+        initializer.ensureIndexes();
+
+        assertFalse(indexOps.containsKey("courseModule"));
+        assertTrue(indexOps.containsKey("kanjiEntries"));
+        assertTrue(indexOps.containsKey("searchIndex"));
+    }
+
+    private List<IndexDefinition> createdIndexes(String collection) {
+        IndexOperations operations = indexOps.get(collection);
+        assertNotNull(operations, "Không có chỉ mục nào được tạo trên " + collection);
+        ArgumentCaptor<IndexDefinition> captor = ArgumentCaptor.forClass(IndexDefinition.class);
+        verify(operations, atLeastOnce()).createIndex(captor.capture());
+        return captor.getAllValues();
+    }
+
+    private static IndexDefinition find(List<IndexDefinition> indexes, String firstKey) {
+        return indexes.stream()
+                .filter(index -> index.getIndexKeys().keySet().iterator().next().equals(firstKey))
+                .findFirst()
+                .orElse(null);
+    }
+}
@@ -0,0 +1,92 @@
+package com.domain.backend.service;
+
+import com.domain.backend.entity.KanjiEntry;
+import com.domain.backend.entity.SearchIndex;
+import com.domain.backend.entity.VocabularyEntry;
+import com.domain.backend.event.ContentChangedEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class DictionarySnapshotServiceTest {
+
+    private MongoTemplate mongoTemplate;
+    private DictionarySnapshotService service;
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate = mock(MongoTemplate.class);
+        when(mongoTemplate.stream(any(Query.class), eq(KanjiEntry.class))).thenAnswer(invocation -> Stream.empty());
+        when(mongoTemplate.stream(any(Query.class), eq(VocabularyEntry.class))).thenAnswer(invocation -> Stream.of(
+                vocabulary("v1", 1000L, "かける", "to hang", "Verb"),
+                vocabulary("v2", 1001L, "かける", "to run", "Verb"),
+                vocabulary("v3", 1002L, "かける", "chip", "Noun"),
+                vocabulary("v4", 1003L, "かける", "to multiply", "Verb"),
+                vocabulary("v5", null, "はし", "bridge", "Noun")));
+        service = new DictionarySnapshotService();
+        ReflectionTestUtils.setField(service, "mongoTemplate", mongoTemplate);
+        service.rebuild();
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void returnsEveryHomographFromTheSnapshot() {
+        List<VocabularyEntry> entries = service.findVocabularyByWords(List.of("かける", "はし", "ない"));
+
+        assertEquals(List.of("v1", "v2", "v3", "v4", "v5"), ids(entries));
+        assertEquals(1000L, entries.get(0).getEntSeq());
+        assertNull(entries.get(4).getEntSeq());
+    }
+
+    @Test
+    void appliesOverlayEditsAndDeletesToHomographs() {
+        VocabularyEntry edited = vocabulary("v2", 1001L, "かける", "to dash", "Verb");
+        change("v2", ContentChangedEvent.Action.UPDATED, edited);
+        change("v3", ContentChangedEvent.Action.DELETED, vocabulary("v3", 1002L, "かける", "chip", "Noun"));
+        change("v4", ContentChangedEvent.Action.UPDATED, vocabulary("v4", 1003L, "かけ算", "to multiply", "Verb"));
+        change("v6", ContentChangedEvent.Action.CREATED, vocabulary("v6", null, "かける", "to lack", "Verb"));
+        change("v5", ContentChangedEvent.Action.UPDATED, vocabulary("v5", null, "かける", "bridge", "Noun"));
+
+        List<VocabularyEntry> entries = service.findVocabularyByWords(List.of("かける"));
+
+        assertEquals(List.of("v1", "v2", "v6", "v5"), ids(entries));
+        assertEquals("to dash", entries.get(1).getMeaning());
+        assertEquals(List.of("v4"), ids(service.findVocabularyByWords(List.of("かけ算"))));
+        assertEquals(List.of(), service.findVocabularyByWords(List.of("はし")));
+    }
+
+    private void change(String id, ContentChangedEvent.Action action, VocabularyEntry entry) {
+        service.onContentChanged(new ContentChangedEvent(SearchIndex.TYPE_VOCABULARY, id, action, entry));
+    }
+
+    private static VocabularyEntry vocabulary(String id, Long entSeq, String word, String meaning, String partOfSpeech) {
+        VocabularyEntry entry = new VocabularyEntry();
+        entry.setId(id);
+        entry.setEntSeq(entSeq);
+        entry.setJapaneseWord(word);
+        entry.setMeaning(meaning);
+        entry.setPartOfSpeech(partOfSpeech);
+        return entry;
+    }
+
+    private static List<String> ids(List<VocabularyEntry> entries) {
+        return entries.stream().map(VocabularyEntry::getId).toList();
+    }
+}
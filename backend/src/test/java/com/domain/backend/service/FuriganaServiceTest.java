@@ -0,0 +1,123 @@
+package com.domain.backend.service;
+
+import com.atilika.kuromoji.ipadic.Token;
+import com.domain.backend.util.JapaneseTextUtils;
+import com.domain.backend.util.TokenizerPool;
+import com.github.benmanes.caffeine.cache.Cache;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FuriganaServiceTest {
+
+    private static final String[] SENTENCES = {
+            "私は毎日日本語を勉強しています。", "東京は日本の首都で、人口がとても多いです。",
+            "昨日、友達と一緒に映画館へ行きました。", "この本は難しいですが、とても面白いと思います。",
+    };
+
+    private static final AtomicInteger tokenizations = new AtomicInteger();
+    private static TokenizerPool countingPool;
+
+    @BeforeAll
+    static void createPool() {
+        countingPool = new TokenizerPool() {
+            @Override
+            public List<Token> tokenize(String text) {
+                tokenizations.incrementAndGet();
+                return super.tokenize(text);
+            }
+        };
+        ReflectionTestUtils.setField(countingPool, "shardCount", 1);
+        countingPool.init(); // Nạp từ điển Kuromoji một lần cho cả lớp
+    }
+
+    private static FuriganaService service(long maxBytes) {
+        FuriganaService service = new FuriganaService();
+        ReflectionTestUtils.setField(service, "tokenizerPool", countingPool);
+        ReflectionTestUtils.setField(service, "japaneseTextUtils", new JapaneseTextUtils());
+        ReflectionTestUtils.setField(service, "maxBytes", maxBytes);
+        service.init();
+        return service;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Cache<String, String> cacheOf(FuriganaService service) {
+        return (Cache<String, String>) ReflectionTestUtils.getField(service, "cache");
+    }
+
+    @Test
+    void repeatedTextIsServedFromCache() {
+        FuriganaService service = service(1024 * 1024);
+        String text = SENTENCES[0];
+
+        int before = tokenizations.get();
+        String first = service.generateFurigana(text);
+        int afterMiss = tokenizations.get();
+        String second = service.generateFurigana(text);
+
+        assertTrue(first.contains("日本語 (にほんご)"), first);
+        assertEquals(first, second);
+        assertTrue(afterMiss > before);
+        assertEquals(afterMiss, tokenizations.get()); // Lần thứ hai không phân tích lại
+        assertEquals(1, cacheOf(service).stats().hitCount());
+        assertEquals(1, cacheOf(service).stats().missCount());
+    }
+
+    @Test
+    void concurrentMissesAreCoalesced() throws Exception {
+        FuriganaService service = service(1024 * 1024);
+        StringBuilder document = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            document.append(SENTENCES[i % SENTENCES.length]);
+        }
+        String text = document.toString();
+        int callers = 16;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        int before = tokenizations.get();
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return service.generateFurigana(text);
+                }));
+            }
+            start.countDown();
+            String first = results.get(0).get();
+            for (Future<String> result : results) {
+                assertEquals(first, result.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(1, tokenizations.get() - before);
+    }
+
+    @Test
+    void cacheStaysWithinByteBound() {
+        long maxBytes = 4096;
+        FuriganaService service = service(maxBytes);
+        for (int i = 0; i < 100; i++) {
+            service.generateFurigana(SENTENCES[i % SENTENCES.length] + i); // Mỗi văn bản khác nhau
+        }
+        Cache<String, String> cache = cacheOf(service);
+        cache.cleanUp();
+
+        long weightedSize = cache.policy().eviction().orElseThrow().weightedSize().orElseThrow();
+        assertTrue(weightedSize <= maxBytes, "weightedSize = " + weightedSize);
+        assertTrue(cache.stats().evictionCount() > 0);
+        assertTrue(cache.estimatedSize() < 100);
+    }
+}
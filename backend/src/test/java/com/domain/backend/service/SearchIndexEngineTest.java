@@ -0,0 +1,219 @@
+package com.domain.backend.service;
+
+import com.domain.backend.entity.Course;
+import com.domain.backend.entity.KanjiEntry;
+import com.domain.backend.entity.Lesson;
+import com.domain.backend.entity.SearchIndex;
+import com.domain.backend.entity.VocabularyEntry;
+import com.domain.backend.event.ContentChangedEvent;
+import com.domain.backend.exception.GlobalExceptionHandler;
+import com.domain.backend.exception.ValidationException;
+import com.domain.backend.util.IncrementalSnapshot;
+import com.domain.backend.util.JapaneseNormalizer;
+import com.domain.backend.util.RomajiTransliterator;
+import com.domain.backend.util.SearchIndexMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SearchIndexEngineTest {
+
+    private final Map<Class<?>, List<Object>> collections = new HashMap<>();
+    private MongoTemplate mongoTemplate;
+    private SearchIndexEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        JapaneseNormalizer normalizer = new JapaneseNormalizer();
+        ReflectionTestUtils.setField(normalizer, "romajiTransliterator", new RomajiTransliterator());
+        SearchIndexMapper mapper = new SearchIndexMapper();
+        ReflectionTestUtils.setField(mapper, "japaneseNormalizer", normalizer);
+
+        mongoTemplate = mock(MongoTemplate.class);
+        for (Class<?> entityClass : List.of(KanjiEntry.class, VocabularyEntry.class, Lesson.class, Course.class)) {
+            collections.put(entityClass, new ArrayList<>());
+            when(mongoTemplate.stream(any(Query.class), eq(entityClass)))
+                    .thenAnswer(invocation -> new ArrayList<>(collections.get(entityClass)).stream());
+        }
+
+        engine = new SearchIndexEngine();
+        ReflectionTestUtils.setField(engine, "mongoTemplate", mongoTemplate);
+        ReflectionTestUtils.setField(engine, "searchIndexMapper", mapper);
+        ReflectionTestUtils.setField(engine, "japaneseNormalizer", normalizer);
+        ReflectionTestUtils.setField(engine, "eventPublisher", mock(ApplicationEventPublisher.class));
+    }
+
+    @AfterEach
+    void tearDown() {
+        engine.shutdown();
+    }
+
+    @Test
+    void ranksExactAbovePrefixAboveSubstringMatches() {
+        addVocabulary("v-sub", "食い過ぎる", "overeat", null);
+        addVocabulary("v-prefix", "食事", "eating", null);
+        addVocabulary("v-exact", "食べる", "eat", null);
+        engine.rebuild();
+
+        List<SearchIndexEngine.Hit> hits = search("eat");
+
+        assertEquals(List.of("v-exact", "v-prefix", "v-sub"), ids(hits));
+        assertEquals(3.0f, hits.get(0).getScore() / hits.get(2).getScore(), 1e-4);
+        assertEquals(2.0f, hits.get(1).getScore() / hits.get(2).getScore(), 1e-4);
+    }
+
+    @Test
+    void weighsFieldsAndBoostsEasierJlptLevels() {
+        addVocabulary("v-plain", "水", "water", null);
+        addVocabulary("v-n5", "お水", "water", "N5");
+        Lesson titled = lesson("l-title", "Water", "");
+        Lesson mentioned = lesson("l-content", "Drinks", "Water");
+        collections.get(Lesson.class).addAll(List.of(titled, mentioned));
+        engine.rebuild();
+
+        List<SearchIndexEngine.Hit> hits = search("water");
+
+        assertEquals(List.of("l-title", "v-n5", "l-content", "v-plain"), ids(hits));
+        assertEquals(1.25f, hits.get(1).getScore() / hits.get(3).getScore(), 1e-4);
+        assertEquals(5.0f / 3.0f, hits.get(0).getScore() / hits.get(2).getScore(), 1e-4);
+    }
+
+    @Test
+    void overlayHidesAndReplacesBaseDocuments() {
+        addVocabulary("v1", "食べる", "eat", null);
+        addVocabulary("v2", "食べ物", "eatable food", null);
+        engine.rebuild();
+
+        change("v1", ContentChangedEvent.Action.UPDATED, vocabulary("v1", "飲む", "drink", null));
+        change("v2", ContentChangedEvent.Action.DELETED, vocabulary("v2", "食べ物", "eatable food", null));
+        change("v3", ContentChangedEvent.Action.CREATED, vocabulary("v3", "食う", "eat", null));
+
+        assertEquals(List.of("v3"), ids(search("eat")));
+        assertEquals(List.of("v1"), ids(search("drink")));
+        assertEquals(List.of("v1"), ids(search("飲")));
+        assertEquals(List.of(), ids(search("food")));
+    }
+
+    @Test
+    void rebuildsOnceTheOverlayExceedsItsLimit() {
+        engine.rebuild();
+        for (int i = 0; i < 1000; i++) {
+            change("v" + i, ContentChangedEvent.Action.CREATED, vocabulary("v" + i, "語", "word", null));
+        }
+        verify(mongoTemplate, after(200).times(1)).stream(any(Query.class), eq(VocabularyEntry.class));
+
+        change("v1000", ContentChangedEvent.Action.CREATED, vocabulary("v1000", "語", "word", null));
+
+        verify(mongoTemplate, timeout(5000).times(2)).stream(any(Query.class), eq(VocabularyEntry.class));
+    }
+
+    @Test
+    void boundsIndexedTermLengthForLongKanaRuns() {
+        String content = "あいうえおかきくけこさしすせそたちつてとなにぬねのはひふへほまみむめもやゆよらりるれろわをん".repeat(20);
+        collections.get(Lesson.class).add(lesson("l-kana", "Hiragana", content));
+        engine.rebuild();
+
+        @SuppressWarnings("unchecked")
+        Object snapshot = ((IncrementalSnapshot<Object>) ReflectionTestUtils.getField(engine, "index")).get();
+        for (String term : (String[]) ReflectionTestUtils.getField(snapshot, "terms")) {
+            assertTrue(term.length() <= 32, term);
+        }
+        assertEquals(List.of("l-kana"), ids(search("すせそたち")));
+        assertEquals(List.of("l-kana"), ids(search(content.substring(100, 160))));
+        assertEquals(List.of(), ids(search(content.substring(100, 140) + "あ")));
+    }
+
+    @Test
+    void keysetWalkVisitsEveryHitOnceInRankOrder() {
+        String[] meanings = {"rice", "rice bowl", "fried rice"};
+        for (int i = 0; i < 25; i++) {
+            addVocabulary(String.format("v%02d", i), "米" + i, meanings[i % 3], i % 2 == 0 ? "N5" : null);
+        }
+        engine.rebuild();
+        List<String> ranked = ids(search("rice"));
+
+        List<String> walked = new ArrayList<>();
+        String cursor = null;
+        do {
+            SearchIndexEngine.SearchPage page = engine.search("rice", 4, cursor).orElseThrow();
+            assertEquals(25, page.getTotalHits());
+            assertTrue(page.getHits().size() <= 4);
+            walked.addAll(ids(page.getHits()));
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        assertEquals(25, ranked.size());
+        assertEquals(ranked, walked);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"not a cursor!", "Z2FyYmFnZQ", "MTA2NTM1MzIxNnxWT0NBQlVMQVJZ", "b25lfFZPQ0FCVUxBUll8djE"})
+    void rejectsMalformedOrTamperedCursorsAsBadRequests(String cursor) {
+        // Chỉ mục chưa dựng (tìm kiếm đang dùng regex) vẫn phải kiểm tra con trỏ trước
+        ValidationException unbuilt = assertThrows(ValidationException.class, () -> engine.search("rice", 10, cursor));
+        addVocabulary("v1", "米", "rice", null);
+        engine.rebuild();
+        ValidationException built = assertThrows(ValidationException.class, () -> engine.search("rice", 10, cursor));
+
+        GlobalExceptionHandler handler = new GlobalExceptionHandler();
+        assertEquals(HttpStatus.BAD_REQUEST, handler.handleValidationException(unbuilt, null).getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, handler.handleValidationException(built, null).getStatusCode());
+    }
+
+    private List<SearchIndexEngine.Hit> search(String query) {
+        return engine.search(query, 50, null).orElseThrow().getHits();
+    }
+
+    private void change(String id, ContentChangedEvent.Action action, VocabularyEntry entry) {
+        engine.onContentChanged(new ContentChangedEvent(SearchIndex.TYPE_VOCABULARY, id, action, entry));
+    }
+
+    private void addVocabulary(String id, String word, String meaning, String jlptLevel) {
+        collections.get(VocabularyEntry.class).add(vocabulary(id, word, meaning, jlptLevel));
+    }
+
+    private static VocabularyEntry vocabulary(String id, String word, String meaning, String jlptLevel) {
+        VocabularyEntry entry = new VocabularyEntry();
+        entry.setId(id);
+        entry.setJapaneseWord(word);
+        entry.setMeaning(meaning);
+        entry.setJlptLevel(jlptLevel);
+        return entry;
+    }
+
+    private static Lesson lesson(String id, String title, String content) {
+        Lesson lesson = new Lesson();
+        lesson.setId(id);
+        lesson.setTitle(title);
+        lesson.setContent(content);
+        return lesson;
+    }
+
+    private static List<String> ids(List<SearchIndexEngine.Hit> hits) {
+        return hits.stream().map(SearchIndexEngine.Hit::getEntityId).toList();
+    }
+}
@@ -0,0 +1,153 @@
+package com.domain.backend.service;
+
+import com.domain.backend.dto.response.CourseResponse;
+import com.domain.backend.dto.response.KanjiResponse;
+import com.domain.backend.dto.response.LessonResponse;
+import com.domain.backend.dto.response.SearchResponse;
+import com.domain.backend.entity.Course;
+import com.domain.backend.entity.KanjiEntry;
+import com.domain.backend.entity.Lesson;
+import com.domain.backend.entity.SearchIndex;
+import com.domain.backend.entity.VocabularyEntry;
+import com.domain.backend.event.ContentChangedEvent;
+import com.domain.backend.util.Deinflector;
+import com.domain.backend.util.JapaneseNormalizer;
+import com.domain.backend.util.JapaneseTextUtils;
+import com.domain.backend.util.RomajiTransliterator;
+import com.domain.backend.util.SearchIndexMapper;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SearchResultCacheTest {
+
+    private static final int LIMIT = 20;
+
+    private SearchResultCache cache;
+
+    @BeforeEach
+    void setUp() {
+        RomajiTransliterator transliterator = new RomajiTransliterator();
+        JapaneseNormalizer normalizer = new JapaneseNormalizer();
+        ReflectionTestUtils.setField(normalizer, "romajiTransliterator", transliterator);
+        SearchIndexMapper mapper = new SearchIndexMapper();
+        ReflectionTestUtils.setField(mapper, "japaneseNormalizer", normalizer);
+        JapaneseTextUtils textUtils = new JapaneseTextUtils();
+        ReflectionTestUtils.setField(textUtils, "romajiTransliterator", transliterator);
+
+        cache = new SearchResultCache();
+        ReflectionTestUtils.setField(cache, "japaneseNormalizer", normalizer);
+        ReflectionTestUtils.setField(cache, "searchIndexMapper", mapper);
+        ReflectionTestUtils.setField(cache, "objectMapper", new ObjectMapper().findAndRegisterModules());
+        ReflectionTestUtils.setField(cache, "deinflector", new Deinflector());
+        ReflectionTestUtils.setField(cache, "japaneseTextUtils", textUtils);
+        ReflectionTestUtils.setField(cache, "maxBytes", 1024L * 1024);
+        cache.init();
+    }
+
+    @Test
+    void kanjiWriteLeavesCourseAndLessonEntriesCached() {
+        cache.put("grammar", LIMIT, response(List.of(), List.of(lessonResult("l1")), List.of()));
+        cache.put("beginner", LIMIT, response(List.of(), List.of(), List.of(courseResult("c1"))));
+        cache.put("water", LIMIT, response(List.of(kanjiResult("k1")), List.of(), List.of()));
+
+        change(SearchIndex.TYPE_KANJI, "k1", kanji("k1", "水", "water, liquid"));
+
+        assertFalse(cache.get("water", LIMIT).isPresent());
+        assertTrue(cache.get("grammar", LIMIT).isPresent());
+        assertTrue(cache.get("beginner", LIMIT).isPresent());
+    }
+
+    @Test
+    void evictsEntriesWhoseQueryAppearsInTheWrittenText() {
+        cache.put("grammar", LIMIT, response(List.of(), List.of(lessonResult("l1")), List.of()));
+        cache.put("beginner", LIMIT, response(List.of(), List.of(), List.of(courseResult("c1"))));
+
+        // Bài học mới chưa có trong mục nào nhưng có thể xuất hiện trong kết quả của "grammar"
+        Lesson lesson = new Lesson();
+        lesson.setId("l2");
+        lesson.setTitle("Particles");
+        lesson.setContent("A long lesson about Japanese grammar and particles. ".repeat(200));
+        change(SearchIndex.TYPE_LESSON, "l2", lesson);
+
+        assertFalse(cache.get("grammar", LIMIT).isPresent());
+        assertTrue(cache.get("beginner", LIMIT).isPresent());
+    }
+
+    @Test
+    void matchesKanaQueriesAgainstNormalizedText() {
+        cache.put("たべる", LIMIT, response(List.of(), List.of(), List.of()));
+        cache.put("のむ", LIMIT, response(List.of(), List.of(), List.of()));
+
+        VocabularyEntry entry = new VocabularyEntry();
+        entry.setId("v1");
+        entry.setJapaneseWord("食べる");
+        entry.setFurigana("たべる");
+        change(SearchIndex.TYPE_VOCABULARY, "v1", entry);
+
+        assertFalse(cache.get("たべる", LIMIT).isPresent());
+        assertTrue(cache.get("のむ", LIMIT).isPresent());
+    }
+
+    @Test
+    void deleteEvictsEntriesContainingTheEntity() {
+        cache.put("beginner", LIMIT, response(List.of(), List.of(), List.of(courseResult("c1"))));
+        cache.put("grammar", LIMIT, response(List.of(), List.of(lessonResult("l1")), List.of()));
+
+        Course course = new Course();
+        course.setId("c1");
+        course.setTitle("Kana basics");
+        cache.onContentChanged(new ContentChangedEvent(SearchIndex.TYPE_COURSE, "c1", ContentChangedEvent.Action.DELETED, course));
+
+        assertFalse(cache.get("beginner", LIMIT).isPresent());
+        assertTrue(cache.get("grammar", LIMIT).isPresent());
+        assertEquals(1, cache.stats().getInvalidationCount());
+    }
+
+    private void change(String entityType, String entityId, Object entity) {
+        cache.onContentChanged(new ContentChangedEvent(entityType, entityId, ContentChangedEvent.Action.UPDATED, entity));
+    }
+
+    private static SearchResponse response(List<KanjiResponse> kanji, List<LessonResponse> lessons, List<CourseResponse> courses) {
+        SearchResponse response = new SearchResponse();
+        response.setKanjiResults(new ArrayList<>(kanji));
+        response.setVocabularyResults(new ArrayList<>());
+        response.setLessonResults(new ArrayList<>(lessons));
+        response.setCourseResults(new ArrayList<>(courses));
+        return response;
+    }
+
+    private static KanjiEntry kanji(String id, String character, String meaning) {
+        KanjiEntry entry = new KanjiEntry();
+        entry.setId(id);
+        entry.setKanjiCharacter(character);
+        entry.setMeaning(meaning);
+        return entry;
+    }
+
+    private static KanjiResponse kanjiResult(String id) {
+        KanjiResponse response = new KanjiResponse();
+        response.setId(id);
+        return response;
+    }
+
+    private static LessonResponse lessonResult(String id) {
+        LessonResponse response = new LessonResponse();
+        response.setId(id);
+        return response;
+    }
+
+    private static CourseResponse courseResult(String id) {
+        CourseResponse response = new CourseResponse();
+        response.setId(id);
+        return response;
+    }
+}
@@ -0,0 +1,124 @@
+package com.domain.backend.service;
+
+import com.domain.backend.dto.request.SearchRequest;
+import com.domain.backend.dto.response.SearchResponse;
+import com.domain.backend.entity.Course;
+import com.domain.backend.entity.KanjiEntry;
+import com.domain.backend.entity.Lesson;
+import com.domain.backend.entity.SearchIndex;
+import com.domain.backend.repository.LessonRepository;
+import com.domain.backend.util.JapaneseTextUtils;
+import com.domain.backend.util.KanjiUtils;
+import com.domain.backend.util.SearchUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class SearchServiceTest {
+
+    private MongoTemplate mongoTemplate;
+    private SearchIndexEngine searchIndexEngine;
+    private SearchResultCache searchResultCache;
+    private SearchService searchService;
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate = mock(MongoTemplate.class);
+        searchIndexEngine = mock(SearchIndexEngine.class); // Chỉ mục chưa sẵn sàng: search trả về Optional rỗng
+        searchResultCache = mock(SearchResultCache.class);
+        SearchUtils searchUtils = mock(SearchUtils.class);
+        when(searchUtils.buildSearchKeyCriteria(anyString())).thenReturn(Criteria.where("searchKeys").regex("^rice"));
+        KanjiEntry kanji = new KanjiEntry();
+        kanji.setId("k1");
+        kanji.setKanjiCharacter("米");
+        when(mongoTemplate.find(any(Query.class), eq(KanjiEntry.class))).thenReturn(List.of(kanji));
+
+        searchService = new SearchService();
+        ReflectionTestUtils.setField(searchService, "mongoTemplate", mongoTemplate);
+        ReflectionTestUtils.setField(searchService, "searchIndexEngine", searchIndexEngine);
+        ReflectionTestUtils.setField(searchService, "searchResultCache", searchResultCache);
+        ReflectionTestUtils.setField(searchService, "searchUtils", searchUtils);
+        ReflectionTestUtils.setField(searchService, "ngramIndexService", mock(NgramIndexService.class));
+        ReflectionTestUtils.setField(searchService, "japaneseTextUtils", mock(JapaneseTextUtils.class));
+        ReflectionTestUtils.setField(searchService, "kanjiUtils", mock(KanjiUtils.class));
+        ReflectionTestUtils.setField(searchService, "dictionarySnapshotService", mock(DictionarySnapshotService.class));
+        ReflectionTestUtils.setField(searchService, "lessonRepository", mock(LessonRepository.class));
+        ReflectionTestUtils.setField(searchService, "searchExecutor", new SimpleAsyncTaskExecutor());
+        for (String timeout : List.of("kanjiTimeoutMs", "vocabularyTimeoutMs", "lessonTimeoutMs", "courseTimeoutMs")) {
+            ReflectionTestUtils.setField(searchService, timeout, 5000L);
+        }
+    }
+
+    @Test
+    void firstPageFallsBackToRegexWithoutACursor() {
+        SearchResponse response = searchService.searchText(request(null));
+
+        assertFalse(response.isPartial());
+        assertEquals(List.of("k1"), response.getKanjiResults().stream().map(k -> k.getId()).toList());
+        assertNull(response.getNextCursor()); // Quét regex chỉ có trang đầu
+        verify(mongoTemplate).find(any(Query.class), eq(Lesson.class));
+        verify(mongoTemplate).find(any(Query.class), eq(Course.class));
+    }
+
+    @Test
+    void cursorRequestGetsAnEmptyLastPageWhileRegexFallbackIsActive() {
+        SearchResponse response = searchService.searchText(request("MTA2NTM1MzIxNnxWT0NBQlVMQVJZfHYx"));
+
+        assertTrue(response.getKanjiResults().isEmpty());
+        assertTrue(response.getVocabularyResults().isEmpty());
+        assertTrue(response.getLessonResults().isEmpty());
+        assertTrue(response.getCourseResults().isEmpty());
+        assertFalse(response.isPartial());
+        assertNull(response.getNextCursor());
+        verifyNoInteractions(mongoTemplate); // Không lặp lại trang đầu của regex
+        verify(searchResultCache, never()).get(anyString(), anyInt());
+        verify(searchResultCache, never()).put(anyString(), anyInt(), any());
+    }
+
+    @Test
+    void cursorIsPassedToTheIndexOnceItIsReady() {
+        SearchIndexEngine.Hit hit = new SearchIndexEngine.Hit(SearchIndex.TYPE_COURSE, "c2", 1.0f);
+        when(searchIndexEngine.search("rice", 1, "cursor-1"))
+                .thenReturn(Optional.of(new SearchIndexEngine.SearchPage(List.of(hit), 2, null)));
+        Course course = new Course();
+        course.setId("c2");
+        when(mongoTemplate.find(any(Query.class), eq(Course.class))).thenReturn(List.of(course));
+
+        SearchRequest request = request("cursor-1");
+        request.setLimit(1);
+        SearchResponse response = searchService.searchText(request);
+
+        assertFalse(response.isPartial());
+        assertEquals(List.of("c2"), response.getCourseResults().stream().map(c -> c.getId()).toList());
+        assertEquals(2, response.getTotalHits());
+        assertNull(response.getNextCursor());
+    }
+
+    private static SearchRequest request(String cursor) {
+        SearchRequest request = new SearchRequest();
+        request.setQuery("rice");
+        request.setCursor(cursor);
+        return request;
+    }
+}
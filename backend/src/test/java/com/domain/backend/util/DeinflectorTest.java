@@ -0,0 +1,57 @@
+package com.domain.backend.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DeinflectorTest {
+
+    private final Deinflector deinflector = new Deinflector();
+
+    private Optional<Deinflector.Deinflection> find(String word, String term, int type) {
+        return deinflector.deinflect(word).stream()
+                .filter(candidate -> candidate.getTerm().equals(term) && (candidate.getTypes() & type) != 0)
+                .findFirst();
+    }
+
+    private void assertDeinflects(String word, String term, int type, String... reasons) {
+        Optional<Deinflector.Deinflection> candidate = find(word, term, type);
+        assertTrue(candidate.isPresent(), word + " → " + term);
+        assertEquals(List.of(reasons), candidate.get().getReasons(), word + " → " + term);
+    }
+
+    @Test
+    void deinflectsVerbs() {
+        assertDeinflects("食べた", "食べる", Deinflector.V1, "past");
+        assertDeinflects("飲みます", "飲む", Deinflector.V5, "polite");
+        assertDeinflects("書かなかった", "書く", Deinflector.V5, "negative", "past");
+        assertDeinflects("読んでいる", "読む", Deinflector.V5, "te", "progressive");
+        assertDeinflects("行った", "行く", Deinflector.V5, "past");
+        assertDeinflects("食べさせられた", "食べる", Deinflector.V1, "causative", "potential", "past");
+        assertDeinflects("勉強しました", "勉強する", Deinflector.VS, "polite-past");
+        assertDeinflects("来なかった", "来る", Deinflector.VK, "negative", "past");
+        assertDeinflects("飲みたくない", "飲む", Deinflector.V5, "tai", "negative");
+    }
+
+    @Test
+    void deinflectsAdjectives() {
+        assertDeinflects("高くない", "高い", Deinflector.ADJ_I, "negative");
+        assertDeinflects("高くなかった", "高い", Deinflector.ADJ_I, "negative", "past");
+        assertDeinflects("高くて", "高い", Deinflector.ADJ_I, "te");
+    }
+
+    @Test
+    void startsWithWordItselfAndRespectsWordTypes() {
+        List<Deinflector.Deinflection> candidates = deinflector.deinflect("食べる");
+        assertEquals("食べる", candidates.get(0).getTerm());
+        assertEquals(Deinflector.ANY, candidates.get(0).getTypes());
+        // Dạng lịch sự không thể chia tiếp: 〜ます chỉ được khử ở từ đầu vào, không ở dạng sinh ra
+        assertFalse(find("食べますた", "食べる", Deinflector.V1).isPresent());
+        assertTrue(deinflector.deinflect("").isEmpty());
+    }
+}
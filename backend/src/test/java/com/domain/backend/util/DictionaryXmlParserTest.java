@@ -0,0 +1,128 @@
+package com.domain.backend.util;
+
+import com.domain.backend.entity.KanjiEntry;
+import com.domain.backend.entity.VocabularyEntry;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class DictionaryXmlParserTest {
+
+    private static final String JMDICT = """
+            <?xml version="1.0" encoding="UTF-8"?>
+            <!DOCTYPE JMdict [
+            <!ELEMENT JMdict (entry*)>
+            <!ENTITY n "noun (common) (futsuumeishi)">
+            <!ENTITY v5r "Godan verb with 'ru' ending">
+            <!ENTITY vi "intransitive verb">
+            <!ENTITY adj-i "adjective (keiyoushi)">
+            ]>
+            <JMdict>
+            <entry>
+            <ent_seq>1000001</ent_seq>
+            <k_ele><keb>分かる</keb></k_ele>
+            <k_ele><keb>解る</keb></k_ele>
+            <r_ele><reb>わかる</reb></r_ele>
+            <sense><pos>&v5r;</pos><pos>&vi;</pos><gloss>to understand</gloss><gloss>to comprehend</gloss>
+            <gloss xml:lang="ger">verstehen</gloss></sense>
+            <sense><gloss>to become clear</gloss></sense>
+            <sense><gloss>to be found out</gloss></sense>
+            <sense><gloss>to be ignored</gloss></sense>
+            </entry>
+            <entry>
+            <ent_seq>1000002</ent_seq>
+            <r_ele><reb>すごい</reb></r_ele>
+            <sense><pos>&adj-i;</pos><gloss>terrible</gloss></sense>
+            </entry>
+            <entry>
+            <ent_seq>1000003</ent_seq>
+            <k_ele><keb>本</keb></k_ele>
+            <r_ele><reb>ほん</reb></r_ele>
+            <sense><pos>&n;</pos><gloss>book</gloss></sense>
+            </entry>
+            </JMdict>
+            """;
+
+    private static final String KANJIDIC2 = """
+            <?xml version="1.0" encoding="UTF-8"?>
+            <kanjidic2>
+            <header><file_version>4</file_version></header>
+            <character>
+            <literal>日</literal>
+            <radical><rad_value rad_type="classical">72</rad_value><rad_value rad_type="nelson_c">72</rad_value></radical>
+            <misc><grade>1</grade><stroke_count>4</stroke_count><stroke_count>3</stroke_count><jlpt>4</jlpt></misc>
+            <reading_meaning><rmgroup>
+            <reading r_type="pinyin">ri4</reading>
+            <reading r_type="ja_on">ニチ</reading>
+            <reading r_type="ja_on">ジツ</reading>
+            <reading r_type="ja_kun">ひ</reading>
+            <reading r_type="ja_kun">-び</reading>
+            <meaning>day</meaning>
+            <meaning>sun</meaning>
+            <meaning m_lang="fr">jour</meaning>
+            </rmgroup></reading_meaning>
+            </character>
+            <character>
+            <literal>丂</literal>
+            <radical><rad_value rad_type="classical">1</rad_value></radical>
+            <misc><stroke_count>2</stroke_count></misc>
+            </character>
+            </kanjidic2>
+            """;
+
+    private final DictionaryXmlParser parser = new DictionaryXmlParser();
+
+    DictionaryXmlParserTest() {
+        ReflectionTestUtils.setField(parser, "romajiTransliterator", new RomajiTransliterator());
+    }
+
+    @Test
+    void parsesJmdictEntries() throws Exception {
+        List<VocabularyEntry> entries = new ArrayList<>();
+        parser.parseJmdict(new ByteArrayInputStream(JMDICT.getBytes(StandardCharsets.UTF_8)), entries::add);
+
+        assertEquals(3, entries.size());
+        VocabularyEntry wakaru = entries.get(0);
+        assertEquals(1000001L, wakaru.getEntSeq());
+        assertEquals("分かる", wakaru.getJapaneseWord());
+        assertEquals("わかる", wakaru.getFurigana());
+        assertEquals("wakaru", wakaru.getRomaji());
+        assertEquals("to understand, to comprehend; to become clear; to be found out", wakaru.getMeaning());
+        assertEquals("Verb", wakaru.getPartOfSpeech());
+
+        VocabularyEntry sugoi = entries.get(1);
+        assertEquals("すごい", sugoi.getJapaneseWord());
+        assertEquals("Adjective", sugoi.getPartOfSpeech());
+        assertEquals(1000002L, sugoi.getEntSeq());
+
+        assertEquals("Noun", entries.get(2).getPartOfSpeech());
+    }
+
+    @Test
+    void parsesKanjidicCharacters() throws Exception {
+        List<KanjiEntry> entries = new ArrayList<>();
+        parser.parseKanjidic(new ByteArrayInputStream(KANJIDIC2.getBytes(StandardCharsets.UTF_8)), entries::add);
+
+        assertEquals(2, entries.size());
+        KanjiEntry sun = entries.get(0);
+        assertEquals("日", sun.getKanjiCharacter());
+        assertEquals(4, sun.getStrokeCount());
+        assertEquals("N5", sun.getJlptLevel());
+        assertEquals(List.of("日"), sun.getRadicals());
+        assertEquals("ニチ、ジツ", sun.getOnyomi());
+        assertEquals("ひ、-び", sun.getKunyomi());
+        assertEquals("day, sun", sun.getMeaning());
+
+        KanjiEntry rare = entries.get(1);
+        assertNull(rare.getJlptLevel());
+        assertNull(rare.getOnyomi());
+        assertEquals(List.of("一"), rare.getRadicals());
+    }
+}
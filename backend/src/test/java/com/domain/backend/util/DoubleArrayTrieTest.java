@@ -0,0 +1,104 @@
+package com.domain.backend.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class DoubleArrayTrieTest {
+
+    private static final String[] KEYS = sorted("日本", "日本語", "本", "語", "にほん", "にほんご", "ご", "勉強", "勉強する", "する");
+
+    private static String[] sorted(String... keys) {
+        Arrays.sort(keys);
+        return keys;
+    }
+
+    private static List<String> scan(DoubleArrayTrie trie, String text, boolean overlapping) {
+        List<String> matches = new ArrayList<>();
+        trie.scan(text, overlapping, (start, end, value) ->
+                matches.add(start + ":" + text.substring(start, end) + "=" + KEYS[value]));
+        return matches;
+    }
+
+    @Test
+    void findsExactKeys() {
+        DoubleArrayTrie trie = DoubleArrayTrie.build(KEYS);
+
+        assertEquals(KEYS.length, trie.size());
+        for (int i = 0; i < KEYS.length; i++) {
+            assertEquals(i, trie.get(KEYS[i]));
+        }
+        assertEquals(DoubleArrayTrie.NOT_FOUND, trie.get("日"));
+        assertEquals(DoubleArrayTrie.NOT_FOUND, trie.get("日本語を"));
+        assertEquals(DoubleArrayTrie.NOT_FOUND, trie.get("x"));
+        assertEquals(DoubleArrayTrie.NOT_FOUND, trie.get(""));
+    }
+
+    @Test
+    void scansLongestNonOverlappingMatches() {
+        DoubleArrayTrie trie = DoubleArrayTrie.build(KEYS);
+
+        assertEquals(List.of("0:日本語=日本語", "4:勉強する=勉強する"), scan(trie, "日本語を勉強する。", false));
+        assertEquals(List.of("1:にほんご=にほんご"), scan(trie, "「にほんご」", false));
+    }
+
+    @Test
+    void scansLongestMatchAtEveryPosition() {
+        DoubleArrayTrie trie = DoubleArrayTrie.build(KEYS);
+
+        assertEquals(List.of("0:日本語=日本語", "1:本=本", "2:語=語", "4:勉強する=勉強する", "6:する=する"),
+                scan(trie, "日本語を勉強する", true));
+    }
+
+    @Test
+    void matchesNaiveLongestPrefixOnRandomKeys() {
+        Random random = new Random(42);
+        String alphabet = "あいうかき日本語";
+        List<String> keyList = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            StringBuilder key = new StringBuilder();
+            for (int j = 0, length = 1 + random.nextInt(5); j < length; j++) {
+                key.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+            keyList.add(key.toString());
+        }
+        String[] keys = keyList.stream().distinct().sorted().toArray(String[]::new);
+        DoubleArrayTrie trie = DoubleArrayTrie.build(keys);
+
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 300; i++) {
+            text.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        List<Integer> expected = new ArrayList<>();
+        for (int start = 0; start < text.length(); start++) {
+            for (int end = Math.min(text.length(), start + 5); end > start; end--) {
+                int value = Arrays.binarySearch(keys, text.substring(start, end));
+                if (value >= 0) {
+                    expected.add(start);
+                    expected.add(end);
+                    break;
+                }
+            }
+        }
+        List<Integer> actual = new ArrayList<>();
+        trie.scan(text, true, (start, end, value) -> {
+            assertEquals(keys[value], text.substring(start, end));
+            actual.add(start);
+            actual.add(end);
+        });
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    void rejectsUnsortedOrDuplicateKeys() {
+        assertThrows(IllegalArgumentException.class, () -> DoubleArrayTrie.build(new String[]{"本", "日"}));
+        assertThrows(IllegalArgumentException.class, () -> DoubleArrayTrie.build(new String[]{"本", "本"}));
+        assertThrows(IllegalArgumentException.class, () -> DoubleArrayTrie.build(new String[]{""}));
+    }
+}
@@ -0,0 +1,92 @@
+package com.domain.backend.util;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JapaneseNormalizerTest {
+
+    private final JapaneseNormalizer normalizer = new JapaneseNormalizer();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(normalizer, "romajiTransliterator", new RomajiTransliterator());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"study", "simple", "time", "during", "food", "need", "ship", "tsunami"})
+    void keepsEnglishWordsUnchanged(String word) {
+        assertEquals(word, normalizer.normalize(word));
+        assertEquals(word, normalizer.normalize(word.toUpperCase()));
+        assertEquals(List.of(word), normalizer.searchKeys(word));
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            // Hepburn, Kunrei và IME cho cùng một cách đọc
+            "shashin, syasin",
+            "chikatetsu, tikatetu",
+            "fujisan, huzisan",
+            "ju, zyuu",
+            "tokyo, toukyou",
+            "shimbun, sinbun",
+            "konnichiha, kon'nitiha",
+            "matcha, mattya",
+    })
+    void foldsHepburnAndKunreiRomaji(String hepburn, String kunrei) {
+        assertEquals(normalizer.normalizeRomaji(hepburn), normalizer.normalizeRomaji(kunrei));
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            "しゃしん, syasin",
+            "シャシン, shashin",
+            "ｼｬｼﾝ, shashin",
+            "とうきょう, toukyou",
+            "トーキョー, tokyo",
+            "ちかてつ, tikatetu",
+            "しんぶん, shimbun",
+    })
+    void kanaAndRomajiShareOneKey(String kana, String romaji) {
+        assertEquals(normalizer.normalize(kana), normalizer.normalizeRomaji(romaji));
+        assertTrue(normalizer.queryKeys(romaji).contains(normalizer.normalize(kana)), romaji);
+    }
+
+    @Test
+    void queryKeysAddRomajiFoldOnlyForRomajiLikeQueries() {
+        assertEquals(List.of("study"), normalizer.queryKeys("study"));
+        assertEquals(List.of("during"), normalizer.queryKeys("During"));
+        assertEquals(List.of("syoku", "shoku"), normalizer.queryKeys("syoku"));
+        assertEquals(List.of("time", "chime"), normalizer.queryKeys("time"));
+        assertEquals(List.of("taberu"), normalizer.queryKeys("たべる"));
+        assertEquals(List.of(), normalizer.queryKeys("  "));
+    }
+
+    @Test
+    void detectsRomajiWords() {
+        assertTrue(normalizer.isRomaji("kon'nichiwa"));
+        assertTrue(normalizer.isRomaji("shimbun"));
+        assertTrue(normalizer.isRomaji("Matcha"));
+        assertTrue(normalizer.isRomaji("食べ taberu"));
+        assertFalse(normalizer.isRomaji("study"));
+        assertFalse(normalizer.isRomaji("taberu study"));
+        assertFalse(normalizer.isRomaji("食べる"));
+    }
+
+    @Test
+    void mixedTextFoldsOnlyKanaDerivedRomaji() {
+        assertEquals("食beru", normalizer.normalize("食べる"));
+        assertEquals("to eat (tabemono)", normalizer.normalize("To eat (たべもの)"));
+        assertEquals("time tokyo", normalizer.normalize("time とうきょう"));
+        assertEquals("chime tokyo", normalizer.normalizeRomaji("time toukyou"));
+    }
+}
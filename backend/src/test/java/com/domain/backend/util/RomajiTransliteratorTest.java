@@ -0,0 +1,108 @@
+package com.domain.backend.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RomajiTransliteratorTest {
+
+    private static final String SMALL_KANA = "ぁぃぅぇぉゃゅょゎ";
+
+    private final RomajiTransliterator transliterator = new RomajiTransliterator();
+
+    @ParameterizedTest
+    @CsvSource({
+            // Hepburn
+            "konnichiwa, こんにちわ",
+            "shashin, しゃしん",
+            "chikatetsu, ちかてつ",
+            "fujisan, ふじさん",
+            "kitte, きって",
+            "matcha, まっちゃ",
+            "shimbun, しんぶん",
+            "kan'i, かんい",
+            "tōkyō, とうきょう",
+            "nōto, のうと",
+            "Ōsaka, おうさか",
+            "Taberu, たべる",
+            // Kunrei / Nihon-shiki
+            "syasin, しゃしん",
+            "tikatetu, ちかてつ",
+            "huzisan, ふじさん",
+            "zyuu, じゅう",
+            "tya, ちゃ",
+            // IME
+            "konnnichiha, こんにちは",
+            "kanni, かんに",
+            "kannni, かんに",
+            "maccha, まっちゃ",
+            "xtu, っ",
+            "ltsu, っ",
+            "la, ぁ",
+            "thi-, てぃー",
+            "dhisuku, でぃすく",
+            "wo, を",
+            "hon, ほん",
+            "honn, ほん",
+    })
+    void convertsRomajiSpellings(String romaji, String expected) {
+        assertEquals(expected, transliterator.toHiragana(romaji));
+    }
+
+    @Test
+    void keepsNonRomajiCharacters() {
+        assertEquals("日本ご 123!", transliterator.toHiragana("日本go 123!"));
+        assertEquals("コーヒー", transliterator.toKatakana("ko-hi-"));
+    }
+
+    @Test
+    void roundTripsEverySyllable() {
+        for (String kana : syllables()) {
+            assertRoundTrip(kana);
+        }
+    }
+
+    @Test
+    void roundTripsSyllablePairs() {
+        // Bao phủ các trường hợp phụ thuộc ngữ cảnh: っ + âm tiết, ん + nguyên âm/y/n, Kana nhỏ đứng sau âm tiết thường
+        List<String> syllables = syllables();
+        for (String first : syllables) {
+            for (String second : syllables) {
+                assertRoundTrip(first + second);
+            }
+        }
+    }
+
+    @Test
+    void roundTripsKatakanaAsHiragana() {
+        assertEquals("こーひー", transliterator.toHiragana(transliterator.toRomaji("コーヒー")));
+        assertEquals("ぱーてぃー", transliterator.toHiragana(transliterator.toRomaji("パーティー")));
+    }
+
+    private void assertRoundTrip(String kana) {
+        String romaji = transliterator.toRomaji(kana);
+        assertEquals(kana, transliterator.toHiragana(romaji), () -> kana + " -> " + romaji);
+    }
+
+    /**
+     * Mọi Hiragana đơn lẻ và mọi tổ hợp (Hiragana + Kana nhỏ), cùng っ, ん và ー.
+     */
+    private static List<String> syllables() {
+        List<String> syllables = new ArrayList<>();
+        for (char c = 'ぁ'; c <= 'ゖ'; c++) {
+            syllables.add(String.valueOf(c));
+            if (SMALL_KANA.indexOf(c) < 0) {
+                for (char small : SMALL_KANA.toCharArray()) {
+                    syllables.add("" + c + small);
+                }
+            }
+        }
+        syllables.add("ー");
+        return syllables;
+    }
+}
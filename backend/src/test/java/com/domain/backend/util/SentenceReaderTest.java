@@ -0,0 +1,69 @@
+package com.domain.backend.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SentenceReaderTest {
+
+    private static List<String> read(Reader reader, int maxLength) throws IOException {
+        SentenceReader sentences = new SentenceReader(reader, maxLength);
+        List<String> result = new ArrayList<>();
+        for (String sentence = sentences.next(); sentence != null; sentence = sentences.next()) {
+            result.add(sentence);
+        }
+        return result;
+    }
+
+    @Test
+    void splitsAfterSentenceEndingsAndClosingBrackets() throws IOException {
+        String text = "先生は「明日は試験です。」と言いました。本当？\n\nはい!終わり";
+
+        List<String> sentences = read(new StringReader(text), 100);
+
+        assertEquals(List.of("先生は「明日は試験です。」", "と言いました。", "本当？", "\n", "\n", "はい!", "終わり"), sentences);
+        assertEquals(sentences, new JapaneseTextUtils().splitSentences(text));
+        assertEquals(List.of(), read(new StringReader(""), 100));
+    }
+
+    @Test
+    void readsAcrossBufferBoundariesOneCharAtATime() throws IOException {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 3000; i++) {
+            text.append("日本語を勉強します。");
+        }
+        // Reader trả về từng ký tự một, như một luồng mạng chậm
+        Reader slow = new StringReader(text.toString()) {
+            @Override
+            public int read(char[] buffer, int offset, int length) throws IOException {
+                return super.read(buffer, offset, Math.min(length, 1));
+            }
+        };
+
+        List<String> sentences = read(slow, 100);
+
+        assertEquals(3000, sentences.size());
+        assertEquals(text.toString(), String.join("", sentences));
+    }
+
+    @Test
+    void cutsLongSentencesWithoutSplittingSurrogatePairs() throws IOException {
+        String text = "𠮷".repeat(10) + "あいう";
+
+        List<String> sentences = read(new StringReader(text), 5);
+
+        assertEquals(text, String.join("", sentences));
+        for (String sentence : sentences) {
+            assertTrue(sentence.length() <= 6, sentence);
+            assertFalse(Character.isLowSurrogate(sentence.charAt(0)), sentence);
+        }
+    }
+}
@@ -43,4 +43,7 @@ api.interceptors.response.use(
   }
 );
 
+// Resolve a server-relative URL returned by the API (e.g. a kanji's strokeOrderSvgUrl) against the API host
+export const resolveApiUrl = (path) => new URL(path, new URL(API_BASE_URL, window.location.origin)).href;
+
 export default api;
\ No newline at end of file
@@ -13,6 +13,10 @@ class CourseService {
     return api.get('/courses');
   }
 
+  getCoursesPage(after = null, size = 50) {
+    return api.get('/courses/page', { params: { after, size } });
+  }
+
   updateCourse(id, courseData) {
     return api.put(`/courses/${id}`, courseData);
   }
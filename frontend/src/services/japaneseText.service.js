@@ -5,6 +5,35 @@ class JapaneseTextService {
     return api.get('/japanese-text/furigana', { params: { text } });
   }
 
+  // Furigana for a very large text, streamed back sentence by sentence; onDownloadProgress sees partial output
+  streamFurigana(text, onDownloadProgress) {
+    return api.post('/japanese-text/furigana/stream', text, {
+      headers: { 'Content-Type': 'text/plain; charset=utf-8' },
+      responseType: 'text',
+      onDownloadProgress,
+    });
+  }
+
+  // Furigana for many texts at once (e.g. a whole course), returned in input order
+  generateFuriganaBatch(texts) {
+    return api.post('/japanese-text/furigana/batch', { texts });
+  }
+
+  // Structured ruby tokens: [{ surface, reading, baseForm, partOfSpeech, start, end }]
+  getRubyTokens(text) {
+    return api.get('/japanese-text/furigana/tokens', { params: { text } });
+  }
+
+  // Finds every dictionary word in a text: { matches: [{ start, end, surface, entryIds }], entries: { id: entry } }
+  scanText(text, overlapping = false) {
+    return api.post('/japanese-text/scan', { text, overlapping });
+  }
+
+  // Dictionary entries for a conjugated word, e.g. 食べた → 食べる: [{ term, reasons, entry }]
+  lookupInflectedWord(word) {
+    return api.get('/japanese-text/vocabulary/deinflect', { params: { word } });
+  }
+
   createVocabularyEntry(vocabularyEntry) {
     return api.post('/japanese-text/vocabulary', vocabularyEntry);
   }
@@ -17,6 +46,10 @@ class JapaneseTextService {
     return api.get('/japanese-text/vocabulary');
   }
 
+  getVocabularyPage(after = null, size = 50) {
+    return api.get('/japanese-text/vocabulary/page', { params: { after, size } });
+  }
+
   updateVocabularyEntry(id, vocabularyEntry) {
     return api.put(`/japanese-text/vocabulary/${id}`, vocabularyEntry);
   }
@@ -13,6 +13,11 @@ class KanjiService {
     return api.get('/kanji');
   }
 
+  // Keyset pagination: pass the previous page's nextCursor as `after`
+  getKanjiPage(after = null, size = 50) {
+    return api.get('/kanji/page', { params: { after, size } });
+  }
+
   updateKanjiEntry(id, kanjiData) {
     return api.put(`/kanji/${id}`, kanjiData);
   }
@@ -21,10 +26,20 @@ class KanjiService {
     return api.delete(`/kanji/${id}`);
   }
 
+  // One request for a whole text: returns { kanji: {char: entry}, vocabulary: {word: entry}, notFound: [] }
+  lookupEntries({ text = null, characters = [], words = [] } = {}) {
+    return api.post('/kanji/lookup', { text, characters, words });
+  }
+
   searchKanji(searchRequest) {
     // For GET requests with complex objects, use params
     return api.get('/kanji/search', { params: searchRequest });
   }
+
+  findByRadicals(radicals, { minStrokes, maxStrokes, limit = 100 } = {}) {
+    // Spring binds a comma-separated value to List<String>
+    return api.get('/kanji/by-radicals', { params: { radicals: radicals.join(','), minStrokes, maxStrokes, limit } });
+  }
 }
 
 export default new KanjiService();
\ No newline at end of file
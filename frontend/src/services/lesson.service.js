@@ -14,6 +14,11 @@ class LessonService {
     return api.get(`/modules/${moduleId}/lessons`);
   }
 
+  // Precomputed furigana of the lesson content: { lessonId, contentHash, furigana, tokens, stale, annotatedAt }
+  getLessonFurigana(lessonId) {
+    return api.get(`/lessons/${lessonId}/furigana`);
+  }
+
   updateLesson(lessonId, lessonData) {
     // Note: Backend endpoint is /api/lessons/{lessonId}
     return api.put(`/lessons/${lessonId}`, lessonData);
@@ -27,6 +32,10 @@ class LessonService {
   getAllLessons() {
     return api.get('/lessons'); // Assuming a backend endpoint /api/lessons exists for this
   }
+
+  getLessonsPage(after = null, size = 50) {
+    return api.get('/lessons/page', { params: { after, size } });
+  }
 }
 
 export default new LessonService();
\ No newline at end of file
@@ -36,6 +36,10 @@ class QuizService {
   getAllQuizzes() {
     return api.get('/quizzes'); // Assuming a backend endpoint /api/quizzes exists for this
   }
+
+  getQuizzesPage(after = null, size = 50) {
+    return api.get('/quizzes/page', { params: { after, size } });
+  }
 }
 
 export default new QuizService();
\ No newline at end of file
@@ -5,10 +5,13 @@ class SearchService {
     return api.get('/search/text', { params: searchRequest });
   }
 
-  // If you implement handwriting search later, you'd add it here
-  // searchHandwriting(handwritingSearchRequest) {
-  //   return api.post('/search/handwriting', handwritingSearchRequest);
-  // }
+  suggest(prefix, limit = 10) {
+    return api.get('/search/suggest', { params: { prefix, limit } });
+  }
+
+  searchHandwriting(imageDataBase64, { strokeCount, limit = 10 } = {}) {
+    return api.post('/search/handwriting', { imageDataBase64, strokeCount, limit });
+  }
 }
 
 export default new SearchService();
\ No newline at end of file
@@ -20,6 +20,10 @@ class UserService {
   getAllUsers() {
     return api.get('/users');
   }
+
+  getUsersPage(after = null, size = 50) {
+    return api.get('/users/page', { params: { after, size } });
+  }
 }
 
 export default new UserService();
\ No newline at end of file